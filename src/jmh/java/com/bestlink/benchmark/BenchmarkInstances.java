@@ -0,0 +1,93 @@
+package com.bestlink.benchmark;
+
+import com.alibaba.cloud.nacos.ribbon.NacosServer;
+import com.alibaba.nacos.api.naming.pojo.Instance;
+import com.bestlink.configuration.LocalNacosServerInstanceConfiguration;
+import com.netflix.loadbalancer.Server;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基准测试使用的服务实例列表。
+ * <p>
+ * 共 count 个实例，其中 round(count * localRatio) 个为本地实例（metadata 中携带 "local-instance-id"），
+ * 本地实例的 host 为 10.1.x.x，非本地实例的 host 为 10.0.x.x。
+ *
+ * @author xuzhongkang
+ * @since 2026/10/17 09:30
+ **/
+final class BenchmarkInstances {
+
+    static final String SERVICE_ID = "benchmark-service";
+
+    /**
+     * 不匹配任何本地实例的调用方 ip。
+     */
+    static final String REMOTE_CALLER_IP = "192.168.100.100";
+
+    private BenchmarkInstances() {
+    }
+
+    static int localCount(int count, double localRatio) {
+        return (int) Math.round(count * localRatio);
+    }
+
+    /**
+     * 匹配最后一个本地实例的调用方 ip，没有本地实例时返回 {@link #REMOTE_CALLER_IP}。
+     */
+    static String callerIp(int count, double localRatio, boolean localCaller) {
+        int local = localCount(count, localRatio);
+        return localCaller && local > 0 ? localHost(local - 1) : REMOTE_CALLER_IP;
+    }
+
+    static List<ServiceInstance> serviceInstances(int count, double localRatio) {
+        int local = localCount(count, localRatio);
+        List<ServiceInstance> instances = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            boolean isLocal = i < local;
+            String host = isLocal ? localHost(i) : sharedHost(i);
+            Map<String, String> metadata = new HashMap<>();
+            metadata.put("nacos.weight", "1.0");
+            if (isLocal) {
+                metadata.put(LocalNacosServerInstanceConfiguration.NACOS_METADATA_LOCAL_KEY, "local-instance");
+            }
+            instances.add(new DefaultServiceInstance(host + ":8080", SERVICE_ID, host, 8080, false, metadata));
+        }
+        // 本地实例分散在列表中
+        Collections.shuffle(instances, new java.util.Random(count));
+        return instances;
+    }
+
+    static List<Server> nacosServers(int count, double localRatio) {
+        int local = localCount(count, localRatio);
+        List<Server> servers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            boolean isLocal = i < local;
+            Instance instance = new Instance();
+            instance.setIp(isLocal ? localHost(i) : sharedHost(i));
+            instance.setPort(8080);
+            instance.setServiceName(SERVICE_ID);
+            instance.setWeight(1.0D);
+            if (isLocal) {
+                instance.addMetadata(LocalNacosServerInstanceConfiguration.NACOS_METADATA_LOCAL_KEY, "local-instance");
+            }
+            servers.add(new NacosServer(instance));
+        }
+        Collections.shuffle(servers, new java.util.Random(count));
+        return servers;
+    }
+
+    private static String localHost(int i) {
+        return "10.1." + (i >> 8 & 0xff) + "." + (i & 0xff);
+    }
+
+    private static String sharedHost(int i) {
+        return "10.0." + (i >> 8 & 0xff) + "." + (i & 0xff);
+    }
+}
@@ -0,0 +1,103 @@
+package com.bestlink.benchmark;
+
+import com.bestlink.resolver.ClientIpResolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.StringUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求头解析原始 ip 的基准测试。
+ * <p>
+ * legacy 为改造前 getOriginIp 的实现（逐个读取请求头，X-Forwarded-For 使用 split），作为对比基线。
+ *
+ * @author xuzhongkang
+ * @since 2026/10/17 09:30
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClientIpResolverBenchmark {
+
+    /**
+     * <ul>
+     *     <li>REAL_IP：只有 x-real-ip</li>
+     *     <li>XFF：只有单个 ip 的 x-forwarded-for</li>
+     *     <li>XFF_MULTI_HOP：经过多层代理的 x-forwarded-for</li>
+     *     <li>CLIENT_IP：只有网关添加的 X_CLIENT_IP</li>
+     *     <li>MISSING：没有任何 ip 请求头</li>
+     * </ul>
+     */
+    @Param({"REAL_IP", "XFF", "XFF_MULTI_HOP", "CLIENT_IP", "MISSING"})
+    private String headerCase;
+
+    private final ClientIpResolver resolver = new ClientIpResolver();
+    private HttpHeaders headers;
+
+    @Setup
+    public void setup() {
+        headers = new HttpHeaders();
+        headers.add(HttpHeaders.ACCEPT, "application/json");
+        headers.add(HttpHeaders.USER_AGENT, "benchmark");
+        switch (headerCase) {
+            case "REAL_IP":
+                headers.add(ClientIpResolver.X_REAL_IP, "10.0.0.1");
+                break;
+            case "XFF":
+                headers.add(ClientIpResolver.X_FORWARDED_FOR, "10.0.0.1");
+                break;
+            case "XFF_MULTI_HOP":
+                headers.add(ClientIpResolver.X_FORWARDED_FOR, "10.0.0.1, 172.16.0.1, 172.16.0.2, 192.168.0.1");
+                break;
+            case "CLIENT_IP":
+                headers.add(ClientIpResolver.X_CLIENT_IP, "10.0.0.1");
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Benchmark
+    public String resolver() {
+        return resolver.resolve(headers, HttpHeaders::getFirst);
+    }
+
+    @Benchmark
+    public String legacy() {
+        String ip = headers.getFirst(ClientIpResolver.X_REAL_IP);
+        if (notFound(ip)) {
+            ip = headers.getFirst(ClientIpResolver.X_FORWARDED_FOR);
+        }
+        if (notFound(ip)) {
+            ip = headers.getFirst(ClientIpResolver.PROXY_CLIENT_IP);
+        }
+        if (notFound(ip)) {
+            ip = headers.getFirst(ClientIpResolver.WL_PROXY_CLIENT_IP);
+        }
+        if (notFound(ip)) {
+            ip = headers.getFirst(ClientIpResolver.X_CLIENT_IP);
+        }
+        if (StringUtils.hasLength(ip) && ip.contains(",")) {
+            ip = ip.split(",")[0];
+        }
+        return ip;
+    }
+
+    private static boolean notFound(String ip) {
+        return !StringUtils.hasLength(ip) || "unknown".equalsIgnoreCase(ip);
+    }
+}
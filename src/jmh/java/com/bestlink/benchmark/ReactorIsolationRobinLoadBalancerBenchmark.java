@@ -0,0 +1,100 @@
+package com.bestlink.benchmark;
+
+import com.bestlink.loadbalancer.ReactorIsolationRobinLoadBalancer;
+import com.bestlink.resolver.ClientIpResolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.RequestData;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.SimpleObjectProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.LinkedMultiValueMap;
+import reactor.core.publisher.Flux;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ReactorIsolationRobinLoadBalancer#choose} 基准测试。
+ * <p>
+ * 实例列表由一个始终返回同一个 List 的 supplier 提供，与开启缓存的 ServiceInstanceListSupplier 行为一致；
+ * 每次调用创建新的 RequestData，与 gateway 中每个请求的开销一致。
+ *
+ * @author xuzhongkang
+ * @since 2026/10/17 09:30
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReactorIsolationRobinLoadBalancerBenchmark {
+
+    private static final URI URL = URI.create("http://" + BenchmarkInstances.SERVICE_ID + "/api/hello");
+
+    @Param({"1", "10", "100", "1000", "10000"})
+    private int instances;
+
+    @Param({"0", "0.1", "0.5"})
+    private double localRatio;
+
+    @Param({"true", "false"})
+    private boolean localCaller;
+
+    private ReactorIsolationRobinLoadBalancer loadBalancer;
+    private HttpHeaders headers;
+
+    @Setup
+    public void setup() {
+        List<ServiceInstance> serviceInstances = BenchmarkInstances.serviceInstances(instances, localRatio);
+        loadBalancer = new ReactorIsolationRobinLoadBalancer(
+                new SimpleObjectProvider<>(new FixedServiceInstanceListSupplier(serviceInstances)), BenchmarkInstances.SERVICE_ID);
+        headers = new HttpHeaders();
+        headers.add(ClientIpResolver.X_FORWARDED_FOR, BenchmarkInstances.callerIp(instances, localRatio, localCaller) + ", 172.16.0.1");
+    }
+
+    @Benchmark
+    public Response<ServiceInstance> choose() {
+        RequestData requestData = new RequestData(HttpMethod.GET, URL, headers, new LinkedMultiValueMap<>(), new HashMap<>());
+        return loadBalancer.choose(new DefaultRequest<>(new RequestDataContext(requestData))).block();
+    }
+
+    /**
+     * 始终返回同一个实例列表。
+     */
+    private static final class FixedServiceInstanceListSupplier implements ServiceInstanceListSupplier {
+
+        private final Flux<List<ServiceInstance>> instances;
+
+        private FixedServiceInstanceListSupplier(List<ServiceInstance> instances) {
+            this.instances = Flux.just(instances);
+        }
+
+        @Override
+        public String getServiceId() {
+            return BenchmarkInstances.SERVICE_ID;
+        }
+
+        @Override
+        public Flux<List<ServiceInstance>> get() {
+            return instances;
+        }
+    }
+}
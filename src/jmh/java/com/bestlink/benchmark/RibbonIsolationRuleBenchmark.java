@@ -0,0 +1,118 @@
+package com.bestlink.benchmark;
+
+import com.bestlink.loadbalancer.RibbonIsolationRule;
+import com.bestlink.resolver.ClientIpResolver;
+import com.netflix.loadbalancer.BaseLoadBalancer;
+import com.netflix.loadbalancer.Server;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RibbonIsolationRule#choose} 基准测试。
+ * <p>
+ * 使用不开启 ping 的 BaseLoadBalancer，每次调用绑定一个新的 request，与 Feign 在 servlet 请求线程中调用时的开销一致。
+ *
+ * @author xuzhongkang
+ * @since 2026/10/17 09:30
+ **/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RibbonIsolationRuleBenchmark {
+
+    @Param({"1", "10", "100", "1000", "10000"})
+    private int instances;
+
+    @Param({"0", "0.1", "0.5"})
+    private double localRatio;
+
+    @Param({"true", "false"})
+    private boolean localCaller;
+
+    private RibbonIsolationRule rule;
+    private BaseLoadBalancer loadBalancer;
+    private String forwardedFor;
+
+    @Setup
+    public void setup() {
+        rule = new RibbonIsolationRule();
+        loadBalancer = new BaseLoadBalancer();
+        loadBalancer.setRule(rule);
+        loadBalancer.setServersList(BenchmarkInstances.nacosServers(instances, localRatio));
+        forwardedFor = BenchmarkInstances.callerIp(instances, localRatio, localCaller) + ", 172.16.0.1";
+    }
+
+    @TearDown
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        loadBalancer.shutdown();
+    }
+
+    @Benchmark
+    public Server choose() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new BenchmarkServletRequest(forwardedFor)));
+        return rule.choose(null);
+    }
+
+    /**
+     * 只实现负载均衡用到的方法。
+     */
+    private static final class BenchmarkServletRequest extends HttpServletRequestWrapper {
+
+        private static final HttpServletRequest UNSUPPORTED = (HttpServletRequest) Proxy.newProxyInstance(
+                HttpServletRequest.class.getClassLoader(), new Class<?>[]{HttpServletRequest.class},
+                (proxy, method, args) -> {
+                    throw new UnsupportedOperationException(method.getName());
+                });
+
+        private final String forwardedFor;
+        private final Map<String, Object> attributes = new HashMap<>();
+
+        private BenchmarkServletRequest(String forwardedFor) {
+            super(UNSUPPORTED);
+            this.forwardedFor = forwardedFor;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return ClientIpResolver.X_FORWARDED_FOR.equalsIgnoreCase(name) ? forwardedFor : null;
+        }
+
+        @Override
+        public Object getAttribute(String name) {
+            return attributes.get(name);
+        }
+
+        @Override
+        public void setAttribute(String name, Object o) {
+            attributes.put(name, o);
+        }
+
+        @Override
+        public String getRemoteAddr() {
+            return "127.0.0.1";
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.bestlink.affinity;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 调用方到服务实例的粘性映射，key 为调用方标识（客户端 ip 或指定请求头），value 为实例标识（host:port）。
+ * <p>
+ * 条目在写入 ttl 时间后过期；条目数超过上限时，先清理过期条目，仍然超过时按遍历顺序淘汰一批，淘汰过程只允许一个线程进行，
+ * 读取不加锁。实例下线后，通过 {@link #retainInstances(Set)} 清理指向该实例的条目。
+ *
+ * @author xuzhongkang
+ * @see com.bestlink.loadbalancer.ReactorIsolationRobinLoadBalancer
+ * @since 2026/10/17 16:20
+ **/
+public class AffinityCache {
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private final long ttlNanos;
+    private final int maxSize;
+
+    public AffinityCache(Duration ttl, int maxSize) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxSize = Math.max(1, maxSize);
+    }
+
+    /**
+     * 获取调用方对应的实例标识，不存在或已过期时返回 null。
+     */
+    public String get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(System.nanoTime(), ttlNanos)) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.instanceKey;
+    }
+
+    public void put(String key, String instanceKey) {
+        entries.put(key, new Entry(instanceKey, System.nanoTime()));
+        if (entries.size() > maxSize) {
+            evict();
+        }
+    }
+
+    /**
+     * 只保留指向传入实例的条目。
+     */
+    public void retainInstances(Set<String> instanceKeys) {
+        entries.values().removeIf(entry -> !instanceKeys.contains(entry.instanceKey));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void evict() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long now = System.nanoTime();
+            entries.values().removeIf(entry -> entry.isExpired(now, ttlNanos));
+            // 一次淘汰到上限的 90%，避免缓存满时每次写入都触发遍历
+            int target = maxSize - maxSize / 10;
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (entries.size() > target && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private static final class Entry {
+
+        private final String instanceKey;
+        private final long createdNanos;
+
+        private Entry(String instanceKey, long createdNanos) {
+            this.instanceKey = instanceKey;
+            this.createdNanos = createdNanos;
+        }
+
+        private boolean isExpired(long now, long ttlNanos) {
+            return now - createdNanos >= ttlNanos;
+        }
+    }
+}
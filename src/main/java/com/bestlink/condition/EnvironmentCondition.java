@@ -16,10 +16,13 @@ import java.util.Set;
  * 默认为开发（dev）和测试（test）环境，可以通过 "local.isolation-loadbalancer.active-env" 进行配置。
  * 服务启动时会根据 "spring.profiles.active" 的值判断，如果 "spring.profiles.active" 和 "local.isolation-loadbalancer.active-env" 有交集则生效，否则不生效。
  * <p>
+ * 开启 "local.isolation-loadbalancer.hot-reload" 时在所有环境中生效，是否在当前环境路由到本地服务实例改为在运行时判断，
+ * 修改 active-env 后不需要重启。
  *
  * @author xuzhongkang
  * @see RibbonIsolationAutoConfiguration
  * @see com.bestlink.configuration.ReactorIsolationLoadBalancerConfiguration
+ * @see com.bestlink.properties.IsolationSettings#isActive()
  * @since 2023/9/25 12:54
  **/
 @SuppressWarnings("unchecked")
@@ -28,6 +31,7 @@ public class EnvironmentCondition implements Condition {
 
     private static final String SPRING_PROFILES_ACTIVE = "spring.profiles.active";
     private static final String ISOLATION_ENV_ACTIVE = "local.isolation-loadbalancer.active-env";
+    private static final String ISOLATION_HOT_RELOAD = "local.isolation-loadbalancer.hot-reload";
     private static final Set<String> DEFAULT_ISOLATION_ENV_ACTIVE = new HashSet<>();
 
 
@@ -49,7 +53,10 @@ public class EnvironmentCondition implements Condition {
 
     private boolean envMatches(ConditionContext context) {
         Environment environment = context.getEnvironment();
-        Set<String> activeEnvSet = environment.getProperty(SPRING_PROFILES_ACTIVE, Set.class);
+        if (Boolean.TRUE.equals(environment.getProperty(ISOLATION_HOT_RELOAD, Boolean.class))) {
+            return true;
+        }
+        Set<String> activeEnvSet = activeProfiles(environment);
         Set<String> specEnvSet = environment.getProperty(ISOLATION_ENV_ACTIVE, Set.class);
         if (activeEnvSet == null) {
             return false;
@@ -59,4 +66,11 @@ public class EnvironmentCondition implements Condition {
         }
         return specEnvSet.stream().anyMatch(activeEnvSet::contains);
     }
+
+    /**
+     * 当前环境的 "spring.profiles.active"，没有配置时返回 null。
+     */
+    public static Set<String> activeProfiles(Environment environment) {
+        return environment.getProperty(SPRING_PROFILES_ACTIVE, Set.class);
+    }
 }
@@ -0,0 +1,109 @@
+package com.bestlink.configuration;
+
+import com.bestlink.condition.EnvironmentCondition;
+import com.bestlink.endpoint.IsolationEndpoint;
+import com.bestlink.endpoint.RoutingDecisionRecorder;
+import com.bestlink.endpoint.RoutingSnapshotProvider;
+import com.bestlink.endpoint.RoutingSnapshotView;
+import com.bestlink.loadbalancer.ReactorIsolationRobinLoadBalancer;
+import com.bestlink.loadbalancer.RibbonIsolationRule;
+import com.bestlink.properties.IsolationProperties;
+import com.netflix.loadbalancer.BaseLoadBalancer;
+import com.netflix.loadbalancer.ILoadBalancer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingClass;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.cloud.netflix.ribbon.SpringClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 注入流量隔离诊断端点 {@link IsolationEndpoint}（"/actuator/isolation"）及路由决策抽样记录 {@link RoutingDecisionRecorder}，
+ * 存在 actuator 并且端点可用（开启并暴露）时生效，没有开启时负载均衡器不记录路由决策。
+ * <p>
+ * 只在主容器中注入，负载均衡器（子容器中）通过 ObjectProvider 获取。路由快照按 gateway、Ribbon 分别读取，
+ * 只包含已经创建了负载均衡器的服务，查看时不会为其他服务创建子容器。
+ *
+ * @author xuzhongkang
+ * @since 2026/10/21 17:20
+ **/
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnClass(Endpoint.class)
+@ConditionalOnAvailableEndpoint(endpoint = IsolationEndpoint.class)
+@Conditional(EnvironmentCondition.class)
+public class IsolationEndpointConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public RoutingDecisionRecorder isolationRoutingDecisionRecorder(ObjectProvider<IsolationProperties> isolationProperties) {
+        return RoutingDecisionRecorder.create(isolationProperties.getIfAvailable(IsolationProperties::new).getDecisions());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public IsolationEndpoint isolationEndpoint(ObjectProvider<RoutingSnapshotProvider> snapshotProviders,
+                                               RoutingDecisionRecorder decisionRecorder) {
+        return new IsolationEndpoint(snapshotProviders, decisionRecorder);
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(LoadBalancerClientFactory.class)
+    @ConditionalOnMissingClass("com.netflix.loadbalancer.IRule")
+    static class ReactorSnapshotConfiguration {
+
+        @Bean
+        public RoutingSnapshotProvider reactorIsolationSnapshots(ObjectProvider<LoadBalancerClientFactory> loadBalancerClientFactory) {
+            return () -> {
+                LoadBalancerClientFactory factory = loadBalancerClientFactory.getIfAvailable();
+                if (factory == null) {
+                    return Collections.emptyMap();
+                }
+                Map<String, RoutingSnapshotView> snapshots = new HashMap<>();
+                for (String name : factory.getContextNames()) {
+                    ReactorServiceInstanceLoadBalancer loadBalancer = factory.getInstance(name, ReactorServiceInstanceLoadBalancer.class);
+                    RoutingSnapshotView view = loadBalancer instanceof ReactorIsolationRobinLoadBalancer
+                            ? ((ReactorIsolationRobinLoadBalancer) loadBalancer).describe() : null;
+                    if (view != null) {
+                        snapshots.put(name, view);
+                    }
+                }
+                return snapshots;
+            };
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = {"com.netflix.loadbalancer.IRule", "org.springframework.cloud.netflix.ribbon.SpringClientFactory"})
+    static class RibbonSnapshotConfiguration {
+
+        @Bean
+        public RoutingSnapshotProvider ribbonIsolationSnapshots(ObjectProvider<SpringClientFactory> springClientFactory) {
+            return () -> {
+                SpringClientFactory factory = springClientFactory.getIfAvailable();
+                if (factory == null) {
+                    return Collections.emptyMap();
+                }
+                Map<String, RoutingSnapshotView> snapshots = new HashMap<>();
+                for (String name : factory.getContextNames()) {
+                    ILoadBalancer loadBalancer = factory.getLoadBalancer(name);
+                    RoutingSnapshotView view = loadBalancer instanceof BaseLoadBalancer && ((BaseLoadBalancer) loadBalancer).getRule() instanceof RibbonIsolationRule
+                            ? ((RibbonIsolationRule) ((BaseLoadBalancer) loadBalancer).getRule()).describe() : null;
+                    if (view != null) {
+                        snapshots.put(name, view);
+                    }
+                }
+                return snapshots;
+            };
+        }
+    }
+}
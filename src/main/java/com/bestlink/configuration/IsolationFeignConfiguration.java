@@ -0,0 +1,78 @@
+package com.bestlink.configuration;
+
+import com.bestlink.condition.EnvironmentCondition;
+import com.bestlink.propagation.IsolationCachingLoadBalancerFactory;
+import com.bestlink.propagation.IsolationFeignRequestInterceptor;
+import com.bestlink.propagation.IsolationKeyResolver;
+import com.bestlink.propagation.IsolationTokenCodec;
+import com.bestlink.properties.IsolationProperties;
+import com.bestlink.properties.IsolationSettingsHolder;
+import com.netflix.loadbalancer.IRule;
+import feign.RequestInterceptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfigureBefore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.cloud.netflix.ribbon.SpringClientFactory;
+import org.springframework.cloud.openfeign.ribbon.CachingSpringLoadBalancerFactory;
+import org.springframework.cloud.openfeign.ribbon.FeignLoadBalancer;
+import org.springframework.cloud.openfeign.ribbon.FeignRibbonClientAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * Feign + Ribbon 模式下传递流量隔离标识。
+ * <p>
+ * Feign 请求拦截器将请求方 ip 写入请求头，{@link IsolationCachingLoadBalancerFactory} 将其作为 loadBalancerKey 传给
+ * {@link com.bestlink.loadbalancer.RibbonIsolationRule}，负载均衡时不再依赖当前线程上的 servlet 请求。
+ * 同时注入 {@link TaskDecorator}（没有自定义时），ThreadPoolTaskExecutor（@Async 等）中执行的 Feign 调用使用提交任务时的请求方 ip。
+ *
+ * @author xuzhongkang
+ * @see IsolationKeyResolver
+ * @since 2026/10/20 16:10
+ **/
+@Configuration(proxyBeanMethods = false)
+@Conditional(EnvironmentCondition.class)
+@ConditionalOnClass({IRule.class, RequestInterceptor.class, FeignLoadBalancer.class})
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@AutoConfigureBefore(FeignRibbonClientAutoConfiguration.class)
+public class IsolationFeignConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public IsolationKeyResolver isolationKeyResolver(ObjectProvider<IsolationProperties> isolationProperties,
+                                                     ObjectProvider<IsolationSettingsHolder> settingsHolder) {
+        IsolationProperties properties = isolationProperties.getIfAvailable(IsolationProperties::new);
+        return new IsolationKeyResolver(settingsHolder.getIfAvailable(() -> IsolationSettingsHolder.of(properties)),
+                IsolationTokenCodec.create(properties.getPropagation()), properties.getTargetHeader(),
+                properties.getHash() == null ? null : properties.getHash().getHeader());
+    }
+
+    @Bean
+    public IsolationFeignRequestInterceptor isolationFeignRequestInterceptor(IsolationKeyResolver isolationKeyResolver) {
+        return new IsolationFeignRequestInterceptor(isolationKeyResolver);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public TaskDecorator isolationTaskDecorator(IsolationKeyResolver isolationKeyResolver) {
+        return isolationKeyResolver::wrap;
+    }
+
+    /**
+     * 存在 spring-retry 时 Feign 使用 RetryableFeignLoadBalancer，不替换。
+     */
+    @Bean
+    @Primary
+    @ConditionalOnMissingBean
+    @ConditionalOnMissingClass("org.springframework.retry.support.RetryTemplate")
+    public CachingSpringLoadBalancerFactory isolationCachingLoadBalancerFactory(SpringClientFactory factory,
+                                                                                IsolationKeyResolver isolationKeyResolver) {
+        return new IsolationCachingLoadBalancerFactory(factory, isolationKeyResolver);
+    }
+}
@@ -0,0 +1,29 @@
+package com.bestlink.configuration;
+
+import com.bestlink.metrics.MicrometerRoutingMetrics;
+import com.bestlink.metrics.RoutingMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 负载均衡指标配置类，存在 Micrometer 并且容器中有 MeterRegistry 时，记录路由结果、choose 耗时及实例数量。
+ *
+ * @author xuzhongkang
+ * @see MicrometerRoutingMetrics
+ * @since 2026/10/16 17:30
+ **/
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnClass(MeterRegistry.class)
+public class IsolationMetricsConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public RoutingMetrics isolationRoutingMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+        MeterRegistry registry = meterRegistry.getIfUnique();
+        return registry == null ? RoutingMetrics.NOOP : new MicrometerRoutingMetrics(registry);
+    }
+}
@@ -1,9 +1,15 @@
 package com.bestlink.configuration;
 
+import com.bestlink.endpoint.RoutingDecisionRecorder;
 import com.bestlink.loadbalancer.RibbonIsolationRule;
+import com.bestlink.metrics.RoutingMetrics;
+import com.bestlink.properties.IsolationProperties;
+import com.bestlink.properties.IsolationSettingsHolder;
 import com.netflix.loadbalancer.IRule;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 
 /**
  * @author xuzhongkang
@@ -12,8 +18,19 @@ import org.springframework.context.annotation.Configuration;
 @Configuration(proxyBeanMethods = false)
 public class IsolationRibbonClientConfiguration {
 
+    /**
+     * @see org.springframework.cloud.netflix.ribbon.RibbonClientName
+     */
+    private static final String RIBBON_CLIENT_NAME = "ribbon.client.name";
+
     @Bean
-    public IRule ribbonRule() {
-        return new RibbonIsolationRule();
+    public IRule ribbonRule(Environment environment, ObjectProvider<IsolationProperties> isolationProperties,
+                            ObjectProvider<IsolationSettingsHolder> settingsHolder, ObjectProvider<RoutingMetrics> routingMetrics,
+                            ObjectProvider<RoutingDecisionRecorder> decisionRecorder) {
+        String name = environment.getProperty(RIBBON_CLIENT_NAME);
+        IsolationProperties properties = isolationProperties.getIfAvailable(IsolationProperties::new);
+        return new RibbonIsolationRule(properties, settingsHolder.getIfAvailable(() -> IsolationSettingsHolder.of(properties)), name,
+                routingMetrics.getIfAvailable(() -> RoutingMetrics.NOOP),
+                decisionRecorder.getIfAvailable(() -> RoutingDecisionRecorder.NOOP));
     }
 }
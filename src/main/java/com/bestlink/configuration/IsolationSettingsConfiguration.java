@@ -0,0 +1,46 @@
+package com.bestlink.configuration;
+
+import com.bestlink.condition.EnvironmentCondition;
+import com.bestlink.properties.IsolationProperties;
+import com.bestlink.properties.IsolationSettings;
+import com.bestlink.properties.IsolationSettingsHolder;
+import com.bestlink.properties.IsolationSettingsRefresher;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * 可以在运行时更新的流量隔离配置。
+ * <p>
+ * 负载均衡器（gateway 及 Ribbon）、全局过滤器从 {@link IsolationSettingsHolder} 读取 active-env、ip-headers、target-ip 及 strategy，
+ * 存在 spring-cloud-context 时监听配置变更并发布新的配置，不需要重启或刷新容器。
+ *
+ * @author xuzhongkang
+ * @see IsolationSettings
+ * @since 2026/10/21 19:30
+ **/
+@Configuration(proxyBeanMethods = false)
+@Conditional(EnvironmentCondition.class)
+public class IsolationSettingsConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public IsolationSettingsHolder isolationSettingsHolder(Environment environment, ObjectProvider<IsolationProperties> isolationProperties) {
+        IsolationProperties properties = isolationProperties.getIfAvailable(IsolationProperties::new);
+        return new IsolationSettingsHolder(IsolationSettings.of(properties, EnvironmentCondition.activeProfiles(environment)));
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "org.springframework.cloud.context.environment.EnvironmentChangeEvent")
+    static class IsolationSettingsRefreshConfiguration {
+
+        @Bean
+        public IsolationSettingsRefresher isolationSettingsRefresher(Environment environment, IsolationSettingsHolder isolationSettingsHolder) {
+            return new IsolationSettingsRefresher(environment, isolationSettingsHolder);
+        }
+    }
+}
@@ -6,6 +6,7 @@ import com.alibaba.cloud.nacos.NacosServiceManager;
 import com.alibaba.cloud.nacos.discovery.NacosDiscoveryAutoConfiguration;
 import com.alibaba.cloud.nacos.discovery.NacosWatch;
 import com.bestlink.properties.IsolationProperties;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
@@ -16,12 +17,14 @@ import org.springframework.cloud.client.ConditionalOnDiscoveryEnabled;
 import org.springframework.cloud.client.discovery.simple.SimpleDiscoveryClientAutoConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.CollectionUtils;
 
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * 本地启动的服务实例，向 Nacos 注册时，增加 local-instance-id 标识。
+ * 配置了 local.isolation-loadbalancer.local-cidrs 时，同时在 local-instance-cidr 中声明本地实例接收请求的地址段。
  * <p>
  * 通过 local.isolation-loadbalancer.enabled 开启，默认为 false。
  *
@@ -40,6 +43,13 @@ public class LocalNacosServerInstanceConfiguration {
 
     public static final String NACOS_METADATA_LOCAL_KEY = "local-instance-id";
 
+    /**
+     * 本地实例声明的请求方地址段，多个地址段以逗号分隔。
+     *
+     * @see IsolationProperties#getLocalCidrs()
+     */
+    public static final String NACOS_METADATA_CIDR_KEY = "local-instance-cidr";
+
     /**
      * @see IsolationProperties#getLocalInstanceId()
      */
@@ -49,12 +59,17 @@ public class LocalNacosServerInstanceConfiguration {
     @Bean
     @ConditionalOnProperty(value = "spring.cloud.nacos.discovery.watch.enabled", matchIfMissing = true)
     public NacosWatch localNacosWatch(NacosServiceManager nacosServiceManager,
-                                      NacosDiscoveryProperties nacosDiscoveryProperties) {
+                                      NacosDiscoveryProperties nacosDiscoveryProperties,
+                                      ObjectProvider<IsolationProperties> isolationProperties) {
         Map<String, String> metadata = nacosDiscoveryProperties.getMetadata();
         if (metadata == null) {
-            metadata = new HashMap<>(1);
+            metadata = new HashMap<>(2);
         }
         metadata.put(NACOS_METADATA_LOCAL_KEY, localInstanceId);
+        IsolationProperties properties = isolationProperties.getIfAvailable(IsolationProperties::new);
+        if (!CollectionUtils.isEmpty(properties.getLocalCidrs())) {
+            metadata.put(NACOS_METADATA_CIDR_KEY, String.join(",", properties.getLocalCidrs()));
+        }
         return new NacosWatch(nacosServiceManager, nacosDiscoveryProperties);
     }
 }
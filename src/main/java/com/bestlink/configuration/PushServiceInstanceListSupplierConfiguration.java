@@ -0,0 +1,41 @@
+package com.bestlink.configuration;
+
+import com.alibaba.cloud.nacos.NacosDiscoveryProperties;
+import com.alibaba.cloud.nacos.NacosServiceManager;
+import com.alibaba.nacos.api.naming.NamingService;
+import com.bestlink.condition.EnvironmentCondition;
+import com.bestlink.supplier.NacosServiceInstanceChangeSource;
+import com.bestlink.supplier.PushServiceInstanceListSupplier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 每个服务的 loadbalancer 子容器中，使用 {@link PushServiceInstanceListSupplier} 替换默认的（服务发现 + 缓存）ServiceInstanceListSupplier。
+ * <p>
+ * 只作为 {@link ReactorIsolationLoadBalancerConfiguration} 中 LoadBalancerClients 的默认配置，不作为自动配置类，
+ * 通过 "local.isolation-loadbalancer.push-enabled" 开启。
+ *
+ * @author xuzhongkang
+ * @since 2026/10/18 09:30
+ **/
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnClass(NamingService.class)
+@ConditionalOnProperty(value = "local.isolation-loadbalancer.push-enabled", havingValue = "true")
+public class PushServiceInstanceListSupplierConfiguration {
+
+    @Bean
+    @ConditionalOnBean({NacosServiceManager.class, NacosDiscoveryProperties.class})
+    @Conditional(EnvironmentCondition.class)
+    public ServiceInstanceListSupplier pushServiceInstanceListSupplier(ConfigurableApplicationContext context,
+                                                                      NacosServiceManager nacosServiceManager,
+                                                                      NacosDiscoveryProperties nacosDiscoveryProperties) {
+        ServiceInstanceListSupplier delegate = ServiceInstanceListSupplier.builder().withDiscoveryClient().build(context);
+        return new PushServiceInstanceListSupplier(delegate, new NacosServiceInstanceChangeSource(nacosServiceManager, nacosDiscoveryProperties));
+    }
+}
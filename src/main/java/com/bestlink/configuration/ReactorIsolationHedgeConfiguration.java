@@ -0,0 +1,42 @@
+package com.bestlink.configuration;
+
+import com.bestlink.condition.EnvironmentCondition;
+import com.bestlink.hedge.HedgingFilter;
+import com.bestlink.properties.IsolationProperties;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.client.ConditionalOnDiscoveryEnabled;
+import org.springframework.cloud.loadbalancer.config.LoadBalancerAutoConfiguration;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 注入 {@link HedgingFilter}，通过 "local.isolation-loadbalancer.hedge.enabled" 开启。
+ * <p>
+ * 只在主容器中注入，与 {@link ReactorIsolationLifecycleConfiguration} 相同，不放在作为子容器默认配置的
+ * {@link ReactorIsolationLoadBalancerConfiguration} 中。
+ *
+ * @author xuzhongkang
+ * @since 2026/10/20 11:20
+ **/
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnDiscoveryEnabled
+@ConditionalOnMissingClass("com.netflix.loadbalancer.IRule")
+@ConditionalOnProperty(value = "local.isolation-loadbalancer.hedge.enabled", havingValue = "true")
+@AutoConfigureAfter(LoadBalancerAutoConfiguration.class)
+public class ReactorIsolationHedgeConfiguration {
+
+    @Bean
+    @ConditionalOnBean(LoadBalancerClientFactory.class)
+    @Conditional(EnvironmentCondition.class)
+    public HedgingFilter isolationHedgingFilter(LoadBalancerClientFactory loadBalancerClientFactory,
+                                                ObjectProvider<IsolationProperties> isolationProperties) {
+        IsolationProperties properties = isolationProperties.getIfAvailable(IsolationProperties::new);
+        return new HedgingFilter(loadBalancerClientFactory, properties.getHedge());
+    }
+}
@@ -0,0 +1,44 @@
+package com.bestlink.configuration;
+
+import com.bestlink.condition.EnvironmentCondition;
+import com.bestlink.lifecycle.InFlightReleaseFilter;
+import com.bestlink.lifecycle.IsolationLoadBalancerLifecycle;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingClass;
+import org.springframework.cloud.client.ConditionalOnDiscoveryEnabled;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 注入 {@link IsolationLoadBalancerLifecycle}，用于统计 gateway 转发到各服务实例的在途请求数。
+ * <p>
+ * LoadBalancerClientFactory 获取 LoadBalancerLifecycle 时会同时查找父容器，因此只在主容器中注入一次，
+ * 不放在 {@link ReactorIsolationLoadBalancerConfiguration} 中（其同时作为每个服务子容器的默认配置，会导致重复计数）。
+ * gateway 中同时注入 {@link InFlightReleaseFilter}，请求被取消时释放在途请求数。
+ *
+ * @author xuzhongkang
+ * @since 2026/10/17 10:40
+ **/
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnDiscoveryEnabled
+@ConditionalOnMissingClass("com.netflix.loadbalancer.IRule")
+public class ReactorIsolationLifecycleConfiguration {
+
+    @Bean
+    @Conditional(EnvironmentCondition.class)
+    public IsolationLoadBalancerLifecycle isolationLoadBalancerLifecycle() {
+        return new IsolationLoadBalancerLifecycle();
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "org.springframework.cloud.gateway.filter.GlobalFilter")
+    static class InFlightReleaseConfiguration {
+
+        @Bean
+        @Conditional(EnvironmentCondition.class)
+        public InFlightReleaseFilter inFlightReleaseFilter() {
+            return new InFlightReleaseFilter();
+        }
+    }
+}
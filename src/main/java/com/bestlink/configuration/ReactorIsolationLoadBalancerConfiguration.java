@@ -1,8 +1,14 @@
 package com.bestlink.configuration;
 
 import com.bestlink.condition.EnvironmentCondition;
+import com.bestlink.endpoint.RoutingDecisionRecorder;
 import com.bestlink.filter.GlobalClientIpFilter;
 import com.bestlink.loadbalancer.ReactorIsolationRobinLoadBalancer;
+import com.bestlink.metrics.RoutingMetrics;
+import com.bestlink.properties.IsolationProperties;
+import com.bestlink.properties.IsolationSettingsHolder;
+import com.bestlink.propagation.IsolationTokenCodec;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingClass;
@@ -34,20 +40,32 @@ import org.springframework.core.env.Environment;
 @ConditionalOnDiscoveryEnabled
 @AutoConfigureAfter(LoadBalancerClientConfiguration.class)
 @ConditionalOnMissingClass("com.netflix.loadbalancer.IRule")
-@LoadBalancerClients(defaultConfiguration = ReactorIsolationLoadBalancerConfiguration.class)
+@LoadBalancerClients(defaultConfiguration = {ReactorIsolationLoadBalancerConfiguration.class, PushServiceInstanceListSupplierConfiguration.class})
 public class ReactorIsolationLoadBalancerConfiguration {
 
     @Bean
     @Conditional(EnvironmentCondition.class)
-    public ReactorLoadBalancer<ServiceInstance> reactorServiceInstanceLoadBalancer(Environment environment, LoadBalancerClientFactory loadBalancerClientFactory) {
+    public ReactorLoadBalancer<ServiceInstance> reactorServiceInstanceLoadBalancer(Environment environment, LoadBalancerClientFactory loadBalancerClientFactory,
+                                                                                   ObjectProvider<IsolationProperties> isolationProperties,
+                                                                                   ObjectProvider<IsolationSettingsHolder> settingsHolder,
+                                                                                   ObjectProvider<RoutingMetrics> routingMetrics,
+                                                                                   ObjectProvider<RoutingDecisionRecorder> decisionRecorder) {
         String name = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
-        return new ReactorIsolationRobinLoadBalancer(loadBalancerClientFactory.getLazyProvider(name, ServiceInstanceListSupplier.class), name);
+        IsolationProperties properties = isolationProperties.getIfAvailable(IsolationProperties::new);
+        return new ReactorIsolationRobinLoadBalancer(loadBalancerClientFactory.getLazyProvider(name, ServiceInstanceListSupplier.class), name,
+                properties, settingsHolder.getIfAvailable(() -> IsolationSettingsHolder.of(properties)),
+                routingMetrics.getIfAvailable(() -> RoutingMetrics.NOOP),
+                decisionRecorder.getIfAvailable(() -> RoutingDecisionRecorder.NOOP));
     }
 
     @Bean
     @ConditionalOnBean(GlobalFilter.class)
     @Conditional(EnvironmentCondition.class)
-    public GlobalClientIpFilter globalClientIpFilter() {
-        return new GlobalClientIpFilter();
+    public GlobalClientIpFilter globalClientIpFilter(ObjectProvider<IsolationProperties> isolationProperties,
+                                                     ObjectProvider<IsolationSettingsHolder> settingsHolder) {
+        IsolationProperties properties = isolationProperties.getIfAvailable(IsolationProperties::new);
+        return new GlobalClientIpFilter(Boolean.TRUE.equals(properties.getClientIpHeaderEnabled()),
+                settingsHolder.getIfAvailable(() -> IsolationSettingsHolder.of(properties)),
+                IsolationTokenCodec.create(properties.getPropagation()), properties.getTargetHeader());
     }
 }
@@ -0,0 +1,44 @@
+package com.bestlink.configuration;
+
+import com.bestlink.condition.EnvironmentCondition;
+import com.bestlink.properties.IsolationProperties;
+import com.bestlink.warmup.LoadBalancerWarmup;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.client.ConditionalOnDiscoveryEnabled;
+import org.springframework.cloud.gateway.route.RouteDefinitionLocator;
+import org.springframework.cloud.loadbalancer.config.LoadBalancerAutoConfiguration;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 注入 {@link LoadBalancerWarmup}，gateway 启动时预热各服务的负载均衡器，通过 "local.isolation-loadbalancer.warmup.enabled" 开启。
+ * <p>
+ * 只在主容器中注入，与 {@link ReactorIsolationLifecycleConfiguration} 相同，不放在作为子容器默认配置的
+ * {@link ReactorIsolationLoadBalancerConfiguration} 中。
+ *
+ * @author xuzhongkang
+ * @since 2026/10/19 15:40
+ **/
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnDiscoveryEnabled
+@ConditionalOnMissingClass("com.netflix.loadbalancer.IRule")
+@ConditionalOnProperty(value = "local.isolation-loadbalancer.warmup.enabled", havingValue = "true")
+@AutoConfigureAfter(LoadBalancerAutoConfiguration.class)
+public class ReactorIsolationWarmupConfiguration {
+
+    @Bean
+    @ConditionalOnBean(LoadBalancerClientFactory.class)
+    @Conditional(EnvironmentCondition.class)
+    public LoadBalancerWarmup isolationLoadBalancerWarmup(LoadBalancerClientFactory loadBalancerClientFactory,
+                                                          ObjectProvider<RouteDefinitionLocator> routeDefinitionLocator,
+                                                          ObjectProvider<IsolationProperties> isolationProperties) {
+        IsolationProperties properties = isolationProperties.getIfAvailable(IsolationProperties::new);
+        return new LoadBalancerWarmup(loadBalancerClientFactory, routeDefinitionLocator, properties.getWarmup());
+    }
+}
@@ -0,0 +1,74 @@
+package com.bestlink.endpoint;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * 流量隔离诊断端点 "/actuator/isolation"：
+ * <ul>
+ *     <li>"/actuator/isolation"：所有服务当前的路由快照，以及最近抽样记录的路由决策；</li>
+ *     <li>"/actuator/isolation/{service}"：某个服务的路由快照及此服务的路由决策。</li>
+ * </ul>
+ * 需要在 management.endpoints.web.exposure.include 中加入 "isolation"。
+ *
+ * @author xuzhongkang
+ * @see RoutingSnapshotView
+ * @see RoutingDecisionRecorder
+ * @since 2026/10/21 17:20
+ **/
+@Endpoint(id = "isolation")
+public class IsolationEndpoint {
+
+    private final ObjectProvider<RoutingSnapshotProvider> snapshotProviders;
+    private final RoutingDecisionRecorder decisionRecorder;
+
+    public IsolationEndpoint(ObjectProvider<RoutingSnapshotProvider> snapshotProviders, RoutingDecisionRecorder decisionRecorder) {
+        this.snapshotProviders = snapshotProviders;
+        this.decisionRecorder = decisionRecorder;
+    }
+
+    @ReadOperation
+    public Map<String, Object> isolation() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("services", snapshots());
+        result.put("decisions", decisions(decisionRecorder.recent()));
+        return result;
+    }
+
+    @ReadOperation
+    public Map<String, Object> service(@Selector String service) {
+        RoutingSnapshotView snapshot = snapshots().get(service);
+        List<RoutingDecision> decisions = decisionRecorder.recent().stream()
+                .filter(decision -> service.equals(decision.getService()))
+                .collect(Collectors.toList());
+        if (snapshot == null && decisions.isEmpty()) {
+            return null;
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("snapshot", snapshot);
+        result.put("decisions", decisions(decisions));
+        return result;
+    }
+
+    private Map<String, RoutingSnapshotView> snapshots() {
+        Map<String, RoutingSnapshotView> snapshots = new TreeMap<>();
+        snapshotProviders.orderedStream().forEach(provider -> snapshots.putAll(provider.snapshots()));
+        return snapshots;
+    }
+
+    private Map<String, Object> decisions(List<RoutingDecision> decisions) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("sampleRate", decisionRecorder.getSampleRate());
+        result.put("recorded", decisionRecorder.getRecorded());
+        result.put("recent", decisions);
+        return result;
+    }
+}
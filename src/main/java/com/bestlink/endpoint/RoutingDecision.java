@@ -0,0 +1,139 @@
+package com.bestlink.endpoint;
+
+import com.bestlink.metrics.RoutingOutcome;
+
+import java.time.Instant;
+
+/**
+ * 一次负载均衡的路由决策，由 {@link RoutingDecisionRecorder} 抽样记录，通过 {@link IsolationEndpoint} 查看。
+ * <p>
+ * 用于排查某个请求为什么路由到（或者没有路由到）本地服务实例，代替在每次请求上输出日志。
+ *
+ * @author xuzhongkang
+ * @since 2026/10/21 17:20
+ **/
+public final class RoutingDecision {
+
+    /**
+     * 匹配到的本地实例没有使用的原因：不可达。
+     */
+    public static final String UNREACHABLE = "unreachable";
+
+    /**
+     * 匹配到的本地实例没有使用的原因：达到并发上限。
+     */
+    public static final String AT_LIMIT = "at concurrency limit";
+
+    /**
+     * 当前环境不在 active-env 中（开启 hot-reload 时），没有匹配本地实例。
+     */
+    public static final String INACTIVE = "isolation inactive for current profiles, local instances skipped";
+
+    private final String time;
+    private final String service;
+    private final String callerIp;
+    private final String source;
+    private final String target;
+    private final String instance;
+    private final boolean local;
+    private final String outcome;
+    private final String reason;
+
+    /**
+     * @param service  服务名
+     * @param callerIp 请求方 ip，无法确定请求方时为 null
+     * @param source   隔离标识的来源，例如 "header:x-forwarded-for"、"remote-address"
+     * @param target   请求指定或配置的目标本地实例，可以为 null
+     * @param instance 选中的实例（host:port），没有选中时为 null
+     * @param local    选中的实例是否为本地实例
+     * @param outcome  路由结果
+     * @param reason   选择原因
+     */
+    public RoutingDecision(String service, String callerIp, String source, String target, String instance, boolean local,
+                           RoutingOutcome outcome, String reason) {
+        this.time = Instant.now().toString();
+        this.service = service;
+        this.callerIp = callerIp;
+        this.source = source;
+        this.target = target;
+        this.instance = instance;
+        this.local = local;
+        this.outcome = outcome == null ? null : outcome.getTag();
+        this.reason = reason;
+    }
+
+    public String getTime() {
+        return time;
+    }
+
+    public String getService() {
+        return service;
+    }
+
+    public String getCallerIp() {
+        return callerIp;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public String getInstance() {
+        return instance;
+    }
+
+    public boolean isLocal() {
+        return local;
+    }
+
+    public String getOutcome() {
+        return outcome;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    /**
+     * 根据路由结果生成选择原因。
+     *
+     * @param outcome       路由结果
+     * @param identified    是否确定了请求方（或者配置了目标实例）
+     * @param localSize     本地实例数量
+     * @param matchedLocal  匹配到的本地实例（host:port），可以为 null
+     * @param matchedTarget 本地实例是否按目标实例匹配（否则按请求方 ip）
+     * @param localProblem  匹配到的本地实例没有使用的原因，{@link #UNREACHABLE} 或 {@link #AT_LIMIT}，可以为 null
+     */
+    public static String reasonOf(RoutingOutcome outcome, boolean identified, int localSize, String matchedLocal,
+                                  boolean matchedTarget, String localProblem) {
+        if (outcome == null) {
+            return null;
+        }
+        switch (outcome) {
+            case LOCAL_HIT:
+                return matchedTarget ? "matched target local instance" : "matched local instance by caller ip";
+            case SHARED:
+                if (!identified) {
+                    return "caller unknown, local instances skipped";
+                }
+                return localSize == 0 ? "no local instance registered" : "no local instance matched caller ip or target";
+            case LOCAL_FALLBACK:
+                return "local instance [" + matchedLocal + "] " + localProblem + ", fell back to shared instances";
+            case LOCAL_UNAVAILABLE:
+                return "local instance [" + matchedLocal + "] " + UNREACHABLE + ", fail fast";
+            case LIMITED:
+                return matchedLocal != null && AT_LIMIT.equals(localProblem)
+                        ? "local instance [" + matchedLocal + "] " + AT_LIMIT
+                        : "shared instances " + AT_LIMIT;
+            case EMPTY:
+                return "no available instance";
+            case ERROR:
+            default:
+                return "failed to choose an instance";
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.bestlink.endpoint;
+
+import com.bestlink.properties.IsolationProperties;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 最近的路由决策，按 sampleRate 抽样记录在固定大小的环形数组中，新的决策覆盖最旧的决策。
+ * <p>
+ * 记录时只做一次 {@link AtomicLong#getAndIncrement()} 和一次数组写入，不加锁；没有被抽中的请求不产生对象分配。
+ * 读取时从最新的位置向前复制，并发写入时可能读到正在被覆盖的位置，诊断用途可以接受。
+ *
+ * @author xuzhongkang
+ * @see IsolationProperties.Decisions
+ * @see IsolationEndpoint
+ * @since 2026/10/21 17:20
+ **/
+public class RoutingDecisionRecorder {
+
+    /**
+     * 不记录任何决策，没有开启 actuator endpoint 时使用。
+     */
+    public static final RoutingDecisionRecorder NOOP = new RoutingDecisionRecorder(0, 0D);
+
+    private final AtomicReferenceArray<RoutingDecision> buffer;
+    private final int mask;
+    private final double sampleRate;
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * @param capacity   最多保留的决策数量，向上取整为 2 的幂，0 表示不记录
+     * @param sampleRate 抽样比例，[0, 1]
+     */
+    public RoutingDecisionRecorder(int capacity, double sampleRate) {
+        if (capacity <= 0 || sampleRate <= 0D) {
+            this.buffer = null;
+            this.mask = 0;
+        } else {
+            int size = Integer.highestOneBit(Math.min(capacity, 1 << 16) - 1) << 1;
+            this.buffer = new AtomicReferenceArray<>(Math.max(1, size));
+            this.mask = buffer.length() - 1;
+        }
+        this.sampleRate = Math.min(1D, Math.max(0D, sampleRate));
+    }
+
+    public static RoutingDecisionRecorder create(IsolationProperties.Decisions properties) {
+        if (properties == null) {
+            return NOOP;
+        }
+        return new RoutingDecisionRecorder(properties.getCapacity(), properties.getSampleRate());
+    }
+
+    /**
+     * 此次决策是否需要记录，调用方在返回 true 时才构建 {@link RoutingDecision}。
+     */
+    public boolean isSampled() {
+        return buffer != null && (sampleRate >= 1D || ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    public void record(RoutingDecision decision) {
+        if (buffer != null) {
+            buffer.set((int) (sequence.getAndIncrement() & mask), decision);
+        }
+    }
+
+    /**
+     * 最近记录的决策，最新的在前。
+     */
+    public List<RoutingDecision> recent() {
+        if (buffer == null) {
+            return Collections.emptyList();
+        }
+        long last = sequence.get();
+        long first = Math.max(0L, last - buffer.length());
+        List<RoutingDecision> decisions = new ArrayList<>((int) (last - first));
+        for (long i = last - 1; i >= first; i--) {
+            RoutingDecision decision = buffer.get((int) (i & mask));
+            if (decision != null) {
+                decisions.add(decision);
+            }
+        }
+        return decisions;
+    }
+
+    /**
+     * 累计记录的决策数量。
+     */
+    public long getRecorded() {
+        return sequence.get();
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+}
@@ -0,0 +1,20 @@
+package com.bestlink.endpoint;
+
+import java.util.Map;
+
+/**
+ * 提供各服务当前的路由快照视图，gateway（Spring Cloud Loadbalancer）与 Ribbon 分别实现，
+ * 只包含已经创建了负载均衡器并且已经构建了路由快照的服务。
+ *
+ * @author xuzhongkang
+ * @see IsolationEndpoint
+ * @since 2026/10/21 17:20
+ **/
+@FunctionalInterface
+public interface RoutingSnapshotProvider {
+
+    /**
+     * @return key 为服务名
+     */
+    Map<String, RoutingSnapshotView> snapshots();
+}
@@ -0,0 +1,144 @@
+package com.bestlink.endpoint;
+
+import com.bestlink.configuration.LocalNacosServerInstanceConfiguration;
+import com.bestlink.limit.AdaptiveConcurrencyLimit;
+import com.bestlink.limit.ConcurrencyLimiter;
+import com.bestlink.loadbalancer.InstanceAdapter;
+import com.bestlink.loadbalancer.IsolationRoutingSnapshot;
+import com.bestlink.stats.InstanceStats;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * 某个服务当前路由快照的只读视图，通过 {@link IsolationEndpoint} 查看：本地服务实例（按 host、local-instance-id）、
+ * 非本地（共享）实例池，以及实例的健康检查、摘除、在途请求数和并发上限。
+ * <p>
+ * 每次查看时由负载均衡器根据当前快照构建，不在请求路径上维护。
+ *
+ * @author xuzhongkang
+ * @since 2026/10/21 17:20
+ **/
+public final class RoutingSnapshotView {
+
+    private final String service;
+    private final String strategy;
+    private final List<InstanceView> local;
+    private final List<InstanceView> nonLocal;
+
+    private RoutingSnapshotView(String service, String strategy, List<InstanceView> local, List<InstanceView> nonLocal) {
+        this.service = service;
+        this.strategy = strategy;
+        this.local = local;
+        this.nonLocal = nonLocal;
+    }
+
+    /**
+     * @param service          服务名
+     * @param strategy         负载均衡策略
+     * @param snapshot         路由快照
+     * @param adapter          读取实例信息
+     * @param inFlightProbe    读取实例的在途请求数
+     * @param localUnreachable 本地实例是否不可达，可以为 null
+     */
+    public static <T> RoutingSnapshotView of(String service, String strategy, IsolationRoutingSnapshot<T> snapshot, InstanceAdapter<T> adapter,
+                                             ConcurrencyLimiter.InFlightProbe<T> inFlightProbe, Predicate<T> localUnreachable) {
+        long now = System.nanoTime();
+        List<InstanceView> local = new ArrayList<>(snapshot.localSize());
+        for (T instance : snapshot.allLocalInstances()) {
+            InstanceStats stats = snapshot.statsOf(instance);
+            boolean unavailable = localUnreachable != null && localUnreachable.test(instance);
+            local.add(new InstanceView(instance, adapter, stats, inFlightProbe.inFlight(instance, stats), unavailable, 0L));
+        }
+        List<InstanceView> nonLocal = new ArrayList<>(snapshot.nonLocalSize());
+        for (int i = 0; i < snapshot.nonLocalSize(); i++) {
+            T instance = snapshot.nonLocal(i);
+            InstanceStats stats = snapshot.nonLocalStats(i);
+            boolean ejected = stats != null && stats.isEjected(now);
+            long ejectedMillis = ejected ? TimeUnit.NANOSECONDS.toMillis(stats.getEjectedUntilNanos() - now) : 0L;
+            nonLocal.add(new InstanceView(instance, adapter, stats, inFlightProbe.inFlight(instance, stats), ejected, ejectedMillis));
+        }
+        return new RoutingSnapshotView(service, strategy, local, nonLocal);
+    }
+
+    public String getService() {
+        return service;
+    }
+
+    public String getStrategy() {
+        return strategy;
+    }
+
+    public List<InstanceView> getLocal() {
+        return local;
+    }
+
+    public List<InstanceView> getNonLocal() {
+        return nonLocal;
+    }
+
+    /**
+     * 单个服务实例的状态。
+     */
+    public static final class InstanceView {
+
+        private final String key;
+        private final String localInstanceId;
+        private final long inFlight;
+        private final Integer concurrencyLimit;
+        private final boolean unavailable;
+        private final long ejectedForMillis;
+
+        private <T> InstanceView(T instance, InstanceAdapter<T> adapter, InstanceStats stats, long inFlight, boolean unavailable,
+                                 long ejectedForMillis) {
+            this.key = adapter.getKey(instance);
+            this.localInstanceId = adapter.getMetadata(instance).get(LocalNacosServerInstanceConfiguration.NACOS_METADATA_LOCAL_KEY);
+            this.inFlight = inFlight;
+            AdaptiveConcurrencyLimit limit = stats == null ? null : stats.getConcurrencyLimit();
+            this.concurrencyLimit = limit == null ? null : limit.getLimit();
+            this.unavailable = unavailable;
+            this.ejectedForMillis = ejectedForMillis;
+        }
+
+        /**
+         * 实例标识，host:port。
+         */
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * 本地实例的 "local-instance-id"，非本地实例为 null。
+         */
+        public String getLocalInstanceId() {
+            return localInstanceId;
+        }
+
+        public long getInFlight() {
+            return inFlight;
+        }
+
+        /**
+         * 当前并发上限，未开启并发限制时为 null。
+         */
+        public Integer getConcurrencyLimit() {
+            return concurrencyLimit;
+        }
+
+        /**
+         * 本地实例不可达，或者非本地实例被异常检测摘除。
+         */
+        public boolean isUnavailable() {
+            return unavailable;
+        }
+
+        /**
+         * 非本地实例剩余的摘除时间（毫秒），没有被摘除时为 0。
+         */
+        public long getEjectedForMillis() {
+            return ejectedForMillis;
+        }
+    }
+}
@@ -14,18 +14,35 @@
 
 package com.bestlink.filter;
 
+import com.bestlink.properties.IsolationSettings;
+import com.bestlink.properties.IsolationSettingsHolder;
+import com.bestlink.propagation.IsolationKey;
+import com.bestlink.propagation.IsolationTokenCodec;
+import com.bestlink.resolver.ClientIpResolver;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.util.StringUtils;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
 
 import java.net.InetSocketAddress;
+import java.util.List;
 
 /**
  * 直接访问网关时，记录客户端 ip。
+ * <p>
+ * 客户端 ip 记录在 exchange attribute 中，并通过 Reactor Context 传递给 {@link com.bestlink.loadbalancer.ReactorIsolationRobinLoadBalancer}，
+ * 不修改请求头，避免每次请求复制请求头。
+ * 下游服务需要通过 "X_CLIENT_IP" 请求头获取调用者 ip 时（例如 Feign 调用需要路由到本地服务），
+ * 通过 "local.isolation-loadbalancer.client-ip-header-enabled" 开启请求头传递。
+ * <p>
+ * 开启隔离标识请求头（{@link IsolationTokenCodec}）时，在网关按 ip-headers 解析一次请求方 ip，签名后写入隔离标识请求头
+ * （覆盖客户端传入的同名请求头），并通过 Reactor Context 直接传给负载均衡器；调用链上的各个服务只读取这一个请求头。
  *
  * @author xuzhongkang
  * @since 2023/9/20 16:54
@@ -33,19 +50,89 @@ import java.net.InetSocketAddress;
 @Slf4j
 public class GlobalClientIpFilter implements GlobalFilter, Ordered {
 
-    private static final String CLIENT_IP = "X_CLIENT_IP";
+    private static final String CLIENT_IP = ClientIpResolver.X_CLIENT_IP;
+    private static final String REMOTE_ADDRESS_ATTRIBUTE = ClientIpResolver.REMOTE_ADDRESS_ATTRIBUTE;
+
+    /**
+     * 是否通过请求头向下游服务传递客户端 ip。
+     */
+    private final boolean clientIpHeaderEnabled;
+
+    /**
+     * 解析请求方原始 ip 的请求头顺序从当前配置中读取，只在开启隔离标识请求头时使用。
+     */
+    private final IsolationSettingsHolder settingsHolder;
+
+    /**
+     * 隔离标识请求头，未开启时为 null。
+     */
+    private final IsolationTokenCodec tokenCodec;
+
+    /**
+     * 指定目标本地实例的请求头，只在开启隔离标识请求头时使用，目标实例一并写入隔离标识。
+     */
+    private final String targetHeader;
+
+    public GlobalClientIpFilter() {
+        this(false);
+    }
+
+    public GlobalClientIpFilter(boolean clientIpHeaderEnabled) {
+        this(clientIpHeaderEnabled, (List<String>) null, null, null);
+    }
+
+    public GlobalClientIpFilter(boolean clientIpHeaderEnabled, List<String> ipHeaders, IsolationTokenCodec tokenCodec, String targetHeader) {
+        this(clientIpHeaderEnabled, new IsolationSettingsHolder(new IsolationSettings(true, ipHeaders, null, null)), tokenCodec, targetHeader);
+    }
+
+    public GlobalClientIpFilter(boolean clientIpHeaderEnabled, IsolationSettingsHolder settingsHolder, IsolationTokenCodec tokenCodec,
+                                String targetHeader) {
+        this.clientIpHeaderEnabled = clientIpHeaderEnabled;
+        this.settingsHolder = settingsHolder;
+        this.tokenCodec = tokenCodec;
+        this.targetHeader = StringUtils.hasText(targetHeader) ? targetHeader.trim() : null;
+    }
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
         InetSocketAddress remoteAddress = exchange.getRequest().getRemoteAddress();
-        String clientIp = remoteAddress == null ? "" : remoteAddress.getHostString();
-        log.info("get client ip : [{}]", clientIp);
-        ServerHttpRequest mutableReq = exchange.getRequest()
-                .mutate()
-                .header(CLIENT_IP, clientIp)
-                .build();
-        ServerWebExchange mutableExchange = exchange.mutate().request(mutableReq).build();
-        return chain.filter(mutableExchange);
+        String clientIp = remoteAddress == null ? null : remoteAddress.getHostString();
+        IsolationKey isolationKey = null;
+        if (tokenCodec != null) {
+            HttpHeaders headers = exchange.getRequest().getHeaders();
+            String originIp = settingsHolder.get().getClientIpResolver().resolve(headers, HttpHeaders::getFirst);
+            isolationKey = IsolationKey.of(originIp != null ? originIp : clientIp, targetHeader == null ? null : headers.getFirst(targetHeader));
+        }
+        if (clientIp == null && isolationKey == null) {
+            return chain.filter(exchange);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("get client ip : [{}], isolation key : [{}]", clientIp, isolationKey);
+        }
+        ServerWebExchange filteredExchange = exchange;
+        if (clientIp != null) {
+            exchange.getAttributes().put(REMOTE_ADDRESS_ATTRIBUTE, clientIp);
+        }
+        if ((clientIpHeaderEnabled && clientIp != null) || isolationKey != null) {
+            String token = isolationKey == null ? null : tokenCodec.encode(isolationKey);
+            ServerHttpRequest mutableReq = exchange.getRequest()
+                    .mutate()
+                    .headers(headers -> {
+                        if (clientIpHeaderEnabled && clientIp != null) {
+                            headers.set(CLIENT_IP, clientIp);
+                        }
+                        if (token != null) {
+                            headers.set(tokenCodec.getHeader(), token);
+                        }
+                    })
+                    .build();
+            filteredExchange = exchange.mutate().request(mutableReq).build();
+        }
+        Context context = clientIp == null ? Context.empty() : Context.of(REMOTE_ADDRESS_ATTRIBUTE, clientIp);
+        if (isolationKey != null) {
+            context = context.put(IsolationKey.ATTRIBUTE, isolationKey);
+        }
+        return chain.filter(filteredExchange).contextWrite(context);
     }
 
     @Override
@@ -0,0 +1,76 @@
+package com.bestlink.health;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.util.Locale;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 判断请求异常是否表示实例不可达：连接失败或超时（例如开发者电脑休眠、断开 VPN、停在断点上）。
+ * <p>
+ * 收到了响应（包括 5xx）不属于不可达。响应超时与连接失败分开判断，TCP 探测成功不能清除响应超时引起的失败。
+ *
+ * @author xuzhongkang
+ * @since 2026/10/18 14:00
+ **/
+public final class ConnectFailures {
+
+    private static final int MAX_CAUSE_DEPTH = 8;
+
+    private ConnectFailures() {
+    }
+
+    public static boolean isConnectFailure(Throwable throwable) {
+        Throwable current = throwable;
+        for (int depth = 0; current != null && depth < MAX_CAUSE_DEPTH; depth++) {
+            if (current instanceof ConnectException
+                    || current instanceof NoRouteToHostException
+                    || current instanceof SocketTimeoutException
+                    || current instanceof TimeoutException
+                    // netty ReadTimeoutException 等不在编译依赖中，按类名判断
+                    || current.getClass().getSimpleName().contains("Timeout")) {
+                return true;
+            }
+            if (current.getCause() == current) {
+                break;
+            }
+            current = current.getCause();
+        }
+        return false;
+    }
+
+    /**
+     * 是否为响应超时：连接已经建立，但没有在超时时间内收到响应（例如实例停在断点上）。
+     * <p>
+     * 连接超时（netty ConnectTimeoutException、"connect timed out"）属于连接失败，不是响应超时。
+     */
+    public static boolean isResponseTimeout(Throwable throwable) {
+        Throwable current = throwable;
+        for (int depth = 0; current != null && depth < MAX_CAUSE_DEPTH; depth++) {
+            if (isConnectPhase(current)) {
+                return false;
+            }
+            if (current instanceof SocketTimeoutException
+                    || current instanceof TimeoutException
+                    || current.getClass().getSimpleName().contains("Timeout")) {
+                return true;
+            }
+            if (current.getCause() == current) {
+                break;
+            }
+            current = current.getCause();
+        }
+        return false;
+    }
+
+    private static boolean isConnectPhase(Throwable throwable) {
+        if (throwable instanceof ConnectException || throwable instanceof NoRouteToHostException
+                // apache httpclient ConnectTimeoutException、HttpHostConnectException 等
+                || throwable.getClass().getSimpleName().contains("Connect")) {
+            return true;
+        }
+        String message = throwable.getMessage();
+        return throwable instanceof SocketTimeoutException && message != null && message.toLowerCase(Locale.ROOT).contains("connect");
+    }
+}
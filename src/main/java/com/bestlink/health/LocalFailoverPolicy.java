@@ -0,0 +1,21 @@
+package com.bestlink.health;
+
+/**
+ * 本地服务实例不可达时的处理策略。
+ *
+ * @author xuzhongkang
+ * @see com.bestlink.properties.IsolationProperties.LocalHealth#getPolicy()
+ * @since 2026/10/18 14:00
+ **/
+public enum LocalFailoverPolicy {
+
+    /**
+     * 直接返回没有可用实例（gateway 返回 503，Feign 抛出 "Load balancer does not have available server"），便于开发者及时发现本地服务不可用。
+     */
+    FAIL_FAST,
+
+    /**
+     * 路由到非本地（共享）服务实例。
+     */
+    FALLBACK
+}
@@ -0,0 +1,82 @@
+package com.bestlink.health;
+
+import com.bestlink.loadbalancer.InstanceAdapter;
+import com.bestlink.loadbalancer.IsolationRoutingSnapshot;
+import com.bestlink.properties.IsolationProperties;
+import com.bestlink.stats.InstanceStats;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 本地服务实例的被动健康检查。
+ * <p>
+ * 连续 failureThreshold 次连接失败或超时后，在 backoff 时间内认为本地实例不可达，负载均衡时跳过该实例；
+ * backoff 结束后重新尝试路由到本地实例，成功一次即恢复，失败则重新进入 backoff。
+ * 开启 TCP 探测时，探测失败同样计入；探测成功只能提前结束由连接失败引起的 backoff，
+ * 失败中有响应超时时（例如停在断点上，TCP 连接仍然可以建立）需要等待 backoff 结束。
+ *
+ * @author xuzhongkang
+ * @see LocalFailoverPolicy
+ * @since 2026/10/18 14:00
+ **/
+public class LocalInstanceHealth {
+
+    private final int failureThreshold;
+    private final long backoffNanos;
+    private final LocalFailoverPolicy policy;
+    private final LocalInstanceProber prober;
+
+    private LocalInstanceHealth(IsolationProperties.LocalHealth properties) {
+        this.failureThreshold = Math.max(1, properties.getFailureThreshold());
+        this.backoffNanos = properties.getBackoff().toNanos();
+        this.policy = properties.getPolicy() == null ? LocalFailoverPolicy.FALLBACK : properties.getPolicy();
+        this.prober = Boolean.TRUE.equals(properties.getProbeEnabled())
+                ? new LocalInstanceProber(properties.getProbeInterval(), properties.getProbeTimeout())
+                : null;
+    }
+
+    /**
+     * @return 未开启时返回 null。
+     */
+    public static LocalInstanceHealth create(IsolationProperties.LocalHealth properties) {
+        if (properties == null || !Boolean.TRUE.equals(properties.getEnabled())) {
+            return null;
+        }
+        return new LocalInstanceHealth(properties);
+    }
+
+    /**
+     * 实例当前是否处于不可达的 backoff 时间内。
+     */
+    public boolean isUnreachable(InstanceStats stats) {
+        return stats != null && stats.isUnreachable(failureThreshold, backoffNanos, System.nanoTime());
+    }
+
+    public LocalFailoverPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * 路由快照重建后更新探测的本地实例。
+     */
+    public <T> void snapshotChanged(IsolationRoutingSnapshot<T> snapshot, InstanceAdapter<T> adapter) {
+        if (prober == null) {
+            return;
+        }
+        List<LocalInstanceProber.Target> targets = new ArrayList<>(snapshot.localSize());
+        for (T instance : snapshot.localInstances()) {
+            InstanceStats stats = snapshot.statsOf(instance);
+            if (stats != null) {
+                targets.add(new LocalInstanceProber.Target(adapter.getHost(instance), adapter.getPort(instance), stats));
+            }
+        }
+        prober.setTargets(targets);
+    }
+
+    public void close() {
+        if (prober != null) {
+            prober.close();
+        }
+    }
+}
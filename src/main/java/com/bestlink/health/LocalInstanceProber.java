@@ -0,0 +1,127 @@
+package com.bestlink.health;
+
+import com.bestlink.stats.InstanceStats;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.AsynchronousSocketChannel;
+import java.nio.channels.CompletionHandler;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 本地服务实例的 TCP 探测，定时对本地实例建立一次异步 TCP 连接（不发送数据），结果写入 {@link InstanceStats}。
+ * <p>
+ * 所有服务共用一个守护线程负责调度，连接使用 {@link AsynchronousSocketChannel}，不阻塞调度线程。
+ *
+ * @author xuzhongkang
+ * @see LocalInstanceHealth
+ * @since 2026/10/18 14:00
+ **/
+@Slf4j
+public class LocalInstanceProber {
+
+    private final long timeoutMillis;
+    private final ScheduledFuture<?> task;
+    private volatile List<Target> targets = Collections.emptyList();
+
+    public LocalInstanceProber(Duration interval, Duration timeout) {
+        this.timeoutMillis = timeout.toMillis();
+        long intervalMillis = Math.max(1L, interval.toMillis());
+        this.task = SchedulerHolder.SCHEDULER.scheduleWithFixedDelay(this::probeAll, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 替换探测的实例，路由快照重建时调用。
+     */
+    public void setTargets(List<Target> targets) {
+        this.targets = targets;
+    }
+
+    public void close() {
+        task.cancel(false);
+    }
+
+    private void probeAll() {
+        for (Target target : targets) {
+            try {
+                probe(target);
+            } catch (Exception e) {
+                log.debug("failed to probe local instance [{}:{}],cause:{}", target.host, target.port, e.getMessage());
+            }
+        }
+    }
+
+    private void probe(Target target) throws IOException {
+        AsynchronousSocketChannel channel = AsynchronousSocketChannel.open();
+        AtomicBoolean done = new AtomicBoolean();
+        ScheduledFuture<?> timeout = SchedulerHolder.SCHEDULER.schedule(() -> {
+            if (done.compareAndSet(false, true)) {
+                probeFailed(target);
+                closeQuietly(channel);
+            }
+        }, timeoutMillis, TimeUnit.MILLISECONDS);
+        channel.connect(new InetSocketAddress(target.host, target.port), null, new CompletionHandler<Void, Void>() {
+            @Override
+            public void completed(Void result, Void attachment) {
+                if (done.compareAndSet(false, true)) {
+                    timeout.cancel(false);
+                    // 只能结束由连接失败引起的 backoff，停在断点上的 JVM 仍然接受 TCP 连接
+                    target.stats.probeSucceeded();
+                }
+                closeQuietly(channel);
+            }
+
+            @Override
+            public void failed(Throwable exc, Void attachment) {
+                if (done.compareAndSet(false, true)) {
+                    timeout.cancel(false);
+                    probeFailed(target);
+                }
+                closeQuietly(channel);
+            }
+        });
+    }
+
+    private static void probeFailed(Target target) {
+        target.stats.connectFailed();
+        log.debug("local instance [{}:{}] is unreachable", target.host, target.port);
+    }
+
+    private static void closeQuietly(AsynchronousSocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // ignore
+        }
+    }
+
+    /**
+     * 探测目标。
+     */
+    public static final class Target {
+
+        private final String host;
+        private final int port;
+        private final InstanceStats stats;
+
+        public Target(String host, int port, InstanceStats stats) {
+            this.host = host;
+            this.port = port;
+            this.stats = stats;
+        }
+    }
+
+    private static final class SchedulerHolder {
+
+        private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "isolation-local-probe");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
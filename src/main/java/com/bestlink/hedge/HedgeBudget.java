@@ -0,0 +1,75 @@
+package com.bestlink.hedge;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 对冲请求预算（令牌桶）：每个原始请求存入 ratio 个令牌，每个对冲请求取出一个令牌，令牌最多 burst 个。
+ * <p>
+ * 对冲请求数因此不会超过原始请求数的 ratio 倍（加上 burst），实例变慢时不会因为对冲而成倍放大负载。
+ * 令牌按千分之一计数保存在一个 {@link AtomicLong} 中，CAS 更新，不加锁。
+ *
+ * @author xuzhongkang
+ * @see HedgingFilter
+ * @since 2026/10/20 11:20
+ **/
+public class HedgeBudget {
+
+    private static final long SCALE = 1000L;
+
+    private final long deposit;
+    private final long capacity;
+    private final AtomicLong balance = new AtomicLong();
+
+    /**
+     * @param ratio 每个原始请求存入的令牌数，例如 0.1 表示最多 10% 的请求被对冲
+     * @param burst 令牌桶容量
+     */
+    public HedgeBudget(double ratio, int burst) {
+        this.deposit = Math.max(0L, Math.round(ratio * SCALE));
+        this.capacity = Math.max(1L, burst) * SCALE;
+    }
+
+    /**
+     * 原始请求，存入令牌。
+     */
+    public void deposit() {
+        while (true) {
+            long current = balance.get();
+            if (current >= capacity) {
+                return;
+            }
+            if (balance.compareAndSet(current, Math.min(capacity, current + deposit))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 取出一个令牌，令牌不足时返回 false。
+     */
+    public boolean tryWithdraw() {
+        while (true) {
+            long current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+            if (balance.compareAndSet(current, current - SCALE)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 取出令牌后没有发出对冲请求，退回令牌。
+     */
+    public void refund() {
+        balance.addAndGet(SCALE);
+    }
+
+    /**
+     * 当前可用的令牌数。
+     */
+    public double available() {
+        return (double) balance.get() / SCALE;
+    }
+}
@@ -0,0 +1,125 @@
+package com.bestlink.hedge;
+
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebExchangeDecorator;
+import reactor.core.publisher.Flux;
+import reactor.netty.Connection;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 一次转发尝试（原始请求或对冲请求）使用的 exchange。
+ * <p>
+ * NettyRoutingFilter 会把后端响应的状态码、响应头写入 exchange 的 response，把后端连接写入 exchange attributes，
+ * 两次尝试同时进行时不能共用同一个 exchange。这里为每次尝试复制一份 attributes，response 的状态码、响应头单独保存，
+ * 胜出的一次通过 {@link #commitTo(ServerWebExchange)} 写回原 exchange，由 NettyWriteResponseFilter 继续写出响应体。
+ * <p>
+ * 只用于没有请求体的请求，请求体替换为空，避免两次尝试重复订阅同一个请求体。
+ *
+ * @author xuzhongkang
+ * @see HedgingFilter
+ * @since 2026/10/20 11:20
+ **/
+class HedgeExchange extends ServerWebExchangeDecorator {
+
+    private final Map<String, Object> attributes;
+    private final ServerHttpRequest request;
+    private final AttemptResponse response;
+
+    HedgeExchange(ServerWebExchange delegate, URI requestUrl) {
+        super(delegate);
+        this.attributes = new ConcurrentHashMap<>(delegate.getAttributes());
+        this.attributes.put(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR, requestUrl);
+        this.request = new ServerHttpRequestDecorator(delegate.getRequest()) {
+            @Override
+            public Flux<DataBuffer> getBody() {
+                return Flux.empty();
+            }
+        };
+        this.response = new AttemptResponse(delegate.getResponse());
+    }
+
+    @Override
+    public ServerHttpRequest getRequest() {
+        return request;
+    }
+
+    @Override
+    public ServerHttpResponse getResponse() {
+        return response;
+    }
+
+    @Override
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    /**
+     * 将此次尝试的 attributes（后端响应、连接等）及响应状态码、响应头写回原 exchange。
+     */
+    void commitTo(ServerWebExchange exchange) {
+        exchange.getAttributes().putAll(attributes);
+        ServerHttpResponse target = exchange.getResponse();
+        target.getHeaders().putAll(response.headers);
+        if (response.rawStatusCode != null) {
+            target.setRawStatusCode(response.rawStatusCode);
+        }
+    }
+
+    /**
+     * 此次尝试被取消（另一次尝试胜出）时，关闭已经建立的后端连接。
+     */
+    void dispose() {
+        Object connection = attributes.get(ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR);
+        if (connection instanceof Connection) {
+            ((Connection) connection).dispose();
+        }
+    }
+
+    private static final class AttemptResponse extends ServerHttpResponseDecorator {
+
+        private final HttpHeaders headers = new HttpHeaders();
+        private volatile Integer rawStatusCode;
+
+        private AttemptResponse(ServerHttpResponse delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public boolean setStatusCode(HttpStatus status) {
+            rawStatusCode = status == null ? null : status.value();
+            return true;
+        }
+
+        @Override
+        public HttpStatus getStatusCode() {
+            return rawStatusCode == null ? null : HttpStatus.resolve(rawStatusCode);
+        }
+
+        @Override
+        public boolean setRawStatusCode(Integer value) {
+            rawStatusCode = value;
+            return true;
+        }
+
+        @Override
+        public Integer getRawStatusCode() {
+            return rawStatusCode;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.bestlink.hedge;
+
+import com.bestlink.lifecycle.InFlightReleaseFilter;
+import com.bestlink.lifecycle.InFlightResponse;
+import com.bestlink.lifecycle.IsolationLoadBalancerLifecycle;
+import com.bestlink.loadbalancer.ReactorIsolationRobinLoadBalancer;
+import com.bestlink.loadbalancer.ServiceInstanceAdapter;
+import com.bestlink.properties.IsolationProperties;
+import com.bestlink.stats.InstanceStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * gateway 对冲请求：配置的路由在转发后一段时间（最近响应时间的某个百分位）内没有收到响应时，向另一个非本地服务实例再发送一次请求，
+ * 先收到响应的一次胜出，另一次被取消。
+ * <p>
+ * 在 {@link ReactiveLoadBalancerClientFilter} 选择实例之后执行，对冲请求的实例由 {@link ReactorIsolationRobinLoadBalancer#chooseHedge}
+ * 选择（排除已经选中的实例）。对冲请求数受 {@link HedgeBudget} 限制，不会成倍放大后端负载。
+ * <p>
+ * 以下请求不进行对冲：
+ * <ul>
+ *     <li>路由到本地服务实例（开发者电脑）的请求；</li>
+ *     <li>有请求体的请求（请求体只能读取一次），以及 GET、HEAD、OPTIONS 以外的请求（不能保证幂等）；</li>
+ *     <li>websocket 请求。</li>
+ * </ul>
+ * 对冲请求的在途请求数、响应时间、请求结果按 {@link IsolationLoadBalancerLifecycle} 同样的方式记录在对冲实例的统计中；
+ * 对冲请求失败时不影响原始请求，仍然由原始请求决定结果。原始请求由 LoadBalancerLifecycle 记录，
+ * 对冲请求胜出时原始请求在被取消时释放在途请求数，不记录响应时间及请求结果（原 exchange 上的结果属于对冲实例）。
+ *
+ * @author xuzhongkang
+ * @see IsolationProperties.Hedge
+ * @since 2026/10/20 11:20
+ **/
+@Slf4j
+public class HedgingFilter implements GlobalFilter, Ordered {
+
+    /**
+     * 在 {@link InFlightReleaseFilter} 之后执行，原始请求被对冲请求取消时由此过滤器释放其在途请求数。
+     */
+    public static final int ORDER = InFlightReleaseFilter.ORDER + 1;
+
+    private static final ServiceInstanceAdapter ADAPTER = ServiceInstanceAdapter.INSTANCE;
+
+    private final LoadBalancerClientFactory loadBalancerClientFactory;
+    private final Set<String> routeIds;
+    private final double percentile;
+    private final long initialDelayNanos;
+    private final long minDelayNanos;
+    private final double budgetRatio;
+    private final int budgetBurst;
+
+    /**
+     * 每个路由的响应时间及对冲预算，key 为路由 id。
+     */
+    private final ConcurrentMap<String, RouteState> states = new ConcurrentHashMap<>();
+
+    public HedgingFilter(LoadBalancerClientFactory loadBalancerClientFactory, IsolationProperties.Hedge properties) {
+        this.loadBalancerClientFactory = loadBalancerClientFactory;
+        this.routeIds = properties.getRoutes() == null ? new HashSet<>() : new HashSet<>(properties.getRoutes());
+        this.percentile = properties.getPercentile();
+        this.initialDelayNanos = properties.getInitialDelay().toNanos();
+        this.minDelayNanos = properties.getMinDelay().toNanos();
+        this.budgetRatio = Math.max(0, properties.getBudgetPercent()) / 100D;
+        this.budgetBurst = properties.getBudgetBurst();
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (route == null || !routeIds.contains(route.getId())) {
+            return chain.filter(exchange);
+        }
+        Response<ServiceInstance> lbResponse = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        URI url = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+        if (lbResponse == null || !lbResponse.hasServer() || url == null || !isHttp(url) || !isHedgeable(exchange.getRequest())) {
+            return chain.filter(exchange);
+        }
+        ServiceInstance primary = lbResponse.getServer();
+        if (ADAPTER.isLocal(primary)) {
+            // 路由到本地服务实例的请求不对冲
+            return chain.filter(exchange);
+        }
+        RouteState state = states.computeIfAbsent(route.getId(), id -> new RouteState(percentile, budgetRatio, budgetBurst));
+        state.budget.deposit();
+
+        long start = System.nanoTime();
+        HedgeExchange primaryAttempt = new HedgeExchange(exchange, url);
+        Mono<HedgeExchange> primaryMono = chain.filter(primaryAttempt)
+                .thenReturn(primaryAttempt)
+                .doOnSuccess(attempt -> state.latency.record(System.nanoTime() - start))
+                // 被取消说明对冲请求先收到响应，记录已经等待的时间（实际响应时间的下限）
+                .doOnCancel(() -> {
+                    state.latency.record(System.nanoTime() - start);
+                    primaryAttempt.dispose();
+                    // 原 exchange 上将是对冲请求的结果，不能作为原始实例的响应时间及请求结果，onComplete 不再记录
+                    if (lbResponse instanceof InFlightResponse) {
+                        ((InFlightResponse) lbResponse).release();
+                    }
+                });
+        long delayNanos = Math.max(minDelayNanos, state.latency.percentile(start, initialDelayNanos));
+        Mono<HedgeExchange> hedgeMono = Mono.delay(Duration.ofNanos(delayNanos))
+                .then(Mono.defer(() -> hedge(exchange, chain, state, primary, url)))
+                // 对冲请求只是额外的尝试，失败时由原始请求决定结果
+                .onErrorResume(e -> Mono.never());
+        return Mono.firstWithSignal(primaryMono, hedgeMono)
+                .doOnNext(winner -> winner.commitTo(exchange))
+                .then();
+    }
+
+    /**
+     * 发送对冲请求，预算不足或者没有其他可用实例时不发送（返回永不结束的 Mono，由原始请求决定结果）。
+     */
+    private Mono<HedgeExchange> hedge(ServerWebExchange exchange, GatewayFilterChain chain, RouteState state,
+                                      ServiceInstance primary, URI url) {
+        if (!state.budget.tryWithdraw()) {
+            log.debug("hedge budget exhausted for service [{}]", primary.getServiceId());
+            return Mono.never();
+        }
+        ReactorServiceInstanceLoadBalancer loadBalancer = loadBalancerClientFactory.getInstance(primary.getServiceId(),
+                ReactorServiceInstanceLoadBalancer.class);
+        ServiceInstance instance = loadBalancer instanceof ReactorIsolationRobinLoadBalancer
+                ? ((ReactorIsolationRobinLoadBalancer) loadBalancer).chooseHedge(primary) : null;
+        if (instance == null) {
+            state.budget.refund();
+            return Mono.never();
+        }
+        log.debug("hedge request of service [{}] from [{}:{}] to [{}:{}]", primary.getServiceId(),
+                primary.getHost(), primary.getPort(), instance.getHost(), instance.getPort());
+        URI hedgeUrl = UriComponentsBuilder.fromUri(url).host(instance.getHost()).port(instance.getPort()).build(true).toUri();
+        HedgeExchange attempt = new HedgeExchange(exchange, hedgeUrl);
+        InstanceStats stats = ((ReactorIsolationRobinLoadBalancer) loadBalancer).statsOf(instance);
+        if (stats == null) {
+            return chain.filter(attempt).thenReturn(attempt).doOnCancel(attempt::dispose);
+        }
+        long start = System.nanoTime();
+        stats.requestStarted();
+        return chain.filter(attempt)
+                .thenReturn(attempt)
+                .doOnSuccess(winner -> IsolationLoadBalancerLifecycle.recordResponse(stats, System.nanoTime() - start,
+                        isServerError(winner.getResponse().getRawStatusCode())))
+                .doOnError(e -> {
+                    log.debug("hedge request of service [{}] to [{}:{}] failed, cause:{}", primary.getServiceId(),
+                            instance.getHost(), instance.getPort(), e.toString());
+                    IsolationLoadBalancerLifecycle.recordFailure(stats, e);
+                })
+                .doOnCancel(attempt::dispose)
+                .doFinally(signal -> stats.requestCompleted());
+    }
+
+    private static boolean isServerError(Integer status) {
+        return status != null && status >= 500 && status < 600;
+    }
+
+    private static boolean isHttp(URI url) {
+        return "http".equalsIgnoreCase(url.getScheme()) || "https".equalsIgnoreCase(url.getScheme());
+    }
+
+    /**
+     * 只对冲没有请求体的 GET、HEAD、OPTIONS 请求。
+     */
+    private static boolean isHedgeable(ServerHttpRequest request) {
+        HttpMethod method = request.getMethod();
+        if (method != HttpMethod.GET && method != HttpMethod.HEAD && method != HttpMethod.OPTIONS) {
+            return false;
+        }
+        HttpHeaders headers = request.getHeaders();
+        return headers.getContentLength() <= 0 && !headers.containsKey(HttpHeaders.TRANSFER_ENCODING)
+                && !headers.containsKey(HttpHeaders.UPGRADE);
+    }
+
+    private static final class RouteState {
+        private final LatencyTracker latency;
+        private final HedgeBudget budget;
+
+        private RouteState(double percentile, double budgetRatio, int budgetBurst) {
+            this.latency = new LatencyTracker(percentile);
+            this.budget = new HedgeBudget(budgetRatio, budgetBurst);
+        }
+    }
+}
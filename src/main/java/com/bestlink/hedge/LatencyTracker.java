@@ -0,0 +1,67 @@
+package com.bestlink.hedge;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 最近 {@link #SIZE} 个请求的响应时间，用于计算对冲延迟（某个百分位）。
+ * <p>
+ * 记录时只写环形数组的一个位置；百分位最多每秒计算一次（复制数组并排序），由 CAS 成功的线程计算，其他线程读取上一次的结果。
+ *
+ * @author xuzhongkang
+ * @see HedgingFilter
+ * @since 2026/10/20 11:20
+ **/
+class LatencyTracker {
+
+    private static final int SIZE = 256;
+    private static final int MIN_SAMPLES = 20;
+    private static final long RECOMPUTE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final double percentile;
+    private final AtomicLongArray samples = new AtomicLongArray(SIZE);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong nextComputeNanos = new AtomicLong(System.nanoTime());
+
+    /**
+     * 上一次计算的百分位，样本不足时为 -1。
+     */
+    private volatile long cached = -1L;
+
+    LatencyTracker(double percentile) {
+        this.percentile = Math.min(100D, Math.max(1D, percentile));
+    }
+
+    void record(long latencyNanos) {
+        long n = count.getAndIncrement();
+        samples.set((int) (n & (SIZE - 1)), latencyNanos);
+    }
+
+    /**
+     * 最近响应时间的百分位，样本不足时返回 fallbackNanos。
+     */
+    long percentile(long nowNanos, long fallbackNanos) {
+        long next = nextComputeNanos.get();
+        if (nowNanos - next >= 0 && nextComputeNanos.compareAndSet(next, nowNanos + RECOMPUTE_INTERVAL_NANOS)) {
+            cached = compute();
+        }
+        long value = cached;
+        return value < 0 ? fallbackNanos : value;
+    }
+
+    private long compute() {
+        int n = (int) Math.min(count.get(), SIZE);
+        if (n < MIN_SAMPLES) {
+            return -1L;
+        }
+        long[] values = new long[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = samples.get(i);
+        }
+        Arrays.sort(values);
+        int index = (int) Math.ceil(percentile / 100D * n) - 1;
+        return values[Math.max(0, Math.min(n - 1, index))];
+    }
+}
@@ -0,0 +1,42 @@
+package com.bestlink.lifecycle;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * 请求被取消（客户端断开连接等）时释放在途请求数。
+ * <p>
+ * spring cloud gateway 3.1.3 的 ReactiveLoadBalancerClientFilter 在请求被取消时不回调 LoadBalancerLifecycle#onComplete，
+ * 开启并发限制后，没有释放的在途请求会一直占用实例的并发上限。此过滤器在负载均衡过滤器之后、对冲过滤器之前执行，
+ * 收到取消信号时释放；正常结束时由 onComplete 释放（并记录响应时间），{@link InFlightResponse} 保证只释放一次。
+ *
+ * @author xuzhongkang
+ * @see IsolationLoadBalancerLifecycle
+ * @since 2026/10/22 10:20
+ **/
+public class InFlightReleaseFilter implements GlobalFilter, Ordered {
+
+    public static final int ORDER = ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1;
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Response<ServiceInstance> lbResponse = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        if (!(lbResponse instanceof InFlightResponse)) {
+            return chain.filter(exchange);
+        }
+        InFlightResponse response = (InFlightResponse) lbResponse;
+        return chain.filter(exchange).doOnCancel(response::release);
+    }
+}
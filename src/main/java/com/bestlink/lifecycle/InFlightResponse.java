@@ -0,0 +1,75 @@
+package com.bestlink.lifecycle;
+
+import com.bestlink.stats.InstanceStats;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * 携带选中实例统计的负载均衡结果，在途请求数的计数及释放都只生效一次。
+ * <p>
+ * {@link com.bestlink.loadbalancer.ReactorIsolationRobinLoadBalancer} 选中实例后返回此对象，gateway 将其放入
+ * exchange attribute（GATEWAY_LOADBALANCER_RESPONSE_ATTR），并在生命周期回调中原样传回。
+ * 请求开始时由 {@link IsolationLoadBalancerLifecycle#onStartRequest} 计数；请求结束时由 onComplete 释放，
+ * 请求被取消（onComplete 不会回调）时由 {@link InFlightReleaseFilter} 释放，两者先到者生效。
+ *
+ * @author xuzhongkang
+ * @since 2026/10/22 10:20
+ **/
+public class InFlightResponse extends DefaultResponse {
+
+    private static final int NEW = 0;
+    private static final int STARTED = 1;
+    private static final int RELEASED = 2;
+
+    private static final AtomicIntegerFieldUpdater<InFlightResponse> STATE =
+            AtomicIntegerFieldUpdater.newUpdater(InFlightResponse.class, "state");
+
+    private final InstanceStats stats;
+    private volatile int state;
+    private volatile long startNanos;
+
+    public InFlightResponse(ServiceInstance instance, InstanceStats stats) {
+        super(instance);
+        this.stats = stats;
+    }
+
+    public InstanceStats getStats() {
+        return stats;
+    }
+
+    /**
+     * 请求开始，在途请求数加一。
+     *
+     * @return 是否计数（重复调用时返回 false）
+     */
+    public boolean start() {
+        if (!STATE.compareAndSet(this, NEW, STARTED)) {
+            return false;
+        }
+        startNanos = System.nanoTime();
+        stats.requestStarted();
+        return true;
+    }
+
+    /**
+     * 请求结束或被取消，释放在途请求数。
+     *
+     * @return 是否由本次调用释放（没有计数或者已经释放时返回 false）
+     */
+    public boolean release() {
+        if (!STATE.compareAndSet(this, STARTED, RELEASED)) {
+            return false;
+        }
+        stats.requestCompleted();
+        return true;
+    }
+
+    /**
+     * 请求开始时间（{@link System#nanoTime()}），没有计数时为 0。
+     */
+    public long getStartNanos() {
+        return startNanos;
+    }
+}
@@ -0,0 +1,89 @@
+package com.bestlink.lifecycle;
+
+import com.bestlink.health.ConnectFailures;
+import com.bestlink.stats.InstanceStats;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.*;
+
+/**
+ * 在 gateway 负载均衡请求的生命周期中更新实例的在途请求数、连接失败次数、请求结果及响应时间。
+ * <p>
+ * {@link com.bestlink.loadbalancer.ReactorIsolationRobinLoadBalancer} 选中实例后返回携带实例统计的 {@link InFlightResponse}，
+ * 请求开始时计数加一，请求结束时减一。此类本身无状态，所有服务共用一个实例。
+ * <p>
+ * 注意：spring cloud gateway 3.1.3 的 ReactiveLoadBalancerClientFilter 只在请求成功或失败时回调 onComplete，
+ * 请求被取消（例如客户端断开连接）时不会回调，此时由 {@link InFlightReleaseFilter} 释放在途请求数，不记录响应时间及请求结果。
+ * 对冲请求胜出时原始请求同样被取消，由 {@link com.bestlink.hedge.HedgingFilter} 释放，onComplete 收到的是对冲请求的结果，不记录。
+ *
+ * @author xuzhongkang
+ * @see com.bestlink.strategy.BalanceStrategy#LEAST_IN_FLIGHT
+ * @since 2026/10/17 10:40
+ **/
+public class IsolationLoadBalancerLifecycle implements LoadBalancerLifecycle<RequestDataContext, ResponseData, ServiceInstance> {
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return RequestDataContext.class.isAssignableFrom(requestContextClass)
+                && ResponseData.class.isAssignableFrom(responseClass)
+                && ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<RequestDataContext> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<RequestDataContext> request, Response<ServiceInstance> lbResponse) {
+        if (lbResponse instanceof InFlightResponse) {
+            ((InFlightResponse) lbResponse).start();
+        }
+    }
+
+    @Override
+    public void onComplete(CompletionContext<ResponseData, ServiceInstance, RequestDataContext> completionContext) {
+        Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+        if (!(lbResponse instanceof InFlightResponse) || !((InFlightResponse) lbResponse).release()) {
+            // 没有计数，或者请求已经被取消并释放
+            return;
+        }
+        InFlightResponse response = (InFlightResponse) lbResponse;
+        if (completionContext.status() == CompletionContext.Status.SUCCESS) {
+            recordResponse(response.getStats(), System.nanoTime() - response.getStartNanos(),
+                    isServerError(completionContext.getClientResponse()));
+        } else if (completionContext.status() == CompletionContext.Status.FAILED) {
+            recordFailure(response.getStats(), completionContext.getThrowable());
+        }
+    }
+
+    /**
+     * 记录收到响应的请求：响应时间、连接成功及请求结果（5xx 为失败）。对冲请求使用同样的记录方式。
+     */
+    public static void recordResponse(InstanceStats instanceStats, long rttNanos, boolean serverError) {
+        // 只记录收到响应的请求，连接被拒绝等快速失败不应该使实例看起来更快
+        instanceStats.responseReceived(rttNanos, System.nanoTime());
+        instanceStats.connectSucceeded();
+        if (serverError) {
+            instanceStats.requestFailed();
+        } else {
+            instanceStats.requestSucceeded();
+        }
+    }
+
+    /**
+     * 记录没有收到响应的请求：连接失败或响应超时，请求失败并降低并发上限。
+     */
+    public static void recordFailure(InstanceStats instanceStats, Throwable throwable) {
+        if (ConnectFailures.isResponseTimeout(throwable)) {
+            instanceStats.responseTimedOut();
+        } else if (ConnectFailures.isConnectFailure(throwable)) {
+            instanceStats.connectFailed();
+        }
+        instanceStats.requestFailed();
+        instanceStats.requestDropped();
+    }
+
+    private static boolean isServerError(ResponseData response) {
+        return response != null && response.getHttpStatus() != null && response.getHttpStatus().is5xxServerError();
+    }
+}
@@ -0,0 +1,138 @@
+package com.bestlink.limit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单个服务实例的自适应并发上限，参考 Netflix concurrency-limits 的 Gradient2 算法。
+ * <p>
+ * 记录长期响应时间（长窗口 EWMA）作为无排队时的基准，每收到一个响应，按 gradient = tolerance * 长期响应时间 / 本次响应时间
+ * （限制在 [0.5, 1]）计算新的上限：newLimit = limit * gradient + sqrt(limit)，再按 smoothing 平滑。
+ * 响应时间接近基准时上限缓慢增长，响应时间明显变长（实例排队）时上限下降；请求失败或超时时上限乘以 backoffRatio。
+ * 在途请求数不到上限一半时不增长，避免低负载时上限无限增长。
+ * <p>
+ * 实例完全卡住（例如断点调试）时没有响应，上限不再变化，在途请求数达到上限后负载均衡不再选择此实例。
+ * <p>
+ * 上限（float）和长期响应时间（微秒）打包在一个 {@link AtomicLong} 中，CAS 更新，不加锁也不分配对象。
+ *
+ * @author xuzhongkang
+ * @see ConcurrencyLimiter
+ * @since 2026/10/21 15:10
+ **/
+public class AdaptiveConcurrencyLimit {
+
+    private static final long NANOS_PER_MICRO = 1000L;
+
+    /**
+     * 长期响应时间的 EWMA 窗口（样本数）。
+     */
+    private static final int LONG_WINDOW = 100;
+
+    private static final double MIN_GRADIENT = 0.5D;
+
+    /**
+     * 高 32 位为上限（float），低 32 位为长期响应时间（微秒），0 表示还没有测量值。
+     */
+    private final AtomicLong state;
+
+    private final double minLimit;
+    private final double maxLimit;
+    private final double smoothing;
+    private final double tolerance;
+    private final double backoffRatio;
+
+    /**
+     * @param initialLimit 初始上限
+     * @param minLimit     最小上限
+     * @param maxLimit     最大上限
+     * @param smoothing    平滑系数，(0, 1]，越大上限变化越快
+     * @param tolerance    响应时间容忍倍数，本次响应时间不超过长期响应时间的 tolerance 倍时上限不下降
+     * @param backoffRatio 请求失败时上限乘以的系数，(0, 1]
+     */
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double smoothing, double tolerance, double backoffRatio) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.smoothing = Math.min(1D, Math.max(0.01D, smoothing));
+        this.tolerance = Math.max(1D, tolerance);
+        this.backoffRatio = Math.min(1D, Math.max(0.1D, backoffRatio));
+        this.state = new AtomicLong(pack(clamp(initialLimit), 0));
+    }
+
+    /**
+     * 收到响应，按响应时间调整上限。
+     *
+     * @param rttNanos 响应时间
+     * @param inFlight 发出此请求时（或收到响应时）实例的在途请求数
+     */
+    public void onSample(long rttNanos, long inFlight) {
+        int rtt = (int) Math.min(Math.max(rttNanos / NANOS_PER_MICRO, 1L), Integer.MAX_VALUE);
+        while (true) {
+            long current = state.get();
+            double limit = limitOf(current);
+            int longRtt = rttOf(current);
+            double nextLongRtt = longRtt == 0 ? rtt : longRtt + (double) (rtt - longRtt) / LONG_WINDOW;
+            if (nextLongRtt > 2D * rtt) {
+                // 负载下降后响应时间恢复，长期响应时间跟随下降，否则上限会长时间偏高
+                nextLongRtt *= 0.95D;
+            }
+            double nextLimit = limit;
+            if (inFlight * 2 >= limit) {
+                double gradient = Math.max(MIN_GRADIENT, Math.min(1D, tolerance * nextLongRtt / rtt));
+                double newLimit = limit * gradient + Math.sqrt(limit);
+                nextLimit = clamp(limit * (1D - smoothing) + newLimit * smoothing);
+            }
+            if (state.compareAndSet(current, pack(nextLimit, (int) Math.max(1D, nextLongRtt)))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 请求失败或超时，上限乘以 backoffRatio。
+     */
+    public void onDropped() {
+        while (true) {
+            long current = state.get();
+            double next = clamp(limitOf(current) * backoffRatio);
+            if (state.compareAndSet(current, pack(next, rttOf(current)))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 在途请求数是否已经达到上限。
+     */
+    public boolean isAtLimit(long inFlight) {
+        return inFlight >= getLimit();
+    }
+
+    /**
+     * 当前上限。
+     */
+    public int getLimit() {
+        return (int) limitOf(state.get());
+    }
+
+    /**
+     * 长期响应时间（微秒），还没有测量值时返回 0。
+     */
+    public int getLongRttMicros() {
+        return rttOf(state.get());
+    }
+
+    private double clamp(double limit) {
+        return Math.min(maxLimit, Math.max(minLimit, limit));
+    }
+
+    private static long pack(double limit, int rttMicros) {
+        return ((long) Float.floatToRawIntBits((float) limit) << 32) | (rttMicros & 0xFFFFFFFFL);
+    }
+
+    private static double limitOf(long state) {
+        return Float.intBitsToFloat((int) (state >>> 32));
+    }
+
+    private static int rttOf(long state) {
+        return (int) state;
+    }
+}
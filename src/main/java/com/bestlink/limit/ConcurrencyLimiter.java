@@ -0,0 +1,84 @@
+package com.bestlink.limit;
+
+import com.bestlink.properties.IsolationProperties;
+import com.bestlink.stats.InstanceStats;
+
+/**
+ * 服务实例的自适应并发限制：为每个实例（本地及非本地）创建 {@link AdaptiveConcurrencyLimit}，保存在实例统计中，
+ * 负载均衡选择实例时检查实例的在途请求数是否达到上限。
+ * <p>
+ * 本地服务实例（开发者电脑）断点调试、共享实例磁盘变慢时，仍然会不断收到请求，直到连接池耗尽，进而阻塞 gateway event-loop 及 Feign 线程池。
+ * 并发上限按响应时间自动调整，实例变慢时上限下降，达到上限的实例不再被选择。
+ *
+ * @author xuzhongkang
+ * @see IsolationProperties.ConcurrencyLimit
+ * @since 2026/10/21 15:10
+ **/
+public class ConcurrencyLimiter {
+
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final double tolerance;
+    private final double backoffRatio;
+    private final LimitPolicy policy;
+
+    private ConcurrencyLimiter(IsolationProperties.ConcurrencyLimit properties) {
+        this.minLimit = Math.max(1, properties.getMinLimit());
+        this.maxLimit = Math.max(minLimit, properties.getMaxLimit());
+        this.initialLimit = Math.min(maxLimit, Math.max(minLimit, properties.getInitialLimit()));
+        this.smoothing = properties.getSmoothing();
+        this.tolerance = properties.getRttTolerance();
+        this.backoffRatio = properties.getBackoffRatio();
+        this.policy = properties.getPolicy() == null ? LimitPolicy.SKIP : properties.getPolicy();
+    }
+
+    /**
+     * @return 未开启时返回 null。
+     */
+    public static ConcurrencyLimiter create(IsolationProperties.ConcurrencyLimit properties) {
+        if (properties == null || !Boolean.TRUE.equals(properties.getEnabled())) {
+            return null;
+        }
+        return new ConcurrencyLimiter(properties);
+    }
+
+    /**
+     * 为新出现的实例创建并发上限，由 {@link com.bestlink.stats.InstanceStatsRegistry} 调用。
+     */
+    public AdaptiveConcurrencyLimit newLimit() {
+        return new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit, smoothing, tolerance, backoffRatio);
+    }
+
+    public LimitPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * 实例是否可以接收新请求：没有统计或没有并发上限的实例总是可以接收。
+     *
+     * @param stats    实例统计，可以为 null
+     * @param inFlight 实例当前的在途请求数
+     */
+    public static boolean admits(InstanceStats stats, long inFlight) {
+        AdaptiveConcurrencyLimit limit = stats == null ? null : stats.getConcurrencyLimit();
+        return limit == null || !limit.isAtLimit(inFlight);
+    }
+
+    /**
+     * 读取实例当前的在途请求数，gateway 使用实例统计中的计数，Ribbon 使用 ServerStats 的活跃请求数。
+     *
+     * @param <T> 服务实例类型
+     */
+    @FunctionalInterface
+    public interface InFlightProbe<T> {
+
+        /**
+         * @param instance 服务实例
+         * @param stats    实例统计，可以为 null
+         * @return 在途请求数
+         */
+        long inFlight(T instance, InstanceStats stats);
+    }
+}
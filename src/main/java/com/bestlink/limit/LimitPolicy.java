@@ -0,0 +1,21 @@
+package com.bestlink.limit;
+
+/**
+ * 选中的服务实例在途请求数达到并发上限时的处理策略。
+ *
+ * @author xuzhongkang
+ * @see com.bestlink.properties.IsolationProperties.ConcurrencyLimit#getPolicy()
+ * @since 2026/10/21 15:10
+ **/
+public enum LimitPolicy {
+
+    /**
+     * 跳过此实例：非本地实例重新选择其他未达到上限的实例，本地实例路由到非本地（共享）服务实例；所有实例都达到上限时返回没有可用实例。
+     */
+    SKIP,
+
+    /**
+     * 直接返回没有可用实例（gateway 返回 503，Feign 抛出 "Load balancer does not have available server"），不再尝试其他实例。
+     */
+    FAIL_FAST
+}
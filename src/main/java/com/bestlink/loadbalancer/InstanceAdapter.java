@@ -0,0 +1,46 @@
+package com.bestlink.loadbalancer;
+
+import java.util.Map;
+
+/**
+ * 统一读取不同类型服务实例的信息，用于构建 {@link IsolationRoutingSnapshot}。
+ *
+ * @param <T> 服务实例类型
+ * @author xuzhongkang
+ * @see ServiceInstanceAdapter
+ * @see NacosServerAdapter
+ * @since 2026/10/17 10:40
+ **/
+public interface InstanceAdapter<T> {
+
+    /**
+     * 是否为本地启动的服务实例，即 metadata 中携带 "local-instance-id"。
+     */
+    boolean isLocal(T instance);
+
+    /**
+     * 非本地实例是否可以参与负载均衡，例如实例是否存活。
+     */
+    boolean isCandidate(T instance);
+
+    String getHost(T instance);
+
+    int getPort(T instance);
+
+    /**
+     * 实例 metadata，没有时返回空 Map。
+     */
+    Map<String, String> getMetadata(T instance);
+
+    /**
+     * 实例权重，没有权重信息时返回 1。
+     */
+    double getWeight(T instance);
+
+    /**
+     * 实例标识，host:port。
+     */
+    default String getKey(T instance) {
+        return getHost(instance) + ":" + getPort(instance);
+    }
+}
@@ -0,0 +1,429 @@
+package com.bestlink.loadbalancer;
+
+import com.bestlink.configuration.LocalNacosServerInstanceConfiguration;
+import com.bestlink.matcher.CidrBlock;
+import com.bestlink.matcher.IpAddresses;
+import com.bestlink.matcher.IpPrefixTrie;
+import com.bestlink.stats.InstanceStats;
+import com.bestlink.stats.InstanceStatsRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.StringUtils;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * 某个服务的路由快照，不可变。
+ * <p>
+ * 在服务实例列表发生变化时构建一次，之后每次负载均衡只需要一次 host 哈希查找（本地实例）或一次数组下标访问（非本地实例），
+ * 不再对整个实例列表进行遍历、过滤，也不会在请求路径上产生额外的对象分配。
+ * <p>
+ * 请求 ip 与本地实例 host 不完全相同时（格式不同、IPv6，或者开发者通过 VPN/NAT 地址池访问），
+ * 按本地实例 metadata 中 "local-instance-cidr" 声明的地址段进行最长前缀匹配。声明的地址段由开发者自己配置，
+ * 前缀短于最小长度（例如 "0.0.0.0/0"、"10.0.0.0/8"），或者包含非本地实例 host 的地址段会把共享环境中其他调用方的请求
+ * 路由到开发者电脑，构建时忽略并记录日志。
+ *
+ * @param <T> 服务实例类型，例如 {@link org.springframework.cloud.client.ServiceInstance}
+ * @author xuzhongkang
+ * @see ReactorIsolationRobinLoadBalancer
+ * @since 2026/10/16 10:12
+ **/
+@Slf4j
+public final class IsolationRoutingSnapshot<T> {
+
+    /**
+     * 本地实例声明的 IPv4 地址段默认的最小前缀长度。
+     */
+    public static final int DEFAULT_MIN_IPV4_PREFIX = 16;
+
+    /**
+     * 本地实例声明的 IPv6 地址段默认的最小前缀长度。
+     */
+    public static final int DEFAULT_MIN_IPV6_PREFIX = 48;
+
+    /**
+     * 构建此快照的数据来源标识，用于判断实例列表是否发生变化。
+     */
+    private final Object source;
+
+    /**
+     * 本地启动的服务实例（metadata 中携带 "local-instance-id"），key 为实例 host。
+     */
+    private final Map<String, T> localInstances;
+
+    /**
+     * 本地启动的服务实例，key 为 metadata 中的 "local-instance-id"，多个实例使用同一个标识时不加入（无法确定目标）。
+     */
+    private final Map<String, T> localById;
+
+    /**
+     * 本地启动的服务实例，key 为实例标识（host:port），同一台机器上的多个本地实例可以区分。
+     */
+    private final Map<String, T> localByKey;
+
+    /**
+     * 本地实例的地址段（实例 host 及 metadata 中声明的 CIDR），没有本地实例时为 null。
+     */
+    private final IpPrefixTrie<T> localRanges;
+
+    /**
+     * 非本地启动的服务实例。
+     */
+    private final Object[] nonLocalInstances;
+
+    /**
+     * 非本地服务实例，key 为实例标识（host:port）。
+     */
+    private final Map<String, T> nonLocalByKey;
+
+    /**
+     * 与 {@link #nonLocalInstances} 下标对齐的实例统计，没有传入 {@link InstanceStatsRegistry} 时为 null。
+     */
+    private final InstanceStats[] nonLocalStats;
+
+    /**
+     * 所有实例（包括本地实例）的统计，key 为实例对象本身。
+     */
+    private final Map<T, InstanceStats> instanceStats;
+
+    private IsolationRoutingSnapshot(Object source, Map<String, T> localInstances, Map<String, T> localById,
+                                     Map<String, T> localByKey, IpPrefixTrie<T> localRanges,
+                                     Object[] nonLocalInstances, Map<String, T> nonLocalByKey,
+                                     InstanceStats[] nonLocalStats, Map<T, InstanceStats> instanceStats) {
+        this.source = source;
+        this.localInstances = localInstances;
+        this.localById = localById;
+        this.localByKey = localByKey;
+        this.localRanges = localRanges;
+        this.nonLocalInstances = nonLocalInstances;
+        this.nonLocalByKey = nonLocalByKey;
+        this.nonLocalStats = nonLocalStats;
+        this.instanceStats = instanceStats;
+    }
+
+    /**
+     * 根据实例列表构建路由快照，不关联实例统计。
+     *
+     * @param source    数据来源标识，通过 {@link #isBuiltFrom(Object)} 判断快照是否过期
+     * @param instances 服务实例列表
+     * @param adapter   读取实例信息
+     */
+    public static <T> IsolationRoutingSnapshot<T> build(Object source, List<T> instances, InstanceAdapter<T> adapter) {
+        return build(source, instances, adapter, null);
+    }
+
+    /**
+     * 根据实例列表构建路由快照。
+     * <p>
+     * 传入 statsRegistry 时，在构建阶段为每个实例关联统计对象（按 host:port），并清理已经不在列表中的实例统计，
+     * 请求路径上只需要按下标或实例对象读取，不再拼接 key。
+     *
+     * @param source        数据来源标识，通过 {@link #isBuiltFrom(Object)} 判断快照是否过期
+     * @param instances     服务实例列表
+     * @param adapter       读取实例信息
+     * @param statsRegistry 实例统计，可以为 null
+     */
+    public static <T> IsolationRoutingSnapshot<T> build(Object source, List<T> instances, InstanceAdapter<T> adapter,
+                                                        InstanceStatsRegistry statsRegistry) {
+        return build(source, instances, adapter, statsRegistry, DEFAULT_MIN_IPV4_PREFIX, DEFAULT_MIN_IPV6_PREFIX);
+    }
+
+    /**
+     * 根据实例列表构建路由快照，本地实例声明的地址段前缀短于最小长度时忽略。
+     *
+     * @param minIpv4Prefix 本地实例声明的 IPv4 地址段的最小前缀长度（0~32）
+     * @param minIpv6Prefix 本地实例声明的 IPv6 地址段的最小前缀长度（0~128）
+     * @see #build(Object, List, InstanceAdapter, InstanceStatsRegistry)
+     */
+    public static <T> IsolationRoutingSnapshot<T> build(Object source, List<T> instances, InstanceAdapter<T> adapter,
+                                                        InstanceStatsRegistry statsRegistry, int minIpv4Prefix, int minIpv6Prefix) {
+        Map<String, T> localInstances = new HashMap<>();
+        Map<String, T> localById = new HashMap<>();
+        Map<String, T> localByKey = new HashMap<>();
+        Set<String> duplicateIds = null;
+        IpPrefixTrie<T> localRanges = null;
+        List<T> locals = null;
+        List<byte[]> nonLocalAddresses = new ArrayList<>();
+        Object[] nonLocal = new Object[instances.size()];
+        int nonLocalSize = 0;
+        for (T instance : instances) {
+            if (adapter.isLocal(instance)) {
+                // 同一 host 上有多个本地实例时，与原有逻辑保持一致，取列表中的第一个
+                localInstances.putIfAbsent(adapter.getHost(instance), instance);
+                localByKey.putIfAbsent(adapter.getKey(instance), instance);
+                String id = adapter.getMetadata(instance).get(LocalNacosServerInstanceConfiguration.NACOS_METADATA_LOCAL_KEY);
+                if (StringUtils.hasText(id) && localById.putIfAbsent(id, instance) != null) {
+                    if (duplicateIds == null) {
+                        duplicateIds = new HashSet<>();
+                    }
+                    duplicateIds.add(id);
+                }
+                if (locals == null) {
+                    locals = new ArrayList<>();
+                }
+                locals.add(instance);
+            } else {
+                byte[] address = IpAddresses.parse(adapter.getHost(instance));
+                if (address != null) {
+                    nonLocalAddresses.add(address);
+                }
+                if (adapter.isCandidate(instance)) {
+                    nonLocal[nonLocalSize++] = instance;
+                }
+            }
+        }
+        if (locals != null) {
+            // 地址段需要与所有非本地实例的 host 比较，在遍历完实例列表之后加入
+            localRanges = new IpPrefixTrie<>();
+            for (T instance : locals) {
+                addLocalRanges(localRanges, instance, adapter, minIpv4Prefix, minIpv6Prefix, nonLocalAddresses);
+            }
+        }
+        if (duplicateIds != null) {
+            localById.keySet().removeAll(duplicateIds);
+        }
+        Object[] nonLocalInstances = new Object[nonLocalSize];
+        System.arraycopy(nonLocal, 0, nonLocalInstances, 0, nonLocalSize);
+        Map<String, T> nonLocalByKey = new HashMap<>();
+        for (int i = 0; i < nonLocalSize; i++) {
+            @SuppressWarnings("unchecked")
+            T instance = (T) nonLocalInstances[i];
+            nonLocalByKey.putIfAbsent(adapter.getKey(instance), instance);
+        }
+
+        InstanceStats[] nonLocalStats = null;
+        Map<T, InstanceStats> instanceStats = Collections.emptyMap();
+        if (statsRegistry != null) {
+            // 实例类型（如 NacosServiceInstance）不一定实现 equals/hashCode，这里按对象引用关联
+            instanceStats = new IdentityHashMap<>();
+            Set<String> keys = new HashSet<>();
+            for (T instance : instances) {
+                String key = adapter.getKey(instance);
+                keys.add(key);
+                instanceStats.put(instance, statsRegistry.getOrCreate(key));
+            }
+            nonLocalStats = new InstanceStats[nonLocalSize];
+            for (int i = 0; i < nonLocalSize; i++) {
+                nonLocalStats[i] = instanceStats.get(nonLocalInstances[i]);
+            }
+            statsRegistry.retain(keys);
+        }
+        return new IsolationRoutingSnapshot<>(source,
+                localInstances.isEmpty() ? Collections.emptyMap() : localInstances,
+                localById.isEmpty() ? Collections.emptyMap() : localById,
+                localByKey.isEmpty() ? Collections.emptyMap() : localByKey, localRanges,
+                nonLocalInstances, nonLocalByKey, nonLocalStats, instanceStats);
+    }
+
+    /**
+     * 将本地实例的 host 以及 metadata 中声明的地址段加入前缀树。
+     * 格式错误、前缀短于最小长度，以及包含非本地实例 host 的地址段忽略。
+     */
+    private static <T> void addLocalRanges(IpPrefixTrie<T> localRanges, T instance, InstanceAdapter<T> adapter,
+                                           int minIpv4Prefix, int minIpv6Prefix, List<byte[]> nonLocalAddresses) {
+        byte[] host = IpAddresses.parse(adapter.getHost(instance));
+        if (host != null) {
+            localRanges.insert(host, IpAddresses.ADDRESS_BITS, instance);
+        }
+        String cidrs = adapter.getMetadata(instance).get(LocalNacosServerInstanceConfiguration.NACOS_METADATA_CIDR_KEY);
+        if (!StringUtils.hasText(cidrs)) {
+            return;
+        }
+        for (String cidr : StringUtils.commaDelimitedListToStringArray(cidrs)) {
+            CidrBlock block = CidrBlock.parse(cidr);
+            if (block == null) {
+                log.warn("ignore invalid cidr [{}] of local instance [{}]", cidr, adapter.getKey(instance));
+                continue;
+            }
+            int minPrefix = block.isIpv4() ? minIpv4Prefix : minIpv6Prefix;
+            if (block.getNetworkPrefixLength() < minPrefix) {
+                log.warn("ignore cidr [{}] of local instance [{}], prefix length is shorter than {}",
+                        cidr, adapter.getKey(instance), minPrefix);
+                continue;
+            }
+            if (containsAny(block, nonLocalAddresses)) {
+                log.warn("ignore cidr [{}] of local instance [{}], it contains the host of a non-local instance",
+                        cidr, adapter.getKey(instance));
+                continue;
+            }
+            localRanges.insert(block, instance);
+        }
+    }
+
+    private static boolean containsAny(CidrBlock block, List<byte[]> addresses) {
+        for (byte[] address : addresses) {
+            if (block.contains(address)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 过滤非本地实例，返回新的快照（本地实例、数据来源不变），所有实例都保留时返回自身。
+     * 没有关联实例统计时不过滤。
+     *
+     * @param keep 判断非本地实例是否保留
+     */
+    public IsolationRoutingSnapshot<T> filterNonLocal(Predicate<InstanceStats> keep) {
+        if (nonLocalStats == null) {
+            return this;
+        }
+        int kept = 0;
+        for (InstanceStats stats : nonLocalStats) {
+            if (keep.test(stats)) {
+                kept++;
+            }
+        }
+        if (kept == nonLocalStats.length) {
+            return this;
+        }
+        Object[] instances = new Object[kept];
+        InstanceStats[] stats = new InstanceStats[kept];
+        Map<String, T> byKey = new HashMap<>();
+        int index = 0;
+        for (int i = 0; i < nonLocalStats.length; i++) {
+            if (keep.test(nonLocalStats[i])) {
+                instances[index] = nonLocalInstances[i];
+                stats[index++] = nonLocalStats[i];
+                byKey.put(nonLocalStats[i].getKey(), nonLocal(i));
+            }
+        }
+        return new IsolationRoutingSnapshot<>(source, localInstances, localById, localByKey, localRanges, instances, byKey, stats, instanceStats);
+    }
+
+    /**
+     * 判断此快照是否由传入的数据来源构建。
+     * <p>
+     * ServiceInstanceListSupplier 开启缓存时，实例列表未变化前每次返回同一个 List 对象，因此这里只比较引用。
+     */
+    public boolean isBuiltFrom(Object source) {
+        return this.source == source;
+    }
+
+    /**
+     * 判断实例列表与构建此快照的数据来源（实例列表）是否包含相同的实例：数量相同，且按顺序为同一个实例对象。
+     * <p>
+     * 用于没有开启缓存的 ServiceInstanceListSupplier（每次返回新的 List 对象），实例统计按实例对象关联，因此只比较引用。
+     * 数据来源不是 List 时返回 false。
+     */
+    public boolean hasSameInstances(List<?> instances) {
+        if (!(source instanceof List) || instances == null) {
+            return false;
+        }
+        List<?> built = (List<?>) source;
+        if (built.size() != instances.size()) {
+            return false;
+        }
+        Iterator<?> expected = built.iterator();
+        for (Object instance : instances) {
+            if (expected.next() != instance) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 根据请求 ip 查找本地启动的服务实例，没有找到时返回 null。
+     * <p>
+     * 先按 host 字符串精确匹配，没有匹配时将 ip 解析为数值，在本地实例的地址段中进行最长前缀匹配。
+     */
+    public T matchLocal(String host) {
+        if (host == null) {
+            return null;
+        }
+        T instance = localInstances.get(host);
+        if (instance != null || localRanges == null) {
+            return instance;
+        }
+        byte[] address = IpAddresses.parse(host);
+        return address == null ? null : localRanges.longestMatch(address);
+    }
+
+    /**
+     * 根据隔离标识查找本地启动的服务实例，没有找到时返回 null。
+     * <p>
+     * 指定了目标实例并且能找到时直接返回目标实例；否则按请求 ip 匹配。
+     *
+     * @param host   请求 ip
+     * @param target 目标实例，见 {@link #matchTarget(String)}，可以为 null
+     */
+    public T matchLocal(String host, String target) {
+        T instance = matchTarget(target);
+        return instance != null ? instance : matchLocal(host);
+    }
+
+    /**
+     * 查找指定的本地服务实例，依次按 "local-instance-id"、实例标识（host:port）、host 查找，每种方式都是一次哈希查找。
+     * 多个本地实例使用同一个 "local-instance-id" 时不能按标识查找。
+     *
+     * @param target 目标实例，为空时返回 null
+     */
+    public T matchTarget(String target) {
+        if (target == null || localInstances.isEmpty()) {
+            return null;
+        }
+        T instance = localById.get(target);
+        if (instance == null) {
+            instance = localByKey.get(target);
+        }
+        return instance != null ? instance : localInstances.get(target);
+    }
+
+    /**
+     * 本地启动的服务实例（每个 host 一个）。
+     */
+    public Collection<T> localInstances() {
+        return Collections.unmodifiableCollection(localInstances.values());
+    }
+
+    /**
+     * 所有本地启动的服务实例（按 host:port 区分，同一 host 上的多个实例都包含在内）。
+     */
+    public Collection<T> allLocalInstances() {
+        return Collections.unmodifiableCollection(localByKey.values());
+    }
+
+    public int localSize() {
+        return localInstances.size();
+    }
+
+    public int nonLocalSize() {
+        return nonLocalInstances.length;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T nonLocal(int index) {
+        return (T) nonLocalInstances[index];
+    }
+
+    /**
+     * 根据实例标识（host:port）查找非本地服务实例，实例已下线或不可用时返回 null。
+     */
+    public T nonLocalByKey(String key) {
+        return key == null ? null : nonLocalByKey.get(key);
+    }
+
+    /**
+     * 所有非本地服务实例的标识（host:port）。
+     */
+    public Set<String> nonLocalKeys() {
+        return Collections.unmodifiableSet(nonLocalByKey.keySet());
+    }
+
+    /**
+     * 非本地实例的统计，构建时没有传入 {@link InstanceStatsRegistry} 时返回 null。
+     */
+    public InstanceStats nonLocalStats(int index) {
+        return nonLocalStats == null ? null : nonLocalStats[index];
+    }
+
+    /**
+     * 快照中某个实例的统计，没有时返回 null。
+     */
+    public InstanceStats statsOf(T instance) {
+        return instance == null ? null : instanceStats.get(instance);
+    }
+}
@@ -0,0 +1,72 @@
+package com.bestlink.loadbalancer;
+
+import com.alibaba.cloud.nacos.ribbon.NacosServer;
+import com.bestlink.configuration.LocalNacosServerInstanceConfiguration;
+import com.netflix.loadbalancer.Server;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Ribbon {@link Server}（{@link NacosServer}）的实例信息。
+ * <p>
+ * 非 NacosServer 既不作为本地实例，也不参与非本地实例的负载均衡。
+ *
+ * @author xuzhongkang
+ * @see RibbonIsolationRule
+ * @since 2026/10/17 10:40
+ **/
+public class NacosServerAdapter implements InstanceAdapter<Server> {
+
+    public static final NacosServerAdapter INSTANCE = new NacosServerAdapter();
+
+    private static final String NACOS_METADATA_LOCAL_KEY = LocalNacosServerInstanceConfiguration.NACOS_METADATA_LOCAL_KEY;
+
+    @Override
+    public boolean isLocal(Server server) {
+        // 只匹配元数据中含有本地服务标识（"local-instance-id"）的实例，否则会造成线上服务负载均衡失效。
+        return server instanceof NacosServer && getMetadata(server).containsKey(NACOS_METADATA_LOCAL_KEY);
+    }
+
+    /**
+     * 只有存活并且可以提供服务的 NacosServer 参与负载均衡。
+     * <p>
+     * isAlive 由 ping 更新，变化时会通知 {@link RibbonIsolationRule} 重建路由快照；
+     * isReadyToServe 的变化没有通知，在下一次服务列表或服务状态变化时生效。
+     */
+    @Override
+    public boolean isCandidate(Server server) {
+        return server instanceof NacosServer && server.isAlive() && server.isReadyToServe();
+    }
+
+    @Override
+    public String getHost(Server server) {
+        return server.getHost();
+    }
+
+    @Override
+    public int getPort(Server server) {
+        return server.getPort();
+    }
+
+    @Override
+    public Map<String, String> getMetadata(Server server) {
+        if (server instanceof NacosServer && ((NacosServer) server).getMetadata() != null) {
+            return ((NacosServer) server).getMetadata();
+        }
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public double getWeight(Server server) {
+        if (server instanceof NacosServer) {
+            return ((NacosServer) server).getInstance().getWeight();
+        }
+        return 1D;
+    }
+
+    @Override
+    public String getKey(Server server) {
+        return server.getHostPort();
+    }
+}
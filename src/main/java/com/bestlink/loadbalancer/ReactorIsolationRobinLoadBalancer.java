@@ -1,7 +1,33 @@
 package com.bestlink.loadbalancer;
 
-import com.bestlink.configuration.LocalNacosServerInstanceConfiguration;
+import com.bestlink.affinity.AffinityCache;
+import com.bestlink.endpoint.RoutingDecision;
+import com.bestlink.endpoint.RoutingDecisionRecorder;
+import com.bestlink.endpoint.RoutingSnapshotView;
+import com.bestlink.health.LocalFailoverPolicy;
+import com.bestlink.health.LocalInstanceHealth;
+import com.bestlink.lifecycle.InFlightResponse;
+import com.bestlink.limit.ConcurrencyLimiter;
+import com.bestlink.limit.LimitPolicy;
+import com.bestlink.metrics.RoutingMetrics;
+import com.bestlink.metrics.RoutingOutcome;
+import com.bestlink.outlier.OutlierDetector;
+import com.bestlink.properties.IsolationProperties;
+import com.bestlink.properties.IsolationSettings;
+import com.bestlink.properties.IsolationSettingsHolder;
+import com.bestlink.propagation.IsolationKey;
+import com.bestlink.propagation.IsolationTokenCodec;
+import com.bestlink.resolver.ClientIpResolver;
+import com.bestlink.stats.InstanceStats;
+import com.bestlink.stats.InstanceStatsRegistry;
+import com.bestlink.supplier.PushServiceInstanceListSupplier;
+import com.bestlink.strategy.BalanceStrategy;
+import com.bestlink.strategy.ConcurrencyLimitInstanceSelector;
+import com.bestlink.strategy.InstanceSelector;
+import com.bestlink.strategy.InstanceSelectors;
+import com.bestlink.strategy.SlowStartInstanceSelector;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.cloud.client.ServiceInstance;
 import org.springframework.cloud.client.loadbalancer.*;
@@ -9,18 +35,19 @@ import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSuppli
 import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
 import org.springframework.cloud.loadbalancer.core.SelectedInstanceCallback;
 import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.http.HttpHeaders;
 import org.springframework.util.StringUtils;
 import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
 
 import java.util.List;
-import java.util.Random;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 /**
  * 自定义负载均衡规则，通过 ip 和 metadata 选择服务实例，线上服务流量不会路由到本地服务，本地调试请求可以路由到本地服务，实现流量隔离。
  * 本地启动的服务中，会在 metadata 中携带 "local-instance-id" 标识，表明此服务实例来自本地。
  * 对于某次请求，首先尝试寻找与请求 ip 相同的服务实例（只会匹配元数据中有 "local-instance-id" 的服务实例，防止线上服务负载均衡失效），
- * 如果没有匹配对应的服务实例，在剩下的非本地服务中随机选择一个。
+ * 如果没有匹配对应的服务实例，在剩下的非本地服务中按照配置的负载均衡策略（默认随机）选择一个。
  * <p>
  * 用于 Spring Cloud Loadbalancer + Nacos 模式。
  *
@@ -30,28 +57,159 @@ import java.util.stream.Collectors;
  **/
 @Slf4j
 @SuppressWarnings("rawtypes")
-public class ReactorIsolationRobinLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+public class ReactorIsolationRobinLoadBalancer implements ReactorServiceInstanceLoadBalancer, DisposableBean {
+
+    private static final String ISOLATION_KEY_ATTRIBUTE = IsolationKey.ATTRIBUTE;
+    private static final String REMOTE_ADDRESS_ATTRIBUTE = ClientIpResolver.REMOTE_ADDRESS_ATTRIBUTE;
+    private static final Object NOT_FOUND = new Object();
+    private static final ServiceInstanceAdapter ADAPTER = ServiceInstanceAdapter.INSTANCE;
+
+    private final String serviceId;
+    private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
 
     /**
-     * @see com.bestlink.configuration.LocalNacosServerInstanceConfiguration#NACOS_METADATA_LOCAL_KEY
+     * 当前的配置（ip-headers、target-ip 等）及按负载均衡策略构建的 InstanceSelector，配置更新后在下一次选择时替换。
      */
-    private static final String NACOS_METADATA_LOCAL_KEY = LocalNacosServerInstanceConfiguration.NACOS_METADATA_LOCAL_KEY;
+    private final RoutingState.Reference<ServiceInstance> routingState;
 
-    private static final String X_REAL_IP = "x-real-ip";
-    private static final String X_FORWARDED_FOR = "x-forwarded-for";
-    private static final String PROXY_CLIENT_IP = "Proxy-Client-IP";
-    private static final String WL_PROXY_CLIENT_IP = "WL-Proxy-Client-IP";
-    private static final String X_CLIENT_IP = "X_CLIENT_IP";
-    private static final String UNKNOWN = "unknown";
-    private static final String IP_SEPARATOR = ",";
+    /**
+     * 隔离标识请求头，未开启时为 null。
+     */
+    private final IsolationTokenCodec tokenCodec;
+    private final RoutingMetrics.ServiceRoutingMetrics metrics;
 
-    private static final Random RANDOM = new Random();
-    private final String serviceId;
-    private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
+    /**
+     * 路由决策抽样记录，没有开启 isolation 端点时为 {@link RoutingDecisionRecorder#NOOP}。
+     */
+    private final RoutingDecisionRecorder decisionRecorder;
+    private final InstanceStatsRegistry statsRegistry;
+    private final IsolationProperties.SlowStart slowStart;
+
+    /**
+     * peak EWMA 策略中还没有响应时间的实例使用的默认值（微秒）。
+     */
+    private final double defaultLatencyMicros;
+
+    /**
+     * 非本地服务实例异常检测，未开启时为 null。
+     */
+    private final OutlierDetector<ServiceInstance> outlierDetector;
+
+    /**
+     * 粘性路由缓存，未开启时为 null。
+     */
+    private final AffinityCache affinityCache;
+    private final String affinityHeader;
+
+    /**
+     * 一致性哈希策略作为请求 key 的请求头。
+     */
+    private final String hashHeader;
+
+    /**
+     * 按请求指定目标本地实例的请求头，没有配置时为 null。
+     */
+    private final String targetHeader;
+
+    /**
+     * 本地服务实例健康检查，未开启时为 null。
+     */
+    private final LocalInstanceHealth localHealth;
+
+    /**
+     * 本地服务实例声明的 IPv4、IPv6 地址段的最小前缀长度。
+     */
+    private final int minLocalCidrPrefix;
+    private final int minLocalCidrPrefixV6;
+
+    /**
+     * 实例并发限制，未开启时为 null。
+     */
+    private final ConcurrencyLimiter concurrencyLimiter;
+
+    /**
+     * 已经获取到的 ServiceInstanceListSupplier，避免每次请求都从容器中查找。
+     */
+    private volatile ServiceInstanceListSupplier serviceInstanceListSupplier;
+
+    /**
+     * 当前服务的路由快照，实例列表变化时重新构建。
+     */
+    private volatile IsolationRoutingSnapshot<ServiceInstance> snapshot;
 
     public ReactorIsolationRobinLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider, String serviceId) {
+        this(serviceInstanceListSupplierProvider, serviceId, new IsolationProperties());
+    }
+
+    public ReactorIsolationRobinLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider, String serviceId,
+                                             IsolationProperties isolationProperties) {
+        this(serviceInstanceListSupplierProvider, serviceId, isolationProperties, RoutingMetrics.NOOP);
+    }
+
+    public ReactorIsolationRobinLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider, String serviceId,
+                                             IsolationProperties isolationProperties, RoutingMetrics routingMetrics) {
+        this(serviceInstanceListSupplierProvider, serviceId, isolationProperties, routingMetrics, RoutingDecisionRecorder.NOOP);
+    }
+
+    public ReactorIsolationRobinLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider, String serviceId,
+                                             IsolationProperties isolationProperties, RoutingMetrics routingMetrics,
+                                             RoutingDecisionRecorder decisionRecorder) {
+        this(serviceInstanceListSupplierProvider, serviceId, isolationProperties, IsolationSettingsHolder.of(isolationProperties),
+                routingMetrics, decisionRecorder);
+    }
+
+    /**
+     * @param settingsHolder active-env、ip-headers、target-ip 及 strategy 从这里读取，忽略 isolationProperties 中的对应配置
+     */
+    public ReactorIsolationRobinLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider, String serviceId,
+                                             IsolationProperties isolationProperties, IsolationSettingsHolder settingsHolder,
+                                             RoutingMetrics routingMetrics, RoutingDecisionRecorder decisionRecorder) {
         this.serviceId = serviceId;
+        this.decisionRecorder = decisionRecorder;
         this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
+        IsolationProperties.PeakEwma peakEwma = isolationProperties.getPeakEwma();
+        this.defaultLatencyMicros = peakEwma.getDefaultLatency().toNanos() / 1000D;
+        this.concurrencyLimiter = ConcurrencyLimiter.create(isolationProperties.getConcurrencyLimit());
+        this.slowStart = isolationProperties.getSlowStart();
+        this.routingState = new RoutingState.Reference<>(settingsHolder, this::createSelector);
+        this.targetHeader = StringUtils.hasText(isolationProperties.getTargetHeader()) ? isolationProperties.getTargetHeader().trim() : null;
+        this.hashHeader = isolationProperties.getHash() != null && StringUtils.hasText(isolationProperties.getHash().getHeader())
+                ? isolationProperties.getHash().getHeader() : null;
+        this.tokenCodec = IsolationTokenCodec.create(isolationProperties.getPropagation());
+        this.metrics = routingMetrics.forService(serviceId, this::localPoolSize, this::nonLocalPoolSize);
+        IsolationProperties.Affinity affinity = isolationProperties.getAffinity();
+        if (affinity != null && Boolean.TRUE.equals(affinity.getEnabled())) {
+            this.affinityCache = new AffinityCache(affinity.getTtl(), affinity.getMaxSize());
+            this.affinityHeader = StringUtils.hasText(affinity.getHeader()) ? affinity.getHeader() : null;
+        } else {
+            this.affinityCache = null;
+            this.affinityHeader = null;
+        }
+        this.localHealth = LocalInstanceHealth.create(isolationProperties.getLocalHealth());
+        this.minLocalCidrPrefix = isolationProperties.getMinLocalCidrPrefix() == null
+                ? IsolationRoutingSnapshot.DEFAULT_MIN_IPV4_PREFIX : isolationProperties.getMinLocalCidrPrefix();
+        this.minLocalCidrPrefixV6 = isolationProperties.getMinLocalCidrPrefixV6() == null
+                ? IsolationRoutingSnapshot.DEFAULT_MIN_IPV6_PREFIX : isolationProperties.getMinLocalCidrPrefixV6();
+        this.outlierDetector = OutlierDetector.create(isolationProperties.getOutlierDetection());
+        this.statsRegistry = new InstanceStatsRegistry(outlierDetector == null ? 0 : outlierDetector.getWindowSize(),
+                outlierDetector, peakEwma.getDecay().toNanos(), concurrencyLimiter);
+    }
+
+    /**
+     * 按负载均衡策略构建 InstanceSelector，负载均衡策略更新时重新调用。
+     */
+    private InstanceSelector<ServiceInstance> createSelector(BalanceStrategy strategy) {
+        return ConcurrencyLimitInstanceSelector.wrap(SlowStartInstanceSelector.wrap(InstanceSelectors.create(strategy, ADAPTER::getWeight,
+                        strategy == BalanceStrategy.PEAK_EWMA ? this::peakEwmaLoadOf : ReactorIsolationRobinLoadBalancer::inFlightOf,
+                        ADAPTER::getKey), slowStart),
+                concurrencyLimiter, (instance, stats) -> stats == null ? 0L : stats.getInFlight());
+    }
+
+    @Override
+    public void destroy() {
+        if (localHealth != null) {
+            localHealth.close();
+        }
     }
 
 
@@ -62,8 +220,79 @@ public class ReactorIsolationRobinLoadBalancer implements ReactorServiceInstance
      */
     @Override
     public Mono<Response<ServiceInstance>> choose(Request request) {
-        ServiceInstanceListSupplier supplier = serviceInstanceListSupplierProvider.getIfAvailable(NoopServiceInstanceListSupplier::new);
-        return supplier.get(request).next().map(serviceInstances -> processInstanceResponse(request, supplier, serviceInstances));
+        ServiceInstanceListSupplier supplier = getServiceInstanceListSupplier();
+        if (supplier instanceof PushServiceInstanceListSupplier) {
+            // 推送模式下直接读取最新的实例列表，不再订阅 Flux
+            List<ServiceInstance> instances = ((PushServiceInstanceListSupplier) supplier).getInstances();
+            if (instances != null) {
+                return Mono.deferContextual(context -> {
+                    bindRemoteAddress(request, context);
+                    return Mono.just(processInstanceResponse(request, supplier, instances));
+                });
+            }
+        }
+        return Mono.deferContextual(context -> {
+            bindRemoteAddress(request, context);
+            return supplier.get(request).next().map(serviceInstances -> processInstanceResponse(request, supplier, serviceInstances));
+        });
+    }
+
+    /**
+     * 预热：获取服务实例列表并构建路由快照，由 {@link com.bestlink.warmup.LoadBalancerWarmup} 在启动时调用。
+     *
+     * @return 服务实例数量
+     */
+    public Mono<Integer> warmUp() {
+        ServiceInstanceListSupplier supplier = getServiceInstanceListSupplier();
+        return supplier.get().next()
+                .map(instances -> {
+                    IsolationRoutingSnapshot<ServiceInstance> current = getSnapshot(instances);
+                    return current.localSize() + current.nonLocalSize();
+                })
+                .defaultIfEmpty(0);
+    }
+
+    private ServiceInstanceListSupplier getServiceInstanceListSupplier() {
+        ServiceInstanceListSupplier supplier = serviceInstanceListSupplier;
+        if (supplier != null) {
+            return supplier;
+        }
+        supplier = serviceInstanceListSupplierProvider.getIfAvailable();
+        if (supplier == null) {
+            return new NoopServiceInstanceListSupplier();
+        }
+        synchronized (this) {
+            if (serviceInstanceListSupplier == null) {
+                if (supplier instanceof PushServiceInstanceListSupplier) {
+                    // 实例列表推送时提前构建路由快照
+                    ((PushServiceInstanceListSupplier) supplier).addListener(this::getSnapshot);
+                }
+                serviceInstanceListSupplier = supplier;
+            }
+            return serviceInstanceListSupplier;
+        }
+    }
+
+    /**
+     * 将 {@link com.bestlink.filter.GlobalClientIpFilter} 写入 Reactor Context 中的调用者地址、隔离标识放入 RequestData attributes。
+     * 隔离标识直接使用，不再解析请求头；调用者地址在请求头中没有原始 ip 时使用。
+     */
+    private void bindRemoteAddress(Request request, ContextView context) {
+        Object remoteAddress = context.getOrDefault(REMOTE_ADDRESS_ATTRIBUTE, null);
+        Object isolationKey = context.getOrDefault(ISOLATION_KEY_ATTRIBUTE, null);
+        if ((remoteAddress == null && isolationKey == null) || !(request.getContext() instanceof RequestDataContext)) {
+            return;
+        }
+        RequestData requestData = ((RequestDataContext) request.getContext()).getClientRequest();
+        if (requestData == null || requestData.getAttributes() == null) {
+            return;
+        }
+        if (remoteAddress != null) {
+            requestData.getAttributes().putIfAbsent(REMOTE_ADDRESS_ATTRIBUTE, remoteAddress);
+        }
+        if (isolationKey != null) {
+            requestData.getAttributes().putIfAbsent(ISOLATION_KEY_ATTRIBUTE, isolationKey);
+        }
     }
 
     private Response<ServiceInstance> processInstanceResponse(Request request, ServiceInstanceListSupplier supplier, List<ServiceInstance> serviceInstances) {
@@ -75,106 +304,362 @@ public class ReactorIsolationRobinLoadBalancer implements ReactorServiceInstance
     }
 
     private Response<ServiceInstance> getInstanceResponse(Request request, List<ServiceInstance> instances) {
+        long start = metrics.start();
         if (instances.isEmpty()) {
             if (log.isWarnEnabled()) {
                 log.warn("No servers available for service: " + serviceId);
             }
+            metrics.record(RoutingOutcome.EMPTY, start);
             return new EmptyResponse();
         }
 
+        // 本次选择使用同一份配置
+        RoutingState<ServiceInstance> state = routingState.get();
         ServiceInstance instance = null;
+        ServiceInstance matchedLocal = null;
+        IsolationRoutingSnapshot<ServiceInstance> routingSnapshot = null;
+        boolean localUnreachable = false;
+        boolean localLimited = false;
+        RoutingOutcome outcome;
         try {
-            // 尝试寻找本地启动的服务实例
-            instance = tryMatchLocalInstance(request, instances);
+            routingSnapshot = getSnapshot(instances);
+            // 尝试寻找本地启动的服务实例，当前环境不在 active-env 中时不路由到本地服务实例
+            instance = state.settings().isActive() ? tryMatchLocalInstance(request, routingSnapshot, state.settings()) : null;
+            matchedLocal = instance;
+            localUnreachable = instance != null && localHealth != null
+                    && localHealth.isUnreachable(routingSnapshot.statsOf(instance));
+            if (localUnreachable) {
+                log.debug("local server instance [{}:{}] is unreachable, policy:{}", instance.getHost(), instance.getPort(), localHealth.getPolicy());
+                instance = null;
+            }
+            localLimited = instance != null && !admits(routingSnapshot.statsOf(instance));
+            if (localLimited) {
+                log.debug("local server instance [{}:{}] reached its concurrency limit, policy:{}", instance.getHost(), instance.getPort(),
+                        concurrencyLimiter.getPolicy());
+                instance = null;
+            }
             if (instance != null) {
-                log.info("choose a local server instance [{}]", instance.getInstanceId());
+                outcome = RoutingOutcome.LOCAL_HIT;
+                log.debug("choose a local server instance [{}]", instance.getInstanceId());
+            } else if (localUnreachable && localHealth.getPolicy() == LocalFailoverPolicy.FAIL_FAST) {
+                outcome = RoutingOutcome.LOCAL_UNAVAILABLE;
+            } else if (localLimited && concurrencyLimiter.getPolicy() == LimitPolicy.FAIL_FAST) {
+                outcome = RoutingOutcome.LIMITED;
             } else {
-                // 从非本地启动的服务实例中，随机选择一个
-                instance = randomOneWithoutLocalInstance(instances);
+                // 从非本地启动的服务实例中（排除被摘除的实例），按照负载均衡策略选择一个
+                IsolationRoutingSnapshot<ServiceInstance> candidates = outlierDetector == null ? routingSnapshot : outlierDetector.filter(routingSnapshot);
+                instance = chooseNonLocalInstance(request, candidates, state);
+                if (instance == null) {
+                    // 有非本地实例但没有选中，说明实例都达到了并发上限
+                    outcome = concurrencyLimiter != null && candidates.nonLocalSize() > 0 ? RoutingOutcome.LIMITED : RoutingOutcome.EMPTY;
+                } else {
+                    outcome = localUnreachable || localLimited ? RoutingOutcome.LOCAL_FALLBACK : RoutingOutcome.SHARED;
+                }
                 if (instance != null) {
-                    log.info("choose a random server instance [{}]", instance.getInstanceId());
+                    log.debug("choose a non-local server instance [{}]", instance.getInstanceId());
                 }
             }
         } catch (Exception e) {
+            outcome = RoutingOutcome.ERROR;
             log.error("failed to match local server instance,cause:{}", e.getMessage());
         }
-        return new DefaultResponse(instance);
+        metrics.record(outcome, start);
+        if (decisionRecorder.isSampled()) {
+            decisionRecorder.record(describeDecision(request, state.settings(), routingSnapshot, matchedLocal, instance, outcome,
+                    localUnreachable ? RoutingDecision.UNREACHABLE : localLimited ? RoutingDecision.AT_LIMIT : null));
+        }
+        return responseOf(instance);
     }
 
     /**
-     * 对传入对 instances 集合进行过滤，去除本地服务（即 metadata 中携带 "local-instance-id"），在剩余服务中随机返回一个。
-     * 如果过滤之后集合为空，返回 null。
+     * 构建被抽中记录的路由决策，只在抽中时调用，可以重新读取请求头。
      *
-     * @param instances 服务实例集合
-     * @return ServiceInstance，return null when filtered-collection is empty。
-     */
-    private ServiceInstance randomOneWithoutLocalInstance(List<ServiceInstance> instances) {
-        List<ServiceInstance> list = instances.stream()
-                .filter(instance -> !instance.getMetadata().containsKey(NACOS_METADATA_LOCAL_KEY))
-                .collect(Collectors.toList());
-        if (list.isEmpty()) {
+     * @param settings     本次选择使用的配置
+     * @param matchedLocal 匹配到的本地实例（可能因为不可达等原因没有使用），可以为 null
+     * @param chosen       最终选中的实例，可以为 null
+     * @param localProblem 匹配到的本地实例没有使用的原因，可以为 null
+     */
+    private RoutingDecision describeDecision(Request request, IsolationSettings settings,
+                                             IsolationRoutingSnapshot<ServiceInstance> routingSnapshot, ServiceInstance matchedLocal,
+                                             ServiceInstance chosen, RoutingOutcome outcome, String localProblem) {
+        RequestData requestData = request.getContext() instanceof RequestDataContext
+                ? ((RequestDataContext) request.getContext()).getClientRequest() : null;
+        IsolationKey key = requestData == null ? null : getIsolationKey(requestData, settings.getClientIpResolver());
+        String target = settings.getTarget();
+        String requestTarget = key != null && key.getTarget() != null ? key.getTarget() : target;
+        boolean matchedTarget = matchedLocal != null && routingSnapshot != null && routingSnapshot.matchTarget(requestTarget) == matchedLocal;
+        String reason = !settings.isActive() && outcome == RoutingOutcome.SHARED ? RoutingDecision.INACTIVE
+                : RoutingDecision.reasonOf(outcome, key != null || target != null,
+                        routingSnapshot == null ? 0 : routingSnapshot.localSize(),
+                        matchedLocal == null ? null : ADAPTER.getKey(matchedLocal), matchedTarget, localProblem);
+        return new RoutingDecision(serviceId, key == null ? null : key.getOriginIp(), sourceOf(requestData, key, settings), requestTarget,
+                chosen == null ? null : ADAPTER.getKey(chosen), chosen != null && ADAPTER.isLocal(chosen), outcome, reason);
+    }
+
+    /**
+     * 隔离标识的来源。gateway 是调用链的入口，隔离标识请求头由 {@link com.bestlink.filter.GlobalClientIpFilter} 根据 ip-headers 生成，
+     * 这里先按 ip-headers 查找，更能说明原始 ip 来自哪里。
+     */
+    private String sourceOf(RequestData requestData, IsolationKey key, IsolationSettings settings) {
+        if (key == null || requestData == null || requestData.getHeaders() == null) {
             return null;
         }
-        return list.get(RANDOM.nextInt(list.size()));
+        String header = settings.getClientIpResolver().resolveHeader(requestData.getHeaders(), HttpHeaders::getFirst);
+        if (header != null) {
+            return "header:" + header;
+        }
+        if (tokenCodec != null && tokenCodec.decode(requestData.getHeaders().getFirst(tokenCodec.getHeader())) != null) {
+            return "header:" + tokenCodec.getHeader();
+        }
+        return "remote-address";
     }
 
     /**
-     * 根据 request 尝试寻找一个本地服务实例。
-     * 在服务列表中找到本地启动的服务实例（即 metadata 中携带 "local-instance-id"），并且服务实例的 ip 与请求 ip 相同。
-     * 如果没有找到，返回 null。
+     * 当前路由快照的视图，还没有构建路由快照时返回 null。
      *
-     * @param instances 服务实例列表。
-     * @param request   请求对象，通过解析 request 获取请求方的原始 ip。
-     * @return ServiceInstance，return null when filtered-collection is empty。
+     * @see com.bestlink.endpoint.IsolationEndpoint
      */
-    private ServiceInstance tryMatchLocalInstance(Request request, List<ServiceInstance> instances) {
-        RequestDataContext context = (RequestDataContext) request.getContext();
-        RequestData requestData = context.getClientRequest();
-        if (requestData == null) {
+    public RoutingSnapshotView describe() {
+        IsolationRoutingSnapshot<ServiceInstance> current = snapshot;
+        if (current == null) {
             return null;
         }
-        String originIp = getOriginIp(requestData);
-        for (ServiceInstance instance : instances) {
-            // 当前服务实例元数据中携带 "local-instance-id" 并且 host 与原始请求 ip 一致时，认为是本地启动的服务实例。
-            if (instance.getMetadata().containsKey(NACOS_METADATA_LOCAL_KEY) && instance.getHost().equals(originIp)) {
+        return RoutingSnapshotView.of(serviceId, routingState.get().settings().getStrategy().name(), current, ADAPTER,
+                (instance, stats) -> stats == null ? 0L : stats.getInFlight(),
+                localHealth == null ? null : instance -> localHealth.isUnreachable(current.statsOf(instance)));
+    }
+
+    /**
+     * 从非本地服务实例中选择一个。开启粘性路由时，同一调用方在有效期内固定路由到同一个实例，实例不在当前快照中时重新选择。
+     * 一致性哈希策略按请求 key 选择，不需要粘性路由缓存。
+     */
+    private ServiceInstance chooseNonLocalInstance(Request request, IsolationRoutingSnapshot<ServiceInstance> snapshot,
+                                                   RoutingState<ServiceInstance> state) {
+        InstanceSelector<ServiceInstance> instanceSelector = state.selector();
+        if (state.isHashing()) {
+            return instanceSelector.select(snapshot, getCallerKey(request, hashHeader, state.settings()));
+        }
+        String affinityKey = affinityCache == null ? null : getCallerKey(request, affinityHeader, state.settings());
+        if (affinityKey == null) {
+            return instanceSelector.select(snapshot);
+        }
+        ServiceInstance instance = snapshot.nonLocalByKey(affinityCache.get(affinityKey));
+        // 粘性实例达到并发上限时重新选择（并更新粘性记录），与其他策略一样不向达到上限的实例派发请求
+        if (instance != null && admits(snapshot.statsOf(instance))) {
+            return instance;
+        }
+        instance = instanceSelector.select(snapshot);
+        if (instance != null) {
+            affinityCache.put(affinityKey, ADAPTER.getKey(instance));
+        }
+        return instance;
+    }
+
+    /**
+     * 为对冲请求选择另一个非本地服务实例（排除已经选中的实例），没有其他可用实例时返回 null。
+     * <p>
+     * 只使用当前的路由快照（排除被摘除的实例），不重新获取实例列表，也不使用粘性路由。
+     *
+     * @param exclude 已经选中的实例
+     * @see com.bestlink.hedge.HedgingFilter
+     */
+    public ServiceInstance chooseHedge(ServiceInstance exclude) {
+        IsolationRoutingSnapshot<ServiceInstance> current = snapshot;
+        if (current == null) {
+            return null;
+        }
+        IsolationRoutingSnapshot<ServiceInstance> candidates = outlierDetector == null ? current : outlierDetector.filter(current);
+        int size = candidates.nonLocalSize();
+        if (size < 2) {
+            return size == 1 && !isSameInstance(candidates.nonLocal(0), exclude) && admits(candidates.nonLocalStats(0))
+                    ? candidates.nonLocal(0) : null;
+        }
+        InstanceSelector<ServiceInstance> instanceSelector = routingState.get().selector();
+        for (int attempt = 0; attempt < 2; attempt++) {
+            ServiceInstance instance = instanceSelector.select(candidates);
+            if (instance != null && !isSameInstance(instance, exclude)) {
                 return instance;
             }
         }
+        // 策略连续选中了已经选中的实例，顺序取一个不同的（未达到并发上限的）
+        for (int i = 0; i < size; i++) {
+            if (!isSameInstance(candidates.nonLocal(i), exclude) && admits(candidates.nonLocalStats(i))) {
+                return candidates.nonLocal(i);
+            }
+        }
         return null;
     }
 
     /**
-     * 获取原始请求 ip，获取的值依赖于 nginx/gateway 的配置。
+     * 当前路由快照中某个实例的统计，没有时返回 null。
+     */
+    public InstanceStats statsOf(ServiceInstance instance) {
+        IsolationRoutingSnapshot<ServiceInstance> current = snapshot;
+        return current == null ? null : current.statsOf(instance);
+    }
+
+    /**
+     * 实例是否未达到并发上限，未开启并发限制时总是返回 true。
+     */
+    private boolean admits(InstanceStats stats) {
+        return concurrencyLimiter == null || stats == null || ConcurrencyLimiter.admits(stats, stats.getInFlight());
+    }
+
+    private static boolean isSameInstance(ServiceInstance instance, ServiceInstance other) {
+        return other != null && instance.getPort() == other.getPort() && instance.getHost().equals(other.getHost());
+    }
+
+    /**
+     * 粘性路由、一致性哈希的调用方标识，优先使用配置的请求头，没有时使用客户端 ip。
      *
-     * @param request request
+     * @param header 配置的请求头，可以为 null
+     */
+    private String getCallerKey(Request request, String header, IsolationSettings settings) {
+        if (!(request.getContext() instanceof RequestDataContext)) {
+            return null;
+        }
+        RequestData requestData = ((RequestDataContext) request.getContext()).getClientRequest();
+        if (requestData == null) {
+            return null;
+        }
+        if (header != null && requestData.getHeaders() != null) {
+            String value = requestData.getHeaders().getFirst(header);
+            if (StringUtils.hasText(value)) {
+                return value;
+            }
+        }
+        IsolationKey key = getIsolationKey(requestData, settings.getClientIpResolver());
+        return key == null ? null : key.getOriginIp();
+    }
+
+    /**
+     * 选中实例的负载均衡结果，携带实例统计，
+     * 由 {@link com.bestlink.lifecycle.IsolationLoadBalancerLifecycle} 在请求开始、结束时更新在途请求数。
      */
-    private String getOriginIp(RequestData request) {
-        String ip = request.getHeaders().getFirst(X_REAL_IP);
-        if (notFound(ip)) {
-            ip = request.getHeaders().getFirst(X_FORWARDED_FOR);
+    private Response<ServiceInstance> responseOf(ServiceInstance instance) {
+        IsolationRoutingSnapshot<ServiceInstance> current = snapshot;
+        InstanceStats stats = instance == null || current == null ? null : current.statsOf(instance);
+        return stats == null ? new DefaultResponse(instance) : new InFlightResponse(instance, stats);
+    }
+
+    /**
+     * 获取实例列表对应的路由快照，实例列表没有变化时直接复用已有快照。
+     * <p>
+     * 开启缓存的 ServiceInstanceListSupplier 在列表变化前返回同一个 List 对象，只需要比较引用；
+     * 没有开启缓存（或自定义）的 supplier 每次返回新的 List，此时按实例数量及实例对象引用比较，实例对象也是新创建的时才重建。
+     */
+    private IsolationRoutingSnapshot<ServiceInstance> getSnapshot(List<ServiceInstance> instances) {
+        IsolationRoutingSnapshot<ServiceInstance> current = snapshot;
+        if (current != null && (current.isBuiltFrom(instances) || current.hasSameInstances(instances))) {
+            return current;
         }
-        if (notFound(ip)) {
-            ip = request.getHeaders().getFirst(PROXY_CLIENT_IP);
+        current = IsolationRoutingSnapshot.build(instances, instances, ADAPTER, statsRegistry,
+                minLocalCidrPrefix, minLocalCidrPrefixV6);
+        snapshot = current;
+        if (affinityCache != null) {
+            // 清理指向已下线实例的粘性映射
+            affinityCache.retainInstances(current.nonLocalKeys());
         }
-        if (notFound(ip)) {
-            ip = request.getHeaders().getFirst(WL_PROXY_CLIENT_IP);
+        if (localHealth != null) {
+            localHealth.snapshotChanged(current, ADAPTER);
         }
-        if (notFound(ip)) {
-//            log.warn("can not get origin ip from {},{},{},{},the most possible cause is had not set Nginx config [proxy_set_header] ",
-//                    X_FORWARDED_FOR, X_REAL_IP, PROXY_CLIENT_IP, WL_PROXY_CLIENT_IP);
-            // 依赖全局过滤器中添加的调用者 ip
-            ip = request.getHeaders().getFirst(X_CLIENT_IP);
+        if (log.isDebugEnabled()) {
+            log.debug("rebuild routing snapshot for service [{}], local:{}, non-local:{}",
+                    serviceId, current.localSize(), current.nonLocalSize());
         }
-        // 处理多IP的情况只取第一个IP
-        if (StringUtils.hasLength(ip) && ip.contains(IP_SEPARATOR)) {
-            String[] ipArray = ip.split(IP_SEPARATOR);
-            ip = ipArray[0];
+        return current;
+    }
+
+    /**
+     * 当前的路由快照，还没有请求时为 null。
+     */
+    IsolationRoutingSnapshot<ServiceInstance> currentSnapshot() {
+        return snapshot;
+    }
+
+    private int localPoolSize() {
+        IsolationRoutingSnapshot<ServiceInstance> current = snapshot;
+        return current == null ? 0 : current.localSize();
+    }
+
+    private int nonLocalPoolSize() {
+        IsolationRoutingSnapshot<ServiceInstance> current = snapshot;
+        return current == null ? 0 : current.nonLocalSize();
+    }
+
+    /**
+     * 非本地实例的在途请求数。
+     */
+    private static double inFlightOf(IsolationRoutingSnapshot<ServiceInstance> snapshot, int index) {
+        InstanceStats stats = snapshot.nonLocalStats(index);
+        return stats == null ? 0D : stats.getInFlight();
+    }
+
+    /**
+     * 非本地实例的 peak EWMA 负载，响应时间由 {@link com.bestlink.lifecycle.IsolationLoadBalancerLifecycle} 记录。
+     */
+    private double peakEwmaLoadOf(IsolationRoutingSnapshot<ServiceInstance> snapshot, int index) {
+        InstanceStats stats = snapshot.nonLocalStats(index);
+        return stats == null ? defaultLatencyMicros : stats.peakEwmaLoad(System.nanoTime(), defaultLatencyMicros);
+    }
+
+    /**
+     * 根据 request 尝试寻找一个本地服务实例（metadata 中携带 "local-instance-id"）。
+     * 依次查找请求指定的目标实例、配置的目标实例，最后查找 ip 与请求 ip 相同的实例，每一步都是一次哈希查找。
+     * 如果没有找到，返回 null。
+     *
+     * @param snapshot 路由快照。
+     * @param request  请求对象，通过解析 request 获取请求方的隔离标识。
+     * @param settings 本次选择使用的配置。
+     * @return ServiceInstance，return null when not matched。
+     */
+    private ServiceInstance tryMatchLocalInstance(Request request, IsolationRoutingSnapshot<ServiceInstance> snapshot,
+                                                  IsolationSettings settings) {
+        if (snapshot.localSize() == 0) {
+            return null;
         }
-        log.info("found an origin ip:{}", ip);
-        return ip;
+        RequestDataContext context = (RequestDataContext) request.getContext();
+        RequestData requestData = context.getClientRequest();
+        IsolationKey key = requestData == null ? null : getIsolationKey(requestData, settings.getClientIpResolver());
+        String target = settings.getTarget();
+        if (key == null) {
+            return snapshot.matchTarget(target);
+        }
+        return snapshot.matchLocal(key.getOriginIp(), key.getTarget() != null ? key.getTarget() : target);
     }
 
-    private boolean notFound(String ip) {
-        return !StringUtils.hasLength(ip) || UNKNOWN.equalsIgnoreCase(ip);
+    /**
+     * 获取请求方的隔离标识。
+     * <p>
+     * 优先使用 {@link com.bestlink.filter.GlobalClientIpFilter} 解析的隔离标识；开启隔离标识请求头时，读取并校验请求头；
+     * 否则按 ip-headers 解析原始 ip（获取的值依赖于 nginx/gateway 的配置），请求头中都没有时，使用全局过滤器记录的调用者 ip，
+     * 同时读取指定目标本地实例的请求头。
+     * 解析结果缓存在 {@link RequestData#getAttributes()} 中，同一个负载均衡请求只解析一次。
+     *
+     * @param request          request
+     * @param clientIpResolver 按当前 ip-headers 解析原始 ip
+     */
+    private IsolationKey getIsolationKey(RequestData request, ClientIpResolver clientIpResolver) {
+        Map<String, Object> attributes = request.getAttributes();
+        Object cached = attributes == null ? null : attributes.get(ISOLATION_KEY_ATTRIBUTE);
+        if (cached != null) {
+            return cached == NOT_FOUND ? null : (IsolationKey) cached;
+        }
+        IsolationKey key = tokenCodec == null ? null : tokenCodec.decode(request.getHeaders().getFirst(tokenCodec.getHeader()));
+        if (key == null) {
+            String ip = clientIpResolver.resolve(request.getHeaders(), HttpHeaders::getFirst);
+            if (ip == null && attributes != null) {
+                // 依赖全局过滤器中记录的调用者 ip
+                ip = (String) attributes.get(REMOTE_ADDRESS_ATTRIBUTE);
+            }
+            key = IsolationKey.of(ip, targetHeader == null ? null : request.getHeaders().getFirst(targetHeader));
+        }
+        if (attributes != null) {
+            attributes.put(ISOLATION_KEY_ATTRIBUTE, key == null ? NOT_FOUND : key);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("found an isolation key:{}", key);
+        }
+        return key;
     }
-}
\ No newline at end of file
+}
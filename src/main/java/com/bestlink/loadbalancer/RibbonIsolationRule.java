@@ -1,27 +1,43 @@
 package com.bestlink.loadbalancer;
 
-import com.alibaba.cloud.nacos.ribbon.NacosServer;
-import com.bestlink.configuration.LocalNacosServerInstanceConfiguration;
+import com.bestlink.endpoint.RoutingDecision;
+import com.bestlink.endpoint.RoutingDecisionRecorder;
+import com.bestlink.endpoint.RoutingSnapshotView;
+import com.bestlink.health.LocalFailoverPolicy;
+import com.bestlink.health.LocalInstanceHealth;
+import com.bestlink.limit.ConcurrencyLimiter;
+import com.bestlink.limit.LimitPolicy;
+import com.bestlink.metrics.RoutingMetrics;
+import com.bestlink.metrics.RoutingOutcome;
+import com.bestlink.outlier.OutlierDetector;
+import com.bestlink.properties.IsolationProperties;
+import com.bestlink.properties.IsolationSettings;
+import com.bestlink.properties.IsolationSettingsHolder;
+import com.bestlink.propagation.IsolationKey;
+import com.bestlink.propagation.IsolationKeyResolver;
+import com.bestlink.propagation.IsolationTokenCodec;
+import com.bestlink.stats.InstanceStats;
+import com.bestlink.stats.InstanceStatsRegistry;
+import com.bestlink.strategy.BalanceStrategy;
+import com.bestlink.strategy.ConcurrencyLimitInstanceSelector;
+import com.bestlink.strategy.InstanceSelector;
+import com.bestlink.strategy.InstanceSelectors;
+import com.bestlink.strategy.SlowStartInstanceSelector;
 import com.netflix.client.config.IClientConfig;
-import com.netflix.loadbalancer.AbstractLoadBalancerRule;
-import com.netflix.loadbalancer.ILoadBalancer;
-import com.netflix.loadbalancer.RoundRobinRule;
-import com.netflix.loadbalancer.Server;
+import com.netflix.loadbalancer.*;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.util.StringUtils;
-import org.springframework.web.context.request.RequestContextHolder;
-import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.beans.factory.DisposableBean;
 
-import javax.servlet.http.HttpServletRequest;
 import java.util.List;
-import java.util.Random;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
+import java.util.concurrent.locks.Lock;
 
 /**
  * 自定义负载均衡类，用于多个服务实例注册到一个 nacos 空间下时，不同请求选择不同的服务实例，实现流量隔离。
  * 用于 Feign + Ribbon + Nacos 模式。
+ * <p>
+ * 请求方 ip 优先使用 loadBalancerKey 传入的 {@link IsolationKey}（Feign 调用时由 {@link com.bestlink.propagation.IsolationFeignLoadBalancer} 传入），
+ * 其次由 {@link IsolationKeyResolver} 从线程池任务携带的标识或当前线程上的 servlet 请求中解析。
+ * 无法确定请求方时（没有配置 target-ip）只选择非本地服务实例，不会把请求路由到开发者的本地服务。
  *
  * @author xuzhongkang
  * @see com.netflix.loadbalancer.AbstractLoadBalancerRule
@@ -30,27 +46,138 @@ import java.util.stream.Collectors;
  * @since 2023/9/15 19:15
  **/
 @Slf4j
-public class RibbonIsolationRule extends AbstractLoadBalancerRule {
+public class RibbonIsolationRule extends AbstractLoadBalancerRule implements DisposableBean {
+
+    private static final NacosServerAdapter ADAPTER = NacosServerAdapter.INSTANCE;
+
+    /**
+     * 当前的配置（target-ip 等）及按负载均衡策略构建的 InstanceSelector，配置更新后在下一次选择时替换。
+     */
+    private final RoutingState.Reference<Server> routingState;
+    private final IsolationKeyResolver keyResolver;
+    private final RoutingMetrics.ServiceRoutingMetrics metrics;
+
+    /**
+     * 路由决策抽样记录，没有开启 isolation 端点时为 {@link RoutingDecisionRecorder#NOOP}。
+     */
+    private final RoutingDecisionRecorder decisionRecorder;
+    private final String serviceId;
+    private final InstanceStatsRegistry statsRegistry;
+    private final IsolationProperties.SlowStart slowStart;
+
+    /**
+     * peak EWMA 策略中还没有响应时间的实例使用的默认值（微秒）。
+     */
+    private final double defaultLatencyMicros;
+
+    /**
+     * 非本地服务实例异常检测，未开启时为 null。
+     */
+    private final OutlierDetector<Server> outlierDetector;
+
+    /**
+     * 本地服务实例健康检查，未开启时为 null。
+     */
+    private final LocalInstanceHealth localHealth;
+
+    /**
+     * 本地服务实例声明的 IPv4、IPv6 地址段的最小前缀长度。
+     */
+    private final int minLocalCidrPrefix;
+    private final int minLocalCidrPrefixV6;
 
     /**
-     * @see com.bestlink.configuration.LocalNacosServerInstanceConfiguration#NACOS_METADATA_LOCAL_KEY
+     * 实例并发限制，未开启时为 null。
      */
-    private static final String NACOS_METADATA_LOCAL_KEY = LocalNacosServerInstanceConfiguration.NACOS_METADATA_LOCAL_KEY;
-    private static final int RETRY_MAX = 10;
+    private final ConcurrencyLimiter concurrencyLimiter;
 
-    private static final String X_REAL_IP = "x-real-ip";
-    private static final String X_FORWARDED_FOR = "x-forwarded-for";
-    private static final String PROXY_CLIENT_IP = "Proxy-Client-IP";
-    private static final String WL_PROXY_CLIENT_IP = "WL-Proxy-Client-IP";
-    private static final String X_CLIENT_IP = "X_CLIENT_IP";
-    private static final String UNKNOWN = "unknown";
-    private static final String IP_SEPARATOR = ",";
+    /**
+     * 服务列表版本标识，服务列表或服务状态发生变化时替换为新对象，路由快照据此判断是否需要重建。
+     */
+    private volatile Object serverListVersion = new Object();
 
-    private final RoundRobinRule DEFAULT_RULE = new RoundRobinRule();
-    private final Random random = new Random();
+    /**
+     * 已经注册服务列表、服务状态监听器的 BaseLoadBalancer。
+     */
+    private ILoadBalancer listenedLoadBalancer;
 
-    @Value("${local.isolation-loadbalancer.target-ip:''}")
-    private String targetIp;
+    /**
+     * 当前服务的路由快照。
+     */
+    private volatile IsolationRoutingSnapshot<Server> snapshot;
+
+    public RibbonIsolationRule() {
+        this(new IsolationProperties());
+    }
+
+    public RibbonIsolationRule(IsolationProperties isolationProperties) {
+        this(isolationProperties, null, RoutingMetrics.NOOP);
+    }
+
+    /**
+     * @param isolationProperties 流量隔离属性配置
+     * @param serviceId           服务名（ribbon client name），用于指标
+     * @param routingMetrics      负载均衡指标
+     */
+    public RibbonIsolationRule(IsolationProperties isolationProperties, String serviceId, RoutingMetrics routingMetrics) {
+        this(isolationProperties, serviceId, routingMetrics, RoutingDecisionRecorder.NOOP);
+    }
+
+    /**
+     * @param isolationProperties 流量隔离属性配置
+     * @param serviceId           服务名（ribbon client name），用于指标及路由决策记录
+     * @param routingMetrics      负载均衡指标
+     * @param decisionRecorder    路由决策抽样记录
+     */
+    public RibbonIsolationRule(IsolationProperties isolationProperties, String serviceId, RoutingMetrics routingMetrics,
+                               RoutingDecisionRecorder decisionRecorder) {
+        this(isolationProperties, IsolationSettingsHolder.of(isolationProperties), serviceId, routingMetrics, decisionRecorder);
+    }
+
+    /**
+     * @param isolationProperties 流量隔离属性配置
+     * @param settingsHolder      active-env、ip-headers、target-ip 及 strategy 从这里读取，忽略 isolationProperties 中的对应配置
+     * @param serviceId           服务名（ribbon client name），用于指标及路由决策记录
+     * @param routingMetrics      负载均衡指标
+     * @param decisionRecorder    路由决策抽样记录
+     */
+    public RibbonIsolationRule(IsolationProperties isolationProperties, IsolationSettingsHolder settingsHolder, String serviceId,
+                               RoutingMetrics routingMetrics, RoutingDecisionRecorder decisionRecorder) {
+        this.serviceId = serviceId;
+        this.decisionRecorder = decisionRecorder;
+        IsolationProperties.PeakEwma peakEwma = isolationProperties.getPeakEwma();
+        this.defaultLatencyMicros = peakEwma.getDefaultLatency().toNanos() / 1000D;
+        this.concurrencyLimiter = ConcurrencyLimiter.create(isolationProperties.getConcurrencyLimit());
+        this.statsRegistry = new InstanceStatsRegistry(0, null, peakEwma.getDecay().toNanos(), concurrencyLimiter);
+        this.slowStart = isolationProperties.getSlowStart();
+        this.routingState = new RoutingState.Reference<>(settingsHolder, this::createSelector);
+        this.keyResolver = new IsolationKeyResolver(settingsHolder,
+                IsolationTokenCodec.create(isolationProperties.getPropagation()), isolationProperties.getTargetHeader(),
+                isolationProperties.getHash() == null ? null : isolationProperties.getHash().getHeader());
+        this.metrics = routingMetrics.forService(serviceId, this::localPoolSize, this::nonLocalPoolSize);
+        this.localHealth = LocalInstanceHealth.create(isolationProperties.getLocalHealth());
+        this.minLocalCidrPrefix = isolationProperties.getMinLocalCidrPrefix() == null
+                ? IsolationRoutingSnapshot.DEFAULT_MIN_IPV4_PREFIX : isolationProperties.getMinLocalCidrPrefix();
+        this.minLocalCidrPrefixV6 = isolationProperties.getMinLocalCidrPrefixV6() == null
+                ? IsolationRoutingSnapshot.DEFAULT_MIN_IPV6_PREFIX : isolationProperties.getMinLocalCidrPrefixV6();
+        this.outlierDetector = OutlierDetector.create(isolationProperties.getOutlierDetection());
+    }
+
+    /**
+     * 按负载均衡策略构建 InstanceSelector，负载均衡策略更新时重新调用。
+     */
+    private InstanceSelector<Server> createSelector(BalanceStrategy strategy) {
+        return ConcurrencyLimitInstanceSelector.wrap(SlowStartInstanceSelector.wrap(InstanceSelectors.create(strategy, ADAPTER::getWeight,
+                        strategy == BalanceStrategy.PEAK_EWMA ? this::peakEwmaLoadOf : this::activeRequestsOf, ADAPTER::getKey), slowStart),
+                concurrencyLimiter, (server, stats) -> activeRequestsOf(server));
+    }
+
+    @Override
+    public void destroy() {
+        if (localHealth != null) {
+            localHealth.close();
+        }
+    }
 
     @Override
     public void initWithNiwsConfig(IClientConfig iClientConfig) {
@@ -59,135 +186,346 @@ public class RibbonIsolationRule extends AbstractLoadBalancerRule {
     }
 
     @Override
-    public void setLoadBalancer(ILoadBalancer lb) {
+    public synchronized void setLoadBalancer(ILoadBalancer lb) {
         super.setLoadBalancer(lb);
-        DEFAULT_RULE.setLoadBalancer(lb);
+        // 规则可能对同一个 BaseLoadBalancer 重复初始化（setRule、initWithNiwsConfig），每个 BaseLoadBalancer 只注册一次监听器
+        if (lb instanceof BaseLoadBalancer && lb != listenedLoadBalancer) {
+            listenedLoadBalancer = lb;
+            // 服务列表变化（Nacos 拉取）或服务状态变化（ping）时，使路由快照失效
+            BaseLoadBalancer baseLoadBalancer = (BaseLoadBalancer) lb;
+            baseLoadBalancer.addServerListChangeListener((oldList, newList) -> serverListChanged());
+            baseLoadBalancer.addServerStatusChangeListener(servers -> serverListChanged());
+        }
+        serverListChanged();
+    }
+
+    private void serverListChanged() {
+        serverListVersion = new Object();
     }
 
     @Override
     public Server choose(Object key) {
-        // 根据 request 选择服务实例，如果没有获取到 request，使用默认的负载均衡规则。
-        ServletRequestAttributes requestAttributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-        if (requestAttributes == null) {
-            return DEFAULT_RULE.choose(key);
+        long start = metrics.start();
+        // 本次选择使用同一份配置
+        RoutingState<Server> state = routingState.get();
+        IsolationSettings settings = state.settings();
+        // 根据请求方 ip 选择服务实例，无法确定请求方且没有配置目标实例、或者当前环境不在 active-env 中时只从非本地服务中选择。
+        IsolationKey isolationKey = key instanceof IsolationKey ? (IsolationKey) key : keyResolver.resolve();
+        if (!settings.isActive() || (isolationKey == null && settings.getTarget() == null)) {
+            Server server = chooseWithoutLocalServer(state.selector(), hashKeyOf(state, isolationKey));
+            RoutingOutcome outcome = server != null ? RoutingOutcome.SHARED : emptyOutcome();
+            metrics.record(outcome, start);
+            recordDecision(key, settings, isolationKey, null, server, outcome, null);
+            return server;
         }
-        HttpServletRequest request = requestAttributes.getRequest();
         Server server = null;
+        Server matchedLocal = null;
+        RoutingOutcome outcome = RoutingOutcome.LOCAL_HIT;
+        boolean localUnreachable = false;
+        boolean localLimited = false;
         try {
-            server = tryMatchLocalInstance(request);
+            server = tryMatchLocalInstance(isolationKey, settings.getTarget());
+            matchedLocal = server;
+            if (server != null && isLocalUnreachable(server)) {
+                log.debug("local server instance [{}] is unreachable, policy:{}", server.getHostPort(), localHealth.getPolicy());
+                localUnreachable = true;
+                server = null;
+            }
+            if (server != null && !admits(server)) {
+                log.debug("local server instance [{}] reached its concurrency limit, policy:{}", server.getHostPort(),
+                        concurrencyLimiter.getPolicy());
+                localLimited = true;
+                server = null;
+            }
             if (server != null) {
-                log.info("choose a local server instance:{}", server.getHost());
+                log.debug("choose a local server instance:{}", server.getHost());
             }
         } catch (Exception e) {
+            outcome = RoutingOutcome.ERROR;
             log.warn("failed to match local server instance,cause:{}", e.getMessage());
         }
-        // 如果没找到匹配的 server，从非本地服务中随机选择一个
-        return server != null ? server : randomChooseWithoutLocalServer();
+        if (server == null && localUnreachable && localHealth.getPolicy() == LocalFailoverPolicy.FAIL_FAST) {
+            outcome = RoutingOutcome.LOCAL_UNAVAILABLE;
+        } else if (server == null && localLimited && concurrencyLimiter.getPolicy() == LimitPolicy.FAIL_FAST) {
+            outcome = RoutingOutcome.LIMITED;
+        } else if (server == null) {
+            // 如果没找到匹配的 server，从非本地服务中按照负载均衡策略选择一个
+            server = chooseWithoutLocalServer(state.selector(), hashKeyOf(state, isolationKey));
+            if (outcome != RoutingOutcome.ERROR) {
+                outcome = server == null ? emptyOutcome() : localUnreachable || localLimited ? RoutingOutcome.LOCAL_FALLBACK : RoutingOutcome.SHARED;
+            }
+        }
+        metrics.record(outcome, start);
+        recordDecision(key, settings, isolationKey, matchedLocal, server, outcome,
+                localUnreachable ? RoutingDecision.UNREACHABLE : localLimited ? RoutingDecision.AT_LIMIT : null);
+        return server;
+    }
+
+    /**
+     * 抽样记录路由决策，只在抽中时读取标识来源、生成原因。
+     *
+     * @param loadBalancerKey choose 收到的 loadBalancerKey
+     * @param settings        本次选择使用的配置
+     * @param isolationKey    隔离标识，可以为 null
+     * @param matchedLocal    匹配到的本地实例（可能因为不可达等原因没有使用），可以为 null
+     * @param chosen          最终选中的实例，可以为 null
+     * @param localProblem    匹配到的本地实例没有使用的原因，可以为 null
+     */
+    private void recordDecision(Object loadBalancerKey, IsolationSettings settings, IsolationKey isolationKey, Server matchedLocal,
+                                Server chosen, RoutingOutcome outcome, String localProblem) {
+        if (!decisionRecorder.isSampled()) {
+            return;
+        }
+        String target = settings.getTarget();
+        String requestTarget = isolationKey != null && isolationKey.getTarget() != null ? isolationKey.getTarget() : target;
+        IsolationRoutingSnapshot<Server> current = snapshot;
+        boolean matchedTarget = matchedLocal != null && current != null && current.matchTarget(requestTarget) == matchedLocal;
+        String source = isolationKey == null ? null
+                : loadBalancerKey instanceof IsolationKey ? "load-balancer-key" : keyResolver.describeSource();
+        String reason = !settings.isActive() && outcome == RoutingOutcome.SHARED ? RoutingDecision.INACTIVE
+                : RoutingDecision.reasonOf(outcome, isolationKey != null || target != null, localPoolSize(),
+                        matchedLocal == null ? null : ADAPTER.getKey(matchedLocal), matchedTarget, localProblem);
+        decisionRecorder.record(new RoutingDecision(serviceId, isolationKey == null ? null : isolationKey.getOriginIp(), source,
+                requestTarget, chosen == null ? null : ADAPTER.getKey(chosen), chosen != null && ADAPTER.isLocal(chosen), outcome, reason));
     }
 
-    private Server randomChooseWithoutLocalServer() {
-        List<Server> allServers = this.getLoadBalancer().getAllServers();
-        List<Server> serverList = allServers.stream().filter(notLocalServer()).collect(Collectors.toList());
-        if (serverList.isEmpty()) {
-            log.warn("No servers available from load balancer: {}", this.getLoadBalancer());
+    /**
+     * 当前路由快照的视图，还没有构建路由快照时返回 null。
+     *
+     * @see com.bestlink.endpoint.IsolationEndpoint
+     */
+    public RoutingSnapshotView describe() {
+        IsolationRoutingSnapshot<Server> current = snapshot;
+        if (current == null) {
             return null;
         }
-        if (serverList.size() == 1) {
-            Server server = serverList.get(0);
-            log.info("choose a random server instance [{}]", server != null ? server.getHost() : "");
-            return server;
+        return RoutingSnapshotView.of(serviceId, routingState.get().settings().getStrategy().name(), current, ADAPTER, (server, stats) -> activeRequestsOf(server),
+                localHealth == null ? null : this::isLocalUnreachable);
+    }
+
+    /**
+     * 没有选中实例时的结果：开启并发限制且有非本地实例，说明实例都达到了并发上限。
+     */
+    private RoutingOutcome emptyOutcome() {
+        return concurrencyLimiter != null && nonLocalPoolSize() > 0 ? RoutingOutcome.LIMITED : RoutingOutcome.EMPTY;
+    }
+
+    /**
+     * 实例是否未达到并发上限，在途请求数使用 Ribbon ServerStats 的活跃请求数。未开启并发限制时总是返回 true。
+     */
+    private boolean admits(Server server) {
+        if (concurrencyLimiter == null) {
+            return true;
         }
-        Server server = null;
-        int count = 0;
-        while (count++ < RETRY_MAX) {
-            server = serverList.get(random.nextInt(serverList.size()));
-            if (server.isAlive() && server.isReadyToServe()) {
-                log.info("choose a random server instance [{}]", server.getHost());
-                return server;
-            }
-            Thread.yield();
+        IsolationRoutingSnapshot<Server> current = snapshot;
+        return current == null || ConcurrencyLimiter.admits(current.statsOf(server), activeRequestsOf(server));
+    }
+
+    public boolean isConcurrencyLimitEnabled() {
+        return concurrencyLimiter != null;
+    }
+
+    /**
+     * 收到响应，记录实例的响应时间（PEAK_EWMA 策略）并调整并发上限，由 {@link com.bestlink.propagation.IsolationFeignLoadBalancer}
+     * 在 Feign 调用结束时调用。Ribbon 不经过 LoadBalancerLifecycle，其他调用方式下没有响应时间，使用默认响应时间，上限保持初始值。
+     *
+     * @param server   服务实例
+     * @param rttNanos 响应时间
+     */
+    public void responseReceived(Server server, long rttNanos) {
+        InstanceStats stats = statsOf(server);
+        if (stats != null) {
+            // 回调时此请求还没有从活跃请求数中减去
+            stats.responseReceived(rttNanos, System.nanoTime(), activeRequestsOf(server));
         }
-        if (count >= RETRY_MAX) {
-            log.warn("No available alive servers after 10 tries from load balancer: {} ", this.getLoadBalancer());
+    }
+
+    /**
+     * 请求失败或超时，降低实例的并发上限。
+     *
+     * @param server 服务实例
+     * @see #responseReceived(Server, long)
+     */
+    public void requestDropped(Server server) {
+        InstanceStats stats = concurrencyLimiter == null ? null : statsOf(server);
+        if (stats != null) {
+            stats.requestDropped();
         }
-        return server;
     }
 
-    private Predicate<Server> notLocalServer() {
-        return server -> {
-            if (server instanceof NacosServer) {
-                return !((NacosServer) server).getMetadata().containsKey(NACOS_METADATA_LOCAL_KEY);
-            }
-            return false;
-        };
+    private InstanceStats statsOf(Server server) {
+        IsolationRoutingSnapshot<Server> current = snapshot;
+        return current == null || server == null ? null : current.statsOf(server);
     }
 
-    private Server tryMatchLocalInstance(HttpServletRequest request) {
-        List<Server> allServers = this.getLoadBalancer().getAllServers();
-        if (request == null || allServers.isEmpty()) {
-            return null;
+    /**
+     * Ribbon 不经过 LoadBalancerLifecycle，这里使用 LoadBalancerCommand 维护的 ServerStats 连续连接失败次数（上一次摘除之后新增的部分）。
+     *
+     * @return 是否摘除
+     */
+    private boolean ejectIfFailing(IsolationRoutingSnapshot<Server> snapshot, Server server) {
+        ILoadBalancer lb = this.getLoadBalancer();
+        InstanceStats stats = snapshot.statsOf(server);
+        if (stats == null || !(lb instanceof AbstractLoadBalancer) || ((AbstractLoadBalancer) lb).getLoadBalancerStats() == null) {
+            return false;
         }
-        String originIp = getOriginIp(request);
-        log.debug("this request is from ip:{}", originIp);
-        return allServers.stream().filter(server -> originIp.equals(server.getHost()))
-                // 只匹配元数据中含有本地服务标识（"local-instance-id"）的实例，否则会造成线上服务负载均衡失效。
-                .filter(server -> ((NacosServer) server).getMetadata().containsKey(NACOS_METADATA_LOCAL_KEY))
-                .findFirst()
-                .orElse(null);
+        int successiveFailures = ((AbstractLoadBalancer) lb).getLoadBalancerStats().getSingleServerStat(server).getSuccessiveConnectionFailureCount();
+        if (successiveFailures == 0 || stats.externalFailuresSinceEjection(successiveFailures) < outlierDetector.getConsecutiveFailures()) {
+            return false;
+        }
+        if (outlierDetector.tryEject(stats, successiveFailures + " successive connection failures")) {
+            stats.setExternalFailureBaseline(successiveFailures);
+            return true;
+        }
+        return false;
     }
 
-
     /**
-     * 判断是否是指定 ip 的服务, 用于多个本地服务之间的定向调用
-     * 根据配置文件中配置的特定 ip，筛选与之匹配的服务。
+     * 本地实例是否不可达：Ribbon ServerStats 连续连接失败触发熔断，或者 TCP 探测失败。
      */
-    //todo 暂不开放此功能
-    private boolean specTargetIpMatch(NacosServer server) {
-        if (!StringUtils.hasLength(targetIp)) {
+    private boolean isLocalUnreachable(Server server) {
+        if (localHealth == null) {
             return false;
         }
-        return targetIp.equals(server.getHost());
+        IsolationRoutingSnapshot<Server> current = snapshot;
+        if (current != null && localHealth.isUnreachable(current.statsOf(server))) {
+            return true;
+        }
+        ILoadBalancer lb = this.getLoadBalancer();
+        if (lb instanceof AbstractLoadBalancer && ((AbstractLoadBalancer) lb).getLoadBalancerStats() != null) {
+            return ((AbstractLoadBalancer) lb).getLoadBalancerStats().getSingleServerStat(server).isCircuitBreakerTripped();
+        }
+        return false;
     }
 
     /**
-     * 获取原始请求 ip，获取的值依赖于 nginx 和 gateway 的配置。
+     * 从非本地服务实例中选择一个。
+     * <p>
+     * 路由快照中只包含存活（isAlive）且可以提供服务（isReadyToServe）的非本地实例，ping 结果变化时快照随之失效重建，
+     * 因此这里只需要选择一次，不再重试；没有可用实例时直接返回 null。
+     * <p>
+     * 一致性哈希策略按 hashKey 选择，其他策略忽略 hashKey。
+     * 开启异常检测时，排除被摘除的实例；选中的实例连续连接失败达到阈值时将其摘除，并在过滤后的实例中重新选择一次。
      */
-    private String getOriginIp(HttpServletRequest request) {
-        String ip = request.getHeader(X_REAL_IP);
-        String ipSource = X_REAL_IP;
-        if (notFound(ip)) {
-            ip = request.getHeader(X_FORWARDED_FOR);
-            ipSource = X_FORWARDED_FOR;
+    private Server chooseWithoutLocalServer(InstanceSelector<Server> instanceSelector, String hashKey) {
+        IsolationRoutingSnapshot<Server> routingSnapshot = getSnapshot();
+        IsolationRoutingSnapshot<Server> candidates = outlierDetector == null ? routingSnapshot : outlierDetector.filter(routingSnapshot);
+        Server server = instanceSelector.select(candidates, hashKey);
+        if (server != null && outlierDetector != null && ejectIfFailing(candidates, server)) {
+            server = instanceSelector.select(outlierDetector.filter(routingSnapshot), hashKey);
         }
-        if (notFound(ip)) {
-            ip = request.getHeader(PROXY_CLIENT_IP);
-            ipSource = PROXY_CLIENT_IP;
+        if (server == null) {
+            log.warn("No alive non-local servers available from load balancer: {}", this.getLoadBalancer());
+            return null;
         }
-        if (notFound(ip)) {
-            ip = request.getHeader(WL_PROXY_CLIENT_IP);
-            ipSource = WL_PROXY_CLIENT_IP;
+        log.debug("choose a non-local server instance [{}]", server.getHost());
+        return server;
+    }
+
+    /**
+     * 一致性哈希的请求 key：隔离标识携带的 hash key（由 {@link IsolationKeyResolver} 从 hash.header 读取），
+     * 没有时使用请求方 ip。其他策略返回 null。
+     */
+    private String hashKeyOf(RoutingState<Server> state, IsolationKey isolationKey) {
+        if (!state.isHashing() || isolationKey == null) {
+            return null;
         }
-        if (notFound(ip)) {
-            log.debug("can not get origin ip from {},{},{},{},the most possible cause is had not set Nginx config [proxy_set_header] "
-                    , X_FORWARDED_FOR, X_REAL_IP, PROXY_CLIENT_IP, WL_PROXY_CLIENT_IP);
-            // 获取网关中传递的 IP。
-            ip = request.getHeader(X_CLIENT_IP);
-            ipSource = X_CLIENT_IP;
+        return isolationKey.getHashKey() != null ? isolationKey.getHashKey() : isolationKey.getOriginIp();
+    }
+
+    /**
+     * 查找本地服务实例：请求指定的目标实例、配置的目标实例，最后按请求方 ip 匹配。
+     *
+     * @param isolationKey 隔离标识，可以为 null
+     * @param target       配置的目标本地服务实例，可以为 null
+     */
+    private Server tryMatchLocalInstance(IsolationKey isolationKey, String target) {
+        IsolationRoutingSnapshot<Server> routingSnapshot = getSnapshot();
+        if (routingSnapshot.localSize() == 0) {
+            return null;
+        }
+        log.debug("this request is from:{}", isolationKey);
+        if (isolationKey == null) {
+            return routingSnapshot.matchTarget(target);
+        }
+        String requestTarget = isolationKey.getTarget() != null ? isolationKey.getTarget() : target;
+        return routingSnapshot.matchLocal(isolationKey.getOriginIp(), requestTarget);
+    }
+
+    /**
+     * 获取路由快照，服务列表或服务状态发生变化后，在下一次请求时重新构建。
+     * <p>
+     * 监听器在 BaseLoadBalancer 持有写锁、新列表尚未生效时触发，因此这里在读锁内读取服务列表，保证读取到的是变更后的列表。
+     * 如果 ILoadBalancer 不是 BaseLoadBalancer，无法监听服务列表变化，每次请求都会重新构建。
+     */
+    private IsolationRoutingSnapshot<Server> getSnapshot() {
+        ILoadBalancer lb = this.getLoadBalancer();
+        Object version = lb instanceof BaseLoadBalancer ? serverListVersion : new Object();
+        IsolationRoutingSnapshot<Server> current = snapshot;
+        if (current != null && current.isBuiltFrom(version)) {
+            return current;
         }
-        if (notFound(ip)) {
-            ip = request.getRemoteAddr();
-            ipSource = "getRemoteAddr";
+        List<Server> allServers;
+        if (lb instanceof BaseLoadBalancer) {
+            Lock readLock = ((BaseLoadBalancer) lb).lockAllServerList(false);
+            try {
+                allServers = lb.getAllServers();
+            } finally {
+                readLock.unlock();
+            }
+        } else {
+            allServers = lb.getAllServers();
         }
-        log.info("get ip [{}] from [{}]", ip, ipSource);
-        // 处理多IP的情况只取第一个IP
-        if (StringUtils.hasLength(ip) && ip.contains(IP_SEPARATOR)) {
-            String[] ipArray = ip.split(IP_SEPARATOR);
-            ip = ipArray[0];
+        current = IsolationRoutingSnapshot.build(version, allServers, ADAPTER, statsRegistry,
+                minLocalCidrPrefix, minLocalCidrPrefixV6);
+        snapshot = current;
+        if (localHealth != null) {
+            localHealth.snapshotChanged(current, ADAPTER);
         }
-        return ip;
+        return current;
     }
 
-    private boolean notFound(String ip) {
-        return !StringUtils.hasLength(ip) || UNKNOWN.equalsIgnoreCase(ip);
+    private int localPoolSize() {
+        IsolationRoutingSnapshot<Server> current = snapshot;
+        return current == null ? 0 : current.localSize();
+    }
+
+    private int nonLocalPoolSize() {
+        IsolationRoutingSnapshot<Server> current = snapshot;
+        return current == null ? 0 : current.nonLocalSize();
+    }
+
+    /**
+     * 非本地实例的活跃请求数，由 Ribbon LoadBalancerCommand 在请求开始、结束时维护在 {@link ServerStats} 中。
+     */
+    private double activeRequestsOf(IsolationRoutingSnapshot<Server> snapshot, int index) {
+        return activeRequestsOf(snapshot.nonLocal(index));
+    }
+
+    private long activeRequestsOf(Server server) {
+        ServerStats serverStats = serverStatsOf(server);
+        return serverStats == null ? 0L : serverStats.getActiveRequestsCount();
+    }
+
+    /**
+     * 非本地实例的 peak EWMA 负载：衰减后的响应时间（微秒）乘以活跃请求数加一。
+     * <p>
+     * 响应时间与 gateway 使用同一个 {@link com.bestlink.stats.PeakEwma}，由 {@link #responseReceived(Server, long)} 写入，
+     * 而不是 Ribbon ServerStats 按分钟滚动的平均值，变慢的实例在下一次请求就会被识别；活跃请求数仍然使用 ServerStats。
+     */
+    private double peakEwmaLoadOf(IsolationRoutingSnapshot<Server> snapshot, int index) {
+        InstanceStats stats = snapshot.nonLocalStats(index);
+        long activeRequests = activeRequestsOf(snapshot.nonLocal(index));
+        return stats == null ? defaultLatencyMicros * (activeRequests + 1)
+                : stats.peakEwmaLoad(System.nanoTime(), defaultLatencyMicros, activeRequests);
+    }
+
+    private ServerStats serverStatsOf(Server server) {
+        ILoadBalancer lb = this.getLoadBalancer();
+        if (!(lb instanceof AbstractLoadBalancer)) {
+            return null;
+        }
+        LoadBalancerStats loadBalancerStats = ((AbstractLoadBalancer) lb).getLoadBalancerStats();
+        return loadBalancerStats == null ? null : loadBalancerStats.getSingleServerStat(server);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,83 @@
+package com.bestlink.loadbalancer;
+
+import com.bestlink.properties.IsolationSettings;
+import com.bestlink.properties.IsolationSettingsHolder;
+import com.bestlink.strategy.BalanceStrategy;
+import com.bestlink.strategy.InstanceSelector;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * 负载均衡器的路由状态：当前使用的 {@link IsolationSettings} 及按其负载均衡策略构建的 {@link InstanceSelector}，不可变。
+ * <p>
+ * 负载均衡器每次选择实例时读取一次，整个选择过程使用同一份配置。
+ *
+ * @param <T> 服务实例类型
+ * @author xuzhongkang
+ * @see Reference
+ * @since 2026/10/21 19:30
+ **/
+final class RoutingState<T> {
+
+    private final IsolationSettings settings;
+    private final InstanceSelector<T> selector;
+
+    private RoutingState(IsolationSettings settings, InstanceSelector<T> selector) {
+        this.settings = settings;
+        this.selector = selector;
+    }
+
+    IsolationSettings settings() {
+        return settings;
+    }
+
+    InstanceSelector<T> selector() {
+        return selector;
+    }
+
+    /**
+     * 是否为一致性哈希策略。
+     */
+    boolean isHashing() {
+        return settings.getStrategy() == BalanceStrategy.HASH;
+    }
+
+    /**
+     * 当前路由状态的引用，写时复制。
+     * <p>
+     * 读取时发现 {@link IsolationSettingsHolder} 发布了新的配置，按新配置构建新的路由状态并通过一次 CAS 替换，
+     * 并发读取的线程中只有一个替换成功，其他线程使用已经替换的状态。负载均衡策略没有变化时复用原来的 InstanceSelector
+     * （轮询位置等状态不丢失）；实例统计保存在 InstanceStatsRegistry 中，与路由状态无关，策略变化时同样保留。
+     *
+     * @param <T> 服务实例类型
+     */
+    static final class Reference<T> {
+
+        private final IsolationSettingsHolder settingsHolder;
+        private final Function<BalanceStrategy, InstanceSelector<T>> selectorFactory;
+        private final AtomicReference<RoutingState<T>> current;
+
+        /**
+         * @param selectorFactory 按负载均衡策略构建 InstanceSelector
+         */
+        Reference(IsolationSettingsHolder settingsHolder, Function<BalanceStrategy, InstanceSelector<T>> selectorFactory) {
+            this.settingsHolder = settingsHolder;
+            this.selectorFactory = selectorFactory;
+            IsolationSettings settings = settingsHolder.get();
+            this.current = new AtomicReference<>(new RoutingState<>(settings, selectorFactory.apply(settings.getStrategy())));
+        }
+
+        RoutingState<T> get() {
+            RoutingState<T> state = current.get();
+            IsolationSettings latest = settingsHolder.get();
+            if (state.settings == latest) {
+                return state;
+            }
+            InstanceSelector<T> selector = state.settings.getStrategy() == latest.getStrategy()
+                    ? state.selector : selectorFactory.apply(latest.getStrategy());
+            RoutingState<T> next = new RoutingState<>(latest, selector);
+            return current.compareAndSet(state, next) ? next : current.get();
+        }
+    }
+}
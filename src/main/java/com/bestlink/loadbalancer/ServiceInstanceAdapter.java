@@ -0,0 +1,62 @@
+package com.bestlink.loadbalancer;
+
+import com.bestlink.configuration.LocalNacosServerInstanceConfiguration;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.util.StringUtils;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Spring Cloud {@link ServiceInstance}（Nacos 服务发现）的实例信息。
+ *
+ * @author xuzhongkang
+ * @see ReactorIsolationRobinLoadBalancer
+ * @since 2026/10/17 10:40
+ **/
+public class ServiceInstanceAdapter implements InstanceAdapter<ServiceInstance> {
+
+    public static final ServiceInstanceAdapter INSTANCE = new ServiceInstanceAdapter();
+
+    private static final String NACOS_METADATA_LOCAL_KEY = LocalNacosServerInstanceConfiguration.NACOS_METADATA_LOCAL_KEY;
+    private static final String NACOS_METADATA_WEIGHT_KEY = "nacos.weight";
+
+    @Override
+    public boolean isLocal(ServiceInstance instance) {
+        return getMetadata(instance).containsKey(NACOS_METADATA_LOCAL_KEY);
+    }
+
+    @Override
+    public boolean isCandidate(ServiceInstance instance) {
+        return true;
+    }
+
+    @Override
+    public String getHost(ServiceInstance instance) {
+        return instance.getHost();
+    }
+
+    @Override
+    public int getPort(ServiceInstance instance) {
+        return instance.getPort();
+    }
+
+    @Override
+    public Map<String, String> getMetadata(ServiceInstance instance) {
+        Map<String, String> metadata = instance.getMetadata();
+        return metadata == null ? Collections.emptyMap() : metadata;
+    }
+
+    @Override
+    public double getWeight(ServiceInstance instance) {
+        String weight = getMetadata(instance).get(NACOS_METADATA_WEIGHT_KEY);
+        if (!StringUtils.hasLength(weight)) {
+            return 1D;
+        }
+        try {
+            return Double.parseDouble(weight);
+        } catch (NumberFormatException e) {
+            return 1D;
+        }
+    }
+}
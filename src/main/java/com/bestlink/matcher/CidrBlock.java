@@ -0,0 +1,101 @@
+package com.bestlink.matcher;
+
+/**
+ * CIDR 地址段，例如 "10.8.0.0/16"、"2001:db8::/32"，没有前缀长度时表示单个 ip。
+ *
+ * @author xuzhongkang
+ * @see IpPrefixTrie
+ * @since 2026/10/17 14:10
+ **/
+public final class CidrBlock {
+
+    private final byte[] address;
+
+    /**
+     * 前缀长度，按 16 字节地址计算，IPv4 地址段已经加上 {@link IpAddresses#IPV4_MAPPED_PREFIX}。
+     */
+    private final int prefixLength;
+
+    private final boolean ipv4;
+
+    private CidrBlock(byte[] address, int prefixLength, boolean ipv4) {
+        this.address = address;
+        this.prefixLength = prefixLength;
+        this.ipv4 = ipv4;
+    }
+
+    /**
+     * 解析 CIDR 字符串。
+     *
+     * @return 地址段，格式错误时返回 null。
+     */
+    public static CidrBlock parse(String cidr) {
+        if (cidr == null) {
+            return null;
+        }
+        String value = cidr.trim();
+        int slash = value.indexOf('/');
+        byte[] address = IpAddresses.parse(slash < 0 ? value : value.substring(0, slash));
+        if (address == null) {
+            return null;
+        }
+        boolean ipv4 = IpAddresses.isIpv4(address) && value.indexOf(':') < 0;
+        if (slash < 0) {
+            return new CidrBlock(address, IpAddresses.ADDRESS_BITS, ipv4);
+        }
+        int prefixLength;
+        try {
+            prefixLength = Integer.parseInt(value.substring(slash + 1).trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        int maxLength = ipv4 ? IpAddresses.ADDRESS_BITS - IpAddresses.IPV4_MAPPED_PREFIX : IpAddresses.ADDRESS_BITS;
+        if (prefixLength < 0 || prefixLength > maxLength) {
+            return null;
+        }
+        return new CidrBlock(address, ipv4 ? prefixLength + IpAddresses.IPV4_MAPPED_PREFIX : prefixLength, ipv4);
+    }
+
+    /**
+     * 判断地址（{@link IpAddresses#parse(String)} 的结果）是否在地址段内。
+     */
+    public boolean contains(byte[] other) {
+        if (other == null || other.length != address.length) {
+            return false;
+        }
+        int bytes = prefixLength / 8;
+        for (int i = 0; i < bytes; i++) {
+            if (address[i] != other[i]) {
+                return false;
+            }
+        }
+        int bits = prefixLength % 8;
+        if (bits == 0) {
+            return true;
+        }
+        int mask = (0xFF << (8 - bits)) & 0xFF;
+        return (address[bytes] & mask) == (other[bytes] & mask);
+    }
+
+    public byte[] getAddress() {
+        return address;
+    }
+
+    public int getPrefixLength() {
+        return prefixLength;
+    }
+
+    /**
+     * 是否 IPv4 地址段。
+     */
+    public boolean isIpv4() {
+        return ipv4;
+    }
+
+    /**
+     * 按地址族计算的前缀长度，IPv4 地址段为 0~32，IPv6 地址段为 0~128。
+     */
+    public int getNetworkPrefixLength() {
+        return ipv4 ? prefixLength - IpAddresses.IPV4_MAPPED_PREFIX : prefixLength;
+    }
+}
@@ -0,0 +1,165 @@
+package com.bestlink.matcher;
+
+/**
+ * ip 字符串解析，将 IPv4/IPv6 统一转换为 16 字节的数值形式，不进行 DNS 解析。
+ * <p>
+ * IPv4 转换为 IPv4-mapped IPv6 地址（::ffff:a.b.c.d），因此 "10.0.0.1" 与 "::ffff:10.0.0.1" 得到相同的结果，
+ * IPv6 的缩写（::）、前导零、大小写、方括号及 zone id（%eth0）不影响解析结果。
+ *
+ * @author xuzhongkang
+ * @see IpPrefixTrie
+ * @since 2026/10/17 14:10
+ **/
+public final class IpAddresses {
+
+    /**
+     * 地址长度（bit）。
+     */
+    public static final int ADDRESS_BITS = 128;
+
+    /**
+     * IPv4 地址在 IPv4-mapped IPv6 地址中的前缀长度。
+     */
+    public static final int IPV4_MAPPED_PREFIX = 96;
+
+    private static final int ADDRESS_BYTES = 16;
+    private static final int IPV4_OFFSET = 12;
+
+    private IpAddresses() {
+    }
+
+    /**
+     * 解析 ip 字符串。
+     *
+     * @param ip ip 字符串，例如 "10.0.0.1"、"fe80::1%eth0"、"[::1]"
+     * @return 16 字节地址，不是合法的 ip 时返回 null。
+     */
+    public static byte[] parse(String ip) {
+        if (ip == null) {
+            return null;
+        }
+        String value = ip.trim();
+        if (value.length() > 2 && value.charAt(0) == '[' && value.charAt(value.length() - 1) == ']') {
+            value = value.substring(1, value.length() - 1);
+        }
+        int zone = value.indexOf('%');
+        if (zone >= 0) {
+            value = value.substring(0, zone);
+        }
+        if (value.isEmpty()) {
+            return null;
+        }
+        if (value.indexOf(':') < 0) {
+            byte[] address = new byte[ADDRESS_BYTES];
+            address[10] = (byte) 0xff;
+            address[11] = (byte) 0xff;
+            return parseIpv4(value, address, IPV4_OFFSET) ? address : null;
+        }
+        return parseIpv6(value);
+    }
+
+    /**
+     * 判断地址是否为 IPv4（IPv4-mapped）地址。
+     */
+    public static boolean isIpv4(byte[] address) {
+        for (int i = 0; i < 10; i++) {
+            if (address[i] != 0) {
+                return false;
+            }
+        }
+        return address[10] == (byte) 0xff && address[11] == (byte) 0xff;
+    }
+
+    private static boolean parseIpv4(String value, byte[] out, int offset) {
+        int octets = 0;
+        int octet = 0;
+        int digits = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (digits == 3) {
+                    return false;
+                }
+                octet = octet * 10 + (c - '0');
+                digits++;
+                if (octet > 255) {
+                    return false;
+                }
+            } else if (c == '.') {
+                if (digits == 0 || octets == 3) {
+                    return false;
+                }
+                out[offset + octets++] = (byte) octet;
+                octet = 0;
+                digits = 0;
+            } else {
+                return false;
+            }
+        }
+        if (digits == 0 || octets != 3) {
+            return false;
+        }
+        out[offset + 3] = (byte) octet;
+        return true;
+    }
+
+    private static byte[] parseIpv6(String value) {
+        int compressed = value.indexOf("::");
+        if (compressed >= 0 && value.indexOf("::", compressed + 1) >= 0) {
+            return null;
+        }
+        byte[] address = new byte[ADDRESS_BYTES];
+        if (compressed < 0) {
+            return parseGroups(value, address, 0) == ADDRESS_BYTES ? address : null;
+        }
+        String head = value.substring(0, compressed);
+        String tail = value.substring(compressed + 2);
+        int headLength = head.isEmpty() ? 0 : parseGroups(head, address, 0);
+        byte[] tailBytes = new byte[ADDRESS_BYTES];
+        int tailLength = tail.isEmpty() ? 0 : parseGroups(tail, tailBytes, 0);
+        // "::" 至少代表一组 0
+        if (headLength < 0 || tailLength < 0 || headLength + tailLength > ADDRESS_BYTES - 2) {
+            return null;
+        }
+        System.arraycopy(tailBytes, 0, address, ADDRESS_BYTES - tailLength, tailLength);
+        return address;
+    }
+
+    /**
+     * 解析以 ":" 分隔的 16 进制分组，最后一组可以是 IPv4 地址。
+     *
+     * @return 写入的字节数，格式错误时返回 -1。
+     */
+    private static int parseGroups(String value, byte[] out, int offset) {
+        int position = offset;
+        int start = 0;
+        while (true) {
+            int colon = value.indexOf(':', start);
+            int end = colon < 0 ? value.length() : colon;
+            if (colon < 0 && value.indexOf('.', start) >= 0) {
+                if (position + 4 > ADDRESS_BYTES || !parseIpv4(value.substring(start), out, position)) {
+                    return -1;
+                }
+                return position + 4 - offset;
+            }
+            int length = end - start;
+            if (length == 0 || length > 4 || position + 2 > ADDRESS_BYTES) {
+                return -1;
+            }
+            int group = 0;
+            for (int i = start; i < end; i++) {
+                int digit = Character.digit(value.charAt(i), 16);
+                if (digit < 0) {
+                    return -1;
+                }
+                group = (group << 4) | digit;
+            }
+            out[position++] = (byte) (group >>> 8);
+            out[position++] = (byte) group;
+            if (colon < 0) {
+                return position - offset;
+            }
+            start = colon + 1;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.bestlink.matcher;
+
+/**
+ * ip 前缀树（二进制 trie），按最长前缀匹配查找地址段对应的值。
+ * <p>
+ * 节点保存在数组中（每个节点两个子节点下标），不为每个节点创建对象；查找最多比较 128 位，
+ * 耗时与插入的地址段数量无关。构建完成后只读，可以在多个线程间安全共享（需要通过 volatile/final 字段发布）。
+ *
+ * @param <T> 地址段对应的值
+ * @author xuzhongkang
+ * @see CidrBlock
+ * @since 2026/10/17 14:10
+ **/
+public final class IpPrefixTrie<T> {
+
+    private static final int ROOT = 0;
+    private static final int ABSENT = 0;
+
+    /**
+     * children[node * 2 + bit]，根节点不会作为子节点，因此 0 表示不存在。
+     */
+    private int[] children = new int[64];
+    private Object[] values = new Object[32];
+    private int nodeCount = 1;
+    private int size;
+
+    /**
+     * 插入地址段，相同地址段已经存在时保留先插入的值。
+     */
+    public void insert(CidrBlock block, T value) {
+        insert(block.getAddress(), block.getPrefixLength(), value);
+    }
+
+    /**
+     * 插入地址段，相同地址段已经存在时保留先插入的值。
+     *
+     * @param address      16 字节地址
+     * @param prefixLength 前缀长度
+     * @param value        值
+     */
+    public void insert(byte[] address, int prefixLength, T value) {
+        int node = ROOT;
+        for (int i = 0; i < prefixLength; i++) {
+            int slot = (node << 1) | bitAt(address, i);
+            int child = children[slot];
+            if (child == ABSENT) {
+                child = newNode();
+                children[slot] = child;
+            }
+            node = child;
+        }
+        if (values[node] == null) {
+            values[node] = value;
+            size++;
+        }
+    }
+
+    /**
+     * 最长前缀匹配。
+     *
+     * @param address 16 字节地址
+     * @return 包含此地址的最长地址段对应的值，没有时返回 null。
+     */
+    @SuppressWarnings("unchecked")
+    public T longestMatch(byte[] address) {
+        int node = ROOT;
+        Object matched = values[ROOT];
+        for (int i = 0; i < IpAddresses.ADDRESS_BITS; i++) {
+            node = children[(node << 1) | bitAt(address, i)];
+            if (node == ABSENT) {
+                break;
+            }
+            if (values[node] != null) {
+                matched = values[node];
+            }
+        }
+        return (T) matched;
+    }
+
+    /**
+     * 地址段数量。
+     */
+    public int size() {
+        return size;
+    }
+
+    private int newNode() {
+        if (nodeCount == values.length) {
+            int[] newChildren = new int[children.length << 1];
+            System.arraycopy(children, 0, newChildren, 0, children.length);
+            children = newChildren;
+            Object[] newValues = new Object[values.length << 1];
+            System.arraycopy(values, 0, newValues, 0, values.length);
+            values = newValues;
+        }
+        return nodeCount++;
+    }
+
+    private static int bitAt(byte[] address, int index) {
+        return (address[index >>> 3] >>> (7 - (index & 7))) & 1;
+    }
+}
@@ -0,0 +1,87 @@
+package com.bestlink.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/**
+ * 基于 Micrometer 的负载均衡指标。
+ * <ul>
+ *     <li>isolation.loadbalancer.choose：counter，tag 为 service、outcome
+ *     （local-hit/shared/local-fallback/local-unavailable/limited/empty/error，见 {@link RoutingOutcome}）</li>
+ *     <li>isolation.loadbalancer.choose.latency：timer，choose 的耗时，tag 为 service</li>
+ *     <li>isolation.loadbalancer.instances：gauge，tag 为 service、pool（local/non-local）</li>
+ * </ul>
+ * 每个服务的 meter 在负载均衡器创建时注册，请求路径上不再按 tag 查找 meter。
+ *
+ * @author xuzhongkang
+ * @since 2026/10/16 17:30
+ **/
+public class MicrometerRoutingMetrics implements RoutingMetrics {
+
+    public static final String CHOOSE_METER = "isolation.loadbalancer.choose";
+    public static final String CHOOSE_LATENCY_METER = "isolation.loadbalancer.choose.latency";
+    public static final String INSTANCES_METER = "isolation.loadbalancer.instances";
+
+    private static final String TAG_SERVICE = "service";
+    private static final String TAG_OUTCOME = "outcome";
+    private static final String TAG_POOL = "pool";
+
+    private final MeterRegistry registry;
+
+    public MicrometerRoutingMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public ServiceRoutingMetrics forService(String serviceId, IntSupplier localPoolSize, IntSupplier nonLocalPoolSize) {
+        String service = serviceId == null ? "unknown" : serviceId;
+        Gauge.builder(INSTANCES_METER, localPoolSize::getAsInt)
+                .description("instances in the isolation routing snapshot")
+                .tags(TAG_SERVICE, service, TAG_POOL, "local")
+                .register(registry);
+        Gauge.builder(INSTANCES_METER, nonLocalPoolSize::getAsInt)
+                .description("instances in the isolation routing snapshot")
+                .tags(TAG_SERVICE, service, TAG_POOL, "non-local")
+                .register(registry);
+        RoutingOutcome[] outcomes = RoutingOutcome.values();
+        Counter[] counters = new Counter[outcomes.length];
+        for (RoutingOutcome outcome : outcomes) {
+            counters[outcome.ordinal()] = Counter.builder(CHOOSE_METER)
+                    .description("isolation load balancer routing decisions")
+                    .tags(TAG_SERVICE, service, TAG_OUTCOME, outcome.getTag())
+                    .register(registry);
+        }
+        Timer timer = Timer.builder(CHOOSE_LATENCY_METER)
+                .description("time spent choosing a service instance")
+                .tags(TAG_SERVICE, service)
+                .register(registry);
+        return new MicrometerServiceRoutingMetrics(counters, timer);
+    }
+
+    private static final class MicrometerServiceRoutingMetrics implements ServiceRoutingMetrics {
+
+        private final Counter[] counters;
+        private final Timer timer;
+
+        private MicrometerServiceRoutingMetrics(Counter[] counters, Timer timer) {
+            this.counters = counters;
+            this.timer = timer;
+        }
+
+        @Override
+        public long start() {
+            return System.nanoTime();
+        }
+
+        @Override
+        public void record(RoutingOutcome outcome, long startNanos) {
+            timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            counters[outcome.ordinal()].increment();
+        }
+    }
+}
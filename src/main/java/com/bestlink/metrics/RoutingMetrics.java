@@ -0,0 +1,53 @@
+package com.bestlink.metrics;
+
+import java.util.function.IntSupplier;
+
+/**
+ * 负载均衡指标，用于统计本地实例命中、共享实例、无可用实例等路由结果及 choose 耗时。
+ * <p>
+ * 此接口不依赖 Micrometer，没有 MeterRegistry 时使用 {@link #NOOP}。
+ *
+ * @author xuzhongkang
+ * @see MicrometerRoutingMetrics
+ * @since 2026/10/16 17:30
+ **/
+public interface RoutingMetrics {
+
+    RoutingMetrics NOOP = (serviceId, localPoolSize, nonLocalPoolSize) -> ServiceRoutingMetrics.NOOP;
+
+    /**
+     * 获取某个服务的指标，每个负载均衡器创建时调用一次，请求路径上直接使用返回的对象。
+     *
+     * @param serviceId        服务名
+     * @param localPoolSize    本地服务实例数量
+     * @param nonLocalPoolSize 非本地服务实例数量
+     */
+    ServiceRoutingMetrics forService(String serviceId, IntSupplier localPoolSize, IntSupplier nonLocalPoolSize);
+
+    /**
+     * 某个服务的指标。
+     */
+    interface ServiceRoutingMetrics {
+
+        ServiceRoutingMetrics NOOP = new ServiceRoutingMetrics() {
+            @Override
+            public long start() {
+                return 0L;
+            }
+
+            @Override
+            public void record(RoutingOutcome outcome, long startNanos) {
+            }
+        };
+
+        /**
+         * 开始计时，返回值传入 {@link #record(RoutingOutcome, long)}。
+         */
+        long start();
+
+        /**
+         * 记录一次负载均衡的结果及耗时。
+         */
+        void record(RoutingOutcome outcome, long startNanos);
+    }
+}
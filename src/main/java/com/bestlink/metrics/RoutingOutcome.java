@@ -0,0 +1,55 @@
+package com.bestlink.metrics;
+
+/**
+ * 一次负载均衡的结果。
+ *
+ * @author xuzhongkang
+ * @since 2026/10/16 17:30
+ **/
+public enum RoutingOutcome {
+
+    /**
+     * 路由到与请求 ip 匹配的本地服务实例。
+     */
+    LOCAL_HIT("local-hit"),
+
+    /**
+     * 路由到非本地（共享）服务实例。
+     */
+    SHARED("shared"),
+
+    /**
+     * 匹配的本地服务实例不可达，路由到非本地（共享）服务实例。
+     */
+    LOCAL_FALLBACK("local-fallback"),
+
+    /**
+     * 匹配的本地服务实例不可达，按 fail fast 策略直接返回没有可用实例。
+     */
+    LOCAL_UNAVAILABLE("local-unavailable"),
+
+    /**
+     * 选中的服务实例在途请求数达到并发上限，没有其他可用实例或者按 fail fast 策略直接返回没有可用实例。
+     */
+    LIMITED("limited"),
+
+    /**
+     * 没有可用的服务实例。
+     */
+    EMPTY("empty"),
+
+    /**
+     * 选择服务实例时发生异常。
+     */
+    ERROR("error");
+
+    private final String tag;
+
+    RoutingOutcome(String tag) {
+        this.tag = tag;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+}
@@ -0,0 +1,176 @@
+package com.bestlink.outlier;
+
+import com.bestlink.loadbalancer.IsolationRoutingSnapshot;
+import com.bestlink.properties.IsolationProperties;
+import com.bestlink.stats.InstanceStats;
+import com.bestlink.stats.InstanceStatsRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 非本地（共享）服务实例的异常检测与临时摘除，参考 Envoy outlier detection。
+ * <p>
+ * 实例连续失败达到 consecutiveFailures，或者最近窗口内的错误率达到 failureRateThreshold 时，将实例临时摘除，
+ * 摘除时间按 baseEjectionTime 指数增长，最长 maxEjectionTime；同一时间被摘除的实例不超过非本地实例总数的 maxEjectionPercent。
+ * <p>
+ * 记录请求结果不加锁；摘除是低频操作，在 synchronized 中进行。摘除状态变化或摘除到期后，重新生成过滤后的路由快照，
+ * 负载均衡策略只从未摘除的实例中选择，不需要重试。本地实例不参与。
+ *
+ * @param <T> 服务实例类型
+ * @author xuzhongkang
+ * @see IsolationProperties.OutlierDetection
+ * @since 2026/10/18 16:30
+ **/
+@Slf4j
+public class OutlierDetector<T> implements InstanceStatsRegistry.FailureListener {
+
+    private final int consecutiveFailures;
+    private final int failureRateThreshold;
+    private final int minimumRequests;
+    private final int windowSize;
+    private final long baseEjectionNanos;
+    private final long maxEjectionNanos;
+    private final int maxEjectionPercent;
+
+    /**
+     * 负载均衡当前使用的路由快照（未过滤）。
+     */
+    private volatile IsolationRoutingSnapshot<T> base;
+
+    /**
+     * 摘除版本，每次摘除实例时替换为新对象。
+     */
+    private volatile Object ejectionVersion = new Object();
+
+    private volatile Filtered<T> filtered;
+
+    private OutlierDetector(IsolationProperties.OutlierDetection properties) {
+        this.consecutiveFailures = Math.max(1, properties.getConsecutiveFailures());
+        this.failureRateThreshold = properties.getFailureRateThreshold();
+        this.minimumRequests = Math.max(1, properties.getMinimumRequests());
+        this.windowSize = Math.max(minimumRequests, properties.getWindowSize());
+        this.baseEjectionNanos = properties.getBaseEjectionTime().toNanos();
+        this.maxEjectionNanos = Math.max(baseEjectionNanos, properties.getMaxEjectionTime().toNanos());
+        this.maxEjectionPercent = properties.getMaxEjectionPercent();
+    }
+
+    /**
+     * @return 未开启时返回 null。
+     */
+    public static <T> OutlierDetector<T> create(IsolationProperties.OutlierDetection properties) {
+        if (properties == null || !Boolean.TRUE.equals(properties.getEnabled())) {
+            return null;
+        }
+        return new OutlierDetector<>(properties);
+    }
+
+    /**
+     * 每个实例记录的请求结果数量。
+     */
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    public int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    @Override
+    public void requestFailed(InstanceStats stats) {
+        if (stats.getConsecutiveFailures() >= consecutiveFailures) {
+            tryEject(stats, "consecutive failures");
+            return;
+        }
+        int failurePercent = stats.failurePercent(minimumRequests);
+        if (failureRateThreshold > 0 && failurePercent >= failureRateThreshold) {
+            tryEject(stats, "failure rate " + failurePercent + "%");
+        }
+    }
+
+    /**
+     * 尝试摘除实例，实例不在当前非本地实例中、已经被摘除，或者摘除后超过最大摘除比例时不摘除。
+     *
+     * @return 是否摘除
+     */
+    public boolean tryEject(InstanceStats stats, String reason) {
+        IsolationRoutingSnapshot<T> current = base;
+        if (current == null) {
+            return false;
+        }
+        synchronized (this) {
+            long now = System.nanoTime();
+            int size = current.nonLocalSize();
+            int ejected = 0;
+            boolean member = false;
+            for (int i = 0; i < size; i++) {
+                InstanceStats candidate = current.nonLocalStats(i);
+                if (candidate == stats) {
+                    member = true;
+                }
+                if (candidate != null && candidate.isEjected(now)) {
+                    ejected++;
+                }
+            }
+            if (!member || stats.isEjected(now) || (ejected + 1) * 100 > maxEjectionPercent * size) {
+                return false;
+            }
+            long duration = stats.eject(now, baseEjectionNanos, maxEjectionNanos);
+            ejectionVersion = new Object();
+            log.warn("eject instance [{}] for {}s, cause:{}", stats.getKey(), TimeUnit.NANOSECONDS.toSeconds(duration), reason);
+            return true;
+        }
+    }
+
+    /**
+     * 过滤掉当前被摘除的非本地实例。
+     *
+     * @param snapshot 负载均衡当前的路由快照
+     */
+    public IsolationRoutingSnapshot<T> filter(IsolationRoutingSnapshot<T> snapshot) {
+        if (base != snapshot) {
+            base = snapshot;
+        }
+        Filtered<T> current = filtered;
+        long now = System.nanoTime();
+        if (current != null && current.base == snapshot && current.version == ejectionVersion
+                && (!current.expiring || now - current.nextExpiryNanos < 0)) {
+            return current.snapshot;
+        }
+        Object version = ejectionVersion;
+        IsolationRoutingSnapshot<T> result = snapshot.filterNonLocal(stats -> stats == null || !stats.isEjected(now));
+        boolean expiring = false;
+        long nextExpiry = 0L;
+        for (int i = 0; i < snapshot.nonLocalSize(); i++) {
+            InstanceStats stats = snapshot.nonLocalStats(i);
+            if (stats != null && stats.isEjected(now) && (!expiring || stats.getEjectedUntilNanos() - nextExpiry < 0)) {
+                expiring = true;
+                nextExpiry = stats.getEjectedUntilNanos();
+            }
+        }
+        filtered = new Filtered<>(snapshot, version, result, expiring, nextExpiry);
+        return result;
+    }
+
+    private static final class Filtered<T> {
+
+        private final IsolationRoutingSnapshot<T> base;
+        private final Object version;
+        private final IsolationRoutingSnapshot<T> snapshot;
+
+        /**
+         * 是否有被摘除的实例，有时在最早的摘除到期后重新过滤。
+         */
+        private final boolean expiring;
+        private final long nextExpiryNanos;
+
+        private Filtered(IsolationRoutingSnapshot<T> base, Object version, IsolationRoutingSnapshot<T> snapshot,
+                         boolean expiring, long nextExpiryNanos) {
+            this.base = base;
+            this.version = version;
+            this.snapshot = snapshot;
+            this.expiring = expiring;
+            this.nextExpiryNanos = nextExpiryNanos;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.bestlink.propagation;
+
+import com.netflix.client.config.IClientConfig;
+import com.netflix.loadbalancer.ILoadBalancer;
+import org.springframework.cloud.netflix.ribbon.ServerIntrospector;
+import org.springframework.cloud.netflix.ribbon.SpringClientFactory;
+import org.springframework.cloud.openfeign.ribbon.CachingSpringLoadBalancerFactory;
+import org.springframework.cloud.openfeign.ribbon.FeignLoadBalancer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 为每个 Feign 客户端创建 {@link IsolationFeignLoadBalancer}，替换默认的 CachingSpringLoadBalancerFactory。
+ * <p>
+ * 只用于没有 spring-retry 的情况；存在 spring-retry 时 Feign 使用 RetryableFeignLoadBalancer，
+ * 通过 LoadBalancerClient 选择实例，loadBalancerKey 固定为 "default"，此时仍然从当前线程解析隔离标识。
+ *
+ * @author xuzhongkang
+ * @since 2026/10/20 16:10
+ **/
+public class IsolationCachingLoadBalancerFactory extends CachingSpringLoadBalancerFactory {
+
+    private final Map<String, FeignLoadBalancer> loadBalancers = new ConcurrentHashMap<>();
+
+    private final IsolationKeyResolver keyResolver;
+
+    public IsolationCachingLoadBalancerFactory(SpringClientFactory factory, IsolationKeyResolver keyResolver) {
+        super(factory);
+        this.keyResolver = keyResolver;
+    }
+
+    @Override
+    public FeignLoadBalancer create(String clientName) {
+        FeignLoadBalancer client = loadBalancers.get(clientName);
+        if (client != null) {
+            return client;
+        }
+        IClientConfig config = factory.getClientConfig(clientName);
+        ILoadBalancer lb = factory.getLoadBalancer(clientName);
+        ServerIntrospector serverIntrospector = factory.getInstance(clientName, ServerIntrospector.class);
+        client = new IsolationFeignLoadBalancer(lb, config, serverIntrospector, keyResolver);
+        FeignLoadBalancer existing = loadBalancers.putIfAbsent(clientName, client);
+        return existing == null ? client : existing;
+    }
+}
@@ -0,0 +1,86 @@
+package com.bestlink.propagation;
+
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * 在线程池中执行的任务的隔离标识。
+ * <p>
+ * 提交任务时由 {@link IsolationKeyResolver} 解析一次隔离标识，随任务一起传递（只是一个不可变对象的引用），
+ * 任务执行期间通过 {@link #current()} 读取，执行结束后恢复，线程池中的线程不会残留上一个任务的标识。
+ * 没有隔离标识时不包装任务，不产生额外开销。
+ *
+ * @author xuzhongkang
+ * @see IsolationKeyResolver#wrap(Runnable)
+ * @since 2026/10/20 16:10
+ **/
+public final class IsolationContext {
+
+    private static final ThreadLocal<IsolationKey> CURRENT = new ThreadLocal<>();
+
+    private IsolationContext() {
+    }
+
+    /**
+     * 当前任务的隔离标识，不在包装的任务中执行时返回 null。
+     */
+    public static IsolationKey current() {
+        return CURRENT.get();
+    }
+
+    public static Runnable wrap(IsolationKey key, Runnable task) {
+        if (key == null) {
+            return task;
+        }
+        return () -> {
+            IsolationKey previous = CURRENT.get();
+            CURRENT.set(key);
+            try {
+                task.run();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    public static <V> Callable<V> wrap(IsolationKey key, Callable<V> task) {
+        if (key == null) {
+            return task;
+        }
+        return () -> {
+            IsolationKey previous = CURRENT.get();
+            CURRENT.set(key);
+            try {
+                return task.call();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    /**
+     * 用于 {@link java.util.concurrent.CompletableFuture#supplyAsync(Supplier, java.util.concurrent.Executor)}。
+     */
+    public static <V> Supplier<V> wrap(IsolationKey key, Supplier<V> task) {
+        if (key == null) {
+            return task;
+        }
+        return () -> {
+            IsolationKey previous = CURRENT.get();
+            CURRENT.set(key);
+            try {
+                return task.get();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    private static void restore(IsolationKey previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.bestlink.propagation;
+
+import com.bestlink.loadbalancer.RibbonIsolationRule;
+import com.netflix.client.config.IClientConfig;
+import com.netflix.loadbalancer.BaseLoadBalancer;
+import com.netflix.loadbalancer.ILoadBalancer;
+import com.netflix.loadbalancer.reactive.ExecutionContext;
+import com.netflix.loadbalancer.reactive.ExecutionInfo;
+import com.netflix.loadbalancer.reactive.ExecutionListener;
+import com.netflix.loadbalancer.reactive.LoadBalancerCommand;
+import org.springframework.cloud.netflix.ribbon.ServerIntrospector;
+import org.springframework.cloud.openfeign.ribbon.FeignLoadBalancer;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 将 Feign 请求头中的隔离标识作为 loadBalancerKey 传给 Ribbon，{@link com.bestlink.loadbalancer.RibbonIsolationRule#choose(Object)}
+ * 直接使用传入的标识，不依赖执行 Feign 调用的线程上是否有 servlet 请求。
+ * <p>
+ * 默认的 FeignLoadBalancer 不设置 loadBalancerKey（choose 收到 null）。
+ * 请求头的读取方式见 {@link IsolationKeyResolver#resolveOutbound}。
+ * <p>
+ * 负载均衡规则为 {@link RibbonIsolationRule} 时，同时注册 {@link ExecutionListener}，记录每次请求的响应时间及失败，
+ * 用于 PEAK_EWMA 策略及调整实例的并发上限（负载均衡策略可以在运行时修改，因此总是注册）。
+ *
+ * @author xuzhongkang
+ * @see IsolationFeignRequestInterceptor
+ * @since 2026/10/20 16:10
+ **/
+public class IsolationFeignLoadBalancer extends FeignLoadBalancer {
+
+    private final IsolationKeyResolver keyResolver;
+
+    public IsolationFeignLoadBalancer(ILoadBalancer lb, IClientConfig clientConfig, ServerIntrospector serverIntrospector,
+                                      IsolationKeyResolver keyResolver) {
+        super(lb, clientConfig, serverIntrospector);
+        this.keyResolver = keyResolver;
+    }
+
+    @Override
+    protected void customizeLoadBalancerCommandBuilder(RibbonRequest request, IClientConfig config,
+                                                       LoadBalancerCommand.Builder<RibbonResponse> builder) {
+        RibbonIsolationRule rule = isolationRule();
+        if (rule != null) {
+            builder.withListeners(Collections.singletonList(new InstanceStatsListener(rule)));
+        }
+        if (request.getRequest() == null || request.getRequest().headers() == null) {
+            return;
+        }
+        IsolationKey key = keyResolver.resolveOutbound(request.getRequest().headers(), IsolationFeignLoadBalancer::firstHeader);
+        if (key != null) {
+            builder.withServerLocator(key);
+        }
+    }
+
+    private RibbonIsolationRule isolationRule() {
+        ILoadBalancer lb = getLoadBalancer();
+        if (lb instanceof BaseLoadBalancer && ((BaseLoadBalancer) lb).getRule() instanceof RibbonIsolationRule) {
+            return (RibbonIsolationRule) ((BaseLoadBalancer) lb).getRule();
+        }
+        return null;
+    }
+
+    private static String firstHeader(Map<String, Collection<String>> headers, String name) {
+        Collection<String> values = headers.get(name);
+        if (values == null) {
+            return null;
+        }
+        for (String value : values) {
+            if (value != null && !value.isEmpty()) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 将每次请求（包括重试）的响应时间、失败回调给 {@link RibbonIsolationRule}。
+     */
+    private static final class InstanceStatsListener implements ExecutionListener<Object, RibbonResponse> {
+
+        private static final String START_NANOS = "isolation.startNanos";
+
+        private final RibbonIsolationRule rule;
+
+        private InstanceStatsListener(RibbonIsolationRule rule) {
+            this.rule = rule;
+        }
+
+        @Override
+        public void onExecutionStart(ExecutionContext<Object> context) {
+        }
+
+        @Override
+        public void onStartWithServer(ExecutionContext<Object> context, ExecutionInfo info) {
+            context.put(START_NANOS, System.nanoTime());
+        }
+
+        @Override
+        public void onExceptionWithServer(ExecutionContext<Object> context, Throwable exception, ExecutionInfo info) {
+            rule.requestDropped(info.getServer());
+        }
+
+        @Override
+        public void onExecutionSuccess(ExecutionContext<Object> context, RibbonResponse response, ExecutionInfo info) {
+            Object start = context.get(START_NANOS);
+            if (start instanceof Long) {
+                rule.responseReceived(info.getServer(), System.nanoTime() - (Long) start);
+            }
+        }
+
+        @Override
+        public void onExecutionFailed(ExecutionContext<Object> context, Throwable finalException, ExecutionInfo info) {
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.bestlink.propagation;
+
+import feign.RequestInterceptor;
+import feign.RequestTemplate;
+
+/**
+ * Feign 请求拦截器，解析一次隔离标识并写入请求头，
+ * 由 {@link IsolationFeignLoadBalancer} 作为 loadBalancerKey 传给 {@link com.bestlink.loadbalancer.RibbonIsolationRule}。
+ * <p>
+ * 开启隔离标识请求头时写入签名的隔离标识（从上游请求头中解析出的标识原样转发），下游服务不再解析 ip-headers；
+ * 否则写入 "X_CLIENT_IP" 请求头，指定了目标本地实例时同时写入目标实例请求头。请求头中已经有隔离标识时（例如重试）不再解析。
+ *
+ * @author xuzhongkang
+ * @since 2026/10/20 16:10
+ **/
+public class IsolationFeignRequestInterceptor implements RequestInterceptor {
+
+    private final IsolationKeyResolver keyResolver;
+
+    public IsolationFeignRequestInterceptor(IsolationKeyResolver keyResolver) {
+        this.keyResolver = keyResolver;
+    }
+
+    @Override
+    public void apply(RequestTemplate template) {
+        IsolationTokenCodec tokenCodec = keyResolver.getTokenCodec();
+        String header = tokenCodec == null ? IsolationKey.HEADER : tokenCodec.getHeader();
+        if (template.headers().containsKey(header)) {
+            return;
+        }
+        IsolationKey key = keyResolver.resolve();
+        if (key == null) {
+            return;
+        }
+        String hashHeader = keyResolver.getHashHeader();
+        if (key.getHashKey() != null && hashHeader != null && !template.headers().containsKey(hashHeader)) {
+            // 负载均衡从 Feign 请求头中读取一致性哈希请求 key，不读取当前线程上的 servlet 请求
+            template.header(hashHeader, key.getHashKey());
+        }
+        if (tokenCodec != null) {
+            template.header(header, tokenCodec.encode(key));
+            return;
+        }
+        template.header(header, key.getOriginIp());
+        String targetHeader = keyResolver.getTargetHeader();
+        if (key.getTarget() != null && targetHeader != null && !template.headers().containsKey(targetHeader)) {
+            template.header(targetHeader, key.getTarget());
+        }
+    }
+}
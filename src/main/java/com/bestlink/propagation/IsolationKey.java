@@ -0,0 +1,132 @@
+package com.bestlink.propagation;
+
+import com.bestlink.resolver.ClientIpResolver;
+import org.springframework.util.StringUtils;
+
+/**
+ * 流量隔离标识：请求方原始 ip，以及可选的目标本地实例（"local-instance-id"、host:port 或 host），
+ * 指定目标实例时优先路由到目标实例，用于开发者之间互相调用对方的本地服务。
+ * <p>
+ * 作为 Ribbon 的 loadBalancerKey 传入 {@link com.netflix.loadbalancer.IRule#choose(Object)}，负载均衡时不再从 RequestContextHolder 中读取当前请求。
+ * 开启 {@link IsolationTokenCodec} 时通过签名的隔离标识请求头在调用链上传递，否则通过 "X_CLIENT_IP" 请求头携带请求方 ip。
+ * 配置了一致性哈希的请求头（hash.header）时，同时携带该请求头的值作为 HASH 策略的请求 key。
+ *
+ * @author xuzhongkang
+ * @see IsolationKeyResolver
+ * @see IsolationFeignLoadBalancer
+ * @since 2026/10/20 16:10
+ **/
+public final class IsolationKey {
+
+    /**
+     * 未开启隔离标识请求头时，Feign 请求中携带请求方 ip 的请求头。
+     */
+    public static final String HEADER = ClientIpResolver.X_CLIENT_IP;
+
+    /**
+     * 缓存解析结果的请求属性名，gateway 中同时作为 Reactor Context 的 key。
+     */
+    public static final String ATTRIBUTE = IsolationKey.class.getName();
+
+    private final String originIp;
+    private final String target;
+
+    /**
+     * 从请求头中解析出的原始标识，向下游转发时直接使用，不重新签名。
+     */
+    private final String token;
+
+    /**
+     * HASH 策略的请求 key（hash.header 的值），没有时使用 originIp。
+     */
+    private final String hashKey;
+
+    private IsolationKey(String originIp, String target, String token, String hashKey) {
+        this.originIp = originIp;
+        this.target = target;
+        this.token = token;
+        this.hashKey = hashKey;
+    }
+
+    /**
+     * @return originIp 为空时返回 null。
+     */
+    public static IsolationKey of(String originIp) {
+        return of(originIp, null);
+    }
+
+    /**
+     * @return originIp 为空时返回 null。
+     */
+    public static IsolationKey of(String originIp, String target) {
+        return of(originIp, target, null);
+    }
+
+    static IsolationKey of(String originIp, String target, String token) {
+        if (!StringUtils.hasText(originIp)) {
+            return null;
+        }
+        return new IsolationKey(originIp.trim(), StringUtils.hasText(target) ? target.trim() : null, token, null);
+    }
+
+    /**
+     * 携带 HASH 策略请求 key 的标识。
+     *
+     * @param hashKey 为空时返回当前标识
+     */
+    public IsolationKey withHashKey(String hashKey) {
+        if (!StringUtils.hasText(hashKey)) {
+            return this;
+        }
+        return new IsolationKey(originIp, target, token, hashKey.trim());
+    }
+
+    public String getOriginIp() {
+        return originIp;
+    }
+
+    /**
+     * 目标本地实例，没有时返回 null。
+     *
+     * @see com.bestlink.loadbalancer.IsolationRoutingSnapshot#matchTarget(String)
+     */
+    public String getTarget() {
+        return target;
+    }
+
+    String getToken() {
+        return token;
+    }
+
+    /**
+     * HASH 策略的请求 key，没有时返回 null。
+     */
+    public String getHashKey() {
+        return hashKey;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IsolationKey)) {
+            return false;
+        }
+        IsolationKey other = (IsolationKey) o;
+        return originIp.equals(other.originIp)
+                && (target == null ? other.target == null : target.equals(other.target))
+                && (hashKey == null ? other.hashKey == null : hashKey.equals(other.hashKey));
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 31 * originIp.hashCode() + (target == null ? 0 : target.hashCode());
+        return 31 * result + (hashKey == null ? 0 : hashKey.hashCode());
+    }
+
+    @Override
+    public String toString() {
+        return target == null ? originIp : originIp + "@" + target;
+    }
+}
@@ -0,0 +1,205 @@
+package com.bestlink.propagation;
+
+import com.bestlink.properties.IsolationSettings;
+import com.bestlink.properties.IsolationSettingsHolder;
+import com.bestlink.resolver.ClientIpResolver;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * 解析当前调用的隔离标识：优先使用 {@link IsolationContext} 中随任务传递的标识，其次解析当前线程上的 servlet 请求。
+ * <p>
+ * 解析 servlet 请求时，开启隔离标识请求头（{@link IsolationTokenCodec}）且请求头签名正确时直接使用，只读取一个请求头；
+ * 否则按 ip-headers 依次解析。解析结果缓存在 request attribute 中，同一次请求中的多次 Feign 调用及重试只解析一次。
+ * 向线程池提交任务时通过 {@link #wrap(Runnable)} 等方法在提交线程上解析，任务在其他线程（Hystrix 线程池、@Async、
+ * CompletableFuture）中执行时仍然使用同一个标识。
+ *
+ * @author xuzhongkang
+ * @see IsolationFeignRequestInterceptor
+ * @since 2026/10/20 16:10
+ **/
+@Slf4j
+public class IsolationKeyResolver {
+
+    private static final String ATTRIBUTE = IsolationKey.ATTRIBUTE;
+
+    /**
+     * 解析请求方原始 ip 的请求头顺序从当前配置中读取，配置更新后立即生效。
+     */
+    private final IsolationSettingsHolder settingsHolder;
+
+    /**
+     * 隔离标识请求头，未开启时为 null。
+     */
+    private final IsolationTokenCodec tokenCodec;
+
+    /**
+     * 指定目标本地实例的请求头，为 null 时不读取。
+     */
+    private final String targetHeader;
+
+    /**
+     * 一致性哈希策略作为请求 key 的请求头，为 null 时不读取。
+     */
+    private final String hashHeader;
+
+    public IsolationKeyResolver(List<String> ipHeaders) {
+        this(ipHeaders, null);
+    }
+
+    public IsolationKeyResolver(List<String> ipHeaders, IsolationTokenCodec tokenCodec) {
+        this(ipHeaders, tokenCodec, null);
+    }
+
+    public IsolationKeyResolver(List<String> ipHeaders, IsolationTokenCodec tokenCodec, String targetHeader) {
+        this(new IsolationSettingsHolder(new IsolationSettings(true, ipHeaders, null, null)), tokenCodec, targetHeader);
+    }
+
+    public IsolationKeyResolver(IsolationSettingsHolder settingsHolder, IsolationTokenCodec tokenCodec, String targetHeader) {
+        this(settingsHolder, tokenCodec, targetHeader, null);
+    }
+
+    /**
+     * @param hashHeader 一致性哈希策略作为请求 key 的请求头（hash.header），其值随隔离标识传给负载均衡
+     */
+    public IsolationKeyResolver(IsolationSettingsHolder settingsHolder, IsolationTokenCodec tokenCodec, String targetHeader,
+                                String hashHeader) {
+        this.settingsHolder = settingsHolder;
+        this.tokenCodec = tokenCodec;
+        this.targetHeader = StringUtils.hasText(targetHeader) ? targetHeader.trim() : null;
+        this.hashHeader = StringUtils.hasText(hashHeader) ? hashHeader.trim() : null;
+    }
+
+    /**
+     * 隔离标识请求头，未开启时返回 null。
+     */
+    public IsolationTokenCodec getTokenCodec() {
+        return tokenCodec;
+    }
+
+    /**
+     * 指定目标本地实例的请求头，没有配置时返回 null。
+     */
+    public String getTargetHeader() {
+        return targetHeader;
+    }
+
+    /**
+     * 一致性哈希策略作为请求 key 的请求头，没有配置时返回 null。
+     */
+    public String getHashHeader() {
+        return hashHeader;
+    }
+
+    /**
+     * 当前调用的隔离标识，没有时返回 null。
+     */
+    public IsolationKey resolve() {
+        IsolationKey key = IsolationContext.current();
+        if (key != null) {
+            return key;
+        }
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes)) {
+            return null;
+        }
+        return resolve(((ServletRequestAttributes) attributes).getRequest());
+    }
+
+    /**
+     * 获取原始请求 ip，获取的值依赖于 nginx 和 gateway 的配置，请求头中都没有时使用 {@link HttpServletRequest#getRemoteAddr()}。
+     * 同时读取指定目标本地实例、一致性哈希请求 key 的请求头。
+     */
+    public IsolationKey resolve(HttpServletRequest request) {
+        if (request == null) {
+            return null;
+        }
+        Object cached = request.getAttribute(ATTRIBUTE);
+        if (cached instanceof IsolationKey) {
+            return (IsolationKey) cached;
+        }
+        IsolationKey key = tokenCodec == null ? null : tokenCodec.decode(request.getHeader(tokenCodec.getHeader()));
+        if (key != null) {
+            key = withHashKey(key, request, HttpServletRequest::getHeader);
+            request.setAttribute(ATTRIBUTE, key);
+            return key;
+        }
+        String ip = settingsHolder.get().getClientIpResolver().resolve(request, HttpServletRequest::getHeader);
+        if (ip == null) {
+            ip = request.getRemoteAddr();
+            log.debug("can not get origin ip from headers, the most possible cause is had not set Nginx config [proxy_set_header], use remote address [{}]", ip);
+        }
+        key = withHashKey(IsolationKey.of(ip, targetHeader == null ? null : request.getHeader(targetHeader)), request, HttpServletRequest::getHeader);
+        if (key != null) {
+            request.setAttribute(ATTRIBUTE, key);
+        }
+        return key;
+    }
+
+    private <S> IsolationKey withHashKey(IsolationKey key, S source, ClientIpResolver.HeaderAccessor<S> accessor) {
+        return key == null || hashHeader == null ? key : key.withHashKey(accessor.getHeader(source, hashHeader));
+    }
+
+    /**
+     * 当前调用的隔离标识来源，只用于诊断（记录路由决策）：
+     * "context"（线程池任务携带）、"header:{name}"（隔离标识请求头或解析出 ip 的请求头）、"remote-address"，
+     * 当前线程上没有 servlet 请求时返回 null。
+     */
+    public String describeSource() {
+        if (IsolationContext.current() != null) {
+            return "context";
+        }
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes)) {
+            return null;
+        }
+        HttpServletRequest request = ((ServletRequestAttributes) attributes).getRequest();
+        if (tokenCodec != null && tokenCodec.decode(request.getHeader(tokenCodec.getHeader())) != null) {
+            return "header:" + tokenCodec.getHeader();
+        }
+        String header = settingsHolder.get().getClientIpResolver().resolveHeader(request, HttpServletRequest::getHeader);
+        return header != null ? "header:" + header : "remote-address";
+    }
+
+    /**
+     * 从本服务发出的请求（例如 Feign 请求）的请求头中读取 {@link IsolationFeignRequestInterceptor} 写入的隔离标识：
+     * 开启隔离标识请求头时读取并校验签名的标识，否则读取 "X_CLIENT_IP" 及目标实例请求头；配置了 hash.header 时同时读取一致性哈希请求 key。
+     *
+     * @param source   请求头来源
+     * @param accessor 读取请求头
+     */
+    public <S> IsolationKey resolveOutbound(S source, ClientIpResolver.HeaderAccessor<S> accessor) {
+        IsolationKey key = tokenCodec != null ? tokenCodec.decode(accessor.getHeader(source, tokenCodec.getHeader()))
+                : IsolationKey.of(accessor.getHeader(source, IsolationKey.HEADER),
+                targetHeader == null ? null : accessor.getHeader(source, targetHeader));
+        return withHashKey(key, source, accessor);
+    }
+
+    public Runnable wrap(Runnable task) {
+        return IsolationContext.wrap(resolve(), task);
+    }
+
+    public <V> Callable<V> wrap(Callable<V> task) {
+        return IsolationContext.wrap(resolve(), task);
+    }
+
+    public <V> Supplier<V> wrap(Supplier<V> task) {
+        return IsolationContext.wrap(resolve(), task);
+    }
+
+    /**
+     * 包装线程池，提交任务时传递隔离标识。
+     */
+    public Executor wrap(Executor executor) {
+        return task -> executor.execute(wrap(task));
+    }
+}
@@ -0,0 +1,157 @@
+package com.bestlink.propagation;
+
+import com.bestlink.properties.IsolationProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * 隔离标识请求头的编码、校验。
+ * <p>
+ * 格式为 "ip;目标实例;签发时间;签名"，目标实例可以为空，签发时间为 epoch 秒，签名为 "ip;目标实例;签发时间" 的 HMAC-SHA256 取前 12 字节，
+ * base64url 编码（16 个字符）。签名不正确或格式错误的请求头视为不存在，只有持有相同 secret 的 gateway 及服务能够生成有效的标识，
+ * 绕过 gateway 直接调用服务时无法伪造标识把请求路由到其他开发者的本地服务。
+ * <p>
+ * 签发时间与当前时间相差超过 maxAge 的标识同样视为不存在，截获的标识只能在 maxAge 内重放。
+ * 标识在调用链上原样传递，maxAge 需要覆盖整条调用链的耗时及各服务之间的时钟偏差。
+ * <p>
+ * Mac 不是线程安全的，每个线程持有一个副本。
+ *
+ * @author xuzhongkang
+ * @see IsolationProperties.Propagation
+ * @since 2026/10/20 19:30
+ **/
+@Slf4j
+public class IsolationTokenCodec {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int SIGNATURE_BYTES = 12;
+    private static final char SEPARATOR = ';';
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final String header;
+    private final ThreadLocal<Mac> macs;
+    private final long maxAgeSeconds;
+    private final Clock clock;
+
+    public IsolationTokenCodec(String header, String secret) {
+        this(header, secret, IsolationProperties.Propagation.DEFAULT_MAX_AGE);
+    }
+
+    public IsolationTokenCodec(String header, String secret, Duration maxAge) {
+        this(header, secret, maxAge, Clock.systemUTC());
+    }
+
+    IsolationTokenCodec(String header, String secret, Duration maxAge, Clock clock) {
+        SecretKeySpec key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        // 创建时校验一次，之后每个线程的副本不会再失败
+        newMac(key);
+        this.header = header;
+        this.macs = ThreadLocal.withInitial(() -> newMac(key));
+        this.maxAgeSeconds = Math.max(1L, maxAge.getSeconds());
+        this.clock = clock;
+    }
+
+    /**
+     * @return 未开启或者没有配置 secret 时返回 null。
+     */
+    public static IsolationTokenCodec create(IsolationProperties.Propagation properties) {
+        if (properties == null || !Boolean.TRUE.equals(properties.getEnabled())) {
+            return null;
+        }
+        if (!StringUtils.hasText(properties.getSecret()) || !StringUtils.hasText(properties.getHeader())) {
+            log.warn("isolation identity header is enabled but secret or header is not configured, ignore it");
+            return null;
+        }
+        Duration maxAge = properties.getMaxAge() == null ? IsolationProperties.Propagation.DEFAULT_MAX_AGE : properties.getMaxAge();
+        return new IsolationTokenCodec(properties.getHeader().trim(), properties.getSecret(), maxAge);
+    }
+
+    private static Mac newMac(SecretKeySpec key) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("can not create " + ALGORITHM + " mac", e);
+        }
+    }
+
+    /**
+     * 隔离标识请求头名称。
+     */
+    public String getHeader() {
+        return header;
+    }
+
+    /**
+     * 编码隔离标识，从请求头中解析出的标识直接返回原值。
+     * 目标实例中包含分隔符时忽略目标实例。
+     */
+    public String encode(IsolationKey key) {
+        if (key.getToken() != null) {
+            return key.getToken();
+        }
+        String target = key.getTarget();
+        if (target != null && target.indexOf(SEPARATOR) >= 0) {
+            target = null;
+        }
+        String payload = key.getOriginIp() + SEPARATOR + (target == null ? "" : target) + SEPARATOR + clock.millis() / 1000L;
+        return payload + SEPARATOR + ENCODER.encodeToString(sign(payload));
+    }
+
+    /**
+     * 解析并校验隔离标识，请求头为空、格式错误、签名不正确或者已经过期时返回 null。
+     */
+    public IsolationKey decode(String token) {
+        if (token == null) {
+            return null;
+        }
+        int first = token.indexOf(SEPARATOR);
+        int last = token.lastIndexOf(SEPARATOR);
+        int issuedAtStart = last <= 0 ? -1 : token.lastIndexOf(SEPARATOR, last - 1);
+        if (first <= 0 || issuedAtStart <= first) {
+            return null;
+        }
+        long issuedAt;
+        try {
+            issuedAt = Long.parseLong(token.substring(issuedAtStart + 1, last));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        byte[] signature;
+        try {
+            signature = DECODER.decode(token.substring(last + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        String payload = token.substring(0, last);
+        if (!MessageDigest.isEqual(sign(payload), signature)) {
+            log.debug("ignore isolation identity [{}] with invalid signature", payload);
+            return null;
+        }
+        // 签名正确后再检查签发时间，各服务之间的时钟偏差可能使签发时间晚于当前时间
+        if (Math.abs(clock.millis() / 1000L - issuedAt) > maxAgeSeconds) {
+            log.debug("ignore expired isolation identity [{}]", payload);
+            return null;
+        }
+        return IsolationKey.of(token.substring(0, first), token.substring(first + 1, issuedAtStart), token);
+    }
+
+    private byte[] sign(String payload) {
+        Mac mac = macs.get();
+        byte[] digest = mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        return Arrays.copyOf(digest, SIGNATURE_BYTES);
+    }
+}
@@ -1,9 +1,18 @@
 package com.bestlink.properties;
 
+import com.bestlink.health.LocalFailoverPolicy;
+import com.bestlink.limit.LimitPolicy;
+import com.bestlink.loadbalancer.IsolationRoutingSnapshot;
+import com.bestlink.resolver.ClientIpResolver;
+import com.bestlink.strategy.BalanceStrategy;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * 流量隔离属性配置
  *
@@ -13,13 +22,24 @@ import org.springframework.context.annotation.Configuration;
 
 @Data
 @Configuration
-@ConfigurationProperties(prefix = "local.isolation-loadbalancer")
+@ConfigurationProperties(prefix = IsolationProperties.PREFIX)
 public class IsolationProperties {
 
+    public static final String PREFIX = "local.isolation-loadbalancer";
+
+    /**
+     * 服务之间定向调用：优先路由到指定的本地服务实例，例如调用同事本地启动的服务。
+     * 可以是实例的 "local-instance-id"、host:port 或 host，指定的实例不存在时按请求方 ip 匹配。默认为空。
+     */
+    private String targetIp;
+
     /**
-     * 服务之间定向 ip 调用。
+     * 按请求指定目标本地服务实例的请求头，取值与 target-ip 相同，优先于 target-ip。默认为空（不读取）。
+     * <p>
+     * 网关直接信任外部请求中的此请求头，开启 propagation 时还会把客户端传入的目标一起签名，
+     * 只应在网关不对外暴露，或者上游代理会移除外部请求中此请求头时配置。
      */
-    private String targetIp = "127.0.0.1";
+    private String targetHeader;
 
     /**
      * 启动本地服务调试，默认 false。
@@ -31,9 +51,457 @@ public class IsolationProperties {
      */
     private String localInstanceId = "local-instance";
 
+    /**
+     * 本地服务接收请求的地址段（CIDR），例如 VPN/NAT 地址池 "10.8.0.0/16"、IPv6 "2001:db8::/64"，
+     * 请求 ip 与本地服务实例 ip 不同但在地址段内时，同样路由到本地服务实例。多个实例的地址段重叠时取前缀最长的。
+     */
+    private List<String> localCidrs = new ArrayList<>();
+
+    /**
+     * 路由时接受的本地服务实例 IPv4 地址段（local-cidrs）的最小前缀长度，默认 16。
+     * 前缀更短的地址段（例如 "10.0.0.0/8"）会把共享环境中其他调用方的请求路由到开发者电脑，路由时忽略。
+     * 包含非本地服务实例 host 的地址段同样忽略。
+     */
+    private Integer minLocalCidrPrefix = IsolationRoutingSnapshot.DEFAULT_MIN_IPV4_PREFIX;
+
+    /**
+     * 路由时接受的本地服务实例 IPv6 地址段（local-cidrs）的最小前缀长度，默认 48。
+     */
+    private Integer minLocalCidrPrefixV6 = IsolationRoutingSnapshot.DEFAULT_MIN_IPV6_PREFIX;
+
     /**
      * 限制在哪个环境下生效，默认开发和测试环境。
      */
     private String[] activeEnv = {"dev", "test"};
 
+    /**
+     * 是否支持配置热更新 active-env，默认 false。开启后自定义负载均衡在所有环境中注册，当前环境不在 active-env 中时只路由到非本地服务实例，
+     * 通过配置中心修改 active-env 后不需要重启。ip-headers、target-ip、strategy 的变更总是在运行时生效。
+     *
+     * @see IsolationSettings
+     */
+    private Boolean hotReload = false;
+
+    /**
+     * 非本地服务实例的负载均衡策略，默认随机。
+     */
+    private BalanceStrategy strategy = BalanceStrategy.RANDOM;
+
+    /**
+     * 解析请求方原始 ip 时读取的请求头，按顺序读取，取第一个有效值。
+     */
+    private List<String> ipHeaders = new ArrayList<>(ClientIpResolver.DEFAULT_HEADERS);
+
+    /**
+     * gateway 是否通过 "X_CLIENT_IP" 请求头向下游服务传递客户端 ip，默认 false，只在网关内部通过 exchange attribute 传递。
+     */
+    private Boolean clientIpHeaderEnabled = false;
+
+    /**
+     * gateway 是否通过订阅 Nacos 服务变更推送获取服务实例列表，默认 false，使用服务发现 + 缓存。
+     */
+    private Boolean pushEnabled = false;
+
+    /**
+     * gateway 粘性路由配置。
+     */
+    private Affinity affinity = new Affinity();
+
+    /**
+     * 本地服务实例健康检查配置。
+     */
+    private LocalHealth localHealth = new LocalHealth();
+
+    /**
+     * 非本地服务实例的异常检测配置。
+     */
+    private OutlierDetection outlierDetection = new OutlierDetection();
+
+    /**
+     * peak EWMA 负载均衡策略配置。
+     */
+    private PeakEwma peakEwma = new PeakEwma();
+
+    /**
+     * 非本地服务实例的慢启动配置。
+     */
+    private SlowStart slowStart = new SlowStart();
+
+    /**
+     * gateway 启动预热配置。
+     */
+    private Warmup warmup = new Warmup();
+
+    /**
+     * gateway 对冲请求配置。
+     */
+    private Hedge hedge = new Hedge();
+
+    /**
+     * 隔离标识请求头配置。
+     */
+    private Propagation propagation = new Propagation();
+
+    /**
+     * 一致性哈希策略配置。
+     */
+    private Hash hash = new Hash();
+
+    /**
+     * 服务实例自适应并发限制配置。
+     */
+    private ConcurrencyLimit concurrencyLimit = new ConcurrencyLimit();
+
+    /**
+     * 路由决策抽样记录配置。
+     */
+    private Decisions decisions = new Decisions();
+
+    /**
+     * gateway 粘性路由：没有匹配到本地服务实例的调用方，在 ttl 时间内固定路由到同一个非本地服务实例，实例下线后重新选择。
+     */
+    @Data
+    public static class Affinity {
+
+        /**
+         * 是否开启，默认 false。
+         */
+        private Boolean enabled = false;
+
+        /**
+         * 标识调用方的请求头，为空或请求中没有此请求头时使用客户端 ip。
+         */
+        private String header;
+
+        /**
+         * 粘性映射的有效时间，默认 10 分钟。
+         */
+        private Duration ttl = Duration.ofMinutes(10);
+
+        /**
+         * 每个服务最多保存的调用方数量，默认 10000。
+         */
+        private Integer maxSize = 10000;
+    }
+
+    /**
+     * 本地服务实例的健康检查：本地实例（开发者电脑）休眠、断开 VPN 或停在断点上时，在 backoff 时间内跳过该实例。
+     * <p>
+     * gateway 通过 LoadBalancerLifecycle 记录连接失败及超时，Feign 使用 Ribbon ServerStats 的熔断状态
+     * （阈值通过 ribbon 的 ConnectionFailureCountThreshold 等参数配置）。
+     */
+    @Data
+    public static class LocalHealth {
+
+        /**
+         * 是否开启，默认 false。
+         */
+        private Boolean enabled = false;
+
+        /**
+         * 连续连接失败或超时多少次后认为不可达，默认 2。
+         */
+        private Integer failureThreshold = 2;
+
+        /**
+         * 不可达后跳过本地实例的时间，默认 30 秒。
+         */
+        private Duration backoff = Duration.ofSeconds(30);
+
+        /**
+         * 不可达时的处理策略，默认路由到非本地服务实例。
+         */
+        private LocalFailoverPolicy policy = LocalFailoverPolicy.FALLBACK;
+
+        /**
+         * 是否开启 TCP 探测，默认 false。
+         */
+        private Boolean probeEnabled = false;
+
+        /**
+         * TCP 探测间隔，默认 5 秒。
+         */
+        private Duration probeInterval = Duration.ofSeconds(5);
+
+        /**
+         * TCP 探测连接超时时间，默认 1 秒。
+         */
+        private Duration probeTimeout = Duration.ofSeconds(1);
+    }
+
+    /**
+     * 非本地（共享）服务实例的异常检测：连续失败或错误率过高的实例被临时摘除，摘除时间指数增长。
+     * <p>
+     * gateway 中异常及 5xx 响应均计为失败；Feign（Ribbon）只能获取到 ServerStats 中的连续连接失败次数，错误率不生效。
+     */
+    @Data
+    public static class OutlierDetection {
+
+        /**
+         * 是否开启，默认 false。
+         */
+        private Boolean enabled = false;
+
+        /**
+         * 连续失败多少次后摘除，默认 5。
+         */
+        private Integer consecutiveFailures = 5;
+
+        /**
+         * 窗口内错误率（百分比）达到多少时摘除，默认 50，0 表示不按错误率摘除。
+         */
+        private Integer failureRateThreshold = 50;
+
+        /**
+         * 每个实例记录最近多少次请求结果，向上取整为 2 的幂，默认 32。
+         */
+        private Integer windowSize = 32;
+
+        /**
+         * 窗口内请求数少于此值时不计算错误率，默认 10。
+         */
+        private Integer minimumRequests = 10;
+
+        /**
+         * 第一次摘除的时间，之后每次翻倍，默认 30 秒。
+         */
+        private Duration baseEjectionTime = Duration.ofSeconds(30);
+
+        /**
+         * 最长摘除时间，默认 5 分钟。
+         */
+        private Duration maxEjectionTime = Duration.ofMinutes(5);
+
+        /**
+         * 同一时间最多摘除非本地实例的百分比，默认 50。
+         */
+        private Integer maxEjectionPercent = 50;
+    }
+
+    /**
+     * peak EWMA 负载均衡策略（strategy 为 PEAK_EWMA 时生效）。
+     * <p>
+     * gateway 与 Feign（Ribbon）的响应时间都按 decay 衰减，长时间没有请求的实例响应时间逐渐降低；
+     * Ribbon 只有 Feign 调用时记录响应时间，在途请求数使用 ServerStats 的活跃请求数。还没有响应时间的实例使用 defaultLatency。
+     */
+    @Data
+    public static class PeakEwma {
+
+        /**
+         * 响应时间的衰减时间常数，默认 10 秒，越小越偏向最近的测量值。
+         */
+        private Duration decay = Duration.ofSeconds(10);
+
+        /**
+         * 还没有响应时间的实例使用的默认值，默认 100 毫秒。
+         */
+        private Duration defaultLatency = Duration.ofMillis(100);
+    }
+
+    /**
+     * 非本地（共享）服务实例的慢启动：新注册的实例在 window 时间内有效权重从 minWeightPercent 线性增加到 100%，
+     * 对所有负载均衡策略生效。Nacos 实例信息中没有注册时间，使用实例首次出现在实例列表中的时间。
+     */
+    @Data
+    public static class SlowStart {
+
+        /**
+         * 是否开启，默认 false。
+         */
+        private Boolean enabled = false;
+
+        /**
+         * 慢启动时间，默认 60 秒。
+         */
+        private Duration window = Duration.ofSeconds(60);
+
+        /**
+         * 慢启动开始时的有效权重（百分比），默认 10。
+         */
+        private Integer minWeightPercent = 10;
+    }
+
+    /**
+     * gateway 启动预热：启动时提前创建各服务的 loadbalancer 子容器及负载均衡器，并获取实例列表构建路由快照，
+     * 避免每次发布后每个服务的第一个请求耗时过长。
+     */
+    @Data
+    public static class Warmup {
+
+        /**
+         * 是否开启，默认 false。
+         */
+        private Boolean enabled = false;
+
+        /**
+         * 需要预热的服务名。
+         */
+        private List<String> services = new ArrayList<>();
+
+        /**
+         * 是否同时预热 gateway 路由中 "lb://" 开头的服务，默认 true。
+         */
+        private Boolean fromRoutes = true;
+
+        /**
+         * 预热超时时间，超时后不再等待，继续启动，默认 30 秒。
+         */
+        private Duration timeout = Duration.ofSeconds(30);
+    }
+
+    /**
+     * gateway 对冲请求：配置的路由在 delay 内没有收到响应时，向另一个非本地服务实例再发送一次请求，先收到响应的一次胜出。
+     * <p>
+     * 只对冲没有请求体的 GET、HEAD、OPTIONS 请求，路由到本地服务实例的请求不对冲。
+     * delay 为该路由最近响应时间的 percentile 百分位（样本不足时为 initialDelay），不小于 minDelay。
+     */
+    @Data
+    public static class Hedge {
+
+        /**
+         * 是否开启，默认 false。
+         */
+        private Boolean enabled = false;
+
+        /**
+         * 需要对冲的路由 id。
+         */
+        private List<String> routes = new ArrayList<>();
+
+        /**
+         * 对冲延迟取最近响应时间的百分位，默认 95。
+         */
+        private Integer percentile = 95;
+
+        /**
+         * 响应时间样本不足时的对冲延迟，默认 100 毫秒。
+         */
+        private Duration initialDelay = Duration.ofMillis(100);
+
+        /**
+         * 最小对冲延迟，默认 10 毫秒。
+         */
+        private Duration minDelay = Duration.ofMillis(10);
+
+        /**
+         * 对冲预算：对冲请求数最多为原始请求数的百分之多少，默认 10。
+         */
+        private Integer budgetPercent = 10;
+
+        /**
+         * 对冲预算的令牌桶容量，默认 10。
+         */
+        private Integer budgetBurst = 10;
+    }
+
+    /**
+     * 隔离标识请求头：gateway 解析一次请求方 ip，签名后写入请求头，调用链上的各个服务直接读取此请求头（校验签名），
+     * 不再按 ip-headers 依次解析，中间某一跳缺少 "X_CLIENT_IP" 时也不会退化为上一跳服务的 ip。
+     * <p>
+     * gateway 及所有服务需要配置相同的 secret，未配置 secret 时不开启。
+     */
+    @Data
+    public static class Propagation {
+
+        public static final Duration DEFAULT_MAX_AGE = Duration.ofMinutes(5);
+
+        /**
+         * 是否开启，默认 false。
+         */
+        private Boolean enabled = false;
+
+        /**
+         * 请求头名称，默认 "X-Isolation-Identity"。
+         */
+        private String header = "X-Isolation-Identity";
+
+        /**
+         * 签名密钥（HMAC-SHA256）。
+         */
+        private String secret;
+
+        /**
+         * 标识的有效时间，签发时间与当前时间相差超过此时间的标识被忽略，需要覆盖整条调用链的耗时及服务之间的时钟偏差，默认 5 分钟。
+         */
+        private Duration maxAge = DEFAULT_MAX_AGE;
+    }
+
+    /**
+     * 一致性哈希策略（strategy: HASH）的请求 key。
+     */
+    @Data
+    public static class Hash {
+
+        /**
+         * 作为请求 key 的请求头（例如租户 id），为空或请求中没有此请求头时使用请求方 ip。
+         */
+        private String header;
+    }
+
+    /**
+     * 服务实例（本地及非本地）的自适应并发限制：按响应时间调整每个实例的并发上限（Gradient2 算法），
+     * 负载均衡选择实例时跳过在途请求数达到上限的实例。
+     * Ribbon 只有通过 Feign 调用时才能记录响应时间，其他调用方式下上限保持 initialLimit。
+     */
+    @Data
+    public static class ConcurrencyLimit {
+
+        /**
+         * 是否开启，默认 false。
+         */
+        private Boolean enabled = false;
+
+        /**
+         * 初始并发上限，默认 20。
+         */
+        private Integer initialLimit = 20;
+
+        /**
+         * 最小并发上限，默认 2。
+         */
+        private Integer minLimit = 2;
+
+        /**
+         * 最大并发上限，默认 200。
+         */
+        private Integer maxLimit = 200;
+
+        /**
+         * 平滑系数，(0, 1]，越大上限变化越快，默认 0.2。
+         */
+        private Double smoothing = 0.2D;
+
+        /**
+         * 响应时间容忍倍数，响应时间不超过长期响应时间的此倍数时上限不下降，默认 1.5。
+         */
+        private Double rttTolerance = 1.5D;
+
+        /**
+         * 请求失败或超时时上限乘以的系数，默认 0.9。
+         */
+        private Double backoffRatio = 0.9D;
+
+        /**
+         * 选中的实例达到并发上限时的处理策略，默认 SKIP（选择其他实例）。
+         */
+        private LimitPolicy policy = LimitPolicy.SKIP;
+    }
+
+    /**
+     * 路由决策抽样记录，通过 actuator 端点 "/actuator/isolation" 查看最近的路由决策（请求方 ip、标识来源、选中的实例及原因）。
+     * 只在开启 isolation 端点时记录。
+     */
+    @Data
+    public static class Decisions {
+
+        /**
+         * 最多保留的决策数量，默认 256。
+         */
+        private Integer capacity = 256;
+
+        /**
+         * 抽样比例，[0, 1]，默认 0.1。
+         */
+        private Double sampleRate = 0.1D;
+    }
 }
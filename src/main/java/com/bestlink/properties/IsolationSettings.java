@@ -0,0 +1,116 @@
+package com.bestlink.properties;
+
+import com.bestlink.resolver.ClientIpResolver;
+import com.bestlink.strategy.BalanceStrategy;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 可以在运行时更新的流量隔离配置，不可变。
+ * <p>
+ * 包括是否在当前环境生效（active-env 与 spring.profiles.active 有交集）、解析请求方 ip 的请求头顺序、目标本地实例（target-ip）
+ * 及非本地实例的负载均衡策略。配置变更时构建新的对象，由 {@link IsolationSettingsHolder} 一次替换，
+ * 负载均衡器每次选择实例只读取一次，不会读取到更新了一半的配置。
+ *
+ * @author xuzhongkang
+ * @see IsolationSettingsHolder
+ * @since 2026/10/21 19:30
+ **/
+public final class IsolationSettings {
+
+    private final boolean active;
+    private final List<String> ipHeaders;
+    private final ClientIpResolver clientIpResolver;
+    private final String target;
+    private final BalanceStrategy strategy;
+
+    /**
+     * @param active    是否在当前环境生效，不生效时只路由到非本地服务实例
+     * @param ipHeaders 解析请求方原始 ip 时读取的请求头，为空时使用默认顺序
+     * @param target    目标本地服务实例，可以为 null
+     * @param strategy  非本地服务实例的负载均衡策略，为 null 时使用 {@link BalanceStrategy#RANDOM}
+     */
+    public IsolationSettings(boolean active, List<String> ipHeaders, String target, BalanceStrategy strategy) {
+        this.active = active;
+        this.ipHeaders = ipHeaders == null || ipHeaders.isEmpty() ? ClientIpResolver.DEFAULT_HEADERS
+                : Collections.unmodifiableList(new ArrayList<>(ipHeaders));
+        this.clientIpResolver = new ClientIpResolver(this.ipHeaders);
+        this.target = StringUtils.hasText(target) ? target.trim() : null;
+        this.strategy = strategy == null ? BalanceStrategy.RANDOM : strategy;
+    }
+
+    /**
+     * 按属性配置构建，视为在当前环境生效（负载均衡器只在生效的环境中注册）。
+     */
+    public static IsolationSettings of(IsolationProperties properties) {
+        return new IsolationSettings(true, properties.getIpHeaders(), properties.getTargetIp(), properties.getStrategy());
+    }
+
+    /**
+     * 按属性配置构建，active-env 与当前环境的 profiles 有交集时生效。
+     *
+     * @param activeProfiles spring.profiles.active，可以为 null
+     */
+    public static IsolationSettings of(IsolationProperties properties, Collection<String> activeProfiles) {
+        boolean active = activeProfiles != null && properties.getActiveEnv() != null
+                && Arrays.stream(properties.getActiveEnv()).anyMatch(activeProfiles::contains);
+        return new IsolationSettings(active, properties.getIpHeaders(), properties.getTargetIp(), properties.getStrategy());
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public List<String> getIpHeaders() {
+        return ipHeaders;
+    }
+
+    /**
+     * 按 {@link #getIpHeaders()} 构建的请求方 ip 解析器。
+     */
+    public ClientIpResolver getClientIpResolver() {
+        return clientIpResolver;
+    }
+
+    /**
+     * 目标本地服务实例，没有配置时返回 null。
+     *
+     * @see IsolationProperties#getTargetIp()
+     */
+    public String getTarget() {
+        return target;
+    }
+
+    public BalanceStrategy getStrategy() {
+        return strategy;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IsolationSettings)) {
+            return false;
+        }
+        IsolationSettings that = (IsolationSettings) o;
+        return active == that.active && ipHeaders.equals(that.ipHeaders) && Objects.equals(target, that.target)
+                && strategy == that.strategy;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(active, ipHeaders, target, strategy);
+    }
+
+    @Override
+    public String toString() {
+        return "{active=" + active + ", ipHeaders=" + ipHeaders + ", target=" + target + ", strategy=" + strategy + "}";
+    }
+}
@@ -0,0 +1,55 @@
+package com.bestlink.properties;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 持有当前生效的 {@link IsolationSettings}。
+ * <p>
+ * 配置变更时构建新的 IsolationSettings，通过一次引用替换发布，读取方（负载均衡器、全局过滤器）不加锁，
+ * 正在进行的选择使用读取到的旧配置完成，下一次选择使用新配置。
+ *
+ * @author xuzhongkang
+ * @see IsolationSettingsRefresher
+ * @since 2026/10/21 19:30
+ **/
+@Slf4j
+public class IsolationSettingsHolder {
+
+    private final AtomicReference<IsolationSettings> current;
+
+    public IsolationSettingsHolder(IsolationSettings initial) {
+        this.current = new AtomicReference<>(initial);
+    }
+
+    /**
+     * 按属性配置构建，配置不会更新，用于没有注入 IsolationSettingsHolder 的场景。
+     */
+    public static IsolationSettingsHolder of(IsolationProperties properties) {
+        return new IsolationSettingsHolder(IsolationSettings.of(properties));
+    }
+
+    public IsolationSettings get() {
+        return current.get();
+    }
+
+    /**
+     * 发布新的配置，与当前配置相同时不替换（读取方继续复用按当前配置构建的状态）。比较与替换是原子的。
+     *
+     * @return 是否替换
+     */
+    public boolean publish(IsolationSettings settings) {
+        // 多个刷新并发发布时，只有替换成功的一方记录日志，日志中的旧配置就是被替换的配置
+        for (; ; ) {
+            IsolationSettings previous = current.get();
+            if (settings.equals(previous)) {
+                return false;
+            }
+            if (current.compareAndSet(previous, settings)) {
+                log.info("isolation settings updated from {} to {}", previous, settings);
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.bestlink.properties;
+
+import com.bestlink.condition.EnvironmentCondition;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.Environment;
+
+import java.util.Locale;
+
+/**
+ * 配置中心推送配置（Spring Cloud 配置刷新、Nacos 配置推送）后更新 {@link IsolationSettings}。
+ * <p>
+ * 收到 {@link EnvironmentChangeEvent} 且变更的配置项与流量隔离或 spring.profiles 有关时，从 Environment 重新绑定一个新的
+ * {@link IsolationProperties}（不读取正在被 ConfigurationPropertiesRebinder 原地修改的 IsolationProperties bean），
+ * 构建新的 IsolationSettings 后一次发布。负载均衡器及其实例统计、路由快照不重建。
+ * 绑定失败（例如策略名称错误）时保留当前配置。
+ *
+ * @author xuzhongkang
+ * @see IsolationSettingsHolder
+ * @since 2026/10/21 19:30
+ **/
+@Slf4j
+public class IsolationSettingsRefresher implements ApplicationListener<EnvironmentChangeEvent> {
+
+    private static final String ISOLATION_PREFIX = "local.isolation";
+    private static final String PROFILES_PREFIX = "spring.profiles";
+
+    private final Environment environment;
+    private final IsolationSettingsHolder settingsHolder;
+
+    public IsolationSettingsRefresher(Environment environment, IsolationSettingsHolder settingsHolder) {
+        this.environment = environment;
+        this.settingsHolder = settingsHolder;
+    }
+
+    @Override
+    public void onApplicationEvent(EnvironmentChangeEvent event) {
+        if (event.getKeys().stream().anyMatch(IsolationSettingsRefresher::isRelevant)) {
+            refresh();
+        }
+    }
+
+    /**
+     * 按当前 Environment 重新构建并发布配置。
+     */
+    public void refresh() {
+        try {
+            IsolationProperties properties = Binder.get(environment).bindOrCreate(IsolationProperties.PREFIX, IsolationProperties.class);
+            settingsHolder.publish(IsolationSettings.of(properties, EnvironmentCondition.activeProfiles(environment)));
+        } catch (Exception e) {
+            log.error("failed to reload isolation settings, keep the current settings, cause:{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 配置中心推送的配置项名称不一定是规范形式（例如 "local.isolationLoadbalancer.targetIp"），只比较前缀。
+     */
+    private static boolean isRelevant(String key) {
+        String name = key.toLowerCase(Locale.ROOT);
+        return name.startsWith(ISOLATION_PREFIX) || name.startsWith(PROFILES_PREFIX);
+    }
+}
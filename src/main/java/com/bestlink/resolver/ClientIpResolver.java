@@ -0,0 +1,130 @@
+package com.bestlink.resolver;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 解析请求方的原始 ip，gateway（Spring Cloud Loadbalancer）和 Feign（Ribbon）共用。
+ * <p>
+ * 按照配置的请求头顺序依次读取，直到读取到有效的 ip，获取的值依赖于 nginx/gateway 的配置。
+ * 对于 X-Forwarded-For 这类包含多个 ip 的请求头，只取第一个 ip，不对整个请求头做 split。
+ * <p>
+ * 此类不依赖 servlet 或 webflux，请求头的读取方式由 {@link HeaderAccessor} 决定，调用方负责将解析结果缓存在请求上下文中，
+ * 同一次请求（包括重试）只解析一次。
+ *
+ * @author xuzhongkang
+ * @see com.bestlink.properties.IsolationProperties#getIpHeaders()
+ * @since 2026/10/16 16:05
+ **/
+public class ClientIpResolver {
+
+    public static final String X_REAL_IP = "x-real-ip";
+    public static final String X_FORWARDED_FOR = "x-forwarded-for";
+    public static final String PROXY_CLIENT_IP = "Proxy-Client-IP";
+    public static final String WL_PROXY_CLIENT_IP = "WL-Proxy-Client-IP";
+    /**
+     * gateway 全局过滤器中添加的调用者 ip。
+     */
+    public static final String X_CLIENT_IP = "X_CLIENT_IP";
+
+    /**
+     * 默认的请求头读取顺序。
+     */
+    public static final List<String> DEFAULT_HEADERS = Collections.unmodifiableList(
+            Arrays.asList(X_REAL_IP, X_FORWARDED_FOR, PROXY_CLIENT_IP, WL_PROXY_CLIENT_IP, X_CLIENT_IP));
+
+    /**
+     * 缓存解析结果的请求属性名。
+     */
+    public static final String CLIENT_IP_ATTRIBUTE = ClientIpResolver.class.getName() + ".CLIENT_IP";
+
+    /**
+     * gateway 中记录的调用者地址（请求的 remote address），作为 exchange attribute 及 Reactor Context 的 key，
+     * 请求头中都没有原始 ip 时使用。
+     *
+     * @see com.bestlink.filter.GlobalClientIpFilter
+     */
+    public static final String REMOTE_ADDRESS_ATTRIBUTE = ClientIpResolver.class.getName() + ".REMOTE_ADDRESS";
+
+    private static final String UNKNOWN = "unknown";
+    private static final char IP_SEPARATOR = ',';
+
+    private final String[] headers;
+
+    public ClientIpResolver() {
+        this(DEFAULT_HEADERS);
+    }
+
+    public ClientIpResolver(List<String> headers) {
+        List<String> source = headers == null || headers.isEmpty() ? DEFAULT_HEADERS : headers;
+        this.headers = source.toArray(new String[0]);
+    }
+
+    /**
+     * 按照请求头顺序解析原始 ip，没有找到时返回 null。
+     *
+     * @param source   请求头来源，例如 HttpHeaders、HttpServletRequest
+     * @param accessor 读取请求头，应使用无状态的方法引用（如 {@code HttpHeaders::getFirst}），避免每次调用产生对象分配
+     */
+    public <S> String resolve(S source, HeaderAccessor<S> accessor) {
+        for (String header : headers) {
+            String ip = firstIp(accessor.getHeader(source, header));
+            if (ip != null) {
+                return ip;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 与 {@link #resolve} 相同的顺序，返回解析出原始 ip 的请求头名称，没有找到时返回 null。
+     * 只用于诊断（记录路由决策），不在每次请求上调用。
+     */
+    public <S> String resolveHeader(S source, HeaderAccessor<S> accessor) {
+        for (String header : headers) {
+            if (firstIp(accessor.getHeader(source, header)) != null) {
+                return header;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 取请求头中的第一个 ip，请求头为空或为 "unknown" 时返回 null。
+     */
+    static String firstIp(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        int end = value.indexOf(IP_SEPARATOR);
+        if (end < 0) {
+            end = value.length();
+        }
+        int start = 0;
+        while (start < end && value.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && value.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end || (end - start == UNKNOWN.length() && value.regionMatches(true, start, UNKNOWN, 0, end - start))) {
+            return null;
+        }
+        return start == 0 && end == value.length() ? value : value.substring(start, end);
+    }
+
+    /**
+     * 读取请求头。
+     *
+     * @param <S> 请求头来源
+     */
+    @FunctionalInterface
+    public interface HeaderAccessor<S> {
+
+        /**
+         * 读取请求头的第一个值，不存在时返回 null。
+         */
+        String getHeader(S source, String name);
+    }
+}
@@ -0,0 +1,327 @@
+package com.bestlink.stats;
+
+import com.bestlink.limit.AdaptiveConcurrencyLimit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个服务实例的运行时统计，由 gateway 的 {@link org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle} 回调更新。
+ * <p>
+ * 计数器使用 {@link LongAdder}，多个 event-loop 线程同时更新时不会竞争同一个 CAS。
+ * <p>
+ * 开启异常实例摘除时，同时记录请求结果（连续失败次数及 {@link OutcomeWindow}），以及实例的摘除状态。
+ * <p>
+ * 响应时间记录在 {@link PeakEwma} 中，用于 peak EWMA 负载均衡策略。
+ * <p>
+ * 开启并发限制时，同时按响应时间调整实例的 {@link AdaptiveConcurrencyLimit}。
+ *
+ * @author xuzhongkang
+ * @see InstanceStatsRegistry
+ * @since 2026/10/17 10:40
+ **/
+public class InstanceStats {
+
+    private final String key;
+    private final LongAdder inFlight = new LongAdder();
+    private final AtomicInteger consecutiveConnectFailures = new AtomicInteger();
+    private volatile long lastConnectFailureNanos;
+
+    /**
+     * 本轮连续失败中是否有响应超时（连接已经建立），TCP 探测成功不能清除这类失败。
+     */
+    private volatile boolean responseTimedOut;
+
+    private final OutcomeWindow outcomes;
+    private final InstanceStatsRegistry.FailureListener failureListener;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    /**
+     * 摘除状态，只在 {@link #eject(long, long, long)} 中修改。
+     */
+    private volatile boolean ejected;
+    private volatile long ejectedUntilNanos;
+    private int ejections;
+
+    private final PeakEwma latency;
+
+    /**
+     * 并发上限，未开启时为 null。
+     */
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+
+    /**
+     * 首次出现在实例列表中的时间，用于慢启动。
+     */
+    private final long firstSeenNanos = System.nanoTime();
+
+    /**
+     * 是否在第一次构建路由快照时就已经存在，即负载均衡器启动前实例已经在运行。
+     */
+    private volatile boolean seenAtStartup;
+
+    /**
+     * 外部（Ribbon ServerStats）统计的连续失败次数在上一次摘除时的值。
+     */
+    private volatile int externalFailureBaseline;
+
+    public InstanceStats(String key) {
+        this(key, 0, null);
+    }
+
+    public InstanceStats(String key, int windowSize, InstanceStatsRegistry.FailureListener failureListener) {
+        this(key, windowSize, failureListener, InstanceStatsRegistry.DEFAULT_LATENCY_DECAY_NANOS);
+    }
+
+    /**
+     * @param key               实例标识，host:port
+     * @param windowSize        请求结果窗口大小，0 表示不记录
+     * @param failureListener   请求失败回调，可以为 null
+     * @param latencyDecayNanos 响应时间的衰减时间常数
+     */
+    public InstanceStats(String key, int windowSize, InstanceStatsRegistry.FailureListener failureListener, long latencyDecayNanos) {
+        this(key, windowSize, failureListener, latencyDecayNanos, null);
+    }
+
+    /**
+     * @param key               实例标识，host:port
+     * @param windowSize        请求结果窗口大小，0 表示不记录
+     * @param failureListener   请求失败回调，可以为 null
+     * @param latencyDecayNanos 响应时间的衰减时间常数
+     * @param concurrencyLimit  并发上限，可以为 null
+     */
+    public InstanceStats(String key, int windowSize, InstanceStatsRegistry.FailureListener failureListener, long latencyDecayNanos,
+                         AdaptiveConcurrencyLimit concurrencyLimit) {
+        this.key = key;
+        this.concurrencyLimit = concurrencyLimit;
+        this.outcomes = windowSize > 0 ? new OutcomeWindow(windowSize) : null;
+        this.failureListener = failureListener;
+        this.latency = new PeakEwma(latencyDecayNanos);
+    }
+
+    /**
+     * 实例标识，host:port。
+     */
+    public String getKey() {
+        return key;
+    }
+
+    public void requestStarted() {
+        inFlight.increment();
+    }
+
+    public void requestCompleted() {
+        inFlight.decrement();
+    }
+
+    /**
+     * 连接失败或超时。
+     */
+    public void connectFailed() {
+        lastConnectFailureNanos = System.nanoTime();
+        consecutiveConnectFailures.incrementAndGet();
+    }
+
+    /**
+     * 连接已经建立但没有在超时时间内收到响应，与连接失败一样计入连续失败次数。
+     * <p>
+     * 停在断点上的 JVM 仍然接受 TCP 连接，这类失败只能由收到响应清除，见 {@link #probeSucceeded()}。
+     */
+    public void responseTimedOut() {
+        responseTimedOut = true;
+        connectFailed();
+    }
+
+    /**
+     * 收到响应，清除连续失败次数。
+     */
+    public void connectSucceeded() {
+        // 绝大多数请求都成功，先读后写，避免每次请求都写同一个缓存行
+        if (consecutiveConnectFailures.get() != 0) {
+            consecutiveConnectFailures.set(0);
+        }
+        if (responseTimedOut) {
+            responseTimedOut = false;
+        }
+    }
+
+    /**
+     * TCP 探测成功，只清除由连接失败引起的连续失败次数；本轮失败中有响应超时时不清除，等待 backoff 结束后由请求恢复。
+     *
+     * @return 是否清除
+     */
+    public boolean probeSucceeded() {
+        if (responseTimedOut) {
+            return false;
+        }
+        if (consecutiveConnectFailures.get() != 0) {
+            consecutiveConnectFailures.set(0);
+        }
+        return true;
+    }
+
+    /**
+     * 是否连续失败达到阈值，并且最后一次失败在 backoff 时间内。
+     */
+    public boolean isUnreachable(int failureThreshold, long backoffNanos, long nowNanos) {
+        return consecutiveConnectFailures.get() >= failureThreshold && nowNanos - lastConnectFailureNanos < backoffNanos;
+    }
+
+    public int getConsecutiveConnectFailures() {
+        return consecutiveConnectFailures.get();
+    }
+
+    /**
+     * 请求成功（收到非 5xx 响应）。
+     */
+    public void requestSucceeded() {
+        if (consecutiveFailures.get() != 0) {
+            consecutiveFailures.set(0);
+        }
+        if (outcomes != null) {
+            outcomes.record(true);
+        }
+    }
+
+    /**
+     * 请求失败（异常或 5xx 响应）。
+     */
+    public void requestFailed() {
+        consecutiveFailures.incrementAndGet();
+        if (outcomes != null) {
+            outcomes.record(false);
+        }
+        if (failureListener != null) {
+            failureListener.requestFailed(this);
+        }
+    }
+
+    public int getConsecutiveFailures() {
+        return consecutiveFailures.get();
+    }
+
+    /**
+     * 窗口内的错误率（百分比），没有开启或请求数不足时返回 -1。
+     */
+    public int failurePercent(int minimumRequests) {
+        return outcomes == null ? -1 : outcomes.failurePercent(minimumRequests);
+    }
+
+    public boolean isEjected(long nowNanos) {
+        return ejected && nowNanos - ejectedUntilNanos < 0;
+    }
+
+    public long getEjectedUntilNanos() {
+        return ejectedUntilNanos;
+    }
+
+    /**
+     * 摘除实例，摘除时间为 baseNanos * 2^(n-1)，最长 maxNanos；距离上一次摘除结束超过 maxNanos 时 n 重新计数。
+     * 调用方需要保证同一时间只有一个线程调用（摘除是低频操作）。
+     *
+     * @return 摘除时长
+     */
+    public long eject(long nowNanos, long baseNanos, long maxNanos) {
+        if (ejected && nowNanos - ejectedUntilNanos > maxNanos) {
+            ejections = 0;
+        }
+        int shift = Math.min(ejections++, 20);
+        long duration = Math.min(baseNanos << shift, maxNanos);
+        ejectedUntilNanos = nowNanos + duration;
+        ejected = true;
+        consecutiveFailures.set(0);
+        if (outcomes != null) {
+            outcomes.reset();
+        }
+        return duration;
+    }
+
+    /**
+     * 外部统计（Ribbon ServerStats）的连续失败次数中，上一次摘除之后新增的部分。
+     */
+    public int externalFailuresSinceEjection(int successiveFailures) {
+        int baseline = externalFailureBaseline;
+        if (successiveFailures < baseline) {
+            // 外部统计已经被成功请求清零
+            externalFailureBaseline = 0;
+            return successiveFailures;
+        }
+        return successiveFailures - baseline;
+    }
+
+    public void setExternalFailureBaseline(int successiveFailures) {
+        this.externalFailureBaseline = successiveFailures;
+    }
+
+    public long getFirstSeenNanos() {
+        return firstSeenNanos;
+    }
+
+    public boolean isSeenAtStartup() {
+        return seenAtStartup;
+    }
+
+    void markSeenAtStartup() {
+        this.seenAtStartup = true;
+    }
+
+    /**
+     * 收到响应，记录响应时间。
+     */
+    public void responseReceived(long rttNanos, long nowNanos) {
+        // 回调时此请求已经结束，加上此请求本身
+        responseReceived(rttNanos, nowNanos, getInFlight() + 1);
+    }
+
+    /**
+     * 收到响应，记录响应时间，在途请求数由调用方提供（Ribbon 使用 ServerStats 的活跃请求数）。
+     *
+     * @param inFlight 包含此请求在内的在途请求数
+     */
+    public void responseReceived(long rttNanos, long nowNanos, long inFlight) {
+        latency.observe(rttNanos, nowNanos);
+        if (concurrencyLimit != null) {
+            concurrencyLimit.onSample(rttNanos, inFlight);
+        }
+    }
+
+    /**
+     * 请求失败或超时（没有收到响应），降低并发上限。
+     */
+    public void requestDropped() {
+        if (concurrencyLimit != null) {
+            concurrencyLimit.onDropped();
+        }
+    }
+
+    /**
+     * 并发上限，未开启时返回 null。
+     */
+    public AdaptiveConcurrencyLimit getConcurrencyLimit() {
+        return concurrencyLimit;
+    }
+
+    /**
+     * peak EWMA 负载：衰减后的响应时间（微秒）乘以在途请求数加一。
+     *
+     * @param defaultLatencyMicros 还没有响应时间时使用的默认值
+     */
+    public double peakEwmaLoad(long nowNanos, double defaultLatencyMicros) {
+        return peakEwmaLoad(nowNanos, defaultLatencyMicros, getInFlight());
+    }
+
+    /**
+     * peak EWMA 负载，在途请求数由调用方提供（Ribbon 使用 ServerStats 的活跃请求数）。
+     */
+    public double peakEwmaLoad(long nowNanos, double defaultLatencyMicros, long inFlight) {
+        return latency.get(nowNanos, defaultLatencyMicros) * (inFlight + 1);
+    }
+
+    /**
+     * 正在处理中的请求数。
+     */
+    public long getInFlight() {
+        long value = inFlight.sum();
+        return value < 0 ? 0 : value;
+    }
+}
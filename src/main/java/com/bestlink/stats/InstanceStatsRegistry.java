@@ -0,0 +1,106 @@
+package com.bestlink.stats;
+
+import com.bestlink.limit.ConcurrencyLimiter;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 某个服务下所有实例的运行时统计，key 为 host:port。
+ * <p>
+ * 实例列表刷新后实例对象会重新创建，按 host:port 保存统计可以在列表刷新后继续使用；路由快照重建时清理已经下线的实例。
+ *
+ * @author xuzhongkang
+ * @since 2026/10/17 10:40
+ **/
+public class InstanceStatsRegistry {
+
+    /**
+     * 默认的响应时间衰减时间常数，10 秒。
+     */
+    public static final long DEFAULT_LATENCY_DECAY_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final ConcurrentMap<String, InstanceStats> stats = new ConcurrentHashMap<>();
+    private final int windowSize;
+    private final FailureListener failureListener;
+    private final long latencyDecayNanos;
+
+    /**
+     * 并发限制，未开启时为 null。
+     */
+    private final ConcurrencyLimiter concurrencyLimiter;
+
+    /**
+     * 是否已经完成第一次路由快照构建，之前创建的实例统计标记为启动时已存在。
+     */
+    private volatile boolean populated;
+
+    public InstanceStatsRegistry() {
+        this(0, null);
+    }
+
+    /**
+     * @param windowSize      每个实例记录的请求结果数量，0 表示不记录
+     * @param failureListener 请求失败回调，可以为 null
+     */
+    public InstanceStatsRegistry(int windowSize, FailureListener failureListener) {
+        this(windowSize, failureListener, DEFAULT_LATENCY_DECAY_NANOS);
+    }
+
+    /**
+     * @param windowSize        每个实例记录的请求结果数量，0 表示不记录
+     * @param failureListener   请求失败回调，可以为 null
+     * @param latencyDecayNanos 响应时间的衰减时间常数
+     */
+    public InstanceStatsRegistry(int windowSize, FailureListener failureListener, long latencyDecayNanos) {
+        this(windowSize, failureListener, latencyDecayNanos, null);
+    }
+
+    /**
+     * @param windowSize         每个实例记录的请求结果数量，0 表示不记录
+     * @param failureListener    请求失败回调，可以为 null
+     * @param latencyDecayNanos  响应时间的衰减时间常数
+     * @param concurrencyLimiter 并发限制，为每个实例创建并发上限，可以为 null
+     */
+    public InstanceStatsRegistry(int windowSize, FailureListener failureListener, long latencyDecayNanos,
+                                 ConcurrencyLimiter concurrencyLimiter) {
+        this.windowSize = windowSize;
+        this.failureListener = failureListener;
+        this.latencyDecayNanos = latencyDecayNanos;
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    public InstanceStats getOrCreate(String key) {
+        InstanceStats instanceStats = stats.get(key);
+        if (instanceStats != null) {
+            return instanceStats;
+        }
+        return stats.computeIfAbsent(key, k -> {
+            InstanceStats created = new InstanceStats(k, windowSize, failureListener, latencyDecayNanos,
+                    concurrencyLimiter == null ? null : concurrencyLimiter.newLimit());
+            if (!populated) {
+                created.markSeenAtStartup();
+            }
+            return created;
+        });
+    }
+
+    /**
+     * 只保留传入的实例，路由快照构建完成时调用。
+     */
+    public void retain(Set<String> keys) {
+        stats.keySet().retainAll(keys);
+        populated = true;
+    }
+
+    /**
+     * 请求失败回调，在记录请求结果的线程中执行。
+     */
+    @FunctionalInterface
+    public interface FailureListener {
+
+        void requestFailed(InstanceStats stats);
+    }
+}
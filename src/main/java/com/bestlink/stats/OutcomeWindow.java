@@ -0,0 +1,71 @@
+package com.bestlink.stats;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * 最近 N 次请求结果的环形缓冲区，用于计算错误率。
+ * <p>
+ * 写入只有一次 getAndIncrement 和一次数组写，不加锁；容量向上取整为 2 的幂，下标通过位运算计算。
+ * 读取（计算错误率）只在请求失败时进行，不保证与并发写入严格一致。
+ *
+ * @author xuzhongkang
+ * @since 2026/10/18 16:30
+ **/
+public class OutcomeWindow {
+
+    private static final int EMPTY = 0;
+    private static final int SUCCESS = 1;
+    private static final int FAILURE = 2;
+
+    private final AtomicIntegerArray slots;
+    private final AtomicInteger cursor = new AtomicInteger();
+    private final int mask;
+
+    public OutcomeWindow(int size) {
+        int capacity = 2;
+        while (capacity < size) {
+            capacity <<= 1;
+        }
+        this.slots = new AtomicIntegerArray(capacity);
+        this.mask = capacity - 1;
+    }
+
+    public void record(boolean success) {
+        slots.set(cursor.getAndIncrement() & mask, success ? SUCCESS : FAILURE);
+    }
+
+    /**
+     * 窗口内的错误率（百分比），请求数少于 minimumRequests 时返回 -1。
+     */
+    public int failurePercent(int minimumRequests) {
+        int total = 0;
+        int failures = 0;
+        for (int i = 0; i < slots.length(); i++) {
+            int outcome = slots.get(i);
+            if (outcome != EMPTY) {
+                total++;
+                if (outcome == FAILURE) {
+                    failures++;
+                }
+            }
+        }
+        if (total == 0 || total < minimumRequests) {
+            return -1;
+        }
+        return failures * 100 / total;
+    }
+
+    /**
+     * 清空窗口，实例被摘除后重新统计。
+     */
+    public void reset() {
+        for (int i = 0; i < slots.length(); i++) {
+            slots.set(i, EMPTY);
+        }
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+}
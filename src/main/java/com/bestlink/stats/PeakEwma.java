@@ -0,0 +1,99 @@
+package com.bestlink.stats;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 响应时间的 peak EWMA（峰值敏感的指数加权移动平均）。
+ * <p>
+ * 新的响应时间大于当前值时直接取新值（对变慢立即敏感），否则按距离上一次更新的时间衰减后加权平均；
+ * 读取时同样按时间衰减，长时间没有请求的实例估算值逐渐降低，重新获得流量后用新的测量值修正。
+ * <p>
+ * 估算值（微秒）和更新时间（毫秒）打包在一个 {@link AtomicLong} 中，多个 event-loop 线程通过 CAS 更新，不加锁也不分配对象。
+ * 时间只保留低 32 位，按差值计算；两次更新间隔超过约 24 天时差值溢出，衰减结果不准确，下一次测量后恢复。
+ *
+ * @author xuzhongkang
+ * @see com.bestlink.strategy.BalanceStrategy#PEAK_EWMA
+ * @since 2026/10/18 17:20
+ **/
+public class PeakEwma {
+
+    private static final long NANOS_PER_MICRO = 1000L;
+    private static final long NANOS_PER_MILLI = 1000_000L;
+
+    /**
+     * 高 32 位为估算值（微秒，最小为 1），低 32 位为更新时间（毫秒），0 表示还没有测量值。
+     */
+    private final AtomicLong state = new AtomicLong();
+
+    /**
+     * 衰减时间常数（毫秒）。
+     */
+    private final double decayMillis;
+
+    /**
+     * @param decayNanos 衰减时间常数，经过这段时间后旧值的权重降为 1/e
+     */
+    public PeakEwma(long decayNanos) {
+        this.decayMillis = Math.max(1D, (double) decayNanos / NANOS_PER_MILLI);
+    }
+
+    /**
+     * 记录一次响应时间。
+     *
+     * @param rttNanos 响应时间
+     * @param nowNanos 当前时间，{@link System#nanoTime()}
+     */
+    public void observe(long rttNanos, long nowNanos) {
+        int rtt = (int) Math.min(Math.max(rttNanos / NANOS_PER_MICRO, 1L), Integer.MAX_VALUE);
+        int now = (int) (nowNanos / NANOS_PER_MILLI);
+        while (true) {
+            long current = state.get();
+            int next;
+            if (current == 0L) {
+                next = rtt;
+            } else {
+                int cost = costOf(current);
+                if (rtt >= cost) {
+                    next = rtt;
+                } else {
+                    double weight = weightOf(now - timestampOf(current));
+                    next = Math.max(1, (int) (cost * weight + rtt * (1D - weight)));
+                }
+            }
+            if (state.compareAndSet(current, pack(next, now))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 当前的估算值（微秒），按距离上一次更新的时间衰减，还没有测量值时返回 defaultMicros。
+     *
+     * @param nowNanos      当前时间，{@link System#nanoTime()}
+     * @param defaultMicros 没有测量值时的默认值
+     */
+    public double get(long nowNanos, double defaultMicros) {
+        long current = state.get();
+        if (current == 0L) {
+            return defaultMicros;
+        }
+        int now = (int) (nowNanos / NANOS_PER_MILLI);
+        return costOf(current) * weightOf(now - timestampOf(current));
+    }
+
+    private double weightOf(int elapsedMillis) {
+        return elapsedMillis <= 0 ? 1D : Math.exp(-elapsedMillis / decayMillis);
+    }
+
+    private static long pack(int cost, int timestamp) {
+        return ((long) cost << 32) | (timestamp & 0xFFFFFFFFL);
+    }
+
+    private static int costOf(long state) {
+        return (int) (state >>> 32);
+    }
+
+    private static int timestampOf(long state) {
+        return (int) state;
+    }
+}
@@ -0,0 +1,53 @@
+package com.bestlink.strategy;
+
+/**
+ * 非本地服务实例的负载均衡策略。
+ * <p>
+ * 可以通过 "local.isolation-loadbalancer.strategy" 进行配置，对 gateway（Spring Cloud Loadbalancer）和 Feign（Ribbon）同时生效。
+ *
+ * @author xuzhongkang
+ * @see com.bestlink.properties.IsolationProperties#getStrategy()
+ * @since 2026/10/16 14:20
+ **/
+public enum BalanceStrategy {
+
+    /**
+     * 随机，基于 {@link java.util.concurrent.ThreadLocalRandom}，线程之间不存在竞争。
+     */
+    RANDOM,
+
+    /**
+     * 轮询，每个服务一个原子计数器。
+     */
+    ROUND_ROBIN,
+
+    /**
+     * 平滑加权轮询，权重取自 Nacos 实例的 weight。
+     */
+    WEIGHTED_ROUND_ROBIN,
+
+    /**
+     * 最少在途请求，随机选择两个实例，取正在处理请求数较少的一个。
+     * <p>
+     * gateway 通过 {@link org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle} 统计在途请求，
+     * Feign 使用 Ribbon {@link com.netflix.loadbalancer.ServerStats} 中的活跃请求数。
+     */
+    LEAST_IN_FLIGHT,
+
+    /**
+     * peak EWMA，随机选择两个实例，取 "衰减后的响应时间 × (在途请求数 + 1)" 较小的一个，适合实例规格不一致的环境。
+     * <p>
+     * gateway 在 {@link org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle} 中测量响应时间，
+     * Feign 在 Ribbon 的执行监听器中测量响应时间，同样按 decay 衰减，在途请求数使用 {@link com.netflix.loadbalancer.ServerStats} 的活跃请求数。
+     *
+     * @see com.bestlink.properties.IsolationProperties.PeakEwma
+     */
+    PEAK_EWMA,
+
+    /**
+     * 一致性哈希（rendezvous hashing），按请求头（默认为请求方 ip）固定路由到同一个实例，实例上下线时只有约 1/n 的 key 重新分配。
+     *
+     * @see com.bestlink.properties.IsolationProperties.Hash
+     */
+    HASH
+}
@@ -0,0 +1,87 @@
+package com.bestlink.strategy;
+
+import com.bestlink.limit.ConcurrencyLimiter;
+import com.bestlink.limit.LimitPolicy;
+import com.bestlink.loadbalancer.IsolationRoutingSnapshot;
+import com.bestlink.stats.InstanceStats;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 并发限制：原策略选中的非本地实例在途请求数达到并发上限时，按 {@link LimitPolicy} 重新选择或者直接返回 null。
+ * <p>
+ * {@link LimitPolicy#SKIP} 时先用原策略重新选择，最多选择 {@link #MAX_ATTEMPTS} 次，仍然达到上限时从随机位置开始顺序查找
+ * 第一个未达到上限的实例，都达到上限时返回 null。按请求 key 选择（一致性哈希）时，key 对应的实例达到上限后同样按上述方式选择其他实例。
+ * <p>
+ * 只读取选中实例的并发上限及在途请求数，不加锁、不产生对象分配。
+ *
+ * @param <T> 服务实例类型
+ * @author xuzhongkang
+ * @see ConcurrencyLimiter
+ * @since 2026/10/21 15:10
+ **/
+public class ConcurrencyLimitInstanceSelector<T> implements InstanceSelector<T> {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final InstanceSelector<T> delegate;
+    private final ConcurrencyLimiter.InFlightProbe<T> inFlightProbe;
+    private final boolean failFast;
+
+    private ConcurrencyLimitInstanceSelector(InstanceSelector<T> delegate, ConcurrencyLimiter limiter,
+                                             ConcurrencyLimiter.InFlightProbe<T> inFlightProbe) {
+        this.delegate = delegate;
+        this.inFlightProbe = inFlightProbe;
+        this.failFast = limiter.getPolicy() == LimitPolicy.FAIL_FAST;
+    }
+
+    /**
+     * @return 未开启（limiter 为 null）时直接返回 delegate。
+     */
+    public static <T> InstanceSelector<T> wrap(InstanceSelector<T> delegate, ConcurrencyLimiter limiter,
+                                               ConcurrencyLimiter.InFlightProbe<T> inFlightProbe) {
+        if (limiter == null) {
+            return delegate;
+        }
+        return new ConcurrencyLimitInstanceSelector<>(delegate, limiter, inFlightProbe);
+    }
+
+    @Override
+    public T select(IsolationRoutingSnapshot<T> snapshot) {
+        return admitted(snapshot, delegate.select(snapshot));
+    }
+
+    @Override
+    public T select(IsolationRoutingSnapshot<T> snapshot, String hashKey) {
+        return admitted(snapshot, delegate.select(snapshot, hashKey));
+    }
+
+    private T admitted(IsolationRoutingSnapshot<T> snapshot, T instance) {
+        if (instance == null || admits(snapshot, instance)) {
+            return instance;
+        }
+        if (failFast) {
+            return null;
+        }
+        for (int attempt = 1; attempt < MAX_ATTEMPTS; attempt++) {
+            instance = delegate.select(snapshot);
+            if (instance != null && admits(snapshot, instance)) {
+                return instance;
+            }
+        }
+        int size = snapshot.nonLocalSize();
+        int offset = size == 0 ? 0 : ThreadLocalRandom.current().nextInt(size);
+        for (int i = 0; i < size; i++) {
+            T candidate = snapshot.nonLocal((offset + i) % size);
+            if (admits(snapshot, candidate)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private boolean admits(IsolationRoutingSnapshot<T> snapshot, T instance) {
+        InstanceStats stats = snapshot.statsOf(instance);
+        return ConcurrencyLimiter.admits(stats, inFlightProbe.inFlight(instance, stats));
+    }
+}
@@ -0,0 +1,35 @@
+package com.bestlink.strategy;
+
+import com.bestlink.loadbalancer.IsolationRoutingSnapshot;
+
+/**
+ * 从路由快照的非本地服务实例中选择一个实例。
+ * <p>
+ * 实现类需要保证线程安全，并且不能在选择过程中加锁，选择时不应产生额外的对象分配。
+ *
+ * @param <T> 服务实例类型
+ * @author xuzhongkang
+ * @see InstanceSelectors
+ * @since 2026/10/16 14:20
+ **/
+public interface InstanceSelector<T> {
+
+    /**
+     * 选择一个非本地服务实例。
+     *
+     * @param snapshot 路由快照
+     * @return 选中的实例，没有非本地服务实例时返回 null。
+     */
+    T select(IsolationRoutingSnapshot<T> snapshot);
+
+    /**
+     * 按请求 key 选择一个非本地服务实例，只有 {@link BalanceStrategy#HASH} 使用 key，其他策略忽略 key。
+     *
+     * @param snapshot 路由快照
+     * @param hashKey  请求 key，可以为 null
+     * @return 选中的实例，没有非本地服务实例时返回 null。
+     */
+    default T select(IsolationRoutingSnapshot<T> snapshot, String hashKey) {
+        return select(snapshot);
+    }
+}
@@ -0,0 +1,45 @@
+package com.bestlink.strategy;
+
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 根据 {@link BalanceStrategy} 创建 {@link InstanceSelector}。
+ * <p>
+ * 每个服务（每个负载均衡器）需要单独创建一个 selector，轮询计数器等状态不在服务之间共享。
+ *
+ * @author xuzhongkang
+ * @since 2026/10/16 14:20
+ **/
+public final class InstanceSelectors {
+
+    private InstanceSelectors() {
+    }
+
+    /**
+     * @param strategy 负载均衡策略，为 null 时使用 {@link BalanceStrategy#RANDOM}
+     * @param weightOf  获取实例权重，用于加权策略
+     * @param loadProbe 获取实例负载，用于最少在途请求及 peak EWMA 策略，由调用方按策略提供
+     * @param keyOf     获取实例标识（host:port），用于一致性哈希策略
+     */
+    public static <T> InstanceSelector<T> create(BalanceStrategy strategy, ToDoubleFunction<T> weightOf, LoadProbe<T> loadProbe,
+                                                 Function<T, String> keyOf) {
+        if (strategy == null) {
+            return new RandomInstanceSelector<>();
+        }
+        switch (strategy) {
+            case ROUND_ROBIN:
+                return new RoundRobinInstanceSelector<>();
+            case WEIGHTED_ROUND_ROBIN:
+                return new WeightedRoundRobinInstanceSelector<>(weightOf);
+            case LEAST_IN_FLIGHT:
+            case PEAK_EWMA:
+                return new PowerOfTwoChoicesInstanceSelector<>(loadProbe);
+            case HASH:
+                return new RendezvousHashInstanceSelector<>(keyOf);
+            case RANDOM:
+            default:
+                return new RandomInstanceSelector<>();
+        }
+    }
+}
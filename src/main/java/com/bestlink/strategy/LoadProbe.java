@@ -0,0 +1,22 @@
+package com.bestlink.strategy;
+
+import com.bestlink.loadbalancer.IsolationRoutingSnapshot;
+
+/**
+ * 读取非本地服务实例当前的负载，数值越小表示越空闲。
+ *
+ * @param <T> 服务实例类型
+ * @author xuzhongkang
+ * @see PowerOfTwoChoicesInstanceSelector
+ * @since 2026/10/17 10:40
+ **/
+@FunctionalInterface
+public interface LoadProbe<T> {
+
+    /**
+     * @param snapshot 路由快照
+     * @param index    非本地实例下标
+     * @return 实例负载
+     */
+    double load(IsolationRoutingSnapshot<T> snapshot, int index);
+}
@@ -0,0 +1,43 @@
+package com.bestlink.strategy;
+
+import com.bestlink.loadbalancer.IsolationRoutingSnapshot;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 随机选择两个不同的实例，取负载较小的一个（power of two choices）。
+ * <p>
+ * 只比较两个实例，不需要遍历整个实例列表，也不需要全局排序，响应慢或 GC 停顿的实例正在处理的请求会堆积，从而自然地少分配请求。
+ *
+ * @author xuzhongkang
+ * @see BalanceStrategy#LEAST_IN_FLIGHT
+ * @since 2026/10/17 10:40
+ **/
+public class PowerOfTwoChoicesInstanceSelector<T> implements InstanceSelector<T> {
+
+    private final LoadProbe<T> loadProbe;
+
+    public PowerOfTwoChoicesInstanceSelector(LoadProbe<T> loadProbe) {
+        this.loadProbe = loadProbe;
+    }
+
+    @Override
+    public T select(IsolationRoutingSnapshot<T> snapshot) {
+        int size = snapshot.nonLocalSize();
+        if (size == 0) {
+            return null;
+        }
+        if (size == 1) {
+            return snapshot.nonLocal(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        double firstLoad = loadProbe.load(snapshot, first);
+        double secondLoad = loadProbe.load(snapshot, second);
+        return snapshot.nonLocal(firstLoad <= secondLoad ? first : second);
+    }
+}
@@ -0,0 +1,27 @@
+package com.bestlink.strategy;
+
+import com.bestlink.loadbalancer.IsolationRoutingSnapshot;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 随机选择，使用 {@link ThreadLocalRandom}，避免多个线程竞争同一个 {@link java.util.Random} 的种子。
+ *
+ * @author xuzhongkang
+ * @see BalanceStrategy#RANDOM
+ * @since 2026/10/16 14:20
+ **/
+public class RandomInstanceSelector<T> implements InstanceSelector<T> {
+
+    @Override
+    public T select(IsolationRoutingSnapshot<T> snapshot) {
+        int size = snapshot.nonLocalSize();
+        if (size == 0) {
+            return null;
+        }
+        if (size == 1) {
+            return snapshot.nonLocal(0);
+        }
+        return snapshot.nonLocal(ThreadLocalRandom.current().nextInt(size));
+    }
+}
@@ -0,0 +1,112 @@
+package com.bestlink.strategy;
+
+import com.bestlink.loadbalancer.IsolationRoutingSnapshot;
+
+import java.util.function.Function;
+
+/**
+ * 一致性哈希（rendezvous hashing，最高随机权重）：对每个实例计算 hash(实例种子, 请求 key)，选择得分最高的实例。
+ * 同一个 key 固定路由到同一个实例，适合按租户、用户在内存中缓存数据的服务。
+ * <p>
+ * 实例种子由实例标识（host:port）计算，在路由快照变化时预先计算一次，请求时只需要对每个实例做一次整数混合运算，不产生对象分配。
+ * 实例上下线时只有原本映射到该实例的 key（约 1/n）被重新分配，其他 key 的映射不变；被异常检测摘除的实例同理。
+ * <p>
+ * 没有请求 key 时随机选择。不使用实例权重，也不参与慢启动（同一个 key 的映射需要保持稳定）。
+ *
+ * @author xuzhongkang
+ * @see BalanceStrategy#HASH
+ * @since 2026/10/21 10:05
+ **/
+public class RendezvousHashInstanceSelector<T> implements InstanceSelector<T> {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final Function<T, String> keyOf;
+    private final RandomInstanceSelector<T> fallback = new RandomInstanceSelector<>();
+
+    /**
+     * 当前路由快照对应的实例种子。
+     */
+    private volatile Seeds seeds;
+
+    /**
+     * @param keyOf 实例标识，用于计算种子，实例列表变化时标识不变的实例映射不变
+     */
+    public RendezvousHashInstanceSelector(Function<T, String> keyOf) {
+        this.keyOf = keyOf;
+    }
+
+    @Override
+    public T select(IsolationRoutingSnapshot<T> snapshot) {
+        return fallback.select(snapshot);
+    }
+
+    @Override
+    public T select(IsolationRoutingSnapshot<T> snapshot, String hashKey) {
+        int size = snapshot.nonLocalSize();
+        if (hashKey == null || size == 0) {
+            return fallback.select(snapshot);
+        }
+        if (size == 1) {
+            return snapshot.nonLocal(0);
+        }
+        Seeds current = seeds;
+        if (current == null || current.snapshot != snapshot) {
+            current = new Seeds(snapshot, buildSeeds(snapshot));
+            seeds = current;
+        }
+        long[] instanceSeeds = current.seeds;
+        long keyHash = hash(hashKey);
+        int best = 0;
+        long bestScore = mix64(instanceSeeds[0] ^ keyHash);
+        for (int i = 1; i < instanceSeeds.length; i++) {
+            long score = mix64(instanceSeeds[i] ^ keyHash);
+            // 无符号比较，得分相同时取实例种子较小的一个，与实例在列表中的顺序无关
+            int compare = Long.compareUnsigned(score, bestScore);
+            if (compare > 0 || (compare == 0 && Long.compareUnsigned(instanceSeeds[i], instanceSeeds[best]) < 0)) {
+                best = i;
+                bestScore = score;
+            }
+        }
+        return snapshot.nonLocal(best);
+    }
+
+    private long[] buildSeeds(IsolationRoutingSnapshot<T> snapshot) {
+        long[] result = new long[snapshot.nonLocalSize()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = mix64(hash(keyOf.apply(snapshot.nonLocal(i))) + GOLDEN_GAMMA);
+        }
+        return result;
+    }
+
+    /**
+     * 64 位 FNV-1a，按字符计算，不产生对象分配。
+     */
+    static long hash(String value) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    /**
+     * SplitMix64 的混合函数。
+     */
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static final class Seeds {
+        private final IsolationRoutingSnapshot<?> snapshot;
+        private final long[] seeds;
+
+        private Seeds(IsolationRoutingSnapshot<?> snapshot, long[] seeds) {
+            this.snapshot = snapshot;
+            this.seeds = seeds;
+        }
+    }
+}
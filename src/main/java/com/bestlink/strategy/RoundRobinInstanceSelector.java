@@ -0,0 +1,33 @@
+package com.bestlink.strategy;
+
+import com.bestlink.loadbalancer.IsolationRoutingSnapshot;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 轮询选择，每个服务（即每个 selector 对象）持有一个原子计数器，只有一次 CAS 自增，不加锁。
+ * <p>
+ * 计数器的初始值随机，避免多个网关节点同时启动后按照相同的顺序轮询。
+ *
+ * @author xuzhongkang
+ * @see BalanceStrategy#ROUND_ROBIN
+ * @since 2026/10/16 14:20
+ **/
+public class RoundRobinInstanceSelector<T> implements InstanceSelector<T> {
+
+    private final AtomicInteger position = new AtomicInteger(ThreadLocalRandom.current().nextInt(1000));
+
+    @Override
+    public T select(IsolationRoutingSnapshot<T> snapshot) {
+        int size = snapshot.nonLocalSize();
+        if (size == 0) {
+            return null;
+        }
+        if (size == 1) {
+            return snapshot.nonLocal(0);
+        }
+        int pos = position.getAndIncrement() & Integer.MAX_VALUE;
+        return snapshot.nonLocal(pos % size);
+    }
+}
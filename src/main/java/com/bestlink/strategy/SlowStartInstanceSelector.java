@@ -0,0 +1,105 @@
+package com.bestlink.strategy;
+
+import com.bestlink.loadbalancer.IsolationRoutingSnapshot;
+import com.bestlink.properties.IsolationProperties;
+import com.bestlink.stats.InstanceStats;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 慢启动：新出现的非本地实例（重启、扩容后重新注册）在 window 时间内，有效权重从 minWeightPercent 线性增加到 100%，
+ * 避免 JIT 未预热、缓存为空的实例一注册就承担全部流量。
+ * <p>
+ * 对所有负载均衡策略生效：原策略选中的实例处于慢启动期间时，按有效权重的概率接受，否则重新选择，
+ * 最多选择 {@link #MAX_ATTEMPTS} 次，都没有被接受时取有效权重最高的一个。只读取选中实例的首次出现时间，不产生对象分配。
+ * <p>
+ * Nacos 实例信息中没有注册时间，这里使用实例首次出现在路由快照中的时间；负载均衡器启动时已经存在的实例不进行慢启动。
+ *
+ * @param <T> 服务实例类型
+ * @author xuzhongkang
+ * @see IsolationProperties.SlowStart
+ * @since 2026/10/19 10:15
+ **/
+public class SlowStartInstanceSelector<T> implements InstanceSelector<T> {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final InstanceSelector<T> delegate;
+    private final long windowNanos;
+    private final double minWeight;
+
+    private SlowStartInstanceSelector(InstanceSelector<T> delegate, long windowNanos, double minWeight) {
+        this.delegate = delegate;
+        this.windowNanos = windowNanos;
+        this.minWeight = minWeight;
+    }
+
+    /**
+     * @return 未开启时直接返回 delegate。
+     */
+    public static <T> InstanceSelector<T> wrap(InstanceSelector<T> delegate, IsolationProperties.SlowStart properties) {
+        if (properties == null || !Boolean.TRUE.equals(properties.getEnabled()) || properties.getWindow().isZero()) {
+            return delegate;
+        }
+        double minWeight = Math.min(100, Math.max(0, properties.getMinWeightPercent())) / 100D;
+        return new SlowStartInstanceSelector<>(delegate, properties.getWindow().toNanos(), minWeight);
+    }
+
+    @Override
+    public T select(IsolationRoutingSnapshot<T> snapshot) {
+        T instance = delegate.select(snapshot);
+        if (instance == null || snapshot.nonLocalSize() == 1) {
+            return instance;
+        }
+        long now = System.nanoTime();
+        double weight = weightOf(snapshot.statsOf(instance), now);
+        if (weight >= 1D) {
+            return instance;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        T best = instance;
+        double bestWeight = weight;
+        for (int attempt = 1; ; attempt++) {
+            if (random.nextDouble() < weight) {
+                return instance;
+            }
+            if (attempt == MAX_ATTEMPTS) {
+                return best;
+            }
+            instance = delegate.select(snapshot);
+            if (instance == null) {
+                return best;
+            }
+            weight = weightOf(snapshot.statsOf(instance), now);
+            if (weight > bestWeight) {
+                best = instance;
+                bestWeight = weight;
+            }
+        }
+    }
+
+    /**
+     * 按请求 key 选择时（一致性哈希）不进行慢启动，同一个 key 的映射保持稳定。
+     */
+    @Override
+    public T select(IsolationRoutingSnapshot<T> snapshot, String hashKey) {
+        return hashKey == null ? select(snapshot) : delegate.select(snapshot, hashKey);
+    }
+
+    /**
+     * 实例当前的有效权重比例，[minWeight, 1]。
+     */
+    double weightOf(InstanceStats stats, long nowNanos) {
+        if (stats == null || stats.isSeenAtStartup()) {
+            return 1D;
+        }
+        long elapsed = nowNanos - stats.getFirstSeenNanos();
+        if (elapsed >= windowNanos) {
+            return 1D;
+        }
+        if (elapsed <= 0) {
+            return minWeight;
+        }
+        return minWeight + (1D - minWeight) * elapsed / windowNanos;
+    }
+}
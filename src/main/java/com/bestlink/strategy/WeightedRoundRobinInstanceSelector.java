@@ -0,0 +1,129 @@
+package com.bestlink.strategy;
+
+import com.bestlink.loadbalancer.IsolationRoutingSnapshot;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 平滑加权轮询（nginx smooth weighted round-robin）。
+ * <p>
+ * 原始算法每次选择都需要修改所有实例的 currentWeight，只能加锁执行。这里在路由快照变化时，预先按照平滑加权算法计算出一个完整周期的选择序列，
+ * 请求时只需要对计数器做一次 CAS 自增并读取序列，与 {@link RoundRobinInstanceSelector} 开销相同。
+ * <p>
+ * 权重按 {@link #WEIGHT_SCALE} 放大并取整，权重为 0 的实例不参与负载均衡；所有实例权重均为 0 时按相同权重处理。
+ * 周期长度超过 {@link #MAX_CYCLE_LENGTH} 时按比例缩小权重。
+ *
+ * @author xuzhongkang
+ * @see BalanceStrategy#WEIGHTED_ROUND_ROBIN
+ * @since 2026/10/16 14:20
+ **/
+public class WeightedRoundRobinInstanceSelector<T> implements InstanceSelector<T> {
+
+    private static final int WEIGHT_SCALE = 100;
+    private static final int MAX_CYCLE_LENGTH = 4096;
+
+    private final ToDoubleFunction<T> weightOf;
+    private final AtomicInteger position = new AtomicInteger(ThreadLocalRandom.current().nextInt(1000));
+
+    /**
+     * 当前路由快照对应的选择序列。
+     */
+    private volatile Schedule schedule;
+
+    public WeightedRoundRobinInstanceSelector(ToDoubleFunction<T> weightOf) {
+        this.weightOf = weightOf;
+    }
+
+    @Override
+    public T select(IsolationRoutingSnapshot<T> snapshot) {
+        int size = snapshot.nonLocalSize();
+        if (size == 0) {
+            return null;
+        }
+        if (size == 1) {
+            return snapshot.nonLocal(0);
+        }
+        Schedule current = schedule;
+        if (current == null || current.snapshot != snapshot) {
+            current = new Schedule(snapshot, buildSequence(snapshot));
+            schedule = current;
+        }
+        int[] sequence = current.sequence;
+        int pos = position.getAndIncrement() & Integer.MAX_VALUE;
+        return snapshot.nonLocal(sequence[pos % sequence.length]);
+    }
+
+    /**
+     * 按平滑加权算法计算一个完整周期的选择序列，元素为非本地实例下标。
+     */
+    int[] buildSequence(IsolationRoutingSnapshot<T> snapshot) {
+        int size = snapshot.nonLocalSize();
+        int[] weights = new int[size];
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            double weight = weightOf.applyAsDouble(snapshot.nonLocal(i));
+            weights[i] = weight > 0 ? (int) Math.max(1, Math.round(weight * WEIGHT_SCALE)) : 0;
+            total += weights[i];
+        }
+        if (total == 0) {
+            for (int i = 0; i < size; i++) {
+                weights[i] = 1;
+            }
+            total = size;
+        }
+        int gcd = 0;
+        for (int weight : weights) {
+            gcd = gcd(gcd, weight);
+        }
+        total = 0;
+        for (int i = 0; i < size; i++) {
+            weights[i] /= gcd;
+            total += weights[i];
+        }
+        if (total > MAX_CYCLE_LENGTH) {
+            double ratio = (double) MAX_CYCLE_LENGTH / total;
+            total = 0;
+            for (int i = 0; i < size; i++) {
+                if (weights[i] > 0) {
+                    weights[i] = (int) Math.max(1, weights[i] * ratio);
+                    total += weights[i];
+                }
+            }
+        }
+        int[] sequence = new int[(int) total];
+        long[] currentWeights = new long[size];
+        for (int n = 0; n < sequence.length; n++) {
+            int best = -1;
+            for (int i = 0; i < size; i++) {
+                currentWeights[i] += weights[i];
+                if (weights[i] > 0 && (best < 0 || currentWeights[i] > currentWeights[best])) {
+                    best = i;
+                }
+            }
+            currentWeights[best] -= total;
+            sequence[n] = best;
+        }
+        return sequence;
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    private static final class Schedule {
+        private final IsolationRoutingSnapshot<?> snapshot;
+        private final int[] sequence;
+
+        private Schedule(IsolationRoutingSnapshot<?> snapshot, int[] sequence) {
+            this.snapshot = snapshot;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.bestlink.supplier;
+
+import com.alibaba.cloud.nacos.NacosDiscoveryProperties;
+import com.alibaba.cloud.nacos.NacosServiceManager;
+import com.alibaba.cloud.nacos.discovery.NacosServiceDiscovery;
+import com.alibaba.nacos.api.naming.NamingService;
+import com.alibaba.nacos.api.naming.listener.EventListener;
+import com.alibaba.nacos.api.naming.listener.NamingEvent;
+import com.alibaba.nacos.api.naming.pojo.Instance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 通过 Nacos NamingService 订阅服务实例变更，与 NacosWatch 使用同一个 NamingService（由 {@link NacosServiceManager} 管理）。
+ * <p>
+ * 推送的实例中只保留健康并且启用的实例，与 Nacos 服务发现（selectInstances healthy=true）保持一致。
+ *
+ * @author xuzhongkang
+ * @since 2026/10/18 09:30
+ **/
+public class NacosServiceInstanceChangeSource implements ServiceInstanceChangeSource {
+
+    private final NacosServiceManager nacosServiceManager;
+    private final NacosDiscoveryProperties nacosDiscoveryProperties;
+
+    public NacosServiceInstanceChangeSource(NacosServiceManager nacosServiceManager, NacosDiscoveryProperties nacosDiscoveryProperties) {
+        this.nacosServiceManager = nacosServiceManager;
+        this.nacosDiscoveryProperties = nacosDiscoveryProperties;
+    }
+
+    @Override
+    public Subscription subscribe(String serviceId, Consumer<List<ServiceInstance>> listener) throws Exception {
+        NamingService namingService = nacosServiceManager.getNamingService(nacosDiscoveryProperties.getNacosProperties());
+        String group = nacosDiscoveryProperties.getGroup();
+        EventListener eventListener = event -> {
+            if (event instanceof NamingEvent) {
+                listener.accept(toServiceInstances(((NamingEvent) event).getInstances(), serviceId));
+            }
+        };
+        namingService.subscribe(serviceId, group, eventListener);
+        return () -> namingService.unsubscribe(serviceId, group, eventListener);
+    }
+
+    private static List<ServiceInstance> toServiceInstances(List<Instance> instances, String serviceId) {
+        if (instances == null || instances.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Instance> available = new ArrayList<>(instances.size());
+        for (Instance instance : instances) {
+            if (instance.isHealthy() && instance.isEnabled()) {
+                available.add(instance);
+            }
+        }
+        return NacosServiceDiscovery.hostToServiceInstanceList(available, serviceId);
+    }
+}
@@ -0,0 +1,102 @@
+package com.bestlink.supplier;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.DelegatingServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Flux;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * 由注册中心推送驱动的 ServiceInstanceListSupplier。
+ * <p>
+ * 启动时订阅服务实例变更，保存最新的实例列表，列表对象在下一次变更前保持不变；实例变化后立即生效，不需要等待缓存过期或轮询。
+ * 收到推送前（或订阅失败时）通过 delegate（服务发现）获取实例列表。
+ * <p>
+ * {@link com.bestlink.loadbalancer.ReactorIsolationRobinLoadBalancer} 直接读取 {@link #getInstances()}，
+ * 并通过 {@link #addListener(Consumer)} 在推送时提前构建路由快照（本地/非本地实例分区），请求路径上不再订阅 Flux 或过滤实例列表。
+ *
+ * @author xuzhongkang
+ * @see ServiceInstanceChangeSource
+ * @since 2026/10/18 09:30
+ **/
+@Slf4j
+public class PushServiceInstanceListSupplier extends DelegatingServiceInstanceListSupplier {
+
+    private final ServiceInstanceChangeSource changeSource;
+    private final AtomicReference<List<ServiceInstance>> instances = new AtomicReference<>();
+    private final List<Consumer<List<ServiceInstance>>> listeners = new CopyOnWriteArrayList<>();
+    private volatile ServiceInstanceChangeSource.Subscription subscription;
+
+    public PushServiceInstanceListSupplier(ServiceInstanceListSupplier delegate, ServiceInstanceChangeSource changeSource) {
+        super(delegate);
+        this.changeSource = changeSource;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        super.afterPropertiesSet();
+        try {
+            subscription = changeSource.subscribe(getServiceId(), this::instancesChanged);
+        } catch (Exception e) {
+            log.warn("failed to subscribe instances of service [{}], fall back to discovery client,cause:{}", getServiceId(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        ServiceInstanceChangeSource.Subscription current = subscription;
+        subscription = null;
+        if (current != null) {
+            current.cancel();
+        }
+        super.destroy();
+    }
+
+    @Override
+    public Flux<List<ServiceInstance>> get() {
+        List<ServiceInstance> current = instances.get();
+        if (current != null) {
+            return Flux.just(current);
+        }
+        // 还没有收到推送，通过服务发现获取，推送到达后以推送为准
+        return delegate.get().map(list -> {
+            List<ServiceInstance> seed = Collections.unmodifiableList(list);
+            return instances.compareAndSet(null, seed) ? seed : instances.get();
+        });
+    }
+
+    /**
+     * 最新的实例列表，还没有获取过实例时返回 null。
+     */
+    public List<ServiceInstance> getInstances() {
+        return instances.get();
+    }
+
+    /**
+     * 添加实例列表变更回调，在推送线程中执行。
+     */
+    public void addListener(Consumer<List<ServiceInstance>> listener) {
+        listeners.add(listener);
+    }
+
+    private void instancesChanged(List<ServiceInstance> serviceInstances) {
+        List<ServiceInstance> current = Collections.unmodifiableList(serviceInstances);
+        instances.set(current);
+        if (log.isDebugEnabled()) {
+            log.debug("instances of service [{}] changed, size:{}", getServiceId(), current.size());
+        }
+        for (Consumer<List<ServiceInstance>> listener : listeners) {
+            try {
+                listener.accept(current);
+            } catch (Exception e) {
+                log.warn("failed to notify instances change of service [{}],cause:{}", getServiceId(), e.getMessage());
+            }
+        }
+    }
+}
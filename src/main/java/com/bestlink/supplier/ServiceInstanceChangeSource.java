@@ -0,0 +1,39 @@
+package com.bestlink.supplier;
+
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 服务实例变更的推送来源，例如 Nacos 的服务订阅。
+ *
+ * @author xuzhongkang
+ * @see NacosServiceInstanceChangeSource
+ * @see PushServiceInstanceListSupplier
+ * @since 2026/10/18 09:30
+ **/
+public interface ServiceInstanceChangeSource {
+
+    /**
+     * 订阅服务实例变更，每次变更时回调最新的完整实例列表（只包含可用实例）。
+     *
+     * @param serviceId 服务名
+     * @param listener  回调
+     * @return 订阅，用于取消订阅。
+     * @throws Exception 订阅失败
+     */
+    Subscription subscribe(String serviceId, Consumer<List<ServiceInstance>> listener) throws Exception;
+
+    /**
+     * 订阅。
+     */
+    @FunctionalInterface
+    interface Subscription {
+
+        /**
+         * 取消订阅。
+         */
+        void cancel() throws Exception;
+    }
+}
@@ -0,0 +1,167 @@
+package com.bestlink.warmup;
+
+import com.bestlink.loadbalancer.ReactorIsolationRobinLoadBalancer;
+import com.bestlink.properties.IsolationProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactiveLoadBalancer;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.cloud.gateway.route.RouteDefinitionLocator;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * gateway 启动预热：在 web server 启动之前，提前创建各服务的 loadbalancer 子容器及 {@link ReactorIsolationRobinLoadBalancer}，
+ * 并获取实例列表构建路由快照，避免每次发布后每个服务的第一个请求都要等待子容器创建（配置类解析、EnvironmentCondition 判断、
+ * ServiceInstanceListSupplier 及负载均衡器实例化）和服务发现。
+ * <p>
+ * 子容器由 LoadBalancerClientFactory（NamedContextFactory）在同一把锁内创建，无法并行，这里按顺序创建；
+ * 获取实例列表、构建路由快照并行进行。预热失败或超时只打印日志，不影响启动，未预热的服务在第一个请求时按原有方式初始化。
+ *
+ * @author xuzhongkang
+ * @see IsolationProperties.Warmup
+ * @since 2026/10/19 15:40
+ **/
+@Slf4j
+public class LoadBalancerWarmup implements SmartLifecycle {
+
+    /**
+     * 在 web server 启动（Integer.MAX_VALUE - 1）之前执行。
+     */
+    private static final int PHASE = Integer.MAX_VALUE - 2;
+    private static final String LB_SCHEME = "lb";
+    private static final int CONCURRENCY = 16;
+
+    private final LoadBalancerClientFactory loadBalancerClientFactory;
+    private final ObjectProvider<RouteDefinitionLocator> routeDefinitionLocator;
+    private final IsolationProperties.Warmup properties;
+
+    private volatile boolean running;
+
+    public LoadBalancerWarmup(LoadBalancerClientFactory loadBalancerClientFactory, ObjectProvider<RouteDefinitionLocator> routeDefinitionLocator,
+                              IsolationProperties.Warmup properties) {
+        this.loadBalancerClientFactory = loadBalancerClientFactory;
+        this.routeDefinitionLocator = routeDefinitionLocator;
+        this.properties = properties;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        try {
+            warmUp();
+        } catch (Exception e) {
+            log.warn("load balancer warm-up failed,cause:{}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void warmUp() {
+        long start = System.nanoTime();
+        long deadline = start + properties.getTimeout().toNanos();
+        Set<String> serviceIds = collectServiceIds();
+        if (serviceIds.isEmpty()) {
+            log.info("load balancer warm-up skipped, no service configured");
+            return;
+        }
+
+        Map<String, ReactorIsolationRobinLoadBalancer> loadBalancers = new LinkedHashMap<>();
+        for (String serviceId : serviceIds) {
+            if (System.nanoTime() - deadline > 0) {
+                log.warn("load balancer warm-up timed out while creating contexts, created:{}/{}", loadBalancers.size(), serviceIds.size());
+                break;
+            }
+            try {
+                ReactiveLoadBalancer<ServiceInstance> loadBalancer = loadBalancerClientFactory.getInstance(serviceId);
+                if (loadBalancer instanceof ReactorIsolationRobinLoadBalancer) {
+                    loadBalancers.put(serviceId, (ReactorIsolationRobinLoadBalancer) loadBalancer);
+                }
+            } catch (Exception e) {
+                log.warn("failed to create load balancer for service [{}],cause:{}", serviceId, e.getMessage());
+            }
+        }
+        long contextsCreated = System.nanoTime();
+
+        long remaining = deadline - contextsCreated;
+        int primed = 0;
+        if (remaining > 0 && !loadBalancers.isEmpty()) {
+            primed = Flux.fromIterable(loadBalancers.entrySet())
+                    .flatMap(entry -> entry.getValue().warmUp()
+                            .subscribeOn(Schedulers.boundedElastic())
+                            .doOnNext(instances -> log.debug("warmed up service [{}], instances:{}", entry.getKey(), instances))
+                            .onErrorResume(e -> {
+                                log.warn("failed to warm up service [{}],cause:{}", entry.getKey(), e.getMessage());
+                                return Mono.empty();
+                            }), CONCURRENCY)
+                    .count()
+                    .timeout(Duration.ofNanos(remaining))
+                    .onErrorResume(TimeoutException.class, e -> {
+                        log.warn("load balancer warm-up timed out while fetching instances, timeout:{}", properties.getTimeout());
+                        return Mono.just(-1L);
+                    })
+                    .map(Long::intValue)
+                    .block();
+        }
+        long end = System.nanoTime();
+        log.info("load balancer warm-up finished in {}ms, services:{}, load balancers:{}, snapshots:{}, contexts:{}ms, snapshots:{}ms",
+                TimeUnit.NANOSECONDS.toMillis(end - start), serviceIds.size(), loadBalancers.size(), primed < 0 ? "timeout" : primed,
+                TimeUnit.NANOSECONDS.toMillis(contextsCreated - start), TimeUnit.NANOSECONDS.toMillis(end - contextsCreated));
+    }
+
+    /**
+     * 配置的服务名，以及 gateway 路由中 "lb://" 开头的服务名。
+     */
+    Set<String> collectServiceIds() {
+        Set<String> serviceIds = new LinkedHashSet<>();
+        if (properties.getServices() != null) {
+            for (String serviceId : properties.getServices()) {
+                if (StringUtils.hasText(serviceId)) {
+                    serviceIds.add(serviceId.trim());
+                }
+            }
+        }
+        RouteDefinitionLocator locator = Boolean.TRUE.equals(properties.getFromRoutes()) ? routeDefinitionLocator.getIfAvailable() : null;
+        if (locator == null) {
+            return serviceIds;
+        }
+        try {
+            List<String> routeServiceIds = locator.getRouteDefinitions()
+                    .map(RouteDefinition::getUri)
+                    .filter(uri -> LB_SCHEME.equalsIgnoreCase(uri.getScheme()) && StringUtils.hasText(uri.getHost()))
+                    .map(URI::getHost)
+                    .collectList()
+                    .block(properties.getTimeout());
+            if (routeServiceIds != null) {
+                serviceIds.addAll(routeServiceIds);
+            }
+        } catch (Exception e) {
+            log.warn("failed to read gateway route definitions,cause:{}", e.getMessage());
+        }
+        return serviceIds;
+    }
+}
@@ -0,0 +1,92 @@
+package com.bestlink.affinity;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author xuzhongkang
+ * @since 2026/10/22 15:00
+ **/
+class AffinityCacheTest {
+
+    @Test
+    void entriesExpireAfterTtl() throws InterruptedException {
+        AffinityCache cache = new AffinityCache(Duration.ofMillis(30), 100);
+        cache.put("192.168.1.20", "10.0.0.1:8080");
+        assertEquals("10.0.0.1:8080", cache.get("192.168.1.20"));
+        Thread.sleep(60);
+        assertNull(cache.get("192.168.1.20"));
+        // 读取时清理过期条目
+        assertEquals(0, cache.size());
+        assertNull(cache.get("192.168.1.21"));
+    }
+
+    @Test
+    void putReplacesAndRenewsEntry() throws InterruptedException {
+        AffinityCache cache = new AffinityCache(Duration.ofMillis(200), 100);
+        cache.put("192.168.1.20", "10.0.0.1:8080");
+        Thread.sleep(120);
+        cache.put("192.168.1.20", "10.0.0.2:8080");
+        Thread.sleep(120);
+        assertEquals("10.0.0.2:8080", cache.get("192.168.1.20"));
+    }
+
+    @Test
+    void sizeIsBoundedByMaxSize() {
+        AffinityCache cache = new AffinityCache(Duration.ofMinutes(10), 10);
+        for (int i = 0; i < 10; i++) {
+            cache.put("caller-" + i, "10.0.0.1:8080");
+        }
+        assertEquals(10, cache.size());
+        // 超过上限时一次淘汰到上限的 90%
+        cache.put("caller-10", "10.0.0.1:8080");
+        assertEquals(9, cache.size());
+        for (int i = 11; i < 1000; i++) {
+            cache.put("caller-" + i, "10.0.0.1:8080");
+            assertTrue(cache.size() <= 10);
+        }
+    }
+
+    @Test
+    void expiredEntriesAreEvictedFirst() throws InterruptedException {
+        AffinityCache cache = new AffinityCache(Duration.ofMillis(30), 10);
+        for (int i = 0; i < 8; i++) {
+            cache.put("stale-" + i, "10.0.0.1:8080");
+        }
+        Thread.sleep(60);
+        for (int i = 0; i < 3; i++) {
+            cache.put("fresh-" + i, "10.0.0.2:8080");
+        }
+        assertEquals(3, cache.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals("10.0.0.2:8080", cache.get("fresh-" + i));
+        }
+    }
+
+    @Test
+    void retainInstancesDropsEntriesOfRemovedInstances() {
+        AffinityCache cache = new AffinityCache(Duration.ofMinutes(10), 100);
+        cache.put("a", "10.0.0.1:8080");
+        cache.put("b", "10.0.0.2:8080");
+        cache.put("c", "10.0.0.3:8080");
+        cache.retainInstances(new HashSet<>(Arrays.asList("10.0.0.1:8080", "10.0.0.3:8080")));
+        assertEquals(2, cache.size());
+        assertEquals("10.0.0.1:8080", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("10.0.0.3:8080", cache.get("c"));
+    }
+
+    @Test
+    void maxSizeIsAtLeastOne() {
+        AffinityCache cache = new AffinityCache(Duration.ofMinutes(10), 0);
+        cache.put("a", "10.0.0.1:8080");
+        assertEquals("10.0.0.1:8080", cache.get("a"));
+        cache.put("b", "10.0.0.2:8080");
+        assertEquals(1, cache.size());
+    }
+}
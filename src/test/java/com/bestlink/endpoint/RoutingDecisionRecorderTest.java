@@ -0,0 +1,60 @@
+package com.bestlink.endpoint;
+
+import com.bestlink.metrics.RoutingOutcome;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author xuzhongkang
+ * @since 2026/10/21 17:20
+ **/
+class RoutingDecisionRecorderTest {
+
+    private static RoutingDecision decision(String callerIp) {
+        return new RoutingDecision("user-service", callerIp, "remote-address", null, "10.0.0.1:8080", false,
+                RoutingOutcome.SHARED, "no local instance registered");
+    }
+
+    @Test
+    void keepsMostRecentDecisionsNewestFirst() {
+        RoutingDecisionRecorder recorder = new RoutingDecisionRecorder(4, 1D);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(recorder.isSampled());
+            recorder.record(decision("192.168.1." + i));
+        }
+        List<RoutingDecision> recent = recorder.recent();
+        assertEquals(4, recent.size());
+        assertEquals("192.168.1.9", recent.get(0).getCallerIp());
+        assertEquals("192.168.1.6", recent.get(3).getCallerIp());
+        assertEquals(10, recorder.getRecorded());
+    }
+
+    @Test
+    void capacityIsRoundedUpToPowerOfTwo() {
+        RoutingDecisionRecorder recorder = new RoutingDecisionRecorder(5, 1D);
+        for (int i = 0; i < 10; i++) {
+            recorder.record(decision("192.168.1." + i));
+        }
+        assertEquals(8, recorder.recent().size());
+    }
+
+    @Test
+    void disabledRecorderKeepsNothing() {
+        RoutingDecisionRecorder recorder = new RoutingDecisionRecorder(16, 0D);
+        assertFalse(recorder.isSampled());
+        recorder.record(decision("192.168.1.1"));
+        assertTrue(recorder.recent().isEmpty());
+        assertFalse(RoutingDecisionRecorder.NOOP.isSampled());
+    }
+
+    @Test
+    void reasonDescribesFallback() {
+        assertEquals("local instance [192.168.1.5:8080] unreachable, fell back to shared instances",
+                RoutingDecision.reasonOf(RoutingOutcome.LOCAL_FALLBACK, true, 1, "192.168.1.5:8080", false, RoutingDecision.UNREACHABLE));
+        assertEquals("caller unknown, local instances skipped",
+                RoutingDecision.reasonOf(RoutingOutcome.SHARED, false, 1, null, false, null));
+    }
+}
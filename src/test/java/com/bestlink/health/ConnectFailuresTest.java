@@ -0,0 +1,70 @@
+package com.bestlink.health;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author xuzhongkang
+ * @since 2026/10/22 11:00
+ **/
+class ConnectFailuresTest {
+
+    /**
+     * 模拟 netty ReadTimeoutException（不在编译依赖中）。
+     */
+    private static class ReadTimeoutException extends IOException {
+    }
+
+    /**
+     * 模拟 netty ConnectTimeoutException。
+     */
+    private static class ConnectTimeoutException extends ConnectException {
+    }
+
+    @Test
+    void connectFailures() {
+        assertTrue(ConnectFailures.isConnectFailure(new ConnectException("Connection refused")));
+        assertTrue(ConnectFailures.isConnectFailure(new NoRouteToHostException()));
+        assertTrue(ConnectFailures.isConnectFailure(new ConnectTimeoutException()));
+        assertTrue(ConnectFailures.isConnectFailure(new SocketTimeoutException("connect timed out")));
+
+        assertFalse(ConnectFailures.isResponseTimeout(new ConnectException("Connection refused")));
+        assertFalse(ConnectFailures.isResponseTimeout(new ConnectTimeoutException()));
+        assertFalse(ConnectFailures.isResponseTimeout(new SocketTimeoutException("connect timed out")));
+    }
+
+    @Test
+    void responseTimeoutsAreConnectFailuresToo() {
+        Throwable[] timeouts = {
+                new SocketTimeoutException("Read timed out"),
+                new TimeoutException("Did not observe any item or terminal signal within 3000ms"),
+                new ReadTimeoutException(),
+                new RuntimeException("504 GATEWAY_TIMEOUT", new TimeoutException())
+        };
+        for (Throwable timeout : timeouts) {
+            assertTrue(ConnectFailures.isConnectFailure(timeout), timeout.toString());
+            assertTrue(ConnectFailures.isResponseTimeout(timeout), timeout.toString());
+        }
+    }
+
+    @Test
+    void wrappedCauseIsFound() {
+        Throwable wrapped = new RuntimeException(new IllegalStateException(new ConnectException()));
+        assertTrue(ConnectFailures.isConnectFailure(wrapped));
+        assertFalse(ConnectFailures.isResponseTimeout(wrapped));
+    }
+
+    @Test
+    void otherErrorsAreNotConnectFailures() {
+        assertFalse(ConnectFailures.isConnectFailure(null));
+        assertFalse(ConnectFailures.isConnectFailure(new IllegalStateException("500 INTERNAL_SERVER_ERROR")));
+        assertFalse(ConnectFailures.isResponseTimeout(new IllegalStateException("500 INTERNAL_SERVER_ERROR")));
+    }
+}
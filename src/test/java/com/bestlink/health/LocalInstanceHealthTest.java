@@ -0,0 +1,114 @@
+package com.bestlink.health;
+
+import com.bestlink.properties.IsolationProperties;
+import com.bestlink.stats.InstanceStats;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author xuzhongkang
+ * @since 2026/10/22 11:00
+ **/
+class LocalInstanceHealthTest {
+
+    private static LocalInstanceHealth health(Duration backoff) {
+        IsolationProperties.LocalHealth properties = new IsolationProperties.LocalHealth();
+        properties.setEnabled(true);
+        properties.setFailureThreshold(2);
+        properties.setBackoff(backoff);
+        return LocalInstanceHealth.create(properties);
+    }
+
+    @Test
+    void disabledByDefault() {
+        assertNull(LocalInstanceHealth.create(new IsolationProperties.LocalHealth()));
+        assertNull(LocalInstanceHealth.create(null));
+    }
+
+    @Test
+    void unreachableAfterConsecutiveFailures() {
+        LocalInstanceHealth health = health(Duration.ofSeconds(30));
+        InstanceStats stats = new InstanceStats("10.0.0.1:8080");
+        stats.connectFailed();
+        assertFalse(health.isUnreachable(stats));
+        stats.connectFailed();
+        assertTrue(health.isUnreachable(stats));
+        stats.connectSucceeded();
+        assertFalse(health.isUnreachable(stats));
+        assertFalse(health.isUnreachable(null));
+    }
+
+    @Test
+    void reachableAgainAfterBackoff() {
+        LocalInstanceHealth health = health(Duration.ofNanos(1));
+        InstanceStats stats = new InstanceStats("10.0.0.1:8080");
+        stats.connectFailed();
+        stats.connectFailed();
+        assertFalse(health.isUnreachable(stats));
+        assertEquals(2, stats.getConsecutiveConnectFailures());
+    }
+
+    @Test
+    void probeEndsBackoffCausedByConnectFailures() {
+        LocalInstanceHealth health = health(Duration.ofSeconds(30));
+        InstanceStats stats = new InstanceStats("10.0.0.1:8080");
+        stats.connectFailed();
+        stats.connectFailed();
+        assertTrue(stats.probeSucceeded());
+        assertFalse(health.isUnreachable(stats));
+    }
+
+    @Test
+    void probeDoesNotClearResponseTimeouts() {
+        LocalInstanceHealth health = health(Duration.ofSeconds(30));
+        InstanceStats stats = new InstanceStats("10.0.0.1:8080");
+        // 停在断点上：连接可以建立，但没有响应
+        stats.connectFailed();
+        stats.responseTimedOut();
+        assertTrue(health.isUnreachable(stats));
+        assertFalse(stats.probeSucceeded());
+        assertTrue(health.isUnreachable(stats));
+
+        // 收到响应后恢复，之后的探测成功又可以结束连接失败引起的 backoff
+        stats.connectSucceeded();
+        assertFalse(health.isUnreachable(stats));
+        stats.connectFailed();
+        stats.connectFailed();
+        assertTrue(stats.probeSucceeded());
+        assertFalse(health.isUnreachable(stats));
+    }
+
+    @Test
+    void proberKeepsBackoffOfPausedInstance() throws Exception {
+        LocalInstanceHealth health = health(Duration.ofSeconds(30));
+        try (ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            String host = server.getInetAddress().getHostAddress();
+            InstanceStats refused = new InstanceStats("refused");
+            refused.connectFailed();
+            refused.connectFailed();
+            InstanceStats paused = new InstanceStats("paused");
+            paused.responseTimedOut();
+            paused.responseTimedOut();
+
+            LocalInstanceProber prober = new LocalInstanceProber(Duration.ofMillis(10), Duration.ofSeconds(1));
+            try {
+                prober.setTargets(Arrays.asList(new LocalInstanceProber.Target(host, server.getLocalPort(), refused),
+                        new LocalInstanceProber.Target(host, server.getLocalPort(), paused)));
+                long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+                while (health.isUnreachable(refused) && System.nanoTime() < deadline) {
+                    Thread.sleep(10);
+                }
+            } finally {
+                prober.close();
+            }
+            assertFalse(health.isUnreachable(refused));
+            assertTrue(health.isUnreachable(paused));
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.bestlink.hedge;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author xuzhongkang
+ * @since 2026/10/20 11:20
+ **/
+class HedgeBudgetTest {
+
+    @Test
+    void hedgesAreLimitedByDeposits() {
+        HedgeBudget budget = new HedgeBudget(0.1D, 10);
+        assertFalse(budget.tryWithdraw());
+        for (int i = 0; i < 25; i++) {
+            budget.deposit();
+        }
+        assertTrue(budget.tryWithdraw());
+        assertTrue(budget.tryWithdraw());
+        assertFalse(budget.tryWithdraw());
+    }
+
+    @Test
+    void balanceIsCappedByBurst() {
+        HedgeBudget budget = new HedgeBudget(0.5D, 3);
+        for (int i = 0; i < 100; i++) {
+            budget.deposit();
+        }
+        assertEquals(3D, budget.available(), 1e-9);
+        budget.tryWithdraw();
+        budget.refund();
+        assertEquals(3D, budget.available(), 1e-9);
+    }
+
+    @Test
+    void percentileFallsBackUntilEnoughSamples() {
+        LatencyTracker tracker = new LatencyTracker(90);
+        long now = System.nanoTime();
+        assertEquals(7L, tracker.percentile(now, 7L));
+        for (int i = 1; i <= 100; i++) {
+            tracker.record(i);
+        }
+        assertEquals(90L, tracker.percentile(now + 2_000_000_000L, 7L));
+    }
+}
@@ -0,0 +1,327 @@
+package com.bestlink.hedge;
+
+import com.bestlink.configuration.LocalNacosServerInstanceConfiguration;
+import com.bestlink.lifecycle.InFlightResponse;
+import com.bestlink.lifecycle.IsolationLoadBalancerLifecycle;
+import com.bestlink.loadbalancer.ReactorIsolationRobinLoadBalancer;
+import com.bestlink.properties.IsolationProperties;
+import com.bestlink.stats.InstanceStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.*;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Proxy;
+import java.net.ConnectException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author xuzhongkang
+ * @since 2026/10/22 11:20
+ **/
+class HedgingFilterTest {
+
+    private static final String SERVICE_ID = "user-service";
+    private static final String ROUTE_ID = "user-route";
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final ServiceInstance primary = instance("10.0.0.1", false);
+    private final ServiceInstance other = instance("10.0.0.2", false);
+    private ReactorIsolationRobinLoadBalancer loadBalancer;
+
+    /**
+     * 桩过滤器链收到的 exchange 及请求的实例。
+     */
+    private final List<ServerWebExchange> forwarded = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        loadBalancer = loadBalancer(primary, other);
+        // 构建路由快照，对冲请求只使用已有的快照
+        loadBalancer.choose(new DefaultRequest<>(new RequestDataContext(new RequestData(HttpMethod.GET,
+                URI.create("http://" + SERVICE_ID), new HttpHeaders(), new LinkedMultiValueMap<>(), new HashMap<>())))).block();
+    }
+
+    private static ServiceInstance instance(String host, boolean local) {
+        Map<String, String> metadata = new HashMap<>();
+        if (local) {
+            metadata.put(LocalNacosServerInstanceConfiguration.NACOS_METADATA_LOCAL_KEY, "local-instance");
+        }
+        return new DefaultServiceInstance(host + ":8080", SERVICE_ID, host, 8080, false, metadata);
+    }
+
+    private static ReactorIsolationRobinLoadBalancer loadBalancer(ServiceInstance... instances) {
+        List<ServiceInstance> list = Arrays.asList(instances);
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("supplier", new ServiceInstanceListSupplier() {
+            @Override
+            public String getServiceId() {
+                return SERVICE_ID;
+            }
+
+            @Override
+            public Flux<List<ServiceInstance>> get() {
+                return Flux.just(list);
+            }
+        });
+        return new ReactorIsolationRobinLoadBalancer(beanFactory.getBeanProvider(ServiceInstanceListSupplier.class), SERVICE_ID);
+    }
+
+    private HedgingFilter filter(Duration initialDelay) {
+        IsolationProperties.Hedge properties = new IsolationProperties.Hedge();
+        properties.setEnabled(true);
+        properties.setRoutes(Collections.singletonList(ROUTE_ID));
+        properties.setInitialDelay(initialDelay);
+        properties.setMinDelay(Duration.ofMillis(1));
+        properties.setBudgetPercent(100);
+        return new HedgingFilter(new LoadBalancerClientFactory() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> T getInstance(String name, Class<T> type) {
+                return (T) loadBalancer;
+            }
+        }, properties);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object stub(Class<?> type, Map<String, Object> values) {
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class[]{type}, (proxy, method, args) -> {
+            if (method.getName().equals("toString")) {
+                return type.getSimpleName();
+            }
+            if (!values.containsKey(method.getName())) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+            Object value = values.get(method.getName());
+            return value instanceof java.util.function.Function ? ((java.util.function.Function<Object[], Object>) value).apply(args) : value;
+        });
+    }
+
+    /**
+     * 只支持对冲过滤器用到的方法的 exchange：路由、负载均衡结果、请求 url、请求方法及请求头、响应状态码及响应头。
+     */
+    private static ServerWebExchange exchange(HttpMethod method, HttpHeaders requestHeaders, ServiceInstance chosen) {
+        return exchange(method, requestHeaders, new DefaultResponse(chosen));
+    }
+
+    private static ServerWebExchange exchange(HttpMethod method, HttpHeaders requestHeaders, Response<ServiceInstance> lbResponse) {
+        ServiceInstance chosen = lbResponse.getServer();
+        URI url = URI.create("http://" + chosen.getHost() + ":" + chosen.getPort() + "/users");
+        Map<String, Object> request = new HashMap<>();
+        request.put("getMethod", method);
+        request.put("getMethodValue", method.name());
+        request.put("getHeaders", requestHeaders);
+        request.put("getURI", url);
+        request.put("getBody", Flux.empty());
+
+        HttpHeaders responseHeaders = new HttpHeaders();
+        AtomicReference<Integer> status = new AtomicReference<>();
+        Map<String, Object> response = new HashMap<>();
+        response.put("getHeaders", responseHeaders);
+        response.put("getRawStatusCode", (java.util.function.Function<Object[], Object>) args -> status.get());
+        response.put("setRawStatusCode", (java.util.function.Function<Object[], Object>) args -> {
+            status.set((Integer) args[0]);
+            return true;
+        });
+
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR,
+                Route.async().id(ROUTE_ID).uri("lb://" + SERVICE_ID).predicate(exchange -> true).build());
+        attributes.put(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR, lbResponse);
+        attributes.put(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR, url);
+        Map<String, Object> exchange = new HashMap<>();
+        exchange.put("getRequest", stub(ServerHttpRequest.class, request));
+        exchange.put("getResponse", stub(ServerHttpResponse.class, response));
+        exchange.put("getAttributes", attributes);
+        exchange.put("getAttribute", (java.util.function.Function<Object[], Object>) args -> attributes.get(args[0]));
+        return (ServerWebExchange) stub(ServerWebExchange.class, exchange);
+    }
+
+    private static ServerWebExchange exchange(HttpMethod method, ServiceInstance chosen) {
+        return exchange(method, new HttpHeaders(), chosen);
+    }
+
+    private static String hostOf(ServerWebExchange exchange) {
+        URI url = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+        return url.getHost();
+    }
+
+    /**
+     * 模拟 NettyRoutingFilter：写入状态码、响应头及后端响应，slowHost 的请求一直没有响应。
+     */
+    private GatewayFilterChain chain(String slowHost, AtomicBoolean slowCancelled) {
+        return exchange -> {
+            forwarded.add(exchange);
+            String host = hostOf(exchange);
+            if (host.equals(slowHost)) {
+                return Mono.<Void>never().doOnCancel(() -> slowCancelled.set(true));
+            }
+            exchange.getResponse().setRawStatusCode(201);
+            exchange.getResponse().getHeaders().add("X-Backend", host);
+            exchange.getAttributes().put(ServerWebExchangeUtils.CLIENT_RESPONSE_ATTR, host);
+            return Mono.empty();
+        };
+    }
+
+    @Test
+    void hedgeWinsAndPrimaryIsCancelled() {
+        ServerWebExchange exchange = exchange(HttpMethod.GET, primary);
+        AtomicBoolean primaryCancelled = new AtomicBoolean();
+        filter(Duration.ofMillis(20)).filter(exchange, chain(primary.getHost(), primaryCancelled)).block(TIMEOUT);
+
+        assertEquals(2, forwarded.size());
+        assertTrue(primaryCancelled.get());
+        // 胜出的对冲请求的状态码、响应头及 attributes 写回原 exchange
+        assertEquals(201, exchange.getResponse().getRawStatusCode());
+        assertEquals(Collections.singletonList(other.getHost()), exchange.getResponse().getHeaders().get("X-Backend"));
+        assertEquals(other.getHost(), exchange.getAttribute(ServerWebExchangeUtils.CLIENT_RESPONSE_ATTR));
+        assertEquals(other.getHost(), hostOf(exchange));
+        // 对冲请求的在途请求数在 doFinally 中释放，可能晚于 block 返回
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (loadBalancer.statsOf(other).getInFlight() != 0 && System.nanoTime() < deadline) {
+            Thread.yield();
+        }
+        assertEquals(0, loadBalancer.statsOf(other).getInFlight());
+    }
+
+    @Test
+    void failedHedgeDoesNotFailRequest() {
+        ServerWebExchange exchange = exchange(HttpMethod.GET, primary);
+        GatewayFilterChain chain = forwardedExchange -> {
+            forwarded.add(forwardedExchange);
+            String host = hostOf(forwardedExchange);
+            if (host.equals(other.getHost())) {
+                return Mono.error(new ConnectException("Connection refused"));
+            }
+            // 原始请求在对冲请求失败之后才收到响应
+            return Mono.delay(Duration.ofMillis(200)).then(Mono.fromRunnable(() -> {
+                forwardedExchange.getResponse().setRawStatusCode(201);
+                forwardedExchange.getResponse().getHeaders().add("X-Backend", host);
+            }));
+        };
+        filter(Duration.ofMillis(20)).filter(exchange, chain).block(TIMEOUT);
+
+        assertEquals(2, forwarded.size());
+        assertEquals(201, exchange.getResponse().getRawStatusCode());
+        assertEquals(Collections.singletonList(primary.getHost()), exchange.getResponse().getHeaders().get("X-Backend"));
+        // 对冲请求的失败记录在对冲实例的统计中
+        InstanceStats hedgeStats = loadBalancer.statsOf(other);
+        assertEquals(1, hedgeStats.getConsecutiveConnectFailures());
+        assertEquals(1, hedgeStats.getConsecutiveFailures());
+        assertEquals(0, hedgeStats.getInFlight());
+    }
+
+    @Test
+    void primaryCancelledByHedgeRecordsNoSample() {
+        InstanceStats primaryStats = loadBalancer.statsOf(primary);
+        InFlightResponse lbResponse = new InFlightResponse(primary, primaryStats);
+        ServerWebExchange exchange = exchange(HttpMethod.GET, new HttpHeaders(), lbResponse);
+        Request<RequestDataContext> request = new DefaultRequest<>(new RequestDataContext(new RequestData(HttpMethod.GET,
+                URI.create("http://" + SERVICE_ID), new HttpHeaders(), new LinkedMultiValueMap<>(), new HashMap<>())));
+        IsolationLoadBalancerLifecycle lifecycle = new IsolationLoadBalancerLifecycle();
+        lifecycle.onStartRequest(request, lbResponse);
+
+        filter(Duration.ofMillis(20)).filter(exchange, chain(primary.getHost(), new AtomicBoolean())).block(TIMEOUT);
+        assertEquals(0, primaryStats.getInFlight());
+
+        // ReactiveLoadBalancerClientFilter 以原 exchange 上的结果（对冲请求的 5xx 响应）回调 onComplete
+        ResponseData responseData = new ResponseData(HttpStatus.SERVICE_UNAVAILABLE, new HttpHeaders(), new LinkedMultiValueMap<>(),
+                request.getContext().getClientRequest());
+        lifecycle.onComplete(new CompletionContext<>(CompletionContext.Status.SUCCESS, null, request, lbResponse, responseData));
+        assertEquals(0, primaryStats.getInFlight());
+        assertEquals(0, primaryStats.getConsecutiveFailures());
+        // 没有响应时间样本时使用默认值
+        assertEquals(1000D, primaryStats.peakEwmaLoad(System.nanoTime(), 1000D));
+    }
+
+    @Test
+    void primaryWinsBeforeHedgeDelay() {
+        ServerWebExchange exchange = exchange(HttpMethod.GET, primary);
+        AtomicBoolean hedgeCancelled = new AtomicBoolean();
+        filter(Duration.ofSeconds(30)).filter(exchange, chain(other.getHost(), hedgeCancelled)).block(TIMEOUT);
+
+        assertEquals(1, forwarded.size());
+        assertNotSame(exchange, forwarded.get(0));
+        assertEquals(201, exchange.getResponse().getRawStatusCode());
+        assertEquals(Collections.singletonList(primary.getHost()), exchange.getResponse().getHeaders().get("X-Backend"));
+        assertEquals(primary.getHost(), hostOf(exchange));
+    }
+
+    @Test
+    void onlyIdempotentRequestsWithoutBodyAreHedged() {
+        HedgingFilter filter = filter(Duration.ofSeconds(30));
+        for (HttpMethod method : new HttpMethod[]{HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS}) {
+            forwarded.clear();
+            ServerWebExchange exchange = exchange(method, primary);
+            filter.filter(exchange, chain(null, new AtomicBoolean())).block(TIMEOUT);
+            assertTrue(forwarded.get(0) instanceof HedgeExchange, method.name());
+        }
+        for (HttpMethod method : new HttpMethod[]{HttpMethod.POST, HttpMethod.PUT, HttpMethod.PATCH, HttpMethod.DELETE}) {
+            forwarded.clear();
+            ServerWebExchange exchange = exchange(method, primary);
+            filter.filter(exchange, chain(null, new AtomicBoolean())).block(TIMEOUT);
+            assertSame(exchange, forwarded.get(0), method.name());
+        }
+        HttpHeaders withBody = new HttpHeaders();
+        withBody.setContentLength(16);
+        forwarded.clear();
+        ServerWebExchange exchange = exchange(HttpMethod.GET, withBody, primary);
+        filter.filter(exchange, chain(null, new AtomicBoolean())).block(TIMEOUT);
+        assertSame(exchange, forwarded.get(0));
+    }
+
+    @Test
+    void localInstanceIsNotHedged() {
+        ServerWebExchange exchange = exchange(HttpMethod.GET, instance("192.168.1.10", true));
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Mono<Void> result = filter(Duration.ofMillis(1)).filter(exchange, chain("192.168.1.10", cancelled));
+        assertThrows(IllegalStateException.class, () -> result.block(Duration.ofMillis(200)));
+
+        assertEquals(1, forwarded.size());
+        assertSame(exchange, forwarded.get(0));
+    }
+
+    @Test
+    void attemptDoesNotTouchOriginalResponseUntilCommitted() {
+        ServerWebExchange exchange = exchange(HttpMethod.GET, primary);
+        URI hedgeUrl = URI.create("http://10.0.0.2:8080/users");
+        HedgeExchange attempt = new HedgeExchange(exchange, hedgeUrl);
+        attempt.getResponse().setRawStatusCode(503);
+        attempt.getResponse().getHeaders().add("Retry-After", "1");
+        attempt.getAttributes().put(ServerWebExchangeUtils.CLIENT_RESPONSE_ATTR, "response");
+
+        assertNull(exchange.getResponse().getRawStatusCode());
+        assertTrue(exchange.getResponse().getHeaders().isEmpty());
+        assertNull(exchange.getAttribute(ServerWebExchangeUtils.CLIENT_RESPONSE_ATTR));
+        assertNotEquals(hedgeUrl, exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR));
+
+        attempt.commitTo(exchange);
+        assertEquals(503, exchange.getResponse().getRawStatusCode());
+        assertEquals("1", exchange.getResponse().getHeaders().getFirst("Retry-After"));
+        assertEquals("response", exchange.getAttribute(ServerWebExchangeUtils.CLIENT_RESPONSE_ATTR));
+        assertEquals(hedgeUrl, exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR));
+    }
+}
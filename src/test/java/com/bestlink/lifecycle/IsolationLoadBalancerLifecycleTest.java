@@ -0,0 +1,208 @@
+package com.bestlink.lifecycle;
+
+import com.bestlink.loadbalancer.ReactorIsolationRobinLoadBalancer;
+import com.bestlink.properties.IsolationProperties;
+import com.bestlink.stats.InstanceStats;
+import com.bestlink.strategy.BalanceStrategy;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.*;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Proxy;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author xuzhongkang
+ * @since 2026/10/22 10:20
+ **/
+class IsolationLoadBalancerLifecycleTest {
+
+    private static final String SERVICE_ID = "demo-service";
+
+    private final IsolationLoadBalancerLifecycle lifecycle = new IsolationLoadBalancerLifecycle();
+    private final InFlightReleaseFilter releaseFilter = new InFlightReleaseFilter();
+    private final ReactorIsolationRobinLoadBalancer loadBalancer = loadBalancer(instance("10.0.0.1"));
+
+    static ServiceInstance instance(String host) {
+        return new DefaultServiceInstance(host + ":8080", SERVICE_ID, host, 8080, false, new HashMap<>());
+    }
+
+    static ReactorIsolationRobinLoadBalancer loadBalancer(ServiceInstance... instances) {
+        return loadBalancer(new IsolationProperties(), instances);
+    }
+
+    static ReactorIsolationRobinLoadBalancer loadBalancer(IsolationProperties properties, ServiceInstance... instances) {
+        List<ServiceInstance> list = Arrays.asList(instances);
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("supplier", new ServiceInstanceListSupplier() {
+            @Override
+            public String getServiceId() {
+                return SERVICE_ID;
+            }
+
+            @Override
+            public Flux<List<ServiceInstance>> get() {
+                return Flux.just(list);
+            }
+        });
+        return new ReactorIsolationRobinLoadBalancer(beanFactory.getBeanProvider(ServiceInstanceListSupplier.class), SERVICE_ID, properties);
+    }
+
+    static Request<RequestDataContext> request() {
+        RequestData requestData = new RequestData(HttpMethod.GET, URI.create("http://" + SERVICE_ID), new HttpHeaders(),
+                new LinkedMultiValueMap<>(), new HashMap<>());
+        return new DefaultRequest<>(new RequestDataContext(requestData));
+    }
+
+    /**
+     * 只支持读写 attributes 的 exchange。
+     */
+    private static ServerWebExchange exchange(Response<ServiceInstance> lbResponse) {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR, lbResponse);
+        return (ServerWebExchange) Proxy.newProxyInstance(ServerWebExchange.class.getClassLoader(), new Class[]{ServerWebExchange.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getAttributes":
+                            return attributes;
+                        case "getAttribute":
+                            return attributes.get(args[0]);
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private InFlightResponse choose(Request<RequestDataContext> request) {
+        return choose(loadBalancer, request);
+    }
+
+    private static InFlightResponse choose(ReactorIsolationRobinLoadBalancer loadBalancer, Request<RequestDataContext> request) {
+        Response<ServiceInstance> response = loadBalancer.choose(request).block();
+        assertTrue(response instanceof InFlightResponse);
+        return (InFlightResponse) response;
+    }
+
+    @Test
+    void releasesInFlightOnComplete() {
+        Request<RequestDataContext> request = request();
+        InFlightResponse response = choose(request);
+        InstanceStats stats = response.getStats();
+
+        lifecycle.onStartRequest(request, response);
+        assertEquals(1, stats.getInFlight());
+        lifecycle.onComplete(new CompletionContext<>(CompletionContext.Status.SUCCESS, request, response, null));
+        assertEquals(0, stats.getInFlight());
+        assertFalse(response.release());
+    }
+
+    @Test
+    void releasesInFlightWhenRequestIsCancelled() {
+        Request<RequestDataContext> request = request();
+        InFlightResponse response = choose(request);
+        InstanceStats stats = response.getStats();
+        lifecycle.onStartRequest(request, response);
+
+        // 客户端断开连接：请求被取消，ReactiveLoadBalancerClientFilter 不回调 onComplete
+        Disposable subscription = releaseFilter.filter(exchange(response), exchange -> Mono.never()).subscribe();
+        assertEquals(1, stats.getInFlight());
+        subscription.dispose();
+        assertEquals(0, stats.getInFlight());
+
+        // 之后即使回调 onComplete 也不会重复释放
+        lifecycle.onComplete(new CompletionContext<>(CompletionContext.Status.FAILED, request, response, null));
+        InFlightResponse next = choose(request());
+        lifecycle.onStartRequest(request, next);
+        assertEquals(1, stats.getInFlight());
+    }
+
+    @Test
+    void completedRequestIsNotReleasedAgainOnCancel() {
+        Request<RequestDataContext> request = request();
+        InFlightResponse response = choose(request);
+        InstanceStats stats = response.getStats();
+        lifecycle.onStartRequest(request, response);
+        lifecycle.onStartRequest(request, response);
+        assertEquals(1, stats.getInFlight());
+
+        Disposable subscription = releaseFilter.filter(exchange(response), exchange -> Mono.never()).subscribe();
+        lifecycle.onComplete(new CompletionContext<>(CompletionContext.Status.SUCCESS, request, response, null));
+        subscription.dispose();
+        InFlightResponse next = choose(request());
+        lifecycle.onStartRequest(request, next);
+        assertEquals(1, stats.getInFlight());
+    }
+
+    @Test
+    void leastInFlightFollowsStartAndComplete() {
+        IsolationProperties properties = new IsolationProperties();
+        properties.setStrategy(BalanceStrategy.LEAST_IN_FLIGHT);
+        ReactorIsolationRobinLoadBalancer loadBalancer = loadBalancer(properties, instance("10.0.0.1"), instance("10.0.0.2"));
+        Request<RequestDataContext> request = request();
+
+        InFlightResponse first = choose(loadBalancer, request);
+        lifecycle.onStartRequest(request, first);
+        InFlightResponse second = choose(loadBalancer, request);
+        assertNotEquals(first.getServer().getHost(), second.getServer().getHost());
+        lifecycle.onStartRequest(request, second);
+        assertEquals(1, first.getStats().getInFlight());
+        assertEquals(1, second.getStats().getInFlight());
+
+        // 两个实例中在途请求较少的一个
+        lifecycle.onComplete(new CompletionContext<>(CompletionContext.Status.SUCCESS, request, first, null));
+        assertEquals(0, first.getStats().getInFlight());
+        assertEquals(first.getServer().getHost(), choose(loadBalancer, request).getServer().getHost());
+        lifecycle.onComplete(new CompletionContext<>(CompletionContext.Status.FAILED, request, second, null));
+        assertEquals(0, second.getStats().getInFlight());
+    }
+
+    @Test
+    void recordsOutcomeOfCompletedRequests() {
+        Request<RequestDataContext> request = request();
+        InstanceStats stats = choose(request).getStats();
+
+        complete(request, CompletionContext.Status.FAILED, new ConnectException("Connection refused"), null);
+        assertEquals(1, stats.getConsecutiveConnectFailures());
+        assertEquals(1, stats.getConsecutiveFailures());
+
+        complete(request, CompletionContext.Status.FAILED, new SocketTimeoutException("Read timed out"), null);
+        assertEquals(2, stats.getConsecutiveConnectFailures());
+        assertEquals(2, stats.getConsecutiveFailures());
+        // 响应超时不能由 TCP 探测清除
+        assertFalse(stats.probeSucceeded());
+
+        // 收到 5xx 响应：连接成功，但请求失败
+        complete(request, CompletionContext.Status.SUCCESS, null, HttpStatus.SERVICE_UNAVAILABLE);
+        assertEquals(0, stats.getConsecutiveConnectFailures());
+        assertEquals(3, stats.getConsecutiveFailures());
+
+        complete(request, CompletionContext.Status.SUCCESS, null, HttpStatus.OK);
+        assertEquals(0, stats.getConsecutiveFailures());
+        assertEquals(0, stats.getInFlight());
+    }
+
+    private void complete(Request<RequestDataContext> request, CompletionContext.Status status, Throwable error, HttpStatus httpStatus) {
+        InFlightResponse response = choose(request);
+        lifecycle.onStartRequest(request, response);
+        ResponseData responseData = httpStatus == null ? null
+                : new ResponseData(httpStatus, new HttpHeaders(), new LinkedMultiValueMap<>(), request.getContext().getClientRequest());
+        lifecycle.onComplete(new CompletionContext<>(status, error, request, response, responseData));
+    }
+}
@@ -0,0 +1,75 @@
+package com.bestlink.limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author xuzhongkang
+ * @since 2026/10/21 15:10
+ **/
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long RTT = TimeUnit.MILLISECONDS.toNanos(20);
+
+    private static AdaptiveConcurrencyLimit newLimit() {
+        return new AdaptiveConcurrencyLimit(20, 2, 200, 0.2D, 1.5D, 0.9D);
+    }
+
+    @Test
+    void growsWhileLatencyIsStableUnderLoad() {
+        AdaptiveConcurrencyLimit limit = newLimit();
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(RTT, limit.getLimit());
+        }
+        assertTrue(limit.getLimit() > 20);
+        assertTrue(limit.getLimit() <= 200);
+    }
+
+    @Test
+    void doesNotGrowWhenUnderused() {
+        AdaptiveConcurrencyLimit limit = newLimit();
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(RTT, 1);
+        }
+        assertEquals(20, limit.getLimit());
+    }
+
+    @Test
+    void shrinksWhenLatencyRises() {
+        AdaptiveConcurrencyLimit limit = newLimit();
+        for (int i = 0; i < 20; i++) {
+            limit.onSample(RTT, limit.getLimit());
+        }
+        int before = limit.getLimit();
+        for (int i = 0; i < 50; i++) {
+            // 实例开始排队，响应时间变为基准的 10 倍
+            limit.onSample(RTT * 10, limit.getLimit());
+        }
+        assertTrue(limit.getLimit() < before);
+        assertTrue(limit.getLimit() >= 2);
+    }
+
+    @Test
+    void backsOffOnDropsDownToMinLimit() {
+        AdaptiveConcurrencyLimit limit = newLimit();
+        limit.onDropped();
+        assertEquals(18, limit.getLimit());
+        for (int i = 0; i < 100; i++) {
+            limit.onDropped();
+        }
+        assertEquals(2, limit.getLimit());
+        assertTrue(limit.isAtLimit(2));
+        assertFalse(limit.isAtLimit(1));
+    }
+
+    @Test
+    void tracksLongTermLatency() {
+        AdaptiveConcurrencyLimit limit = newLimit();
+        assertEquals(0, limit.getLongRttMicros());
+        limit.onSample(RTT, 1);
+        assertEquals(20_000, limit.getLongRttMicros());
+    }
+}
@@ -0,0 +1,114 @@
+package com.bestlink.loadbalancer;
+
+import com.bestlink.configuration.LocalNacosServerInstanceConfiguration;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author xuzhongkang
+ * @since 2026/10/21 14:30
+ **/
+class IsolationRoutingSnapshotTest {
+
+    private static ServiceInstance local(String host, int port, String id) {
+        Map<String, String> metadata = new HashMap<>();
+        metadata.put(LocalNacosServerInstanceConfiguration.NACOS_METADATA_LOCAL_KEY, id);
+        return new DefaultServiceInstance(host + ":" + port, "demo", host, port, false, metadata);
+    }
+
+    private static IsolationRoutingSnapshot<ServiceInstance> snapshot(ServiceInstance... instances) {
+        List<ServiceInstance> list = new ArrayList<>();
+        for (ServiceInstance instance : instances) {
+            list.add(instance);
+        }
+        list.add(new DefaultServiceInstance("shared", "demo", "10.0.1.1", 8080, false, new HashMap<>()));
+        return IsolationRoutingSnapshot.build(list, list, ServiceInstanceAdapter.INSTANCE);
+    }
+
+    @Test
+    void targetsByInstanceIdHostPortOrHost() {
+        ServiceInstance alice = local("192.168.1.20", 8080, "alice");
+        ServiceInstance aliceSecond = local("192.168.1.20", 8081, "alice-order");
+        ServiceInstance bob = local("192.168.1.30", 8080, "bob");
+        IsolationRoutingSnapshot<ServiceInstance> snapshot = snapshot(alice, aliceSecond, bob);
+
+        assertSame(bob, snapshot.matchTarget("bob"));
+        assertSame(aliceSecond, snapshot.matchTarget("192.168.1.20:8081"));
+        assertSame(bob, snapshot.matchTarget("192.168.1.30"));
+        assertNull(snapshot.matchTarget("10.0.1.1"), "non-local instances can not be targeted");
+        assertNull(snapshot.matchTarget(null));
+    }
+
+    @Test
+    void targetWinsOverCallerIpAndFallsBackWhenMissing() {
+        ServiceInstance alice = local("192.168.1.20", 8080, "alice");
+        ServiceInstance bob = local("192.168.1.30", 8080, "bob");
+        IsolationRoutingSnapshot<ServiceInstance> snapshot = snapshot(alice, bob);
+
+        assertSame(bob, snapshot.matchLocal("192.168.1.20", "bob"));
+        assertSame(alice, snapshot.matchLocal("192.168.1.20", "carol"));
+        assertSame(alice, snapshot.matchLocal("192.168.1.20", null));
+    }
+
+    @Test
+    void sharedInstanceIdIsNotATarget() {
+        ServiceInstance first = local("192.168.1.20", 8080, "local-instance");
+        ServiceInstance second = local("192.168.1.30", 8080, "local-instance");
+        IsolationRoutingSnapshot<ServiceInstance> snapshot = snapshot(first, second);
+
+        assertNull(snapshot.matchTarget("local-instance"));
+        assertSame(second, snapshot.matchTarget("192.168.1.30:8080"));
+    }
+
+    private static ServiceInstance local(String host, String cidrs) {
+        ServiceInstance instance = local(host, 8080, "local-instance");
+        instance.getMetadata().put(LocalNacosServerInstanceConfiguration.NACOS_METADATA_CIDR_KEY, cidrs);
+        return instance;
+    }
+
+    @Test
+    void matchesCallerInDeclaredCidr() {
+        ServiceInstance alice = local("192.168.1.20", "10.8.0.0/16,2001:db8:1::/48");
+        IsolationRoutingSnapshot<ServiceInstance> snapshot = snapshot(alice);
+
+        assertSame(alice, snapshot.matchLocal("10.8.3.4"));
+        assertSame(alice, snapshot.matchLocal("2001:db8:1::5"));
+        assertNull(snapshot.matchLocal("10.9.0.1"));
+    }
+
+    @Test
+    void broadCidrIsIgnored() {
+        ServiceInstance alice = local("192.168.1.20", "0.0.0.0/0,10.0.0.0/8,::/0");
+        IsolationRoutingSnapshot<ServiceInstance> snapshot = snapshot(alice);
+
+        // 共享环境中其他调用方的请求不会路由到开发者电脑
+        assertNull(snapshot.matchLocal("172.16.0.9"));
+        assertNull(snapshot.matchLocal("10.20.0.9"));
+        assertNull(snapshot.matchLocal("2001:db8::9"));
+        assertSame(alice, snapshot.matchLocal("192.168.1.20"));
+
+        List<ServiceInstance> list = new ArrayList<>();
+        list.add(alice);
+        IsolationRoutingSnapshot<ServiceInstance> relaxed = IsolationRoutingSnapshot.build(list, list,
+                ServiceInstanceAdapter.INSTANCE, null, 8, 48);
+        assertSame(alice, relaxed.matchLocal("10.20.0.9"));
+    }
+
+    @Test
+    void cidrContainingNonLocalInstanceIsIgnored() {
+        // 非本地实例 10.0.1.1 在 10.0.0.0/16 内
+        ServiceInstance alice = local("192.168.1.20", "10.0.0.0/16,10.8.0.0/16");
+        IsolationRoutingSnapshot<ServiceInstance> snapshot = snapshot(alice);
+
+        assertNull(snapshot.matchLocal("10.0.2.2"));
+        assertSame(alice, snapshot.matchLocal("10.8.0.1"));
+    }
+}
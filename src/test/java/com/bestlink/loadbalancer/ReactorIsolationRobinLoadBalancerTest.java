@@ -0,0 +1,123 @@
+package com.bestlink.loadbalancer;
+
+import com.bestlink.lifecycle.InFlightResponse;
+import com.bestlink.properties.IsolationProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.*;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.LinkedMultiValueMap;
+import reactor.core.publisher.Flux;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author xuzhongkang
+ * @since 2026/10/22 10:40
+ **/
+class ReactorIsolationRobinLoadBalancerTest {
+
+    private static final String SERVICE_ID = "demo-service";
+    private static final String CALLER_HEADER = "X-Caller";
+
+    private static ServiceInstance instance(String host) {
+        return new DefaultServiceInstance(host + ":8080", SERVICE_ID, host, 8080, false, new HashMap<>());
+    }
+
+    private static ReactorIsolationRobinLoadBalancer loadBalancer(IsolationProperties properties, ServiceInstance... instances) {
+        List<ServiceInstance> list = Arrays.asList(instances);
+        return loadBalancer(properties, () -> list);
+    }
+
+    /**
+     * 每次从 instances 获取实例列表的负载均衡。
+     */
+    private static ReactorIsolationRobinLoadBalancer loadBalancer(IsolationProperties properties, Supplier<List<ServiceInstance>> instances) {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("supplier", new ServiceInstanceListSupplier() {
+            @Override
+            public String getServiceId() {
+                return SERVICE_ID;
+            }
+
+            @Override
+            public Flux<List<ServiceInstance>> get() {
+                return Flux.defer(() -> Flux.just(instances.get()));
+            }
+        });
+        return new ReactorIsolationRobinLoadBalancer(beanFactory.getBeanProvider(ServiceInstanceListSupplier.class), SERVICE_ID, properties);
+    }
+
+    private static Request<RequestDataContext> request(String caller) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(CALLER_HEADER, caller);
+        RequestData requestData = new RequestData(HttpMethod.GET, URI.create("http://" + SERVICE_ID), headers,
+                new LinkedMultiValueMap<>(), new HashMap<>());
+        return new DefaultRequest<>(new RequestDataContext(requestData));
+    }
+
+    private static InFlightResponse choose(ReactorIsolationRobinLoadBalancer loadBalancer, String caller) {
+        Response<ServiceInstance> response = loadBalancer.choose(request(caller)).block();
+        assertTrue(response instanceof InFlightResponse);
+        return (InFlightResponse) response;
+    }
+
+    @Test
+    void snapshotIsReusedForSameList() {
+        List<ServiceInstance> list = Arrays.asList(instance("10.0.0.1"), instance("10.0.0.2"));
+        AtomicReference<List<ServiceInstance>> current = new AtomicReference<>(list);
+        ReactorIsolationRobinLoadBalancer loadBalancer = loadBalancer(new IsolationProperties(), current::get);
+
+        choose(loadBalancer, "caller-a");
+        IsolationRoutingSnapshot<ServiceInstance> snapshot = loadBalancer.currentSnapshot();
+        choose(loadBalancer, "caller-a");
+        assertSame(snapshot, loadBalancer.currentSnapshot());
+
+        // 没有缓存的 supplier 每次返回新的 List，实例对象相同时复用快照
+        current.set(new ArrayList<>(list));
+        choose(loadBalancer, "caller-a");
+        assertSame(snapshot, loadBalancer.currentSnapshot());
+
+        // 实例列表变化时重建
+        current.set(Arrays.asList(list.get(0), instance("10.0.0.3")));
+        choose(loadBalancer, "caller-a");
+        assertNotSame(snapshot, loadBalancer.currentSnapshot());
+        assertEquals(2, loadBalancer.currentSnapshot().nonLocalSize());
+        assertFalse(loadBalancer.currentSnapshot().isBuiltFrom(list));
+    }
+
+    @Test
+    void affinityHitAtConcurrencyLimitFallsBackToSelector() {
+        IsolationProperties properties = new IsolationProperties();
+        properties.getAffinity().setEnabled(true);
+        properties.getAffinity().setHeader(CALLER_HEADER);
+        properties.getConcurrencyLimit().setEnabled(true);
+        properties.getConcurrencyLimit().setInitialLimit(1);
+        properties.getConcurrencyLimit().setMinLimit(1);
+        ReactorIsolationRobinLoadBalancer loadBalancer = loadBalancer(properties, instance("10.0.0.1"), instance("10.0.0.2"));
+
+        InFlightResponse first = choose(loadBalancer, "caller-a");
+        // 没有在途请求时粘性路由命中同一个实例
+        assertEquals(first.getServer().getHost(), choose(loadBalancer, "caller-a").getServer().getHost());
+
+        first.start();
+        InFlightResponse second = choose(loadBalancer, "caller-a");
+        assertNotEquals(first.getServer().getHost(), second.getServer().getHost());
+
+        // 重新选择后粘性记录指向新实例
+        first.release();
+        assertEquals(second.getServer().getHost(), choose(loadBalancer, "caller-a").getServer().getHost());
+    }
+}
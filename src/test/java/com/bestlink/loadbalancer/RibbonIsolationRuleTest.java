@@ -0,0 +1,152 @@
+package com.bestlink.loadbalancer;
+
+import com.alibaba.cloud.nacos.ribbon.NacosServer;
+import com.alibaba.nacos.api.naming.pojo.Instance;
+import com.bestlink.configuration.LocalNacosServerInstanceConfiguration;
+import com.bestlink.propagation.IsolationKey;
+import com.bestlink.properties.IsolationProperties;
+import com.bestlink.strategy.BalanceStrategy;
+import com.netflix.loadbalancer.BaseLoadBalancer;
+import com.netflix.loadbalancer.Server;
+import com.netflix.loadbalancer.ServerListChangeListener;
+import com.netflix.loadbalancer.ServerStatusChangeListener;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author xuzhongkang
+ * @since 2026/10/22 16:00
+ **/
+class RibbonIsolationRuleTest {
+
+    private static Server server(String ip) {
+        Instance instance = new Instance();
+        instance.setIp(ip);
+        instance.setPort(8080);
+        instance.setServiceName("demo-service");
+        NacosServer server = new NacosServer(instance);
+        server.setAlive(true);
+        return server;
+    }
+
+    private static RibbonIsolationRule rule(IsolationProperties properties, Server... servers) {
+        RibbonIsolationRule rule = new RibbonIsolationRule(properties);
+        BaseLoadBalancer loadBalancer = new BaseLoadBalancer();
+        loadBalancer.setRule(rule);
+        loadBalancer.addServers(Arrays.asList(servers));
+        rule.setLoadBalancer(loadBalancer);
+        return rule;
+    }
+
+    @Test
+    void peakEwmaUsesResponseTimesFromResponseReceived() {
+        IsolationProperties properties = new IsolationProperties();
+        properties.setStrategy(BalanceStrategy.PEAK_EWMA);
+        Server slow = server("10.0.0.1");
+        Server fast = server("10.0.0.2");
+        RibbonIsolationRule rule = rule(properties, slow, fast);
+        // 构建路由快照
+        assertNotNull(rule.choose(IsolationKey.of("192.168.1.20")));
+
+        rule.responseReceived(slow, TimeUnit.MILLISECONDS.toNanos(800));
+        rule.responseReceived(fast, TimeUnit.MILLISECONDS.toNanos(5));
+        for (int i = 0; i < 50; i++) {
+            assertSame(fast, rule.choose(IsolationKey.of("192.168.1.20")));
+        }
+    }
+
+    @Test
+    void unmeasuredInstanceUsesDefaultLatency() {
+        IsolationProperties properties = new IsolationProperties();
+        properties.setStrategy(BalanceStrategy.PEAK_EWMA);
+        Server slow = server("10.0.0.1");
+        Server unmeasured = server("10.0.0.2");
+        RibbonIsolationRule rule = rule(properties, slow, unmeasured);
+        assertNotNull(rule.choose(IsolationKey.of("192.168.1.20")));
+
+        // 默认响应时间 100ms，低于实测 800ms
+        rule.responseReceived(slow, TimeUnit.MILLISECONDS.toNanos(800));
+        for (int i = 0; i < 50; i++) {
+            assertSame(unmeasured, rule.choose(IsolationKey.of("192.168.1.20")));
+        }
+    }
+
+    @Test
+    void hashUsesHashKeyCarriedByIsolationKey() {
+        IsolationProperties properties = new IsolationProperties();
+        properties.setStrategy(BalanceStrategy.HASH);
+        properties.getHash().setHeader("X-Tenant-Id");
+        RibbonIsolationRule rule = rule(properties, server("10.0.0.1"), server("10.0.0.2"), server("10.0.0.3"), server("10.0.0.4"));
+
+        // 不读取当前线程上的 servlet 请求，不同请求方携带相同的 hash key 时路由到同一个实例
+        Server chosen = rule.choose(IsolationKey.of("192.168.1.20").withHashKey("tenant-a"));
+        assertNotNull(chosen);
+        for (int i = 0; i < 50; i++) {
+            assertSame(chosen, rule.choose(IsolationKey.of("192.168.1." + (30 + i)).withHashKey("tenant-a")));
+        }
+        // 没有 hash key 时使用请求方 ip
+        Server byIp = rule.choose(IsolationKey.of("192.168.1.20"));
+        assertSame(byIp, rule.choose(IsolationKey.of("192.168.1.20")));
+    }
+
+    private static Server localServer(String ip) {
+        NacosServer server = (NacosServer) server(ip);
+        server.getMetadata().put(LocalNacosServerInstanceConfiguration.NACOS_METADATA_LOCAL_KEY, "local-instance");
+        return server;
+    }
+
+    @Test
+    void serverListAndStatusChangesRebuildSnapshot() {
+        Server shared = server("10.0.0.1");
+        RibbonIsolationRule rule = rule(new IsolationProperties(), shared);
+        BaseLoadBalancer loadBalancer = (BaseLoadBalancer) rule.getLoadBalancer();
+        assertSame(shared, rule.choose(IsolationKey.of("192.168.1.20")));
+
+        // 服务列表变化：新注册的本地实例立即生效
+        Server local = localServer("192.168.1.20");
+        loadBalancer.addServer(local);
+        assertSame(local, rule.choose(IsolationKey.of("192.168.1.20")));
+
+        // 服务状态变化：下线的非本地实例不再被选中
+        Server other = server("10.0.0.2");
+        loadBalancer.addServer(other);
+        loadBalancer.markServerDown(shared);
+        for (int i = 0; i < 20; i++) {
+            assertSame(other, rule.choose(IsolationKey.of("192.168.1.30")));
+        }
+    }
+
+    @Test
+    void listenersAreRegisteredOncePerLoadBalancer() {
+        AtomicInteger listChangeListeners = new AtomicInteger();
+        AtomicInteger statusChangeListeners = new AtomicInteger();
+        BaseLoadBalancer loadBalancer = new BaseLoadBalancer() {
+            @Override
+            public void addServerListChangeListener(ServerListChangeListener listener) {
+                listChangeListeners.incrementAndGet();
+                super.addServerListChangeListener(listener);
+            }
+
+            @Override
+            public void addServerStatusChangeListener(ServerStatusChangeListener listener) {
+                statusChangeListeners.incrementAndGet();
+                super.addServerStatusChangeListener(listener);
+            }
+        };
+        RibbonIsolationRule rule = new RibbonIsolationRule(new IsolationProperties());
+        loadBalancer.setRule(rule);
+        rule.setLoadBalancer(loadBalancer);
+        loadBalancer.setRule(rule);
+        assertEquals(1, listChangeListeners.get());
+        assertEquals(1, statusChangeListeners.get());
+
+        rule.setLoadBalancer(new BaseLoadBalancer());
+        rule.setLoadBalancer(loadBalancer);
+        assertEquals(2, listChangeListeners.get());
+    }
+}
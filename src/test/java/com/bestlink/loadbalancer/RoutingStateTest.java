@@ -0,0 +1,83 @@
+package com.bestlink.loadbalancer;
+
+import com.bestlink.properties.IsolationProperties;
+import com.bestlink.properties.IsolationSettings;
+import com.bestlink.properties.IsolationSettingsHolder;
+import com.bestlink.strategy.BalanceStrategy;
+import com.bestlink.strategy.InstanceSelector;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author xuzhongkang
+ * @since 2026/10/21 19:30
+ **/
+class RoutingStateTest {
+
+    private final List<BalanceStrategy> built = new ArrayList<>();
+
+    private InstanceSelector<String> createSelector(BalanceStrategy strategy) {
+        built.add(strategy);
+        return snapshot -> strategy.name();
+    }
+
+    private static IsolationSettings settings(String target, BalanceStrategy strategy) {
+        return new IsolationSettings(true, null, target, strategy);
+    }
+
+    @Test
+    void reusesStateUntilSettingsArePublished() {
+        IsolationSettingsHolder holder = new IsolationSettingsHolder(settings(null, BalanceStrategy.RANDOM));
+        RoutingState.Reference<String> reference = new RoutingState.Reference<>(holder, this::createSelector);
+        RoutingState<String> state = reference.get();
+        assertSame(state, reference.get());
+        // 配置没有变化时不发布，也不替换路由状态
+        assertFalse(holder.publish(settings(null, BalanceStrategy.RANDOM)));
+        assertSame(state, reference.get());
+        assertEquals(Collections.singletonList(BalanceStrategy.RANDOM), built);
+    }
+
+    @Test
+    void keepsSelectorWhenStrategyIsUnchanged() {
+        IsolationSettingsHolder holder = new IsolationSettingsHolder(settings(null, BalanceStrategy.ROUND_ROBIN));
+        RoutingState.Reference<String> reference = new RoutingState.Reference<>(holder, this::createSelector);
+        RoutingState<String> before = reference.get();
+
+        assertTrue(holder.publish(settings("192.168.1.10", BalanceStrategy.ROUND_ROBIN)));
+        RoutingState<String> after = reference.get();
+        assertNotSame(before, after);
+        assertEquals("192.168.1.10", after.settings().getTarget());
+        assertSame(before.selector(), after.selector());
+        assertNull(before.settings().getTarget());
+        assertEquals(1, built.size());
+    }
+
+    @Test
+    void rebuildsSelectorWhenStrategyChanges() {
+        IsolationSettingsHolder holder = new IsolationSettingsHolder(settings(null, BalanceStrategy.RANDOM));
+        RoutingState.Reference<String> reference = new RoutingState.Reference<>(holder, this::createSelector);
+        assertFalse(reference.get().isHashing());
+
+        holder.publish(settings(null, BalanceStrategy.HASH));
+        RoutingState<String> state = reference.get();
+        assertTrue(state.isHashing());
+        assertEquals("HASH", state.selector().select(null));
+        assertEquals(Arrays.asList(BalanceStrategy.RANDOM, BalanceStrategy.HASH), built);
+    }
+
+    @Test
+    void activeWhenProfilesIntersectActiveEnv() {
+        IsolationProperties properties = new IsolationProperties();
+        assertTrue(IsolationSettings.of(properties, Arrays.asList("test", "mysql")).isActive());
+        assertFalse(IsolationSettings.of(properties, Collections.singletonList("prod")).isActive());
+        assertFalse(IsolationSettings.of(properties, null).isActive());
+        properties.setActiveEnv(new String[]{"prod"});
+        assertTrue(IsolationSettings.of(properties, Collections.singletonList("prod")).isActive());
+    }
+}
@@ -0,0 +1,55 @@
+package com.bestlink.matcher;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author xuzhongkang
+ * @since 2026/10/17 14:10
+ **/
+class IpPrefixTrieTest {
+
+    @Test
+    void parseEquivalentFormats() {
+        assertArrayEquals(IpAddresses.parse("10.0.0.1"), IpAddresses.parse("::ffff:10.0.0.1"));
+        assertArrayEquals(IpAddresses.parse("::FFFF:a00:1"), IpAddresses.parse(" 10.0.0.1 "));
+        assertArrayEquals(IpAddresses.parse("2001:db8::1"), IpAddresses.parse("2001:0DB8:0:0:0:0:0:0001"));
+        assertArrayEquals(IpAddresses.parse("fe80::1"), IpAddresses.parse("[fe80::1%eth0]"));
+        assertArrayEquals(new byte[16], IpAddresses.parse("::"));
+    }
+
+    @Test
+    void rejectInvalidAddresses() {
+        assertNull(IpAddresses.parse(null));
+        assertNull(IpAddresses.parse(""));
+        assertNull(IpAddresses.parse("unknown"));
+        assertNull(IpAddresses.parse("10.0.0.256"));
+        assertNull(IpAddresses.parse("10.0.0"));
+        assertNull(IpAddresses.parse("1::2::3"));
+        assertNull(IpAddresses.parse("1:2:3:4:5:6:7:8:9"));
+        assertNull(IpAddresses.parse("1:2:3:4:5:6:7::8"));
+        assertNull(IpAddresses.parse("2001:db8:::1"));
+        assertNull(CidrBlock.parse("10.0.0.0/33"));
+        assertNull(CidrBlock.parse("2001:db8::/129"));
+        assertNull(CidrBlock.parse("10.0.0.0/x"));
+    }
+
+    @Test
+    void longestPrefixMatch() {
+        IpPrefixTrie<String> trie = new IpPrefixTrie<>();
+        trie.insert(CidrBlock.parse("10.0.0.0/8"), "wide");
+        trie.insert(CidrBlock.parse("10.8.0.0/16"), "vpn");
+        trie.insert(CidrBlock.parse("10.8.0.0/16"), "duplicate");
+        trie.insert(CidrBlock.parse("10.8.1.7"), "host");
+        trie.insert(CidrBlock.parse("2001:db8::/32"), "ipv6");
+
+        assertEquals("host", trie.longestMatch(IpAddresses.parse("10.8.1.7")));
+        assertEquals("vpn", trie.longestMatch(IpAddresses.parse("10.8.200.1")));
+        assertEquals("wide", trie.longestMatch(IpAddresses.parse("::ffff:10.9.0.1")));
+        assertEquals("ipv6", trie.longestMatch(IpAddresses.parse("2001:db8:1234::5")));
+        assertNull(trie.longestMatch(IpAddresses.parse("192.168.1.1")));
+        assertNull(trie.longestMatch(IpAddresses.parse("2001:db9::1")));
+        assertEquals(4, trie.size());
+    }
+}
@@ -0,0 +1,98 @@
+package com.bestlink.outlier;
+
+import com.bestlink.loadbalancer.IsolationRoutingSnapshot;
+import com.bestlink.loadbalancer.ServiceInstanceAdapter;
+import com.bestlink.properties.IsolationProperties;
+import com.bestlink.stats.InstanceStats;
+import com.bestlink.stats.InstanceStatsRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author xuzhongkang
+ * @since 2026/10/18 16:30
+ **/
+class OutlierDetectorTest {
+
+    private static List<ServiceInstance> instances(int count) {
+        List<ServiceInstance> instances = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            instances.add(new DefaultServiceInstance("i" + i, "demo", "10.0.0." + i, 8080, false, new HashMap<>()));
+        }
+        return instances;
+    }
+
+    private static IsolationProperties.OutlierDetection properties() {
+        IsolationProperties.OutlierDetection properties = new IsolationProperties.OutlierDetection();
+        properties.setEnabled(true);
+        properties.setConsecutiveFailures(3);
+        return properties;
+    }
+
+    @Test
+    void ejectAfterConsecutiveFailures() {
+        OutlierDetector<ServiceInstance> detector = OutlierDetector.create(properties());
+        InstanceStatsRegistry registry = new InstanceStatsRegistry(detector.getWindowSize(), detector);
+        List<ServiceInstance> instances = instances(4);
+        IsolationRoutingSnapshot<ServiceInstance> snapshot = IsolationRoutingSnapshot.build(instances, instances, ServiceInstanceAdapter.INSTANCE, registry);
+        assertSame(snapshot, detector.filter(snapshot));
+
+        InstanceStats stats = snapshot.nonLocalStats(0);
+        stats.requestFailed();
+        stats.requestFailed();
+        stats.requestSucceeded();
+        stats.requestFailed();
+        stats.requestFailed();
+        assertEquals(4, detector.filter(snapshot).nonLocalSize());
+        stats.requestFailed();
+
+        IsolationRoutingSnapshot<ServiceInstance> filtered = detector.filter(snapshot);
+        assertEquals(3, filtered.nonLocalSize());
+        assertNull(filtered.nonLocalByKey("10.0.0.1:8080"));
+        assertSame(filtered, detector.filter(snapshot));
+    }
+
+    @Test
+    void capEjectedPercent() {
+        OutlierDetector<ServiceInstance> detector = OutlierDetector.create(properties());
+        InstanceStatsRegistry registry = new InstanceStatsRegistry(detector.getWindowSize(), detector);
+        List<ServiceInstance> instances = instances(4);
+        IsolationRoutingSnapshot<ServiceInstance> snapshot = IsolationRoutingSnapshot.build(instances, instances, ServiceInstanceAdapter.INSTANCE, registry);
+        detector.filter(snapshot);
+
+        for (int i = 0; i < 4; i++) {
+            for (int j = 0; j < 3; j++) {
+                snapshot.nonLocalStats(i).requestFailed();
+            }
+        }
+        assertEquals(2, detector.filter(snapshot).nonLocalSize());
+    }
+
+    @Test
+    void ejectionTimeGrowsExponentially() {
+        InstanceStats stats = new InstanceStats("10.0.0.1:8080");
+        long base = TimeUnit.SECONDS.toNanos(30);
+        long max = TimeUnit.MINUTES.toNanos(5);
+        long now = 0L;
+        assertEquals(base, stats.eject(now, base, max));
+        now += base;
+        assertEquals(base * 2, stats.eject(now, base, max));
+        now += base * 2;
+        assertEquals(base * 4, stats.eject(now, base, max));
+        now += base * 4;
+        assertEquals(base * 8, stats.eject(now, base, max));
+        now += base * 8;
+        assertEquals(max, stats.eject(now, base, max));
+        // 长时间没有被摘除后重新计数
+        now += max * 3;
+        assertEquals(base, stats.eject(now, base, max));
+    }
+}
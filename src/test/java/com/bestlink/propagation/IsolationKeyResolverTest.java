@@ -0,0 +1,104 @@
+package com.bestlink.propagation;
+
+import com.bestlink.properties.IsolationProperties;
+import com.bestlink.properties.IsolationSettingsHolder;
+import com.bestlink.resolver.ClientIpResolver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.HttpServletRequest;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author xuzhongkang
+ * @since 2026/10/20 16:40
+ **/
+class IsolationKeyResolverTest {
+
+    private final IsolationKeyResolver resolver = new IsolationKeyResolver(ClientIpResolver.DEFAULT_HEADERS);
+
+    /**
+     * 只实现 getHeader、getRemoteAddr、getAttribute、setAttribute 的 HttpServletRequest。
+     */
+    private static HttpServletRequest request(String remoteAddr, String header, String value) {
+        Map<String, Object> attributes = new HashMap<>();
+        return (HttpServletRequest) Proxy.newProxyInstance(IsolationKeyResolverTest.class.getClassLoader(),
+                new Class<?>[]{HttpServletRequest.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getHeader":
+                            return ((String) args[0]).equalsIgnoreCase(header) ? value : null;
+                        case "getRemoteAddr":
+                            return remoteAddr;
+                        case "getAttribute":
+                            return attributes.get((String) args[0]);
+                        case "setAttribute":
+                            attributes.put((String) args[0], args[1]);
+                            return null;
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    @AfterEach
+    void reset() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void resolvesFromRequestHeaderThenRemoteAddress() {
+        assertEquals(IsolationKey.of("10.0.0.9"), resolver.resolve(request("10.0.0.9", null, null)));
+
+        HttpServletRequest proxied = request("10.0.0.9", ClientIpResolver.X_REAL_IP, "192.168.1.20");
+        assertEquals(IsolationKey.of("192.168.1.20"), resolver.resolve(proxied));
+    }
+
+    @Test
+    void carriesHashKeyFromConfiguredHeader() {
+        IsolationKeyResolver hashing = new IsolationKeyResolver(IsolationSettingsHolder.of(new IsolationProperties()),
+                null, null, "X-Tenant-Id");
+        IsolationKey key = hashing.resolve(request("10.0.0.9", "X-Tenant-Id", "tenant-a"));
+        assertEquals("10.0.0.9", key.getOriginIp());
+        assertEquals("tenant-a", key.getHashKey());
+        assertNull(hashing.resolve(request("10.0.0.9", null, null)).getHashKey());
+
+        Map<String, String> headers = new HashMap<>();
+        headers.put(IsolationKey.HEADER, "192.168.1.20");
+        headers.put("X-Tenant-Id", "tenant-a");
+        assertEquals(IsolationKey.of("192.168.1.20").withHashKey("tenant-a"), hashing.resolveOutbound(headers, Map::get));
+    }
+
+    @Test
+    void wrappedTaskCarriesKeyAndRestoresWorkerThread() throws Exception {
+        HttpServletRequest request = request("10.0.0.9", ClientIpResolver.X_REAL_IP, "192.168.1.20");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            AtomicReference<IsolationKey> seen = new AtomicReference<>();
+            executor.submit(resolver.wrap(() -> seen.set(resolver.resolve()))).get(5, TimeUnit.SECONDS);
+            assertEquals(IsolationKey.of("192.168.1.20"), seen.get());
+            assertNull(executor.submit(IsolationContext::current).get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void noKeyLeavesTaskUnwrapped() {
+        Runnable task = () -> {
+        };
+        assertSame(task, resolver.wrap(task));
+        assertNull(IsolationKey.of(" "));
+    }
+}
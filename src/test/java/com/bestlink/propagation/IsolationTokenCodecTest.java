@@ -0,0 +1,84 @@
+package com.bestlink.propagation;
+
+import com.bestlink.properties.IsolationProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author xuzhongkang
+ * @since 2026/10/20 20:10
+ **/
+class IsolationTokenCodecTest {
+
+    private final IsolationTokenCodec codec = new IsolationTokenCodec("X-Isolation-Identity", "secret");
+
+    @Test
+    void roundTripKeepsIpAndTargetInstance() {
+        String token = codec.encode(IsolationKey.of("192.168.1.20", "alice"));
+        IsolationKey key = codec.decode(token);
+        assertEquals(IsolationKey.of("192.168.1.20", "alice"), key);
+        // 解析出的标识向下游转发时原样使用
+        assertSame(token, codec.encode(key));
+
+        IsolationKey ipv6 = codec.decode(codec.encode(IsolationKey.of("fe80::1")));
+        assertEquals("fe80::1", ipv6.getOriginIp());
+        assertNull(ipv6.getTarget());
+    }
+
+    @Test
+    void rejectsTamperedOrForeignTokens() {
+        String token = codec.encode(IsolationKey.of("192.168.1.20", "alice"));
+        assertNull(codec.decode(token.replace("192.168.1.20", "192.168.1.21")));
+        assertNull(codec.decode(token.replace("alice", "bob")));
+        assertNull(codec.decode(new IsolationTokenCodec("X-Isolation-Identity", "other").encode(IsolationKey.of("192.168.1.20"))));
+        assertNull(codec.decode("192.168.1.20"));
+        assertNull(codec.decode("192.168.1.20;;%%%"));
+        assertNull(codec.decode("192.168.1.20;;x;AAAA"));
+        assertNull(codec.decode(null));
+    }
+
+    @Test
+    void rejectsExpiredTokens() {
+        Instant issuedAt = Instant.parse("2026-10-22T10:00:00Z");
+        Duration maxAge = Duration.ofMinutes(5);
+        String token = new IsolationTokenCodec("X-Isolation-Identity", "secret", maxAge, Clock.fixed(issuedAt, ZoneOffset.UTC))
+                .encode(IsolationKey.of("192.168.1.20", "alice"));
+
+        assertNotNull(decodeAt(token, issuedAt.plus(maxAge), maxAge));
+        // 服务之间的时钟偏差
+        assertNotNull(decodeAt(token, issuedAt.minusSeconds(30), maxAge));
+        assertNull(decodeAt(token, issuedAt.plus(maxAge).plusSeconds(1), maxAge));
+        assertNull(decodeAt(token, issuedAt.minus(maxAge).minusSeconds(1), maxAge));
+        // 签发时间被修改后签名不正确
+        long issuedSeconds = issuedAt.getEpochSecond();
+        String renewed = token.replace(";" + issuedSeconds + ";", ";" + (issuedSeconds + 600) + ";");
+        assertNotEquals(token, renewed);
+        assertNull(decodeAt(renewed, issuedAt.plusSeconds(600), maxAge));
+    }
+
+    private static IsolationKey decodeAt(String token, Instant now, Duration maxAge) {
+        return new IsolationTokenCodec("X-Isolation-Identity", "secret", maxAge, Clock.fixed(now, ZoneOffset.UTC)).decode(token);
+    }
+
+    @Test
+    void instanceIdWithSeparatorIsDropped() {
+        IsolationKey key = codec.decode(codec.encode(IsolationKey.of("10.0.0.1", "a;b")));
+        assertEquals(IsolationKey.of("10.0.0.1"), key);
+    }
+
+    @Test
+    void disabledWithoutSecret() {
+        IsolationProperties.Propagation properties = new IsolationProperties.Propagation();
+        assertNull(IsolationTokenCodec.create(properties));
+        properties.setEnabled(true);
+        assertNull(IsolationTokenCodec.create(properties));
+        properties.setSecret("secret");
+        assertNotNull(IsolationTokenCodec.create(properties));
+    }
+}
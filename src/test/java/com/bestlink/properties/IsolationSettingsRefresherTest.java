@@ -0,0 +1,70 @@
+package com.bestlink.properties;
+
+import com.bestlink.strategy.BalanceStrategy;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author xuzhongkang
+ * @since 2026/10/21 19:30
+ **/
+class IsolationSettingsRefresherTest {
+
+    private final Map<String, Object> source = new HashMap<>();
+    private final StandardEnvironment environment = new StandardEnvironment();
+    private final IsolationSettingsHolder holder = new IsolationSettingsHolder(IsolationSettings.of(new IsolationProperties()));
+    private final IsolationSettingsRefresher refresher = new IsolationSettingsRefresher(environment, holder);
+
+    IsolationSettingsRefresherTest() {
+        source.put("spring.profiles.active", "dev");
+        environment.getPropertySources().addFirst(new MapPropertySource("config", source));
+    }
+
+    private static EnvironmentChangeEvent changed(String... keys) {
+        return new EnvironmentChangeEvent(new HashSet<>(Arrays.asList(keys)));
+    }
+
+    @Test
+    void publishesSettingsBoundFromEnvironment() {
+        IsolationSettings before = holder.get();
+        source.put("local.isolation-loadbalancer.target-ip", " 192.168.1.10 ");
+        source.put("local.isolation-loadbalancer.strategy", "round-robin");
+        source.put("local.isolation-loadbalancer.ip-headers", "x-real-ip,X_CLIENT_IP");
+        refresher.onApplicationEvent(changed("local.isolation-loadbalancer.target-ip"));
+
+        IsolationSettings after = holder.get();
+        assertNotSame(before, after);
+        assertTrue(after.isActive());
+        assertEquals("192.168.1.10", after.getTarget());
+        assertEquals(BalanceStrategy.ROUND_ROBIN, after.getStrategy());
+        assertEquals(Arrays.asList("x-real-ip", "X_CLIENT_IP"), after.getIpHeaders());
+    }
+
+    @Test
+    void deactivatesWhenActiveEnvNoLongerMatches() {
+        source.put("local.isolation-loadbalancer.active-env", "test");
+        refresher.onApplicationEvent(changed("local.isolationLoadbalancer.activeEnv"));
+        assertFalse(holder.get().isActive());
+    }
+
+    @Test
+    void ignoresUnrelatedKeysAndInvalidValues() {
+        IsolationSettings before = holder.get();
+        source.put("local.isolation-loadbalancer.target-ip", "192.168.1.10");
+        refresher.onApplicationEvent(changed("server.port"));
+        assertSame(before, holder.get());
+
+        source.put("local.isolation-loadbalancer.strategy", "no-such-strategy");
+        refresher.onApplicationEvent(changed("local.isolation-loadbalancer.strategy"));
+        assertSame(before, holder.get());
+    }
+}
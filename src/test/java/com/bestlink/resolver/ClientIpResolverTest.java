@@ -0,0 +1,74 @@
+package com.bestlink.resolver;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * @author xuzhongkang
+ * @since 2026/10/16 16:40
+ **/
+class ClientIpResolverTest {
+
+    private final ClientIpResolver resolver = new ClientIpResolver();
+
+    private static Map<String, String> headers(String... pairs) {
+        Map<String, String> headers = new HashMap<>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            headers.put(pairs[i], pairs[i + 1]);
+        }
+        return headers;
+    }
+
+    @Test
+    void resolveInHeaderOrder() {
+        Map<String, String> headers = headers(
+                ClientIpResolver.X_FORWARDED_FOR, "10.0.0.2",
+                ClientIpResolver.X_REAL_IP, "10.0.0.1",
+                ClientIpResolver.X_CLIENT_IP, "10.0.0.3");
+        assertEquals("10.0.0.1", resolver.resolve(headers, Map::get));
+    }
+
+    @Test
+    void resolveFirstForwardedIp() {
+        Map<String, String> headers = headers(ClientIpResolver.X_FORWARDED_FOR, " 10.0.0.2 , 192.168.1.1, 172.16.0.1");
+        assertEquals("10.0.0.2", resolver.resolve(headers, Map::get));
+    }
+
+    @Test
+    void skipUnknownAndEmptyHeaders() {
+        Map<String, String> headers = headers(
+                ClientIpResolver.X_REAL_IP, "unknown",
+                ClientIpResolver.X_FORWARDED_FOR, "UNKNOWN, 10.0.0.2",
+                ClientIpResolver.PROXY_CLIENT_IP, "",
+                ClientIpResolver.X_CLIENT_IP, "10.0.0.3");
+        assertEquals("10.0.0.3", resolver.resolve(headers, Map::get));
+    }
+
+    @Test
+    void returnNullWhenNotFound() {
+        assertNull(resolver.resolve(headers(), Map::get));
+    }
+
+    @Test
+    void resolveWithConfiguredHeaders() {
+        ClientIpResolver custom = new ClientIpResolver(Arrays.asList("X-Dev-Ip", ClientIpResolver.X_REAL_IP));
+        Map<String, String> headers = headers(
+                ClientIpResolver.X_REAL_IP, "10.0.0.1",
+                "X-Dev-Ip", "10.0.0.9");
+        assertEquals("10.0.0.9", custom.resolve(headers, Map::get));
+    }
+
+    @Test
+    void firstIpReturnsSameInstanceForSingleIp() {
+        String ip = "10.0.0.1";
+        assertSame(ip, ClientIpResolver.firstIp(ip));
+        assertNull(ClientIpResolver.firstIp(" , 10.0.0.1"));
+    }
+}
@@ -0,0 +1,55 @@
+package com.bestlink.stats;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author xuzhongkang
+ * @since 2026/10/18 17:20
+ **/
+class PeakEwmaTest {
+
+    private static final long DECAY = TimeUnit.SECONDS.toNanos(10);
+    private static final long START = TimeUnit.HOURS.toNanos(1);
+
+    @Test
+    void defaultBeforeFirstMeasurement() {
+        assertEquals(100_000D, new PeakEwma(DECAY).get(START, 100_000D));
+    }
+
+    @Test
+    void followsPeakImmediately() {
+        PeakEwma ewma = new PeakEwma(DECAY);
+        ewma.observe(TimeUnit.MILLISECONDS.toNanos(10), START);
+        ewma.observe(TimeUnit.MILLISECONDS.toNanos(500), START + TimeUnit.MILLISECONDS.toNanos(1));
+        assertEquals(500_000D, ewma.get(START + TimeUnit.MILLISECONDS.toNanos(1), 0D), 1D);
+    }
+
+    @Test
+    void lowerMeasurementsAreAveraged() {
+        PeakEwma ewma = new PeakEwma(DECAY);
+        ewma.observe(TimeUnit.MILLISECONDS.toNanos(500), START);
+        // 经过一个衰减时间常数，旧值权重为 1/e
+        long now = START + DECAY;
+        ewma.observe(TimeUnit.MILLISECONDS.toNanos(10), now);
+        double expected = 500_000D * Math.exp(-1) + 10_000D * (1 - Math.exp(-1));
+        assertEquals(expected, ewma.get(now, 0D), 1D);
+    }
+
+    @Test
+    void staleMeasurementDecays() {
+        PeakEwma ewma = new PeakEwma(DECAY);
+        ewma.observe(TimeUnit.MILLISECONDS.toNanos(500), START);
+        assertEquals(500_000D * Math.exp(-3), ewma.get(START + 3 * DECAY, 0D), 1D);
+    }
+
+    @Test
+    void negativeNanoTimeIsSupported() {
+        PeakEwma ewma = new PeakEwma(DECAY);
+        ewma.observe(TimeUnit.MILLISECONDS.toNanos(20), -START);
+        assertEquals(20_000D, ewma.get(-START, 0D), 1D);
+    }
+}
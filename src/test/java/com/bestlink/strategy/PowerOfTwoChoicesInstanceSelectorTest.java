@@ -0,0 +1,75 @@
+package com.bestlink.strategy;
+
+import com.bestlink.loadbalancer.IsolationRoutingSnapshot;
+import com.bestlink.loadbalancer.ServiceInstanceAdapter;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author xuzhongkang
+ * @since 2026/10/22 14:00
+ **/
+class PowerOfTwoChoicesInstanceSelectorTest {
+
+    private static ServiceInstance instance(int i) {
+        return new DefaultServiceInstance("i" + i, "demo", "10.0.0." + i, 8080, false, new HashMap<>());
+    }
+
+    private static IsolationRoutingSnapshot<ServiceInstance> snapshot(int size) {
+        List<ServiceInstance> instances = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            instances.add(instance(i));
+        }
+        return IsolationRoutingSnapshot.build(instances, instances, ServiceInstanceAdapter.INSTANCE);
+    }
+
+    @Test
+    void emptyAndSingleInstance() {
+        PowerOfTwoChoicesInstanceSelector<ServiceInstance> selector = new PowerOfTwoChoicesInstanceSelector<>((snapshot, index) -> {
+            throw new AssertionError("load should not be probed");
+        });
+        assertNull(selector.select(IsolationRoutingSnapshot.build(Collections.emptyList(), Collections.<ServiceInstance>emptyList(),
+                ServiceInstanceAdapter.INSTANCE)));
+        IsolationRoutingSnapshot<ServiceInstance> single = snapshot(1);
+        assertSame(single.nonLocal(0), selector.select(single));
+    }
+
+    @Test
+    void twoInstancesAlwaysPickLessLoaded() {
+        IsolationRoutingSnapshot<ServiceInstance> snapshot = snapshot(2);
+        double[] loads = {5D, 1D};
+        PowerOfTwoChoicesInstanceSelector<ServiceInstance> selector = new PowerOfTwoChoicesInstanceSelector<>((s, index) -> loads[index]);
+        for (int i = 0; i < 100; i++) {
+            assertSame(snapshot.nonLocal(1), selector.select(snapshot));
+        }
+    }
+
+    @Test
+    void comparesTwoDistinctInstances() {
+        IsolationRoutingSnapshot<ServiceInstance> snapshot = snapshot(3);
+        double[] loads = {0D, 1D, 2D};
+        PowerOfTwoChoicesInstanceSelector<ServiceInstance> selector = new PowerOfTwoChoicesInstanceSelector<>((s, index) -> loads[index]);
+        int[] selected = new int[3];
+        int rounds = 30000;
+        for (int i = 0; i < rounds; i++) {
+            ServiceInstance instance = selector.select(snapshot);
+            for (int j = 0; j < 3; j++) {
+                if (instance == snapshot.nonLocal(j)) {
+                    selected[j]++;
+                }
+            }
+        }
+        // 负载最大的实例总是与另一个实例比较，不会被选中；负载最小的实例被抽中（2/3）即胜出
+        assertEquals(0, selected[2]);
+        assertEquals(2D / 3D, selected[0] / (double) rounds, 0.02D);
+        assertEquals(1D / 3D, selected[1] / (double) rounds, 0.02D);
+    }
+}
@@ -0,0 +1,94 @@
+package com.bestlink.strategy;
+
+import com.bestlink.loadbalancer.IsolationRoutingSnapshot;
+import com.bestlink.loadbalancer.ServiceInstanceAdapter;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author xuzhongkang
+ * @since 2026/10/21 10:40
+ **/
+class RendezvousHashInstanceSelectorTest {
+
+    private static final int KEYS = 10000;
+
+    private static List<ServiceInstance> instances(int count) {
+        List<ServiceInstance> instances = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            instances.add(new DefaultServiceInstance("i" + i, "demo", "10.0.0." + i, 8080, false, new HashMap<>()));
+        }
+        return instances;
+    }
+
+    private static IsolationRoutingSnapshot<ServiceInstance> snapshot(List<ServiceInstance> instances) {
+        return IsolationRoutingSnapshot.build(instances, instances, ServiceInstanceAdapter.INSTANCE);
+    }
+
+    private static RendezvousHashInstanceSelector<ServiceInstance> selector() {
+        return new RendezvousHashInstanceSelector<>(ServiceInstanceAdapter.INSTANCE::getKey);
+    }
+
+    private static Map<String, String> assign(IsolationRoutingSnapshot<ServiceInstance> snapshot) {
+        RendezvousHashInstanceSelector<ServiceInstance> selector = selector();
+        Map<String, String> result = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            String key = "tenant-" + i;
+            result.put(key, selector.select(snapshot, key).getHost());
+        }
+        return result;
+    }
+
+    @Test
+    void sameKeySameInstanceRegardlessOfOrder() {
+        List<ServiceInstance> instances = instances(5);
+        Map<String, String> before = assign(snapshot(instances));
+        List<ServiceInstance> shuffled = new ArrayList<>(instances);
+        Collections.reverse(shuffled);
+        assertEquals(before, assign(snapshot(shuffled)));
+    }
+
+    @Test
+    void addingInstanceMovesAboutOneNthOfKeys() {
+        Map<String, String> before = assign(snapshot(instances(9)));
+        Map<String, String> after = assign(snapshot(instances(10)));
+        int moved = 0;
+        for (Map.Entry<String, String> entry : before.entrySet()) {
+            String now = after.get(entry.getKey());
+            if (!now.equals(entry.getValue())) {
+                // 只会迁移到新实例
+                assertEquals("10.0.0.10", now);
+                moved++;
+            }
+        }
+        assertEquals(KEYS / 10D, moved, KEYS * 0.02);
+    }
+
+    @Test
+    void keysSpreadEvenly() {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String host : assign(snapshot(instances(4))).values()) {
+            counts.merge(host, 1, Integer::sum);
+        }
+        assertEquals(4, counts.size());
+        for (int count : counts.values()) {
+            assertEquals(KEYS / 4D, count, KEYS * 0.03);
+        }
+    }
+
+    @Test
+    void withoutKeyFallsBackToRandom() {
+        IsolationRoutingSnapshot<ServiceInstance> snapshot = snapshot(instances(3));
+        assertNotNull(selector().select(snapshot, null));
+        assertNull(selector().select(snapshot(new ArrayList<>()), "tenant-1"));
+    }
+}
@@ -0,0 +1,81 @@
+package com.bestlink.strategy;
+
+import com.bestlink.loadbalancer.IsolationRoutingSnapshot;
+import com.bestlink.loadbalancer.ServiceInstanceAdapter;
+import com.bestlink.properties.IsolationProperties;
+import com.bestlink.stats.InstanceStats;
+import com.bestlink.stats.InstanceStatsRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author xuzhongkang
+ * @since 2026/10/19 10:15
+ **/
+class SlowStartInstanceSelectorTest {
+
+    private static ServiceInstance instance(int i) {
+        return new DefaultServiceInstance("i" + i, "demo", "10.0.0." + i, 8080, false, new HashMap<>());
+    }
+
+    private static SlowStartInstanceSelector<ServiceInstance> selector() {
+        IsolationProperties.SlowStart properties = new IsolationProperties.SlowStart();
+        properties.setEnabled(true);
+        properties.setWindow(Duration.ofSeconds(60));
+        properties.setMinWeightPercent(10);
+        return (SlowStartInstanceSelector<ServiceInstance>) SlowStartInstanceSelector.wrap(new RoundRobinInstanceSelector<ServiceInstance>(), properties);
+    }
+
+    @Test
+    void disabledReturnsDelegate() {
+        InstanceSelector<ServiceInstance> delegate = new RandomInstanceSelector<>();
+        assertSame(delegate, SlowStartInstanceSelector.wrap(delegate, new IsolationProperties.SlowStart()));
+    }
+
+    @Test
+    void weightRampsLinearlyFromFloor() {
+        InstanceStatsRegistry registry = new InstanceStatsRegistry();
+        registry.retain(new HashSet<>());
+        InstanceStats stats = registry.getOrCreate("10.0.0.1:8080");
+        SlowStartInstanceSelector<ServiceInstance> selector = selector();
+        long start = stats.getFirstSeenNanos();
+        assertEquals(0.1D, selector.weightOf(stats, start), 1e-9);
+        assertEquals(0.55D, selector.weightOf(stats, start + TimeUnit.SECONDS.toNanos(30)), 1e-9);
+        assertEquals(1D, selector.weightOf(stats, start + TimeUnit.SECONDS.toNanos(60)), 1e-9);
+    }
+
+    @Test
+    void instancesPresentAtStartupAreWarm() {
+        List<ServiceInstance> instances = new ArrayList<>();
+        instances.add(instance(1));
+        instances.add(instance(2));
+        InstanceStatsRegistry registry = new InstanceStatsRegistry();
+        IsolationRoutingSnapshot<ServiceInstance> initial = IsolationRoutingSnapshot.build(instances, instances, ServiceInstanceAdapter.INSTANCE, registry);
+        SlowStartInstanceSelector<ServiceInstance> selector = selector();
+        assertEquals(1D, selector.weightOf(initial.statsOf(instances.get(0)), System.nanoTime()));
+
+        List<ServiceInstance> scaled = new ArrayList<>(instances);
+        scaled.add(instance(3));
+        IsolationRoutingSnapshot<ServiceInstance> snapshot = IsolationRoutingSnapshot.build(scaled, scaled, ServiceInstanceAdapter.INSTANCE, registry);
+        assertTrue(selector.weightOf(snapshot.statsOf(scaled.get(2)), System.nanoTime()) < 0.5D);
+
+        int newInstance = 0;
+        for (int i = 0; i < 3000; i++) {
+            if (selector.select(snapshot) == scaled.get(2)) {
+                newInstance++;
+            }
+        }
+        // 没有慢启动时约 1000 次
+        assertTrue(newInstance < 500, "selected " + newInstance);
+    }
+}
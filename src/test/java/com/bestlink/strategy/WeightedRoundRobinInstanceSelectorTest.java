@@ -0,0 +1,86 @@
+package com.bestlink.strategy;
+
+import com.bestlink.loadbalancer.IsolationRoutingSnapshot;
+import com.bestlink.loadbalancer.ServiceInstanceAdapter;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author xuzhongkang
+ * @since 2026/10/22 14:30
+ **/
+class WeightedRoundRobinInstanceSelectorTest {
+
+    private final Map<ServiceInstance, Double> weights = new HashMap<>();
+    private final WeightedRoundRobinInstanceSelector<ServiceInstance> selector = new WeightedRoundRobinInstanceSelector<>(weights::get);
+
+    private IsolationRoutingSnapshot<ServiceInstance> snapshot(double... instanceWeights) {
+        List<ServiceInstance> instances = new ArrayList<>();
+        for (int i = 0; i < instanceWeights.length; i++) {
+            ServiceInstance instance = new DefaultServiceInstance("i" + i, "demo", "10.0.0." + i, 8080, false, new HashMap<>());
+            weights.put(instance, instanceWeights[i]);
+            instances.add(instance);
+        }
+        return IsolationRoutingSnapshot.build(instances, instances, ServiceInstanceAdapter.INSTANCE);
+    }
+
+    private static int[] counts(int[] sequence, int size) {
+        int[] counts = new int[size];
+        for (int index : sequence) {
+            counts[index]++;
+        }
+        return counts;
+    }
+
+    @Test
+    void smoothSequenceInterleavesInstances() {
+        // nginx 平滑加权轮询的经典示例：{a:5, b:1, c:1} -> a a b a c a a
+        assertArrayEquals(new int[]{0, 0, 1, 0, 2, 0, 0}, selector.buildSequence(snapshot(5, 1, 1)));
+    }
+
+    @Test
+    void weightsAreReducedByGcd() {
+        assertArrayEquals(new int[]{1, 0, 1}, selector.buildSequence(snapshot(2, 4)));
+        assertArrayEquals(new int[]{1, 0, 1, 1}, selector.buildSequence(snapshot(0.5D, 1.5D)));
+        assertArrayEquals(new int[]{0, 1, 2}, selector.buildSequence(snapshot(3, 3, 3)));
+    }
+
+    @Test
+    void zeroWeightInstancesAreSkipped() {
+        assertArrayEquals(new int[]{0}, selector.buildSequence(snapshot(1, 0)));
+        // 所有实例权重均为 0 时按相同权重处理
+        assertArrayEquals(new int[]{0, 1}, selector.buildSequence(snapshot(0, 0)));
+    }
+
+    @Test
+    void cycleLengthIsCapped() {
+        int[] sequence = selector.buildSequence(snapshot(1.23D, 45.67D));
+        assertTrue(sequence.length <= 4096, "length " + sequence.length);
+        int[] counts = counts(sequence, 2);
+        assertEquals(123D / 4567D, counts[0] / (double) counts[1], 0.01D);
+
+        // 权重很小的实例缩小后仍然保留
+        int[] tiny = counts(selector.buildSequence(snapshot(40.97D, 0.01D)), 2);
+        assertTrue(tiny[0] + tiny[1] <= 4096);
+        assertEquals(1, tiny[1]);
+    }
+
+    @Test
+    void selectFollowsSequenceAcrossCycles() {
+        IsolationRoutingSnapshot<ServiceInstance> snapshot = snapshot(3, 2, 1);
+        int[] selected = new int[3];
+        for (int i = 0; i < 6 * 10; i++) {
+            ServiceInstance instance = selector.select(snapshot);
+            selected[Integer.parseInt(instance.getInstanceId().substring(1))]++;
+        }
+        assertArrayEquals(new int[]{30, 20, 10}, selected);
+    }
+}
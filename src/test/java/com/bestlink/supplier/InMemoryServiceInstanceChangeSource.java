@@ -0,0 +1,35 @@
+package com.bestlink.supplier;
+
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 内存中的服务实例变更来源，代替 Nacos NamingService 用于测试。
+ *
+ * @author xuzhongkang
+ * @since 2026/10/18 09:30
+ **/
+class InMemoryServiceInstanceChangeSource implements ServiceInstanceChangeSource {
+
+    private final Map<String, List<Consumer<List<ServiceInstance>>>> listeners = new ConcurrentHashMap<>();
+
+    @Override
+    public Subscription subscribe(String serviceId, Consumer<List<ServiceInstance>> listener) {
+        List<Consumer<List<ServiceInstance>>> serviceListeners = listeners.computeIfAbsent(serviceId, key -> new CopyOnWriteArrayList<>());
+        serviceListeners.add(listener);
+        return () -> serviceListeners.remove(listener);
+    }
+
+    void publish(String serviceId, List<ServiceInstance> instances) {
+        listeners.getOrDefault(serviceId, new CopyOnWriteArrayList<>()).forEach(listener -> listener.accept(instances));
+    }
+
+    int subscriberCount(String serviceId) {
+        return listeners.getOrDefault(serviceId, new CopyOnWriteArrayList<>()).size();
+    }
+}
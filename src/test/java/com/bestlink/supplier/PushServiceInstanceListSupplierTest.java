@@ -0,0 +1,117 @@
+package com.bestlink.supplier;
+
+import com.bestlink.configuration.LocalNacosServerInstanceConfiguration;
+import com.bestlink.loadbalancer.ReactorIsolationRobinLoadBalancer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.*;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.LinkedMultiValueMap;
+import reactor.core.publisher.Flux;
+
+import java.net.URI;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author xuzhongkang
+ * @since 2026/10/18 09:30
+ **/
+class PushServiceInstanceListSupplierTest {
+
+    private static final String SERVICE_ID = "demo-service";
+
+    private final InMemoryServiceInstanceChangeSource changeSource = new InMemoryServiceInstanceChangeSource();
+    private final List<ServiceInstance> discovered = Collections.singletonList(instance("10.0.0.1", false));
+    private PushServiceInstanceListSupplier supplier;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        supplier = new PushServiceInstanceListSupplier(new StaticServiceInstanceListSupplier(discovered), changeSource);
+        supplier.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        supplier.destroy();
+    }
+
+    private static ServiceInstance instance(String host, boolean local) {
+        Map<String, String> metadata = new HashMap<>();
+        if (local) {
+            metadata.put(LocalNacosServerInstanceConfiguration.NACOS_METADATA_LOCAL_KEY, "local-instance");
+        }
+        return new DefaultServiceInstance(host + ":8080", SERVICE_ID, host, 8080, false, metadata);
+    }
+
+    private static Request<RequestDataContext> request(String clientIp) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("x-real-ip", clientIp);
+        RequestData requestData = new RequestData(HttpMethod.GET, URI.create("http://" + SERVICE_ID), headers,
+                new LinkedMultiValueMap<>(), new HashMap<>());
+        return new DefaultRequest<>(new RequestDataContext(requestData));
+    }
+
+    @Test
+    void seedFromDelegateUntilPushed() {
+        assertNull(supplier.getInstances());
+        assertEquals(discovered, supplier.get().blockFirst());
+        assertEquals(discovered, supplier.getInstances());
+
+        List<ServiceInstance> pushed = Arrays.asList(instance("10.0.0.2", false), instance("10.0.0.3", false));
+        changeSource.publish(SERVICE_ID, pushed);
+        assertEquals(pushed, supplier.getInstances());
+        assertSame(supplier.get().blockFirst(), supplier.get().blockFirst());
+    }
+
+    @Test
+    void notifyListenersAndUnsubscribeOnDestroy() throws Exception {
+        List<List<ServiceInstance>> notified = new ArrayList<>();
+        supplier.addListener(notified::add);
+        changeSource.publish(SERVICE_ID, Collections.emptyList());
+        assertEquals(1, notified.size());
+        assertTrue(supplier.getInstances().isEmpty());
+
+        supplier.destroy();
+        assertEquals(0, changeSource.subscriberCount(SERVICE_ID));
+    }
+
+    @Test
+    void loadBalancerReadsPushedInstances() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("supplier", supplier);
+        ReactorIsolationRobinLoadBalancer loadBalancer =
+                new ReactorIsolationRobinLoadBalancer(beanFactory.getBeanProvider(ServiceInstanceListSupplier.class), SERVICE_ID);
+
+        assertEquals("10.0.0.1", loadBalancer.choose(request("192.168.1.10")).block().getServer().getHost());
+        changeSource.publish(SERVICE_ID, Arrays.asList(instance("10.0.0.2", false), instance("192.168.1.10", true)));
+        assertEquals("192.168.1.10", loadBalancer.choose(request("192.168.1.10")).block().getServer().getHost());
+        assertEquals("10.0.0.2", loadBalancer.choose(request("192.168.1.11")).block().getServer().getHost());
+    }
+
+    private static class StaticServiceInstanceListSupplier implements ServiceInstanceListSupplier {
+
+        private final List<ServiceInstance> instances;
+
+        StaticServiceInstanceListSupplier(List<ServiceInstance> instances) {
+            this.instances = instances;
+        }
+
+        @Override
+        public String getServiceId() {
+            return SERVICE_ID;
+        }
+
+        @Override
+        public Flux<List<ServiceInstance>> get() {
+            return Flux.just(new ArrayList<>(instances));
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.bestlink.warmup;
+
+import com.bestlink.loadbalancer.ReactorIsolationRobinLoadBalancer;
+import com.bestlink.properties.IsolationProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactiveLoadBalancer;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.cloud.gateway.route.RouteDefinitionLocator;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import reactor.core.publisher.Flux;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author xuzhongkang
+ * @since 2026/10/22 15:30
+ **/
+class LoadBalancerWarmupTest {
+
+    /**
+     * 按服务名创建负载均衡器，记录创建顺序；slow 中的服务获取实例列表时一直没有结果，broken 中的服务创建失败。
+     */
+    private static final class StubLoadBalancerClientFactory extends LoadBalancerClientFactory {
+
+        private final Set<String> slow = new HashSet<>();
+        private final Set<String> broken = new HashSet<>();
+        private final List<String> requested = new CopyOnWriteArrayList<>();
+        private final Map<String, ReactorIsolationRobinLoadBalancer> created = new ConcurrentHashMap<>();
+        private final Map<String, ServiceInstance> instances = new ConcurrentHashMap<>();
+
+        @Override
+        public ReactiveLoadBalancer<ServiceInstance> getInstance(String serviceId) {
+            requested.add(serviceId);
+            if (broken.contains(serviceId)) {
+                throw new IllegalStateException("no such service " + serviceId);
+            }
+            ServiceInstance instance = new DefaultServiceInstance(serviceId + "-1", serviceId, "10.0.0.1", 8080, false, new HashMap<>());
+            instances.put(serviceId, instance);
+            DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+            beanFactory.registerSingleton("supplier", new ServiceInstanceListSupplier() {
+                @Override
+                public String getServiceId() {
+                    return serviceId;
+                }
+
+                @Override
+                public Flux<List<ServiceInstance>> get() {
+                    return slow.contains(serviceId) ? Flux.never() : Flux.just(Collections.singletonList(instance));
+                }
+            });
+            ReactorIsolationRobinLoadBalancer loadBalancer =
+                    new ReactorIsolationRobinLoadBalancer(beanFactory.getBeanProvider(ServiceInstanceListSupplier.class), serviceId);
+            created.put(serviceId, loadBalancer);
+            return loadBalancer;
+        }
+
+        private boolean isPrimed(String serviceId) {
+            ReactorIsolationRobinLoadBalancer loadBalancer = created.get(serviceId);
+            // 构建路由快照后才有实例统计
+            return loadBalancer != null && loadBalancer.statsOf(instances.get(serviceId)) != null;
+        }
+    }
+
+    private static ObjectProvider<RouteDefinitionLocator> routes(String... uris) {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        if (uris.length > 0) {
+            RouteDefinitionLocator locator = () -> Flux.fromArray(uris).map(uri -> {
+                RouteDefinition definition = new RouteDefinition();
+                definition.setUri(URI.create(uri));
+                return definition;
+            });
+            beanFactory.registerSingleton("routeDefinitionLocator", locator);
+        }
+        return beanFactory.getBeanProvider(RouteDefinitionLocator.class);
+    }
+
+    private static IsolationProperties.Warmup properties(String... services) {
+        IsolationProperties.Warmup properties = new IsolationProperties.Warmup();
+        properties.setEnabled(true);
+        properties.setServices(new ArrayList<>(Arrays.asList(services)));
+        return properties;
+    }
+
+    @Test
+    void collectsConfiguredAndRouteServices() {
+        IsolationProperties.Warmup properties = properties(" user-service ", "", "order-service");
+        ObjectProvider<RouteDefinitionLocator> routes = routes("lb://order-service", "lb://pay-service", "http://example.com", "lb:/no-host");
+        LoadBalancerWarmup warmup = new LoadBalancerWarmup(new StubLoadBalancerClientFactory(), routes, properties);
+        assertEquals(Arrays.asList("user-service", "order-service", "pay-service"), new ArrayList<>(warmup.collectServiceIds()));
+
+        properties.setFromRoutes(false);
+        assertEquals(Arrays.asList("user-service", "order-service"), new ArrayList<>(warmup.collectServiceIds()));
+
+        // 没有路由定义（非 gateway 或者没有配置路由）
+        properties.setFromRoutes(true);
+        assertEquals(2, new LoadBalancerWarmup(new StubLoadBalancerClientFactory(), routes(), properties).collectServiceIds().size());
+    }
+
+    @Test
+    void createsLoadBalancersAndBuildsSnapshots() {
+        StubLoadBalancerClientFactory factory = new StubLoadBalancerClientFactory();
+        factory.broken.add("broken-service");
+        LoadBalancerWarmup warmup = new LoadBalancerWarmup(factory, routes("lb://order-service"),
+                properties("user-service", "broken-service"));
+        warmup.start();
+
+        assertTrue(warmup.isRunning());
+        assertEquals(Arrays.asList("user-service", "broken-service", "order-service"), factory.requested);
+        // 创建失败的服务不影响其他服务
+        assertTrue(factory.isPrimed("user-service"));
+        assertTrue(factory.isPrimed("order-service"));
+    }
+
+    @Test
+    void slowServiceDoesNotBlockStartupBeyondTimeout() {
+        StubLoadBalancerClientFactory factory = new StubLoadBalancerClientFactory();
+        factory.slow.add("slow-service");
+        IsolationProperties.Warmup properties = properties("slow-service", "user-service");
+        properties.setTimeout(Duration.ofMillis(300));
+        LoadBalancerWarmup warmup = new LoadBalancerWarmup(factory, routes(), properties);
+
+        long start = System.nanoTime();
+        warmup.start();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsedMillis < 3000, "warm-up took " + elapsedMillis + "ms");
+        assertTrue(factory.isPrimed("user-service"));
+        assertFalse(factory.isPrimed("slow-service"));
+    }
+
+    @Test
+    void nothingToWarmUp() {
+        StubLoadBalancerClientFactory factory = new StubLoadBalancerClientFactory();
+        new LoadBalancerWarmup(factory, routes(), properties()).start();
+        assertTrue(factory.requested.isEmpty());
+    }
+}